@@ -0,0 +1,58 @@
+package org.example.benchmark;
+
+import org.example.model.CheckoutRequest;
+import org.example.model.CheckoutResult;
+import org.example.service.ToolRentalService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of pricing quote baskets through {@link ToolRentalService#checkoutBatch}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchPricingBenchmark {
+
+    private static final String[] TOOL_CODES = {"CHNS", "LADW", "JAKD", "JAKR"};
+
+    @Param({"16", "256", "4096"})
+    public int basketSize;
+
+    private ToolRentalService toolRentalService;
+    private List<CheckoutRequest> basket;
+
+    @Setup
+    public void setUp() {
+        toolRentalService = new ToolRentalService();
+        Random random = new Random(42);
+        basket = new ArrayList<>(basketSize);
+        for (int i = 0; i < basketSize; i++) {
+            basket.add(new CheckoutRequest(TOOL_CODES[random.nextInt(TOOL_CODES.length)], 1 + random.nextInt(30),
+                    random.nextInt(101), LocalDate.of(2020, 1, 1).plusDays(random.nextInt(3 * 365))));
+        }
+    }
+
+    @Benchmark
+    public List<CheckoutResult> checkoutBatch() {
+        return toolRentalService.checkoutBatch(basket);
+    }
+}
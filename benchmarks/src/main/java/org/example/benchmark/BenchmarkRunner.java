@@ -0,0 +1,31 @@
+package org.example.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkRunner
+{
+    /**
+     * Runs the pricing benchmarks with the GC profiler enabled.
+     * <p>
+     * Accepts the standard JMH command-line options, so a subset of the benchmarks
+     * can be selected with a regular expression and the fork and iteration counts
+     * can be overridden.
+     * </p>
+     *
+     * @param args JMH command-line options
+     */
+    public static void main( String[] args ) throws CommandLineOptionException, RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
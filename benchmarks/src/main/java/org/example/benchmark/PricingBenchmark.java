@@ -0,0 +1,103 @@
+package org.example.benchmark;
+
+import org.example.model.RentalAgreement;
+import org.example.model.Tool;
+import org.example.service.ToolRentalService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the single-checkout pricing path for every tool code and a range of
+ * rental shapes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    /**
+     * The rental shapes being priced.
+     */
+    public enum Rental {
+        /** Three days in an ordinary March week. */
+        SHORT(LocalDate.of(2022, 3, 7), 3),
+        /** A full year. */
+        LONG(LocalDate.of(2022, 1, 3), 365),
+        /** Nine days across the observed Independence Day. */
+        HOLIDAY(LocalDate.of(2020, 7, 2), 9),
+        /** A month crossing into the next year. */
+        YEAR_END(LocalDate.of(2021, 12, 20), 30);
+
+        private final LocalDate checkoutDate;
+        private final int rentalDays;
+
+        Rental(LocalDate checkoutDate, int rentalDays) {
+            this.checkoutDate = checkoutDate;
+            this.rentalDays = rentalDays;
+        }
+    }
+
+    @Param({"CHNS", "LADW", "JAKD", "JAKR"})
+    public String toolCode;
+
+    @Param({"SHORT", "LONG", "HOLIDAY", "YEAR_END"})
+    public Rental rental;
+
+    private ToolRentalService toolRentalService;
+    private Tool tool;
+    private LocalDate checkoutDate;
+    private LocalDate dueDate;
+    private int rentalDays;
+    private BigDecimal preDiscountCharge;
+
+    @Setup
+    public void setUp() {
+        toolRentalService = new ToolRentalService();
+        checkoutDate = rental.checkoutDate;
+        rentalDays = rental.rentalDays;
+        dueDate = checkoutDate.plusDays(rentalDays);
+        tool = toolRentalService.getToolCatalog().get(toolCode);
+        preDiscountCharge = toolRentalService.checkout(toolCode, rentalDays, 20, checkoutDate).getPreDiscountCharge();
+    }
+
+    @Benchmark
+    public RentalAgreement checkout() {
+        return toolRentalService.checkout(toolCode, rentalDays, 20, checkoutDate);
+    }
+
+    @Benchmark
+    public int chargeDays() {
+        return toolRentalService.chargeDays(tool, rentalDays, checkoutDate);
+    }
+
+    @Benchmark
+    public int weekendInRange() {
+        return toolRentalService.weekendInRange(checkoutDate, dueDate);
+    }
+
+    @Benchmark
+    public int holidaysInRange() {
+        return toolRentalService.holidaysInRange(checkoutDate, dueDate);
+    }
+
+    @Benchmark
+    public BigDecimal calculateDiscountAmount() {
+        return toolRentalService.calculateDiscountAmount(preDiscountCharge, 20);
+    }
+}
@@ -1,9 +1,13 @@
 package org.example;
 
 
+import org.example.http.QuoteServer;
+import org.example.metrics.RentalMetrics;
 import org.example.model.RentalAgreement;
 import org.example.service.ToolRentalService;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.time.LocalDate;
 
 public class App
@@ -17,11 +21,29 @@ public class App
      * discount percent, and checkout date). It then prints the rental agreement
      * details to the console.
      * </p>
+     * <p>
+     * When started as {@code serve [port]} it instead runs the HTTP quote service
+     * on the given port, 8080 by default, with metrics enabled, until the process is stopped.
+     * </p>
      *
-     * @param args the command-line arguments (not used in this method)
+     * @param args the command-line arguments; {@code serve [port]} starts the HTTP service
+     * @throws IOException if the HTTP service cannot bind its port
      */
-    public static void main( String[] args )
+    public static void main( String[] args ) throws IOException
     {
+        if (args.length > 0 && args[0].equals("serve")) {
+            // Must be set before the JDK HTTP server is loaded; see QuoteServer
+            if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+                System.setProperty("sun.net.httpserver.nodelay", "true");
+            }
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            ToolRentalService toolRentalService = new ToolRentalService();
+            toolRentalService.setMetrics(new RentalMetrics());
+            QuoteServer server = QuoteServer.start(toolRentalService, new InetSocketAddress(port));
+            System.out.println("Serving quotes on port " + server.getAddress().getPort());
+            return;
+        }
+
         LocalDate checkoutDate = LocalDate.of(2020, 7, 3); // Assuming today's date for checkout
 
         ToolRentalService toolRentalService = new ToolRentalService();
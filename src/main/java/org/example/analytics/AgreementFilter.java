@@ -0,0 +1,123 @@
+package org.example.analytics;
+
+import org.example.catalog.CatalogSnapshot;
+import org.example.model.Tool;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Selects the agreements a revenue report covers.
+ * <p>
+ * Filters are immutable; each {@code with} method returns a narrower copy. Criteria that
+ * are not set match every agreement.
+ * </p>
+ */
+public final class AgreementFilter {
+
+    private static final AgreementFilter ALL = new AgreementFilter(Long.MIN_VALUE, Long.MAX_VALUE, null, null, null, 0, 100);
+
+    private final long firstCheckoutEpochDay;
+    private final long lastCheckoutEpochDay;
+    private final Set<String> toolCodes;
+    private final Set<String> toolTypes;
+    private final Set<String> brands;
+    private final int minimumDiscountPercent;
+    private final int maximumDiscountPercent;
+
+    private AgreementFilter(long firstCheckoutEpochDay, long lastCheckoutEpochDay, Set<String> toolCodes,
+                            Set<String> toolTypes, Set<String> brands, int minimumDiscountPercent,
+                            int maximumDiscountPercent) {
+        this.firstCheckoutEpochDay = firstCheckoutEpochDay;
+        this.lastCheckoutEpochDay = lastCheckoutEpochDay;
+        this.toolCodes = toolCodes;
+        this.toolTypes = toolTypes;
+        this.brands = brands;
+        this.minimumDiscountPercent = minimumDiscountPercent;
+        this.maximumDiscountPercent = maximumDiscountPercent;
+    }
+
+    /**
+     * Returns a filter matching every agreement.
+     *
+     * @return the unrestricted filter
+     */
+    public static AgreementFilter all() {
+        return ALL;
+    }
+
+    /**
+     * Restricts the filter to agreements checked out between two dates, inclusive.
+     *
+     * @param from  the first checkout date
+     * @param to    the last checkout date
+     * @return the narrower filter
+     */
+    public AgreementFilter withCheckoutBetween(LocalDate from, LocalDate to) {
+        return new AgreementFilter(from.toEpochDay(), to.toEpochDay(), toolCodes, toolTypes, brands,
+                minimumDiscountPercent, maximumDiscountPercent);
+    }
+
+    public AgreementFilter withToolCodes(Set<String> codes) {
+        return new AgreementFilter(firstCheckoutEpochDay, lastCheckoutEpochDay, copy(codes), toolTypes, brands,
+                minimumDiscountPercent, maximumDiscountPercent);
+    }
+
+    public AgreementFilter withToolTypes(Set<String> types) {
+        return new AgreementFilter(firstCheckoutEpochDay, lastCheckoutEpochDay, toolCodes, copy(types), brands,
+                minimumDiscountPercent, maximumDiscountPercent);
+    }
+
+    public AgreementFilter withBrands(Set<String> brandNames) {
+        return new AgreementFilter(firstCheckoutEpochDay, lastCheckoutEpochDay, toolCodes, toolTypes, copy(brandNames),
+                minimumDiscountPercent, maximumDiscountPercent);
+    }
+
+    /**
+     * Restricts the filter to agreements whose discount percentage is within a range.
+     *
+     * @param minimum  the lowest discount percentage, inclusive
+     * @param maximum  the highest discount percentage, inclusive
+     * @return the narrower filter
+     */
+    public AgreementFilter withDiscountBetween(int minimum, int maximum) {
+        return new AgreementFilter(firstCheckoutEpochDay, lastCheckoutEpochDay, toolCodes, toolTypes, brands,
+                minimum, maximum);
+    }
+
+    long getFirstCheckoutEpochDay() {
+        return firstCheckoutEpochDay;
+    }
+
+    long getLastCheckoutEpochDay() {
+        return lastCheckoutEpochDay;
+    }
+
+    int getMinimumDiscountPercent() {
+        return minimumDiscountPercent;
+    }
+
+    int getMaximumDiscountPercent() {
+        return maximumDiscountPercent;
+    }
+
+    /**
+     * Resolves the tool criteria against a catalog into a mask indexed by tool index.
+     */
+    boolean[] toolMask(CatalogSnapshot catalog) {
+        boolean[] mask = new boolean[catalog.size()];
+        for (int i = 0; i < mask.length; i++) {
+            Tool tool = catalog.toolAt(i);
+            mask[i] = (toolCodes == null || toolCodes.contains(catalog.codeAt(i)))
+                    && (toolTypes == null || toolTypes.contains(tool.getType()))
+                    && (brands == null || brands.contains(tool.getBrand()));
+        }
+        return mask;
+    }
+
+    private static Set<String> copy(Set<String> values) {
+        return Collections.unmodifiableSet(new HashSet<>(values));
+    }
+}
@@ -0,0 +1,445 @@
+package org.example.analytics;
+
+import org.example.catalog.CatalogSnapshot;
+import org.example.model.CompactRentalAgreement;
+import org.example.model.RentalAgreement;
+import org.example.model.Tool;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * An append-only, column-oriented store of rental agreements for revenue analytics.
+ * <p>
+ * Agreements are kept in chunks of 65,536 rows, each column a primitive array: tool
+ * index into the store's catalog snapshot, checkout epoch day, rental and charge days,
+ * discount percentage, and the pre-discount charge and discount in cents. A row takes 33
+ * bytes instead of a {@link RentalAgreement} with its {@code BigDecimal}s and dates.
+ * </p>
+ * <p>
+ * Reports scan the chunks in parallel. Each chunk records its earliest and latest
+ * checkout day so date filters skip whole chunks, and the per-row loop only reads array
+ * elements and combines its comparisons without short-circuiting, which keeps it free of
+ * unpredictable branches and open to vectorization by the JIT. Totals by checkout day are
+ * kept per chunk for only the days the chunk holds, so a report over a span of years, or
+ * of rows billions of days apart, never allocates an array the length of the whole span.
+ * </p>
+ * <p>
+ * Appends are serialized; reports may run concurrently with appends and see every row
+ * appended before they started.
+ * </p>
+ */
+public final class AgreementStore {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int DISCOUNT_BUCKETS = 11;
+
+    private final CatalogSnapshot catalog;
+    private final int[] typeIds;
+    private final int[] brandIds;
+    private final String[] typeNames;
+    private final String[] brandNames;
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile int size;
+
+    /**
+     * Creates an empty store for agreements of the tools of a catalog snapshot.
+     *
+     * @param catalog the catalog snapshot whose tool indexes the store records
+     */
+    public AgreementStore(CatalogSnapshot catalog) {
+        this.catalog = catalog;
+        Map<String, Integer> types = new LinkedHashMap<>();
+        Map<String, Integer> brands = new LinkedHashMap<>();
+        typeIds = new int[catalog.size()];
+        brandIds = new int[catalog.size()];
+        for (int i = 0; i < catalog.size(); i++) {
+            Tool tool = catalog.toolAt(i);
+            typeIds[i] = types.computeIfAbsent(tool.getType(), type -> types.size());
+            brandIds[i] = brands.computeIfAbsent(tool.getBrand(), brand -> brands.size());
+        }
+        typeNames = types.keySet().toArray(new String[0]);
+        brandNames = brands.keySet().toArray(new String[0]);
+    }
+
+    public CatalogSnapshot getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Returns the number of agreements in the store.
+     *
+     * @return the row count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends an agreement.
+     *
+     * @param agreement the agreement to append
+     * @throws IllegalArgumentException if its tool is not in the store's catalog or a
+     *                                  charge is not a whole number of cents
+     */
+    public void append(RentalAgreement agreement) {
+        int toolIndex = catalog.indexOf(agreement.getToolCode());
+        if (toolIndex < 0) {
+            throw new IllegalArgumentException("Invalid tool code: " + agreement.getToolCode());
+        }
+        append(toolIndex, agreement.getCheckoutDate().toEpochDay(), agreement.getRentalDays(),
+                agreement.getChargeDays(), agreement.getDiscountPercent(), toCents(agreement.getPreDiscountCharge()),
+                toCents(agreement.getDiscountAmount()));
+    }
+
+    /**
+     * Appends a compact agreement.
+     *
+     * @param agreement the agreement to append
+     * @throws IllegalArgumentException if its tool is not in the store's catalog
+     */
+    public void append(CompactRentalAgreement agreement) {
+        int toolIndex = agreement.getCatalog() == catalog ? agreement.getToolIndex() : catalog.indexOf(agreement.getToolCode());
+        if (toolIndex < 0) {
+            throw new IllegalArgumentException("Invalid tool code: " + agreement.getToolCode());
+        }
+        append(toolIndex, agreement.getCheckoutEpochDay(), agreement.getRentalDays(), agreement.getChargeDays(),
+                agreement.getDiscountPercent(), agreement.getPreDiscountChargeCents(), agreement.getDiscountAmountCents());
+    }
+
+    /**
+     * Appends an agreement given as its primitive values.
+     *
+     * @param toolIndex               the index of the tool in the store's catalog
+     * @param checkoutEpochDay        the epoch day of checkout
+     * @param rentalDays              the number of days the tool is rented for
+     * @param chargeDays              the number of chargeable days
+     * @param discountPercent         the discount percentage, from 0 to 100
+     * @param preDiscountChargeCents  the pre-discount charge in cents
+     * @param discountAmountCents     the discount amount in cents
+     */
+    public synchronized void append(int toolIndex, long checkoutEpochDay, int rentalDays, int chargeDays,
+                                    int discountPercent, long preDiscountChargeCents, long discountAmountCents) {
+        if (toolIndex < 0 || toolIndex >= catalog.size()) {
+            throw new IllegalArgumentException("Tool index " + toolIndex + " is not in the catalog");
+        }
+        if (discountPercent < 0 || discountPercent > 100) {
+            throw new IllegalArgumentException("Discount percent must be between 0 and 100");
+        }
+        int row = size;
+        Chunk[] current = chunks;
+        if ((row >>> CHUNK_BITS) == current.length) {
+            current = Arrays.copyOf(current, current.length + 1);
+            current[current.length - 1] = new Chunk();
+            chunks = current;
+        }
+        current[row >>> CHUNK_BITS].set(row & (CHUNK_SIZE - 1), toolIndex, Math.toIntExact(checkoutEpochDay),
+                rentalDays, chargeDays, discountPercent, preDiscountChargeCents, discountAmountCents);
+        // Publishes the row to reports started after this point
+        size = row + 1;
+    }
+
+    /**
+     * Totals the agreements matching a filter, grouped by one dimension.
+     *
+     * @param filter   the agreements to include
+     * @param groupBy  the dimension to group by
+     * @return the totals per group
+     */
+    public RevenueReport revenue(AgreementFilter filter, GroupBy groupBy) {
+        final int rows = size;
+        final Chunk[] scanned = chunks;
+        final boolean[] toolMask = filter.toolMask(catalog);
+        final int firstDay = (int) Math.max(Integer.MIN_VALUE, filter.getFirstCheckoutEpochDay());
+        final int lastDay = (int) Math.min(Integer.MAX_VALUE, filter.getLastCheckoutEpochDay());
+        final int minimumDiscount = filter.getMinimumDiscountPercent();
+        final int maximumDiscount = filter.getMaximumDiscountPercent();
+        int chunkCount = (rows + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        if (groupBy == GroupBy.CHECKOUT_DAY) {
+            DayTotals totals = IntStream.range(0, chunkCount).parallel()
+                    .mapToObj(c -> dayTotals(scanned[c], Math.min(CHUNK_SIZE, rows - (c << CHUNK_BITS)), toolMask,
+                            firstDay, lastDay, minimumDiscount, maximumDiscount))
+                    .reduce(DayTotals.EMPTY, DayTotals::merge);
+            List<RevenueRow> reportRows = new ArrayList<>(totals.days.length);
+            for (int d = 0; d < totals.days.length; d++) {
+                int slot = d * 4;
+                reportRows.add(new RevenueRow(LocalDate.ofEpochDay(totals.days[d]).toString(), totals.sums[slot],
+                        totals.sums[slot + 1], totals.sums[slot + 2], totals.sums[slot + 3]));
+            }
+            return new RevenueReport(groupBy, reportRows);
+        }
+
+        // Map each tool index to a dense group id
+        final int[] toolGroups;
+        final int groupCount;
+        switch (groupBy) {
+            case TOOL:
+                toolGroups = identity(catalog.size());
+                groupCount = catalog.size();
+                break;
+            case TOOL_TYPE:
+                toolGroups = typeIds;
+                groupCount = typeNames.length;
+                break;
+            case BRAND:
+                toolGroups = brandIds;
+                groupCount = brandNames.length;
+                break;
+            default:
+                toolGroups = null;
+                groupCount = DISCOUNT_BUCKETS;
+                break;
+        }
+
+        long[] totals = IntStream.range(0, chunkCount).parallel()
+                .mapToObj(c -> {
+                    Chunk chunk = scanned[c];
+                    long[] chunkTotals = new long[groupCount * 4];
+                    if (chunk.maximumEpochDay < firstDay || chunk.minimumEpochDay > lastDay) {
+                        return chunkTotals;
+                    }
+                    int length = Math.min(CHUNK_SIZE, rows - (c << CHUNK_BITS));
+                    for (int i = 0; i < length; i++) {
+                        int tool = chunk.toolIndexes[i];
+                        int day = chunk.checkoutEpochDays[i];
+                        int discount = chunk.discountPercents[i];
+                        boolean match = toolMask[tool] & day >= firstDay & day <= lastDay
+                                & discount >= minimumDiscount & discount <= maximumDiscount;
+                        if (match) {
+                            int group = toolGroups != null ? toolGroups[tool] : discount / 10;
+                            int slot = group * 4;
+                            chunkTotals[slot]++;
+                            chunkTotals[slot + 1] += chunk.chargeDays[i];
+                            chunkTotals[slot + 2] += chunk.preDiscountChargeCents[i];
+                            chunkTotals[slot + 3] += chunk.discountAmountCents[i];
+                        }
+                    }
+                    return chunkTotals;
+                })
+                .reduce(new long[groupCount * 4], AgreementStore::add);
+
+        List<RevenueRow> reportRows = new ArrayList<>();
+        for (int group = 0; group < groupCount; group++) {
+            int slot = group * 4;
+            if (totals[slot] > 0) {
+                reportRows.add(new RevenueRow(groupLabel(groupBy, group), totals[slot], totals[slot + 1],
+                        totals[slot + 2], totals[slot + 3]));
+            }
+        }
+        return new RevenueReport(groupBy, reportRows);
+    }
+
+    /**
+     * Totals the matching rows of one chunk by checkout day. When the chunk's days fit in
+     * an array no longer than the chunk they are counted in place; otherwise the matching
+     * rows are sorted by day and counted in runs.
+     */
+    private static DayTotals dayTotals(Chunk chunk, int length, boolean[] toolMask, int firstDay, int lastDay,
+                                       int minimumDiscount, int maximumDiscount) {
+        int first = Math.max(firstDay, chunk.minimumEpochDay);
+        int last = Math.min(lastDay, chunk.maximumEpochDay);
+        if (last < first) {
+            return DayTotals.EMPTY;
+        }
+        if ((long) last - first < length) {
+            long[] sums = new long[(last - first + 1) * 4];
+            for (int i = 0; i < length; i++) {
+                int tool = chunk.toolIndexes[i];
+                int day = chunk.checkoutEpochDays[i];
+                int discount = chunk.discountPercents[i];
+                boolean match = toolMask[tool] & day >= first & day <= last
+                        & discount >= minimumDiscount & discount <= maximumDiscount;
+                if (match) {
+                    int slot = (day - first) * 4;
+                    sums[slot]++;
+                    sums[slot + 1] += chunk.chargeDays[i];
+                    sums[slot + 2] += chunk.preDiscountChargeCents[i];
+                    sums[slot + 3] += chunk.discountAmountCents[i];
+                }
+            }
+            int dayCount = 0;
+            for (int slot = 0; slot < sums.length; slot += 4) {
+                if (sums[slot] > 0) {
+                    dayCount++;
+                }
+            }
+            DayTotals totals = new DayTotals(dayCount);
+            for (int slot = 0, d = 0; slot < sums.length; slot += 4) {
+                if (sums[slot] > 0) {
+                    totals.days[d] = first + slot / 4;
+                    System.arraycopy(sums, slot, totals.sums, d * 4, 4);
+                    d++;
+                }
+            }
+            return totals;
+        }
+
+        // Sort the matching rows by day, offset from the first day, with the row in the low bits
+        long[] keys = new long[length];
+        int matches = 0;
+        for (int i = 0; i < length; i++) {
+            int tool = chunk.toolIndexes[i];
+            int day = chunk.checkoutEpochDays[i];
+            int discount = chunk.discountPercents[i];
+            if (toolMask[tool] && day >= first && day <= last
+                    && discount >= minimumDiscount && discount <= maximumDiscount) {
+                keys[matches++] = ((long) day - first) << CHUNK_BITS | i;
+            }
+        }
+        Arrays.sort(keys, 0, matches);
+        int dayCount = 0;
+        for (int k = 0; k < matches; k++) {
+            if (k == 0 || keys[k] >>> CHUNK_BITS != keys[k - 1] >>> CHUNK_BITS) {
+                dayCount++;
+            }
+        }
+        DayTotals totals = new DayTotals(dayCount);
+        for (int k = 0, d = -1; k < matches; k++) {
+            if (k == 0 || keys[k] >>> CHUNK_BITS != keys[k - 1] >>> CHUNK_BITS) {
+                d++;
+                totals.days[d] = (int) (first + (keys[k] >>> CHUNK_BITS));
+            }
+            int i = (int) (keys[k] & (CHUNK_SIZE - 1));
+            int slot = d * 4;
+            totals.sums[slot]++;
+            totals.sums[slot + 1] += chunk.chargeDays[i];
+            totals.sums[slot + 2] += chunk.preDiscountChargeCents[i];
+            totals.sums[slot + 3] += chunk.discountAmountCents[i];
+        }
+        return totals;
+    }
+
+    private String groupLabel(GroupBy groupBy, int group) {
+        switch (groupBy) {
+            case TOOL:
+                return catalog.codeAt(group);
+            case TOOL_TYPE:
+                return typeNames[group];
+            case BRAND:
+                return brandNames[group];
+            default:
+                return group == DISCOUNT_BUCKETS - 1 ? "100" : group * 10 + "-" + (group * 10 + 9);
+        }
+    }
+
+    private static long[] add(long[] left, long[] right) {
+        long[] sum = new long[left.length];
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] = left[i] + right[i];
+        }
+        return sum;
+    }
+
+    private static int[] identity(int length) {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = i;
+        }
+        return values;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        try {
+            return amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Charge is not a whole number of cents: " + amount, e);
+        }
+    }
+
+    /**
+     * Totals by checkout day for only the days that have rows: the days in ascending order,
+     * and for each day its count, charge days, pre-discount cents and discount cents.
+     */
+    private static final class DayTotals {
+
+        static final DayTotals EMPTY = new DayTotals(0);
+
+        final int[] days;
+        final long[] sums;
+
+        DayTotals(int dayCount) {
+            days = new int[dayCount];
+            sums = new long[dayCount * 4];
+        }
+
+        /**
+         * Merges two sets of totals, adding the totals of the days both hold.
+         */
+        static DayTotals merge(DayTotals left, DayTotals right) {
+            if (left.days.length == 0) {
+                return right;
+            }
+            if (right.days.length == 0) {
+                return left;
+            }
+            int dayCount = 0;
+            for (int l = 0, r = 0; l < left.days.length || r < right.days.length; dayCount++) {
+                if (r == right.days.length || l < left.days.length && left.days[l] < right.days[r]) {
+                    l++;
+                } else if (l == left.days.length || right.days[r] < left.days[l]) {
+                    r++;
+                } else {
+                    l++;
+                    r++;
+                }
+            }
+            DayTotals merged = new DayTotals(dayCount);
+            for (int l = 0, r = 0, d = 0; d < dayCount; d++) {
+                boolean fromLeft = r == right.days.length || l < left.days.length && left.days[l] <= right.days[r];
+                boolean fromRight = l == left.days.length || r < right.days.length && right.days[r] <= left.days[l];
+                if (fromLeft) {
+                    merged.days[d] = left.days[l];
+                    for (int j = 0; j < 4; j++) {
+                        merged.sums[d * 4 + j] += left.sums[l * 4 + j];
+                    }
+                    l++;
+                }
+                if (fromRight) {
+                    merged.days[d] = right.days[r];
+                    for (int j = 0; j < 4; j++) {
+                        merged.sums[d * 4 + j] += right.sums[r * 4 + j];
+                    }
+                    r++;
+                }
+            }
+            return merged;
+        }
+    }
+
+    /**
+     * One block of rows, a primitive array per column.
+     */
+    private static final class Chunk {
+
+        final int[] toolIndexes = new int[CHUNK_SIZE];
+        final int[] checkoutEpochDays = new int[CHUNK_SIZE];
+        final int[] rentalDays = new int[CHUNK_SIZE];
+        final int[] chargeDays = new int[CHUNK_SIZE];
+        final byte[] discountPercents = new byte[CHUNK_SIZE];
+        final long[] preDiscountChargeCents = new long[CHUNK_SIZE];
+        final long[] discountAmountCents = new long[CHUNK_SIZE];
+        int minimumEpochDay = Integer.MAX_VALUE;
+        int maximumEpochDay = Integer.MIN_VALUE;
+
+        void set(int row, int toolIndex, int checkoutEpochDay, int rentalDayCount, int chargeDayCount,
+                 int discountPercent, long preDiscountCents, long discountCents) {
+            toolIndexes[row] = toolIndex;
+            checkoutEpochDays[row] = checkoutEpochDay;
+            rentalDays[row] = rentalDayCount;
+            chargeDays[row] = chargeDayCount;
+            discountPercents[row] = (byte) discountPercent;
+            preDiscountChargeCents[row] = preDiscountCents;
+            discountAmountCents[row] = discountCents;
+            minimumEpochDay = Math.min(minimumEpochDay, checkoutEpochDay);
+            maximumEpochDay = Math.max(maximumEpochDay, checkoutEpochDay);
+        }
+    }
+}
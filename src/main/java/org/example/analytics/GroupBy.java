@@ -0,0 +1,22 @@
+package org.example.analytics;
+
+/**
+ * The dimension a revenue report is grouped by.
+ */
+public enum GroupBy {
+
+    /** One group per tool code. */
+    TOOL,
+
+    /** One group per tool type. */
+    TOOL_TYPE,
+
+    /** One group per tool brand. */
+    BRAND,
+
+    /** One group per checkout date. */
+    CHECKOUT_DAY,
+
+    /** Groups of ten discount percentage points, 0-9 to 90-99, and 100 on its own. */
+    DISCOUNT_BUCKET
+}
@@ -0,0 +1,59 @@
+package org.example.analytics;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Revenue totals grouped by one {@link GroupBy} dimension, ordered by group.
+ */
+public final class RevenueReport {
+
+    private final GroupBy groupBy;
+    private final List<RevenueRow> rows;
+
+    RevenueReport(GroupBy groupBy, List<RevenueRow> rows) {
+        this.groupBy = groupBy;
+        this.rows = Collections.unmodifiableList(rows);
+    }
+
+    public GroupBy getGroupBy() {
+        return groupBy;
+    }
+
+    /**
+     * Returns one row per group with at least one matching agreement.
+     *
+     * @return the rows, ordered by tool index, type or brand in catalog order, date or bucket
+     */
+    public List<RevenueRow> getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the row of a group.
+     *
+     * @param group the group label
+     * @return the row, or {@code null} if no agreement fell into the group
+     */
+    public RevenueRow getRow(String group) {
+        for (RevenueRow row : rows) {
+            if (row.getGroup().equals(group)) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the sum of all rows' final charges.
+     *
+     * @return the total final charge in cents
+     */
+    public long getTotalFinalChargeCents() {
+        long total = 0;
+        for (RevenueRow row : rows) {
+            total += row.getFinalChargeCents();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.analytics;
+
+import java.math.BigDecimal;
+
+/**
+ * The totals of one group of a {@link RevenueReport}.
+ */
+public final class RevenueRow {
+
+    private final String group;
+    private final long agreementCount;
+    private final long chargeDays;
+    private final long preDiscountChargeCents;
+    private final long discountAmountCents;
+
+    RevenueRow(String group, long agreementCount, long chargeDays, long preDiscountChargeCents,
+               long discountAmountCents) {
+        this.group = group;
+        this.agreementCount = agreementCount;
+        this.chargeDays = chargeDays;
+        this.preDiscountChargeCents = preDiscountChargeCents;
+        this.discountAmountCents = discountAmountCents;
+    }
+
+    /**
+     * Returns the group's label: a tool code, type or brand, an ISO checkout date, or a
+     * discount bucket such as {@code 10-19}.
+     *
+     * @return the group label
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    public long getAgreementCount() {
+        return agreementCount;
+    }
+
+    public long getChargeDays() {
+        return chargeDays;
+    }
+
+    public long getPreDiscountChargeCents() {
+        return preDiscountChargeCents;
+    }
+
+    public long getDiscountAmountCents() {
+        return discountAmountCents;
+    }
+
+    public long getFinalChargeCents() {
+        return preDiscountChargeCents - discountAmountCents;
+    }
+
+    public BigDecimal getFinalCharge() {
+        return BigDecimal.valueOf(getFinalChargeCents(), 2);
+    }
+
+    @Override
+    public String toString() {
+        return group + ": " + agreementCount + " agreements, " + chargeDays + " charge days, final charge "
+                + getFinalCharge();
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.calendar;
+
+import java.time.DayOfWeek;
+
+/**
+ * Date arithmetic on epoch days (days since 1970-01-01).
+ * <p>
+ * These helpers let the pricing code count weekdays and locate holidays with plain
+ * {@code long} arithmetic instead of walking {@link java.time.LocalDate} instances
+ * one day at a time.
+ * </p>
+ */
+public final class EpochDays {
+
+    private static final long DAYS_0000_TO_1970 = 719528L;
+
+    private EpochDays() {
+    }
+
+    /**
+     * Returns the epoch day of the given ISO date.
+     * <p>
+     * This is the same calculation as {@link java.time.LocalDate#toEpochDay()}, without
+     * creating a {@code LocalDate}. The arguments are assumed to form a valid date.
+     * </p>
+     *
+     * @param year   the proleptic year
+     * @param month  the month of year, from 1 to 12
+     * @param day    the day of month, from 1 to 31
+     * @return the epoch day of the date
+     */
+    public static long of(int year, int month, int day) {
+        long y = year;
+        long m = month;
+        long total = 365 * y;
+        if (y >= 0) {
+            total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        } else {
+            total -= y / -4 - y / -100 + y / -400;
+        }
+        total += (367 * m - 362) / 12;
+        total += day - 1;
+        if (m > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Returns the ISO date of the given epoch day packed into one {@code int} as
+     * {@code year * 10000 + month * 100 + day}.
+     * <p>
+     * This is the inverse of {@link #of(int, int, int)} for formatting dates without
+     * creating a {@code LocalDate}. Years before 1 are not supported.
+     * </p>
+     *
+     * @param epochDay the epoch day
+     * @return the packed date, for example {@code 20200703}
+     */
+    public static int toYearMonthDay(long epochDay) {
+        // Civil-from-days on a calendar whose years start on March 1st, so the leap day is last
+        long days = epochDay + 719468;
+        long era = Math.floorDiv(days, 146097L);
+        long dayOfEra = days - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 10000 + month * 100 + day);
+    }
+
+    /**
+     * Returns the number of days in a month.
+     *
+     * @param year   the proleptic year
+     * @param month  the month of year, from 1 to 12
+     * @return the length of the month, from 28 to 31
+     */
+    public static int lengthOfMonth(int year, int month) {
+        if (month == 2) {
+            return isLeapYear(year) ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /**
+     * Returns the proleptic year containing the given epoch day.
+     *
+     * @param epochDay the epoch day
+     * @return the year of the epoch day
+     */
+    public static int yearOf(long epochDay) {
+        // 146097 days per 400 years; the estimate is off by at most one year
+        int year = (int) (Math.floorDiv(epochDay * 400, 146097L) + 1970);
+        while (of(year, 1, 1) > epochDay) {
+            year--;
+        }
+        while (of(year + 1, 1, 1) <= epochDay) {
+            year++;
+        }
+        return year;
+    }
+
+    /**
+     * Checks if the given proleptic year is a leap year.
+     *
+     * @param year the year to check
+     * @return {@code true} if the year is a leap year, {@code false} otherwise
+     */
+    public static boolean isLeapYear(long year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Returns the day of week of the given epoch day.
+     *
+     * @param epochDay the epoch day
+     * @return the day of week
+     */
+    public static DayOfWeek dayOfWeek(long epochDay) {
+        return DayOfWeek.of(dayOfWeekIndex(epochDay) + 1);
+    }
+
+    /**
+     * Returns the zero-based day-of-week index of the given epoch day,
+     * where Monday is 0 and Sunday is 6.
+     *
+     * @param epochDay the epoch day
+     * @return the day-of-week index, from 0 to 6
+     */
+    public static int dayOfWeekIndex(long epochDay) {
+        // 1970-01-01 was a Thursday
+        return (int) Math.floorMod(epochDay + 3, 7L);
+    }
+
+    /**
+     * Counts the occurrences of a day of week in the specified epoch-day range.
+     * <p>
+     * Both ends of the range are inclusive. An empty range (start after end) yields zero.
+     * </p>
+     *
+     * @param startEpochDay the first epoch day of the range
+     * @param endEpochDay   the last epoch day of the range
+     * @param dayOfWeek     the day of week to count
+     * @return the number of matching days in the range
+     */
+    public static long countDayOfWeek(long startEpochDay, long endEpochDay, DayOfWeek dayOfWeek) {
+        if (startEpochDay > endEpochDay) {
+            return 0;
+        }
+        long first = startEpochDay + Math.floorMod(dayOfWeek.ordinal() - dayOfWeekIndex(startEpochDay), 7);
+        return first > endEpochDay ? 0 : (endEpochDay - first) / 7 + 1;
+    }
+
+    /**
+     * Counts the Saturdays and Sundays in the specified epoch-day range.
+     * <p>
+     * Both ends of the range are inclusive. An empty range (start after end) yields zero.
+     * </p>
+     *
+     * @param startEpochDay the first epoch day of the range
+     * @param endEpochDay   the last epoch day of the range
+     * @return the number of weekend days in the range
+     */
+    public static long countWeekendDays(long startEpochDay, long endEpochDay) {
+        return countDayOfWeek(startEpochDay, endEpochDay, DayOfWeek.SATURDAY)
+                + countDayOfWeek(startEpochDay, endEpochDay, DayOfWeek.SUNDAY);
+    }
+}
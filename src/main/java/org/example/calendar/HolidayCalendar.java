@@ -0,0 +1,333 @@
+package org.example.calendar;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An index of observed holidays built from a set of {@link HolidayRule}s.
+ * <p>
+ * The observed holidays of each year are computed once, on first use, and kept as a
+ * sorted {@code int[]} of epoch days. Lookups and range counts are then binary searches
+ * over those arrays and do not allocate. Years outside the indexed window are still
+ * answered correctly, but are recomputed on every call.
+ * </p>
+ * <p>
+ * Range counts take constant time whatever the length of the range: whole years in
+ * between are counted from per-year prefix sums over one 400-year Gregorian cycle, and
+ * only the partial first and last years are searched.
+ * </p>
+ * <p>
+ * Instances are immutable apart from the lazily filled index and are safe to share
+ * between threads.
+ * </p>
+ */
+public final class HolidayCalendar {
+
+    /**
+     * The first year whose holidays are kept in the index.
+     */
+    public static final int FIRST_INDEXED_YEAR = 1600;
+
+    /**
+     * The last year whose holidays are kept in the index.
+     */
+    public static final int LAST_INDEXED_YEAR = 2599;
+
+    /**
+     * The length in years of the Gregorian cycle, after which weekdays repeat.
+     */
+    private static final int CYCLE_YEARS = 400;
+
+    private static final HolidayCalendar STANDARD = new HolidayCalendar("standard", Arrays.asList(
+            HolidayRules.fixedDate("Independence Day", Month.JULY, 4, true),
+            HolidayRules.everyDayOfWeekAfter("Labor Day", DayOfWeek.MONDAY, Month.SEPTEMBER, 1)));
+
+    private static final HolidayCalendar US_FEDERAL = new HolidayCalendar("us-federal", Arrays.asList(
+            HolidayRules.fixedDate("New Year's Day", Month.JANUARY, 1, true),
+            HolidayRules.nthDayOfWeek("Martin Luther King Jr. Day", 3, DayOfWeek.MONDAY, Month.JANUARY),
+            HolidayRules.nthDayOfWeek("Washington's Birthday", 3, DayOfWeek.MONDAY, Month.FEBRUARY),
+            HolidayRules.lastDayOfWeek("Memorial Day", DayOfWeek.MONDAY, Month.MAY),
+            HolidayRules.fixedDate("Juneteenth", Month.JUNE, 19, true),
+            HolidayRules.fixedDate("Independence Day", Month.JULY, 4, true),
+            HolidayRules.nthDayOfWeek("Labor Day", 1, DayOfWeek.MONDAY, Month.SEPTEMBER),
+            HolidayRules.nthDayOfWeek("Columbus Day", 2, DayOfWeek.MONDAY, Month.OCTOBER),
+            HolidayRules.fixedDate("Veterans Day", Month.NOVEMBER, 11, true),
+            HolidayRules.nthDayOfWeek("Thanksgiving Day", 4, DayOfWeek.THURSDAY, Month.NOVEMBER),
+            HolidayRules.fixedDate("Christmas Day", Month.DECEMBER, 25, true)));
+
+    private final String name;
+    private final List<HolidayRule> rules;
+    private final AtomicReferenceArray<int[]> holidaysByYear =
+            new AtomicReferenceArray<>(LAST_INDEXED_YEAR - FIRST_INDEXED_YEAR + 1);
+    private volatile int[] cycleCounts;
+
+    /**
+     * Creates a holiday calendar from the given rules.
+     *
+     * @param name   the name of the calendar
+     * @param rules  the rules producing the observed holidays
+     */
+    public HolidayCalendar(String name, List<HolidayRule> rules) {
+        this.name = name;
+        this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+    }
+
+    /**
+     * Returns the calendar the rental service has always priced with: Independence Day,
+     * observed on the nearest weekday, and Labor Day.
+     *
+     * @return the standard holiday calendar
+     */
+    public static HolidayCalendar standard() {
+        return STANDARD;
+    }
+
+    /**
+     * Returns a calendar of the eleven United States federal holidays, with fixed-date
+     * holidays observed on the nearest weekday.
+     *
+     * @return the US federal holiday calendar
+     */
+    public static HolidayCalendar usFederal() {
+        return US_FEDERAL;
+    }
+
+    /**
+     * Reads a calendar from rule text, one {@link HolidayRules#parse rule} per line.
+     * Blank lines and lines starting with {@code #} are skipped.
+     *
+     * @param name    the name of the calendar
+     * @param reader  the source of the rules
+     * @return the calendar
+     * @throws IOException if reading fails
+     * @throws IllegalArgumentException if a line is not a valid rule
+     */
+    public static HolidayCalendar read(String name, Reader reader) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        List<HolidayRule> rules = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                rules.add(HolidayRules.parse(line));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Malformed holiday rule on line " + lineNumber + " of " + name
+                        + ": " + e.getMessage(), e);
+            }
+        }
+        return new HolidayCalendar(name, rules);
+    }
+
+    /**
+     * Reads a calendar from a UTF-8 rule file.
+     *
+     * @param name  the name of the calendar
+     * @param file  the file holding the rules
+     * @return the calendar
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line is not a valid rule
+     */
+    public static HolidayCalendar load(String name, Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(name, reader);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<HolidayRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Checks if the given date is an observed holiday in this calendar.
+     *
+     * @param date the date to check
+     * @return {@code true} if the date is a holiday, {@code false} otherwise
+     */
+    public boolean isHoliday(LocalDate date) {
+        return Arrays.binarySearch(holidays(date.getYear()), (int) date.toEpochDay()) >= 0;
+    }
+
+    /**
+     * Checks if the given epoch day is an observed holiday in this calendar.
+     *
+     * @param epochDay the epoch day to check
+     * @return {@code true} if the day is a holiday, {@code false} otherwise
+     */
+    public boolean isHoliday(long epochDay) {
+        return Arrays.binarySearch(holidays(EpochDays.yearOf(epochDay)), (int) epochDay) >= 0;
+    }
+
+    /**
+     * Counts the observed holidays in the specified epoch-day range.
+     * <p>
+     * Both ends of the range are inclusive. An empty range (start after end) yields zero.
+     * Only the first and last years of the range are looked at day by day, whole years
+     * in between are counted in constant time.
+     * </p>
+     *
+     * @param startEpochDay the first epoch day of the range
+     * @param endEpochDay   the last epoch day of the range
+     * @return the number of holidays in the range
+     */
+    public int countHolidays(long startEpochDay, long endEpochDay) {
+        if (startEpochDay > endEpochDay) {
+            return 0;
+        }
+        int firstYear = EpochDays.yearOf(startEpochDay);
+        int lastYear = EpochDays.yearOf(endEpochDay);
+        int[] firstDays = holidays(firstYear);
+        if (firstYear == lastYear) {
+            return insertionPoint(firstDays, endEpochDay + 1) - insertionPoint(firstDays, startEpochDay);
+        }
+        int[] lastDays = holidays(lastYear);
+        long holidayCount = firstDays.length - insertionPoint(firstDays, startEpochDay)
+                + holidaysBefore(lastYear) - holidaysBefore(firstYear + 1)
+                + insertionPoint(lastDays, endEpochDay + 1);
+        return Math.toIntExact(holidayCount);
+    }
+
+    /**
+     * Returns the observed holidays falling in the given year.
+     *
+     * @param year the year
+     * @return the sorted observed holidays of the year
+     */
+    public List<LocalDate> holidaysIn(int year) {
+        int[] days = holidays(year);
+        List<LocalDate> dates = new ArrayList<>(days.length);
+        for (int day : days) {
+            dates.add(LocalDate.ofEpochDay(day));
+        }
+        return dates;
+    }
+
+    /**
+     * Returns the observed holidays of a year as sorted epoch days, the form the index
+     * keeps them in.
+     *
+     * @param year the year
+     * @return a copy of the sorted epoch days of the year's observed holidays
+     */
+    public int[] holidayEpochDays(int year) {
+        return holidays(year).clone();
+    }
+
+    /**
+     * Fills the index for a year with holidays computed earlier, typically read back from
+     * a snapshot written with {@link #holidayEpochDays(int)}, so the rules need not be
+     * evaluated again.
+     * <p>
+     * The days must be exactly those the calendar's rules produce for the year, sorted;
+     * they are not checked. A year already indexed keeps its holidays.
+     * </p>
+     *
+     * @param year       the year, from {@link #FIRST_INDEXED_YEAR} to {@link #LAST_INDEXED_YEAR}
+     * @param epochDays  the sorted epoch days of the year's observed holidays
+     * @throws IllegalArgumentException if the year is outside the indexed window
+     */
+    public void preload(int year, int[] epochDays) {
+        if (year < FIRST_INDEXED_YEAR || year > LAST_INDEXED_YEAR) {
+            throw new IllegalArgumentException("Year " + year + " is outside the indexed years");
+        }
+        holidaysByYear.compareAndSet(year - FIRST_INDEXED_YEAR, null, epochDays.clone());
+    }
+
+    @Override
+    public String toString() {
+        return "HolidayCalendar[" + name + "]";
+    }
+
+    /**
+     * Returns the number of holidays in the years from {@link #FIRST_INDEXED_YEAR} up to,
+     * but not including, the given year, negative for earlier years.
+     * <p>
+     * Weekdays and leap years repeat every 400 years, so the rules produce the same number
+     * of holidays for years 400 apart and whole cycles are counted with one multiplication.
+     * </p>
+     */
+    private long holidaysBefore(int year) {
+        int[] counts = cycleCounts;
+        if (counts == null) {
+            // Racing threads compute identical arrays, so publishing either is fine
+            counts = new int[CYCLE_YEARS + 1];
+            for (int i = 0; i < CYCLE_YEARS; i++) {
+                counts[i + 1] = counts[i] + holidays(FIRST_INDEXED_YEAR + i).length;
+            }
+            cycleCounts = counts;
+        }
+        long years = (long) year - FIRST_INDEXED_YEAR;
+        return Math.floorDiv(years, CYCLE_YEARS) * counts[CYCLE_YEARS]
+                + counts[(int) Math.floorMod(years, CYCLE_YEARS)];
+    }
+
+    private int[] holidays(int year) {
+        if (year < FIRST_INDEXED_YEAR || year > LAST_INDEXED_YEAR) {
+            return computeHolidays(year);
+        }
+        int slot = year - FIRST_INDEXED_YEAR;
+        int[] days = holidaysByYear.get(slot);
+        if (days == null) {
+            // Racing threads compute identical arrays, so whichever lands first wins
+            days = computeHolidays(year);
+            holidaysByYear.compareAndSet(slot, null, days);
+        }
+        return days;
+    }
+
+    private int[] computeHolidays(int year) {
+        long firstDay = EpochDays.of(year, 1, 1);
+        long lastDay = EpochDays.of(year, 12, 31);
+        int[] days = new int[8];
+        int size = 0;
+        // Weekend observance can move a holiday across the new year, so look at both neighbours
+        int lastRuleYear = Math.min(year + 1, Year.MAX_VALUE);
+        for (int ruleYear = Math.max(year - 1, Year.MIN_VALUE); ruleYear <= lastRuleYear; ruleYear++) {
+            for (HolidayRule rule : rules) {
+                for (LocalDate date : rule.observedDates(ruleYear)) {
+                    long epochDay = date.toEpochDay();
+                    if (epochDay >= firstDay && epochDay <= lastDay) {
+                        if (size == days.length) {
+                            days = Arrays.copyOf(days, size * 2);
+                        }
+                        days[size++] = (int) epochDay;
+                    }
+                }
+            }
+        }
+        Arrays.sort(days, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || days[distinct - 1] != days[i]) {
+                days[distinct++] = days[i];
+            }
+        }
+        return Arrays.copyOf(days, distinct);
+    }
+
+    private static int insertionPoint(int[] days, long epochDay) {
+        int index = Arrays.binarySearch(days, (int) epochDay);
+        return index >= 0 ? index : -index - 1;
+    }
+}
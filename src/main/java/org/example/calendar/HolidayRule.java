@@ -0,0 +1,31 @@
+package org.example.calendar;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A rule that produces the observed dates of a holiday for a given year.
+ * <p>
+ * Rules are evaluated once per year when a {@link HolidayCalendar} fills its index,
+ * so implementations favour clarity over speed. Factories for the common kinds of
+ * rules are in {@link HolidayRules}.
+ * </p>
+ */
+public interface HolidayRule {
+
+    /**
+     * Returns the observed dates of this holiday for the given year.
+     * <p>
+     * An observed date may fall outside the given year when the holiday is shifted
+     * off a weekend, for example New Year's Day observed on the preceding December 31st.
+     * </p>
+     * <p>
+     * The dates must depend only on the calendar, so that a year 400 years later yields
+     * the same dates shifted by a whole Gregorian cycle; range counts rely on it.
+     * </p>
+     *
+     * @param year the year the holiday belongs to
+     * @return the observed dates, possibly empty
+     */
+    List<LocalDate> observedDates(int year);
+}
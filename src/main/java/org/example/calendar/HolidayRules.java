@@ -0,0 +1,229 @@
+package org.example.calendar;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Factories for the common kinds of {@link HolidayRule}.
+ */
+public final class HolidayRules {
+
+    private HolidayRules() {
+    }
+
+    /**
+     * Creates a rule for a holiday on a fixed month and day.
+     * <p>
+     * When {@code observeOnWeekday} is set, a holiday falling on a Saturday is observed
+     * on the preceding Friday and one falling on a Sunday on the following Monday.
+     * </p>
+     *
+     * @param name              the name of the holiday
+     * @param month             the month of the holiday
+     * @param dayOfMonth        the day of month of the holiday
+     * @param observeOnWeekday  whether weekend dates are shifted to the nearest weekday
+     * @return the holiday rule
+     */
+    public static HolidayRule fixedDate(final String name, final Month month, final int dayOfMonth,
+                                        final boolean observeOnWeekday) {
+        return new HolidayRule() {
+            @Override
+            public List<LocalDate> observedDates(int year) {
+                LocalDate date = LocalDate.of(year, month, dayOfMonth);
+                if (observeOnWeekday && date.getDayOfWeek() == DayOfWeek.SATURDAY) {
+                    date = date.minusDays(1);
+                } else if (observeOnWeekday && date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                    date = date.plusDays(1);
+                }
+                return Collections.singletonList(date);
+            }
+
+            @Override
+            public String toString() {
+                return name + ": fixed " + month + " " + dayOfMonth + (observeOnWeekday ? " observed" : "");
+            }
+        };
+    }
+
+    /**
+     * Creates a rule for a holiday on the n-th given day of week of a month,
+     * for example the fourth Thursday in November.
+     *
+     * @param name       the name of the holiday
+     * @param ordinal    the occurrence of the day of week in the month, from 1 to 5
+     * @param dayOfWeek  the day of week of the holiday
+     * @param month      the month of the holiday
+     * @return the holiday rule
+     */
+    public static HolidayRule nthDayOfWeek(final String name, final int ordinal, final DayOfWeek dayOfWeek,
+                                           final Month month) {
+        if (ordinal < 1 || ordinal > 5) {
+            throw new IllegalArgumentException("Day of week ordinal must be between 1 and 5");
+        }
+        return new HolidayRule() {
+            @Override
+            public List<LocalDate> observedDates(int year) {
+                LocalDate date = LocalDate.of(year, month, 1)
+                        .with(TemporalAdjusters.dayOfWeekInMonth(ordinal, dayOfWeek));
+                return date.getMonth() == month ? Collections.singletonList(date) : Collections.<LocalDate>emptyList();
+            }
+
+            @Override
+            public String toString() {
+                return name + ": nth " + ordinal + " " + dayOfWeek + " " + month;
+            }
+        };
+    }
+
+    /**
+     * Creates a rule for a holiday on the last given day of week of a month,
+     * for example the last Monday in May.
+     *
+     * @param name       the name of the holiday
+     * @param dayOfWeek  the day of week of the holiday
+     * @param month      the month of the holiday
+     * @return the holiday rule
+     */
+    public static HolidayRule lastDayOfWeek(final String name, final DayOfWeek dayOfWeek, final Month month) {
+        return new HolidayRule() {
+            @Override
+            public List<LocalDate> observedDates(int year) {
+                return Collections.singletonList(
+                        LocalDate.of(year, month, 1).with(TemporalAdjusters.lastInMonth(dayOfWeek)));
+            }
+
+            @Override
+            public String toString() {
+                return name + ": last " + dayOfWeek + " " + month;
+            }
+        };
+    }
+
+    /**
+     * Creates a rule matching every given day of week in a month that falls after
+     * the given day of month.
+     * <p>
+     * This reproduces how the rental service has always recognised Labor Day: every
+     * Monday in September except one falling on the 1st.
+     * </p>
+     *
+     * @param name        the name of the holiday
+     * @param dayOfWeek   the day of week of the holiday
+     * @param month       the month of the holiday
+     * @param afterDay    the day of month after which matching days are holidays, which
+     *                    every year's month must have
+     * @return the holiday rule
+     */
+    public static HolidayRule everyDayOfWeekAfter(final String name, final DayOfWeek dayOfWeek, final Month month,
+                                                  final int afterDay) {
+        if (afterDay < 1 || afterDay > month.minLength()) {
+            throw new IllegalArgumentException("Day of month must be between 1 and " + month.minLength());
+        }
+        return new HolidayRule() {
+            @Override
+            public List<LocalDate> observedDates(int year) {
+                List<LocalDate> dates = new ArrayList<>(5);
+                LocalDate date = LocalDate.of(year, month, afterDay).with(TemporalAdjusters.next(dayOfWeek));
+                while (date.getMonth() == month) {
+                    dates.add(date);
+                    date = date.plusWeeks(1);
+                }
+                return dates;
+            }
+
+            @Override
+            public String toString() {
+                return name + ": every " + dayOfWeek + " " + month + " after " + afterDay;
+            }
+        };
+    }
+
+    /**
+     * Parses a rule written in the form its {@code toString()} describes it:
+     * <pre>
+     * New Year's Day: fixed JANUARY 1 observed
+     * Thanksgiving Day: nth 4 THURSDAY NOVEMBER
+     * Memorial Day: last MONDAY MAY
+     * Labor Day: every MONDAY SEPTEMBER after 1
+     * </pre>
+     * <p>
+     * Month and day names are case-insensitive.
+     * </p>
+     *
+     * @param text the rule
+     * @return the holiday rule
+     * @throws IllegalArgumentException if the rule is malformed
+     */
+    public static HolidayRule parse(String text) {
+        int colon = text.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Expected 'name: rule' but found " + text);
+        }
+        String name = text.substring(0, colon).trim();
+        String[] words = text.substring(colon + 1).trim().split("\\s+");
+        switch (words[0].toLowerCase(Locale.ROOT)) {
+            case "fixed":
+                if (words.length == 3 || (words.length == 4 && words[3].equalsIgnoreCase("observed"))) {
+                    Month month = month(words[1]);
+                    int dayOfMonth = number(words[2], 1, month.minLength());
+                    return fixedDate(name, month, dayOfMonth, words.length == 4);
+                }
+                break;
+            case "nth":
+                if (words.length == 4) {
+                    return nthDayOfWeek(name, number(words[1], 1, 5), dayOfWeek(words[2]), month(words[3]));
+                }
+                break;
+            case "last":
+                if (words.length == 3) {
+                    return lastDayOfWeek(name, dayOfWeek(words[1]), month(words[2]));
+                }
+                break;
+            case "every":
+                if (words.length == 5 && words[3].equalsIgnoreCase("after")) {
+                    Month month = month(words[2]);
+                    return everyDayOfWeekAfter(name, dayOfWeek(words[1]), month,
+                            number(words[4], 1, month.minLength()));
+                }
+                break;
+            default:
+                break;
+        }
+        throw new IllegalArgumentException("Unknown holiday rule: " + text);
+    }
+
+    private static Month month(String word) {
+        try {
+            return Month.valueOf(word.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown month " + word);
+        }
+    }
+
+    private static DayOfWeek dayOfWeek(String word) {
+        try {
+            return DayOfWeek.valueOf(word.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown day of week " + word);
+        }
+    }
+
+    private static int number(String word, int minimum, int maximum) {
+        int value;
+        try {
+            value = Integer.parseInt(word);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number but found " + word);
+        }
+        if (value < minimum || value > maximum) {
+            throw new IllegalArgumentException(value + " is not between " + minimum + " and " + maximum);
+        }
+        return value;
+    }
+}
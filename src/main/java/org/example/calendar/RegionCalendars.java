@@ -0,0 +1,137 @@
+package org.example.calendar;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The holiday calendars of the regions stores operate in, and which region each store
+ * belongs to.
+ * <p>
+ * Calendars are loaded once, when the regions are read, and each keeps its own lazily
+ * built index of holidays per year. Resolving a store or region is then a map lookup,
+ * so any number of stores can be priced concurrently without rebuilding a calendar.
+ * </p>
+ */
+public final class RegionCalendars {
+
+    /** The suffix of region rule files. */
+    public static final String RULE_FILE_SUFFIX = ".holidays";
+
+    /** The file mapping store identifiers to regions. */
+    public static final String STORE_FILE = "stores.properties";
+
+    private static final RegionCalendars EMPTY =
+            new RegionCalendars(Collections.<String, HolidayCalendar>emptyMap(), Collections.<String, String>emptyMap());
+
+    private final Map<String, HolidayCalendar> calendarsByRegion;
+    private final Map<String, String> regionsByStore;
+
+    /**
+     * Creates regions from calendars and a store mapping.
+     *
+     * @param calendarsByRegion  the holiday calendar of each region
+     * @param regionsByStore     the region of each store
+     * @throws IllegalArgumentException if a store belongs to an unknown region
+     */
+    public RegionCalendars(Map<String, HolidayCalendar> calendarsByRegion, Map<String, String> regionsByStore) {
+        this.calendarsByRegion = new HashMap<>(calendarsByRegion);
+        this.regionsByStore = new HashMap<>(regionsByStore);
+        for (Map.Entry<String, String> store : this.regionsByStore.entrySet()) {
+            if (!this.calendarsByRegion.containsKey(store.getValue())) {
+                throw new IllegalArgumentException("Store " + store.getKey() + " belongs to unknown region " + store.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns regions with no calendars and no stores.
+     *
+     * @return the empty regions
+     */
+    public static RegionCalendars empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Reads every region of a directory.
+     * <p>
+     * Each {@code <region>.holidays} file holds the rules of one region, in the format
+     * read by {@link HolidayCalendar#read}. An optional {@code stores.properties} file maps
+     * store identifiers to region names, for example {@code store-0042 = us-texas}.
+     * </p>
+     *
+     * @param directory the directory holding the rule files
+     * @return the regions
+     * @throws IOException if a file cannot be read
+     * @throws IllegalArgumentException if a rule is malformed or a store belongs to an unknown region
+     */
+    public static RegionCalendars fromDirectory(Path directory) throws IOException {
+        Map<String, HolidayCalendar> calendars = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + RULE_FILE_SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String region = fileName.substring(0, fileName.length() - RULE_FILE_SUFFIX.length());
+                calendars.put(region, HolidayCalendar.load(region, file));
+            }
+        }
+
+        Map<String, String> stores = new HashMap<>();
+        Path storeFile = directory.resolve(STORE_FILE);
+        if (Files.exists(storeFile)) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(storeFile, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            for (String store : properties.stringPropertyNames()) {
+                stores.put(store, properties.getProperty(store).trim());
+            }
+        }
+        return new RegionCalendars(calendars, stores);
+    }
+
+    /**
+     * Returns the holiday calendar of a store or region. Store identifiers are looked up
+     * first.
+     *
+     * @param storeOrRegion a store identifier or region name
+     * @return the region's holiday calendar
+     * @throws IllegalArgumentException if neither a store nor a region has that name
+     */
+    public HolidayCalendar calendarFor(String storeOrRegion) {
+        String region = regionsByStore.get(storeOrRegion);
+        HolidayCalendar calendar = calendarsByRegion.get(region != null ? region : storeOrRegion);
+        if (calendar == null) {
+            throw new IllegalArgumentException("Unknown store or region: " + storeOrRegion);
+        }
+        return calendar;
+    }
+
+    /**
+     * Returns the region of a store.
+     *
+     * @param store the store identifier
+     * @return the region name, or {@code null} if the store is unknown
+     */
+    public String regionOf(String store) {
+        return regionsByStore.get(store);
+    }
+
+    public Map<String, HolidayCalendar> getCalendars() {
+        return Collections.unmodifiableMap(calendarsByRegion);
+    }
+
+    /**
+     * @return the region of each store
+     */
+    public Map<String, String> getStores() {
+        return Collections.unmodifiableMap(regionsByStore);
+    }
+}
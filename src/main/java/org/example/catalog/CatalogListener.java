@@ -0,0 +1,15 @@
+package org.example.catalog;
+
+/**
+ * Receives notice of every snapshot a {@link ToolCatalog} publishes.
+ */
+public interface CatalogListener {
+
+    /**
+     * Called after a new snapshot has been published, on the publishing thread.
+     *
+     * @param previous  the snapshot that was replaced
+     * @param current   the snapshot that is now published
+     */
+    void catalogChanged(CatalogSnapshot previous, CatalogSnapshot current);
+}
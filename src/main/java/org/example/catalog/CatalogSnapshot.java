@@ -0,0 +1,241 @@
+package org.example.catalog;
+
+import org.example.model.Tool;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable view of the tool catalog at one point in time.
+ * <p>
+ * Every tool is assigned a dense index, in the order the tools were listed, so other
+ * structures can refer to a tool by {@code int} instead of by code. Indexes are only
+ * meaningful within the snapshot that assigned them.
+ * </p>
+ * <p>
+ * Codes are resolved through a {@link #packCode packed-code} table, and the attributes
+ * pricing reads on every checkout are copied into primitive arrays indexed by tool, so
+ * hot paths can look a tool up and price it without touching a {@link Tool} object.
+ * </p>
+ * <p>
+ * The {@link Tool} instances are shared with the snapshot and must not be modified once
+ * it has been published.
+ * </p>
+ */
+public final class CatalogSnapshot {
+
+    /**
+     * The packed form of a code that cannot be packed.
+     */
+    public static final int NOT_PACKED = PackedCodeIndex.NOT_PACKED;
+
+    /**
+     * The largest daily charge, in cents, priced in fixed-point cents: any number of
+     * charge days an {@code int} can hold, times any discount percent up to 100, still
+     * fits in a {@code long}.
+     */
+    public static final long MAX_CENTS_PRICED_DAILY_CHARGE = Long.MAX_VALUE / (100L * Integer.MAX_VALUE);
+
+    private static final byte WEEKDAY_CHARGE = 1;
+    private static final byte WEEKEND_CHARGE = 2;
+    private static final byte HOLIDAY_CHARGE = 4;
+    private static final byte PRICED_IN_CENTS = 8;
+
+    private final long version;
+    private final String[] codes;
+    private final Tool[] tools;
+    private final long[] dailyChargeCents;
+    private final byte[] chargeFlags;
+    private final PackedCodeIndex indexByCode;
+
+    /**
+     * Creates a snapshot of the given tools.
+     *
+     * @param version  the catalog version this snapshot represents
+     * @param tools    the tools keyed by tool code, in index order
+     */
+    public CatalogSnapshot(long version, Map<String, Tool> tools) {
+        this.version = version;
+        this.codes = new String[tools.size()];
+        this.tools = new Tool[tools.size()];
+        this.dailyChargeCents = new long[tools.size()];
+        this.chargeFlags = new byte[tools.size()];
+        int index = 0;
+        for (Map.Entry<String, Tool> entry : tools.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                throw new IllegalArgumentException("Tool code and tool are required");
+            }
+            codes[index] = entry.getKey();
+            Tool tool = entry.getValue();
+            this.tools[index] = tool;
+            dailyChargeCents[index] = tool.getDailyChargeCents();
+            chargeFlags[index] = (byte) ((tool.isWeekdayCharge() ? WEEKDAY_CHARGE : 0)
+                    | (tool.isWeekendCharge() ? WEEKEND_CHARGE : 0) | (tool.isHolidayCharge() ? HOLIDAY_CHARGE : 0)
+                    | (isPricedInCents(tool.getDailyCharge(), tool.getDailyChargeCents()) ? PRICED_IN_CENTS : 0));
+            index++;
+        }
+        this.indexByCode = new PackedCodeIndex(codes);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Looks up a tool by its code.
+     *
+     * @param toolCode the tool code
+     * @return the tool, or {@code null} if the code is not in the catalog
+     */
+    public Tool get(String toolCode) {
+        int index = indexOf(toolCode);
+        return index < 0 ? null : tools[index];
+    }
+
+    /**
+     * Returns the index of a tool code in this snapshot.
+     * <p>
+     * Codes of up to four printable ASCII characters, such as {@code "JAKR"}, are packed
+     * into an {@code int} and found in an open-addressing table; any other code in a
+     * perfect hash. Neither lookup allocates.
+     * </p>
+     *
+     * @param toolCode the tool code
+     * @return the index of the tool, or -1 if the code is not in the catalog
+     */
+    public int indexOf(String toolCode) {
+        return toolCode == null ? -1 : indexByCode.indexOf(toolCode);
+    }
+
+    /**
+     * Returns the index of a tool code already {@link #packCode packed}.
+     *
+     * @param packedCode the packed tool code
+     * @return the index of the tool, or -1 if the code is not in the catalog or is
+     *         {@link #NOT_PACKED}
+     */
+    public int indexOfPacked(int packedCode) {
+        return indexByCode.indexOfPacked(packedCode);
+    }
+
+    /**
+     * Packs a tool code of one to four printable ASCII characters into an {@code int},
+     * one byte per character. Distinct codes pack to distinct values.
+     *
+     * @param toolCode the tool code
+     * @return the packed code, or {@link #NOT_PACKED} if the code cannot be packed
+     */
+    public static int packCode(CharSequence toolCode) {
+        return PackedCodeIndex.pack(toolCode);
+    }
+
+    /**
+     * Packs a tool code given as ASCII bytes, to the same value as {@link #packCode(CharSequence)}
+     * gives for the same characters.
+     *
+     * @param bytes   the buffer holding the code
+     * @param offset  the position of the first byte of the code
+     * @param length  the number of bytes of the code
+     * @return the packed code, or {@link #NOT_PACKED} if the bytes cannot be packed
+     */
+    public static int packCode(byte[] bytes, int offset, int length) {
+        return PackedCodeIndex.pack(bytes, offset, length);
+    }
+
+    public int size() {
+        return tools.length;
+    }
+
+    public String codeAt(int index) {
+        return codes[index];
+    }
+
+    public Tool toolAt(int index) {
+        return tools[index];
+    }
+
+    /**
+     * @return the daily charge of the tool at an index in cents, or -1 if it is not a
+     *         whole number of cents
+     */
+    public long getDailyChargeCents(int index) {
+        return dailyChargeCents[index];
+    }
+
+    /**
+     * Checks if the tool at an index can be priced in fixed-point cents with exactly the
+     * same results, including scale, as the {@code BigDecimal} calculation.
+     */
+    public boolean isPricedInCents(int index) {
+        return (chargeFlags[index] & PRICED_IN_CENTS) != 0;
+    }
+
+    /**
+     * Checks if a daily charge can be priced in fixed-point cents with exactly the same
+     * results, including scale, as the {@code BigDecimal} calculation: it has two decimal
+     * places and is no more than {@link #MAX_CENTS_PRICED_DAILY_CHARGE} cents, so no
+     * rental can overflow.
+     *
+     * @param dailyCharge       the daily charge
+     * @param dailyChargeCents  the same charge in cents, or -1 if it is not a whole number of cents
+     * @return {@code true} if the charge is priced in cents
+     */
+    public static boolean isPricedInCents(BigDecimal dailyCharge, long dailyChargeCents) {
+        return dailyChargeCents >= 0 && dailyChargeCents <= MAX_CENTS_PRICED_DAILY_CHARGE && dailyCharge.scale() == 2;
+    }
+
+    public boolean isWeekdayCharge(int index) {
+        return (chargeFlags[index] & WEEKDAY_CHARGE) != 0;
+    }
+
+    public boolean isWeekendCharge(int index) {
+        return (chargeFlags[index] & WEEKEND_CHARGE) != 0;
+    }
+
+    public boolean isHolidayCharge(int index) {
+        return (chargeFlags[index] & HOLIDAY_CHARGE) != 0;
+    }
+
+    /**
+     * @return the tool codes of this snapshot, in index order
+     */
+    public List<String> getCodes() {
+        return Collections.unmodifiableList(Arrays.asList(codes));
+    }
+
+    /**
+     * Returns the codes whose tools differ between this snapshot and another one,
+     * including codes present in only one of them.
+     *
+     * @param other the snapshot to compare with
+     * @return the changed, added and removed tool codes
+     */
+    public List<String> changedCodes(CatalogSnapshot other) {
+        List<String> changed = new ArrayList<>();
+        for (int i = 0; i < codes.length; i++) {
+            if (!sameTool(tools[i], other.get(codes[i]))) {
+                changed.add(codes[i]);
+            }
+        }
+        for (String code : other.codes) {
+            if (indexOf(code) < 0) {
+                changed.add(code);
+            }
+        }
+        return changed;
+    }
+
+    private static boolean sameTool(Tool tool, Tool other) {
+        return other != null
+                && tool.getType().equals(other.getType())
+                && tool.getBrand().equals(other.getBrand())
+                && tool.getDailyCharge().equals(other.getDailyCharge())
+                && tool.isWeekdayCharge() == other.isWeekdayCharge()
+                && tool.isWeekendCharge() == other.isWeekendCharge()
+                && tool.isHolidayCharge() == other.isHolidayCharge();
+    }
+}
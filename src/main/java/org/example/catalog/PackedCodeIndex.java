@@ -0,0 +1,139 @@
+package org.example.catalog;
+
+/**
+ * A lookup from tool code to tool index keyed by the code packed into an {@code int}.
+ * <p>
+ * Tool codes are short ASCII strings such as {@code "JAKR"}. A code of one to four
+ * printable ASCII characters is packed, one byte per character, into a non-zero
+ * {@code int}, and looked up in an open-addressing table whose key and tool index sit
+ * side by side in one {@code int[]}, so a hit usually touches a single cache line and
+ * nothing is hashed character by character or allocated. Codes that cannot be packed
+ * are kept in a {@link PerfectHashIndex} beside the table.
+ * </p>
+ */
+final class PackedCodeIndex {
+
+    /**
+     * The packed form of a code that cannot be packed; no packed code is zero.
+     */
+    static final int NOT_PACKED = 0;
+
+    private final int[] table;
+    private final int mask;
+    private final int shift;
+    private final PerfectHashIndex others;
+    private final int[] otherIndexes;
+
+    /**
+     * Builds the index of the given codes; the index of a code is its position in the array.
+     *
+     * @param codes the distinct tool codes
+     */
+    PackedCodeIndex(String[] codes) {
+        // Slots at most half full
+        int capacity = Integer.highestOneBit(Math.max(1, codes.length)) * 4;
+        table = new int[capacity * 2];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+
+        int otherCount = 0;
+        for (String code : codes) {
+            if (pack(code) == NOT_PACKED) {
+                otherCount++;
+            }
+        }
+        String[] otherCodes = new String[otherCount];
+        otherIndexes = new int[otherCount];
+        otherCount = 0;
+        for (int i = 0; i < codes.length; i++) {
+            int key = pack(codes[i]);
+            if (key == NOT_PACKED) {
+                otherCodes[otherCount] = codes[i];
+                otherIndexes[otherCount++] = i;
+                continue;
+            }
+            int slot = slot(key);
+            while (table[slot * 2] != NOT_PACKED) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot * 2] = key;
+            table[slot * 2 + 1] = i;
+        }
+        others = otherCount == 0 ? null : new PerfectHashIndex(otherCodes);
+    }
+
+    /**
+     * Packs a code of one to four printable ASCII characters into an {@code int}.
+     *
+     * @param code the tool code
+     * @return the packed code, or {@link #NOT_PACKED} if the code cannot be packed
+     */
+    static int pack(CharSequence code) {
+        int length = code.length();
+        if (length == 0 || length > 4) {
+            return NOT_PACKED;
+        }
+        int key = 0;
+        for (int i = 0; i < length; i++) {
+            char c = code.charAt(i);
+            if (c <= ' ' || c > '~') {
+                return NOT_PACKED;
+            }
+            key = key << 8 | c;
+        }
+        return key;
+    }
+
+    /**
+     * Packs a code given as ASCII bytes, exactly as {@link #pack(CharSequence)} packs the
+     * same characters.
+     *
+     * @return the packed code, or {@link #NOT_PACKED} if the bytes cannot be packed
+     */
+    static int pack(byte[] bytes, int offset, int length) {
+        if (length == 0 || length > 4) {
+            return NOT_PACKED;
+        }
+        int key = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int b = bytes[i];
+            if (b <= ' ' || b > '~') {
+                return NOT_PACKED;
+            }
+            key = key << 8 | b;
+        }
+        return key;
+    }
+
+    int indexOf(String code) {
+        int key = pack(code);
+        if (key != NOT_PACKED) {
+            return indexOfPacked(key);
+        }
+        if (others == null) {
+            return -1;
+        }
+        int other = others.indexOf(code);
+        return other < 0 ? -1 : otherIndexes[other];
+    }
+
+    int indexOfPacked(int key) {
+        if (key == NOT_PACKED) {
+            return -1;
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            int candidate = table[slot * 2];
+            if (candidate == key) {
+                return table[slot * 2 + 1];
+            }
+            if (candidate == NOT_PACKED) {
+                return -1;
+            }
+        }
+    }
+
+    private int slot(int key) {
+        // Fibonacci hashing: the top bits of the product are well mixed
+        return (key * 0x9E3779B9) >>> shift;
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A collision-free lookup from tool code to tool index, built once per snapshot.
+ * <p>
+ * Codes are hashed twice: a first hash picks a bucket, and a per-bucket seed, found at
+ * build time, places every code of the bucket in its own slot ("hash and displace").
+ * A lookup therefore inspects exactly one slot and compares one code, instead of
+ * probing and boxing like a {@code HashMap<String, Integer>}. Codes outside the
+ * catalog's range of lengths are rejected before any hashing.
+ * </p>
+ * <p>
+ * The stored codes are interned, so lookups with literal or interned codes usually
+ * match by reference.
+ * </p>
+ */
+final class PerfectHashIndex {
+
+    private static final int MAX_SEED_ATTEMPTS = 1 << 20;
+
+    private final String[] slotCodes;
+    private final int[] slotIndexes;
+    private final int[] bucketSeeds;
+    private final int slotMask;
+    private final int bucketMask;
+    private final int minLength;
+    private final int maxLength;
+
+    /**
+     * Builds the index of the given codes; the index of a code is its position in the array.
+     *
+     * @param codes the distinct tool codes
+     * @throws IllegalStateException if no collision-free placement is found
+     */
+    PerfectHashIndex(String[] codes) {
+        // Slots at most half full, and about two codes per bucket
+        int slotCount = Integer.highestOneBit(Math.max(1, codes.length)) * 4;
+        int bucketCount = Math.max(1, Integer.highestOneBit(Math.max(1, codes.length)) / 2);
+        slotCodes = new String[slotCount];
+        slotIndexes = new int[slotCount];
+        bucketSeeds = new int[bucketCount];
+        slotMask = slotCount - 1;
+        bucketMask = bucketCount - 1;
+
+        long[] hashes = new long[codes.length];
+        List<List<Integer>> buckets = new ArrayList<>(bucketCount);
+        for (int b = 0; b < bucketCount; b++) {
+            buckets.add(new ArrayList<>(2));
+        }
+        int shortest = Integer.MAX_VALUE;
+        int longest = 0;
+        for (int i = 0; i < codes.length; i++) {
+            hashes[i] = hash(codes[i]);
+            buckets.get(bucket(hashes[i])).add(i);
+            shortest = Math.min(shortest, codes[i].length());
+            longest = Math.max(longest, codes[i].length());
+        }
+        minLength = shortest;
+        maxLength = longest;
+
+        // Place the fullest buckets first, while most slots are still free
+        Integer[] order = new Integer[bucketCount];
+        for (int b = 0; b < bucketCount; b++) {
+            order[b] = b;
+        }
+        Arrays.sort(order, (left, right) -> buckets.get(right).size() - buckets.get(left).size());
+        int[] placed = new int[longestBucket(buckets)];
+        for (int b : order) {
+            List<Integer> members = buckets.get(b);
+            if (members.isEmpty()) {
+                continue;
+            }
+            int seed = 0;
+            while (!place(members, hashes, seed, placed)) {
+                if (++seed == MAX_SEED_ATTEMPTS) {
+                    throw new IllegalStateException("Cannot build a perfect hash of the tool codes");
+                }
+            }
+            bucketSeeds[b] = seed;
+            for (int m = 0; m < members.size(); m++) {
+                int index = members.get(m);
+                slotCodes[placed[m]] = codes[index].intern();
+                slotIndexes[placed[m]] = index;
+            }
+        }
+    }
+
+    /**
+     * Returns the index of a code.
+     *
+     * @param code the tool code
+     * @return the index of the code, or -1 if it is not in the index
+     */
+    int indexOf(String code) {
+        int length = code.length();
+        if (length < minLength || length > maxLength) {
+            return -1;
+        }
+        long hash = hash(code);
+        int slot = slot(hash, bucketSeeds[bucket(hash)]);
+        String candidate = slotCodes[slot];
+        return candidate == code || (candidate != null && candidate.equals(code)) ? slotIndexes[slot] : -1;
+    }
+
+    private boolean place(List<Integer> members, long[] hashes, int seed, int[] placed) {
+        for (int m = 0; m < members.size(); m++) {
+            int slot = slot(hashes[members.get(m)], seed);
+            if (slotCodes[slot] != null) {
+                return false;
+            }
+            for (int other = 0; other < m; other++) {
+                if (placed[other] == slot) {
+                    return false;
+                }
+            }
+            placed[m] = slot;
+        }
+        return true;
+    }
+
+    private int bucket(long hash) {
+        return (int) (hash >>> 40) & bucketMask;
+    }
+
+    private int slot(long hash, int seed) {
+        long mixed = (hash ^ seed * 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+        return (int) (mixed >>> 32) & slotMask;
+    }
+
+    private static int longestBucket(List<List<Integer>> buckets) {
+        int longest = 0;
+        for (List<Integer> bucket : buckets) {
+            longest = Math.max(longest, bucket.size());
+        }
+        return longest;
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters of a code, independent of {@link String#hashCode()}
+     * so that codes sharing a {@code hashCode} can still be told apart.
+     */
+    private static long hash(String code) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < code.length(); i++) {
+            hash ^= code.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash ^ (hash >>> 29);
+    }
+}
@@ -0,0 +1,259 @@
+package org.example.catalog;
+
+import org.example.model.Tool;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The catalog of rentable tools.
+ * <p>
+ * The catalog publishes immutable {@link CatalogSnapshot}s through an atomic reference.
+ * Readers never lock: they see either the previous or the next snapshot in full. Writers
+ * replace the whole snapshot, for example when the catalog file is reloaded by a
+ * {@link ToolCatalogWatcher}.
+ * </p>
+ * <p>
+ * Catalog files are CSV with one tool per line:
+ * {@code code,type,brand,dailyCharge,weekdayCharge,weekendCharge,holidayCharge}.
+ * Blank lines, lines starting with {@code #} and a header line starting with
+ * {@code code,} are ignored.
+ * </p>
+ */
+public class ToolCatalog {
+
+    private final Path source;
+    private final AtomicReference<CatalogSnapshot> snapshot;
+    private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a catalog holding the given tools.
+     *
+     * @param tools the tools keyed by tool code
+     */
+    public ToolCatalog(Map<String, Tool> tools) {
+        this(null, tools);
+    }
+
+    private ToolCatalog(Path source, Map<String, Tool> tools) {
+        this.source = source;
+        this.snapshot = new AtomicReference<>(new CatalogSnapshot(1, tools));
+    }
+
+    /**
+     * Creates a catalog of the four tools the rental service has always offered.
+     *
+     * @return a new catalog of the standard tools
+     */
+    public static ToolCatalog defaults() {
+        Map<String, Tool> tools = new LinkedHashMap<>();
+        tools.put("CHNS", new Tool("Chainsaw", "Stihl", new BigDecimal("1.49"), true, false, true));
+        tools.put("LADW", new Tool("Ladder", "Werner", new BigDecimal("1.99"), true, true, false));
+        tools.put("JAKD", new Tool("Jackhammer", "DeWalt", new BigDecimal("2.99"), true, false, false));
+        tools.put("JAKR", new Tool("Jackhammer", "Ridgid", new BigDecimal("2.99"), true, false, false));
+        return new ToolCatalog(tools);
+    }
+
+    /**
+     * Creates a catalog loaded from a CSV file, which can later be {@link #reload() reloaded}.
+     *
+     * @param file the catalog file
+     * @return a new catalog of the tools in the file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is malformed
+     */
+    public static ToolCatalog fromFile(Path file) throws IOException {
+        return new ToolCatalog(file, readFile(file));
+    }
+
+    /**
+     * Creates a catalog of tools already read from a CSV file, for example restored from
+     * a snapshot, which can later be {@link #reload() reloaded} from that file.
+     *
+     * @param file   the catalog file the tools were read from
+     * @param tools  the tools keyed by tool code
+     * @return a new catalog of the given tools
+     */
+    public static ToolCatalog fromTools(Path file, Map<String, Tool> tools) {
+        return new ToolCatalog(file, tools);
+    }
+
+    /**
+     * Returns the current snapshot of the catalog.
+     * <p>
+     * Callers that make several lookups which must agree with each other should read
+     * the snapshot once and use it throughout.
+     * </p>
+     *
+     * @return the current snapshot
+     */
+    public CatalogSnapshot snapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Looks up a tool by its code in the current snapshot.
+     *
+     * @param toolCode the tool code
+     * @return the tool, or {@code null} if the code is not in the catalog
+     */
+    public Tool get(String toolCode) {
+        return snapshot.get().get(toolCode);
+    }
+
+    /**
+     * @return the file this catalog was loaded from, or {@code null} if it was built in memory
+     */
+    public Path getSource() {
+        return source;
+    }
+
+    /**
+     * Atomically replaces the contents of the catalog.
+     *
+     * @param tools the new tools keyed by tool code
+     * @return the snapshot that was published
+     */
+    public CatalogSnapshot replace(Map<String, Tool> tools) {
+        while (true) {
+            CatalogSnapshot current = snapshot.get();
+            CatalogSnapshot next = new CatalogSnapshot(current.getVersion() + 1, tools);
+            if (snapshot.compareAndSet(current, next)) {
+                for (CatalogListener listener : listeners) {
+                    listener.catalogChanged(current, next);
+                }
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Registers a listener to be told about every snapshot published from now on.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(CatalogListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addListener(CatalogListener)}.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(CatalogListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Re-reads the catalog file and publishes its contents.
+     * <p>
+     * If the file cannot be read or is malformed the current snapshot is kept.
+     * </p>
+     *
+     * @return the snapshot that was published
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is malformed
+     * @throws IllegalStateException if the catalog was not loaded from a file
+     */
+    public CatalogSnapshot reload() throws IOException {
+        if (source == null) {
+            throw new IllegalStateException("Catalog was not loaded from a file");
+        }
+        return replace(readFile(source));
+    }
+
+    /**
+     * Starts watching the catalog file and reloading it whenever it changes.
+     *
+     * @return the running watcher, which must be closed to stop watching
+     * @throws IOException if the file's directory cannot be watched
+     * @throws IllegalStateException if the catalog was not loaded from a file
+     */
+    public ToolCatalogWatcher watch() throws IOException {
+        return watch(ToolCatalogWatcher.QUIET_PERIOD_MILLIS);
+    }
+
+    /**
+     * Starts watching the catalog file, reloading it once it has gone the given time without changes.
+     *
+     * @param quietPeriodMillis how long the file must be left alone before it is reloaded
+     * @return the running watcher, which must be closed to stop watching
+     * @throws IOException if the file's directory cannot be watched
+     * @throws IllegalArgumentException if the quiet period is negative
+     * @throws IllegalStateException if the catalog was not loaded from a file
+     */
+    public ToolCatalogWatcher watch(long quietPeriodMillis) throws IOException {
+        if (quietPeriodMillis < 0) {
+            throw new IllegalArgumentException("Quiet period cannot be negative");
+        }
+        if (source == null) {
+            throw new IllegalStateException("Catalog was not loaded from a file");
+        }
+        return new ToolCatalogWatcher(this, quietPeriodMillis);
+    }
+
+    private static Map<String, Tool> readFile(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Reads tools in the catalog CSV format.
+     *
+     * @param reader the source of the CSV text
+     * @return the tools keyed by tool code, in file order
+     * @throws IOException if the text cannot be read
+     * @throws IllegalArgumentException if a line is malformed or a tool code is repeated
+     */
+    public static Map<String, Tool> read(Reader reader) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        Map<String, Tool> tools = new LinkedHashMap<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#") || line.startsWith("code,")) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            if (fields.length != 7) {
+                throw new IllegalArgumentException("Malformed tool catalog line " + lineNumber + ": " + line);
+            }
+            String toolCode = fields[0].trim();
+            if (toolCode.isEmpty() || tools.containsKey(toolCode)) {
+                throw new IllegalArgumentException("Missing or duplicate tool code on line " + lineNumber + ": " + line);
+            }
+            try {
+                tools.put(toolCode, new Tool(fields[1].trim(), fields[2].trim(), new BigDecimal(fields[3].trim()),
+                        parseFlag(fields[4]), parseFlag(fields[5]), parseFlag(fields[6])));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Malformed tool catalog line " + lineNumber + ": " + line, e);
+            }
+        }
+        return tools;
+    }
+
+    private static boolean parseFlag(String field) {
+        String value = field.trim();
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Expected true or false but found " + value);
+    }
+}
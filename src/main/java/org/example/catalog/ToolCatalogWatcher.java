@@ -0,0 +1,105 @@
+package org.example.catalog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reloads a {@link ToolCatalog} whenever its file changes.
+ * <p>
+ * Events are debounced: the file is only re-read once it has been left alone for
+ * {@link #QUIET_PERIOD_MILLIS}, so a catalog written in place over several writes is not
+ * parsed half-way through. Replacing the file with an atomic rename is still the safest
+ * way to publish an update.
+ * </p>
+ * <p>
+ * The watcher runs on its own daemon thread. A change that leaves the file unreadable or
+ * malformed is logged and the previous snapshot stays in place, so checkouts keep running
+ * against the last good catalog. A catalog listener that throws is logged too, and the
+ * watcher keeps watching.
+ * </p>
+ */
+public class ToolCatalogWatcher implements Closeable {
+
+    /**
+     * How long the catalog file must go without further events before it is reloaded.
+     */
+    public static final long QUIET_PERIOD_MILLIS = 500;
+
+    private static final Logger LOGGER = Logger.getLogger(ToolCatalogWatcher.class.getName());
+
+    private final ToolCatalog catalog;
+    private final long quietPeriodNanos;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    ToolCatalogWatcher(ToolCatalog catalog, long quietPeriodMillis) throws IOException {
+        this.catalog = catalog;
+        this.quietPeriodNanos = TimeUnit.MILLISECONDS.toNanos(quietPeriodMillis);
+        Path directory = catalog.getSource().toAbsolutePath().getParent();
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::run, "tool-catalog-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void run() {
+        Path fileName = catalog.getSource().getFileName();
+        try {
+            while (true) {
+                if (!changed(watchService.take(), fileName)) {
+                    continue;
+                }
+                long quietUntil = System.nanoTime() + quietPeriodNanos;
+                long remaining;
+                while ((remaining = quietUntil - System.nanoTime()) > 0) {
+                    WatchKey key = watchService.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (key != null && changed(key, fileName)) {
+                        quietUntil = System.nanoTime() + quietPeriodNanos;
+                    }
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private static boolean changed(WatchKey key, Path fileName) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context());
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reload() {
+        try {
+            catalog.reload();
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warning("Keeping previous tool catalog, reload of " + catalog.getSource() + " failed: "
+                    + e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Reload of tool catalog " + catalog.getSource() + " failed", e);
+        }
+    }
+
+    /**
+     * Stops watching the catalog file.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,280 @@
+package org.example.codec;
+
+import org.example.catalog.CatalogSnapshot;
+import org.example.model.RentalAgreement;
+import org.example.model.Tool;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+/**
+ * A compact binary encoding of {@link RentalAgreement} and {@link Tool}.
+ * <p>
+ * Every message starts with a format version byte so the layout can evolve; decoding
+ * rejects versions it does not know. Tool codes are dictionary-encoded against a catalog
+ * snapshot shared by both ends: a tool in the dictionary costs one byte and its type and
+ * brand are not written at all. Agreements also carry a two-byte id of the dictionary they
+ * were encoded against, and a codec refuses to decode an agreement whose id differs from
+ * its own. A missing type or brand of a tool outside the dictionary is marked by a flag
+ * rather than written. Integers are written as variable-length quantities and money as
+ * whole cents, so a typical agreement takes about 22 bytes.
+ * </p>
+ * <p>
+ * Encoding writes straight into the caller's {@link ByteBuffer} without creating any
+ * objects. A codec is immutable and safe to share between threads.
+ * </p>
+ */
+public final class AgreementCodec {
+
+    /** The format version written by this codec. */
+    public static final int VERSION = 2;
+
+    private static final int AGREEMENT_TOOL_FROM_DICTIONARY = 1;
+    private static final int AGREEMENT_NO_TOOL_TYPE = 2;
+    private static final int AGREEMENT_NO_TOOL_BRAND = 4;
+    private static final int TOOL_WEEKDAY_CHARGE = 1;
+    private static final int TOOL_WEEKEND_CHARGE = 2;
+    private static final int TOOL_HOLIDAY_CHARGE = 4;
+
+    private final CatalogSnapshot dictionary;
+    private final short dictionaryId;
+
+    /**
+     * Creates a codec using the tools of a catalog snapshot as its dictionary.
+     *
+     * @param dictionary the snapshot whose tool codes are dictionary-encoded
+     */
+    public AgreementCodec(CatalogSnapshot dictionary) {
+        this.dictionary = dictionary;
+        this.dictionaryId = (short) dictionaryId(dictionary);
+    }
+
+    /**
+     * @return the id written into every agreement, derived from the codes, types and brands
+     *         of the dictionary in index order
+     */
+    public int getDictionaryId() {
+        return dictionaryId & 0xFFFF;
+    }
+
+    /**
+     * Encodes a rental agreement at the buffer's position.
+     *
+     * @param agreement  the agreement to encode
+     * @param buffer     the buffer receiving the bytes
+     * @throws java.nio.BufferOverflowException if the buffer has too little room left
+     * @throws IllegalArgumentException if the tool code is missing or a charge is not a
+     *                                  whole number of cents
+     */
+    public void encode(RentalAgreement agreement, ByteBuffer buffer) {
+        if (agreement.getToolCode() == null) {
+            throw new IllegalArgumentException("Agreement has no tool code");
+        }
+        int toolIndex = dictionary.indexOf(agreement.getToolCode());
+        Tool tool = toolIndex < 0 ? null : dictionary.toolAt(toolIndex);
+        boolean toolFromDictionary = tool != null
+                && tool.getType().equals(agreement.getToolType())
+                && tool.getBrand().equals(agreement.getToolBrand());
+        int flags = toolFromDictionary ? AGREEMENT_TOOL_FROM_DICTIONARY
+                : (agreement.getToolType() == null ? AGREEMENT_NO_TOOL_TYPE : 0)
+                | (agreement.getToolBrand() == null ? AGREEMENT_NO_TOOL_BRAND : 0);
+
+        buffer.put((byte) VERSION);
+        buffer.putShort(dictionaryId);
+        buffer.put((byte) flags);
+        Varints.putUnsigned(buffer, toolIndex + 1);
+        if (toolIndex < 0) {
+            Varints.putString(buffer, agreement.getToolCode());
+        }
+        if ((flags & (AGREEMENT_TOOL_FROM_DICTIONARY | AGREEMENT_NO_TOOL_TYPE)) == 0) {
+            Varints.putString(buffer, agreement.getToolType());
+        }
+        if ((flags & (AGREEMENT_TOOL_FROM_DICTIONARY | AGREEMENT_NO_TOOL_BRAND)) == 0) {
+            Varints.putString(buffer, agreement.getToolBrand());
+        }
+        long checkoutEpochDay = agreement.getCheckoutDate().toEpochDay();
+        Varints.putSigned(buffer, checkoutEpochDay);
+        Varints.putSigned(buffer, agreement.getDueDate().toEpochDay() - checkoutEpochDay);
+        Varints.putSigned(buffer, agreement.getRentalDays());
+        Varints.putSigned(buffer, agreement.getChargeDays());
+        Varints.putSigned(buffer, agreement.getDiscountPercent());
+        Varints.putSigned(buffer, toCents(agreement.getDailyRentalCharge()));
+        Varints.putSigned(buffer, toCents(agreement.getPreDiscountCharge()));
+        Varints.putSigned(buffer, toCents(agreement.getDiscountAmount()));
+        Varints.putSigned(buffer, toCents(agreement.getFinalCharge()));
+    }
+
+    /**
+     * Encodes a rental agreement of a dictionary tool, given as its primitive values, at
+     * the buffer's position. The bytes are the same as {@link #encode(RentalAgreement,
+     * ByteBuffer)} writes for the equivalent agreement, with the due date
+     * {@code rentalDays} after checkout and the final charge the pre-discount charge less
+     * the discount.
+     *
+     * @param toolIndex               the index of the tool in the dictionary
+     * @param checkoutEpochDay        the epoch day of checkout
+     * @param rentalDays              the number of days the tool is rented for
+     * @param chargeDays              the number of chargeable days
+     * @param discountPercent         the discount percentage
+     * @param preDiscountChargeCents  the pre-discount charge in cents
+     * @param discountAmountCents     the discount amount in cents
+     * @param buffer                  the buffer receiving the bytes
+     * @throws java.nio.BufferOverflowException if the buffer has too little room left
+     * @throws IllegalArgumentException if the tool's daily charge is not a whole number of cents
+     */
+    public void encode(int toolIndex, long checkoutEpochDay, int rentalDays, int chargeDays, int discountPercent,
+                       long preDiscountChargeCents, long discountAmountCents, ByteBuffer buffer) {
+        long dailyRentalChargeCents = dictionary.getDailyChargeCents(toolIndex);
+        if (dailyRentalChargeCents < 0) {
+            throw new IllegalArgumentException("Charge is not a whole number of cents: "
+                    + dictionary.toolAt(toolIndex).getDailyCharge());
+        }
+        buffer.put((byte) VERSION);
+        buffer.putShort(dictionaryId);
+        buffer.put((byte) AGREEMENT_TOOL_FROM_DICTIONARY);
+        Varints.putUnsigned(buffer, toolIndex + 1);
+        Varints.putSigned(buffer, checkoutEpochDay);
+        Varints.putSigned(buffer, rentalDays);
+        Varints.putSigned(buffer, rentalDays);
+        Varints.putSigned(buffer, chargeDays);
+        Varints.putSigned(buffer, discountPercent);
+        Varints.putSigned(buffer, dailyRentalChargeCents);
+        Varints.putSigned(buffer, preDiscountChargeCents);
+        Varints.putSigned(buffer, discountAmountCents);
+        Varints.putSigned(buffer, preDiscountChargeCents - discountAmountCents);
+    }
+
+    /**
+     * Decodes a rental agreement from the buffer's position.
+     * <p>
+     * Charges are returned with a scale of 2. Tool codes, types and brands found in the
+     * dictionary are the dictionary's own {@code String} instances.
+     * </p>
+     *
+     * @param buffer the buffer holding the bytes
+     * @return the decoded agreement
+     * @throws IllegalArgumentException if the message has an unknown version, was encoded
+     *                                  against another dictionary, or refers to a tool
+     *                                  missing from the dictionary
+     * @throws java.nio.BufferUnderflowException if the message is truncated
+     */
+    public RentalAgreement decode(ByteBuffer buffer) {
+        checkVersion(buffer);
+        short encodedDictionaryId = buffer.getShort();
+        if (encodedDictionaryId != dictionaryId) {
+            throw new IllegalArgumentException("Agreement was encoded against dictionary "
+                    + (encodedDictionaryId & 0xFFFF) + ", not " + getDictionaryId());
+        }
+        int flags = buffer.get();
+        int toolIndex = (int) Varints.getUnsigned(buffer) - 1;
+        if (toolIndex >= dictionary.size()) {
+            throw new IllegalArgumentException("Tool index " + toolIndex + " is not in the dictionary");
+        }
+        String toolCode = toolIndex < 0 ? Varints.getString(buffer) : dictionary.codeAt(toolIndex);
+        String toolType;
+        String toolBrand;
+        if ((flags & AGREEMENT_TOOL_FROM_DICTIONARY) != 0) {
+            if (toolIndex < 0) {
+                throw new IllegalArgumentException("Tool details refer to a tool missing from the dictionary");
+            }
+            toolType = dictionary.toolAt(toolIndex).getType();
+            toolBrand = dictionary.toolAt(toolIndex).getBrand();
+        } else {
+            toolType = (flags & AGREEMENT_NO_TOOL_TYPE) != 0 ? null : Varints.getString(buffer);
+            toolBrand = (flags & AGREEMENT_NO_TOOL_BRAND) != 0 ? null : Varints.getString(buffer);
+        }
+        long checkoutEpochDay = Varints.getSigned(buffer);
+        long dueEpochDay = checkoutEpochDay + Varints.getSigned(buffer);
+        int rentalDays = (int) Varints.getSigned(buffer);
+        int chargeDays = (int) Varints.getSigned(buffer);
+        int discountPercent = (int) Varints.getSigned(buffer);
+        long dailyRentalChargeCents = Varints.getSigned(buffer);
+        long preDiscountChargeCents = Varints.getSigned(buffer);
+        long discountAmountCents = Varints.getSigned(buffer);
+        long finalChargeCents = Varints.getSigned(buffer);
+        return RentalAgreement.ofCents(toolCode, toolType, toolBrand, rentalDays, LocalDate.ofEpochDay(checkoutEpochDay),
+                LocalDate.ofEpochDay(dueEpochDay), BigDecimal.valueOf(dailyRentalChargeCents, 2), preDiscountChargeCents,
+                discountPercent, discountAmountCents, finalChargeCents, chargeDays);
+    }
+
+    /**
+     * Encodes a tool at the buffer's position. The daily charge is kept exactly,
+     * scale included.
+     *
+     * @param tool    the tool to encode
+     * @param buffer  the buffer receiving the bytes
+     * @throws java.nio.BufferOverflowException if the buffer has too little room left
+     * @throws ArithmeticException if the daily charge has more than 18 significant digits
+     */
+    public void encodeTool(Tool tool, ByteBuffer buffer) {
+        int flags = (tool.isWeekdayCharge() ? TOOL_WEEKDAY_CHARGE : 0)
+                | (tool.isWeekendCharge() ? TOOL_WEEKEND_CHARGE : 0)
+                | (tool.isHolidayCharge() ? TOOL_HOLIDAY_CHARGE : 0);
+        buffer.put((byte) VERSION);
+        buffer.put((byte) flags);
+        Varints.putString(buffer, tool.getType());
+        Varints.putString(buffer, tool.getBrand());
+        Varints.putSigned(buffer, tool.getDailyCharge().unscaledValue().longValueExact());
+        Varints.putSigned(buffer, tool.getDailyCharge().scale());
+    }
+
+    /**
+     * Decodes a tool from the buffer's position.
+     *
+     * @param buffer the buffer holding the bytes
+     * @return the decoded tool
+     * @throws IllegalArgumentException if the message has an unknown version
+     * @throws java.nio.BufferUnderflowException if the message is truncated
+     */
+    public Tool decodeTool(ByteBuffer buffer) {
+        checkVersion(buffer);
+        int flags = buffer.get();
+        String type = Varints.getString(buffer);
+        String brand = Varints.getString(buffer);
+        long unscaledDailyCharge = Varints.getSigned(buffer);
+        int scale = (int) Varints.getSigned(buffer);
+        return new Tool(type, brand, BigDecimal.valueOf(unscaledDailyCharge, scale),
+                (flags & TOOL_WEEKDAY_CHARGE) != 0, (flags & TOOL_WEEKEND_CHARGE) != 0,
+                (flags & TOOL_HOLIDAY_CHARGE) != 0);
+    }
+
+    private static void checkVersion(ByteBuffer buffer) {
+        int version = buffer.get() & 0xFF;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported codec version " + version);
+        }
+    }
+
+    private static int dictionaryId(CatalogSnapshot dictionary) {
+        // FNV-1a over each code, type and brand with its length, folded to 16 bits
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < dictionary.size(); i++) {
+            Tool tool = dictionary.toolAt(i);
+            hash = fnv(hash, dictionary.codeAt(i));
+            hash = fnv(hash, tool.getType());
+            hash = fnv(hash, tool.getBrand());
+        }
+        return (hash ^ hash >>> 16) & 0xFFFF;
+    }
+
+    private static int fnv(int hash, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x01000193;
+        }
+        return (hash ^ text.length()) * 0x01000193;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        if (amount.scale() == 2) {
+            // Avoid the setScale copy for the common case
+            return amount.unscaledValue().longValueExact();
+        }
+        try {
+            return amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Charge is not a whole number of cents: " + amount, e);
+        }
+    }
+}
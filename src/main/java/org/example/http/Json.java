@@ -0,0 +1,232 @@
+package org.example.http;
+
+import org.example.model.RentalAgreement;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Just enough JSON for the quote service: reading one flat object of scalar values and
+ * writing agreements and errors.
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Parses a flat JSON object. Values are returned as their text; nested objects and
+     * arrays are not supported.
+     *
+     * @param text the JSON text
+     * @return the members of the object, with {@code null} for JSON nulls
+     * @throws IllegalArgumentException if the text is not a flat JSON object
+     */
+    static Map<String, String> parseObject(CharSequence text) {
+        Parser parser = new Parser(text);
+        Map<String, String> members = parser.object();
+        parser.skipWhitespace();
+        if (parser.position != text.length()) {
+            throw parser.error("Unexpected trailing characters");
+        }
+        return members;
+    }
+
+    static void appendAgreement(StringBuilder out, RentalAgreement agreement) {
+        out.append('{');
+        appendMember(out, "toolCode", agreement.getToolCode()).append(',');
+        appendMember(out, "toolType", agreement.getToolType()).append(',');
+        appendMember(out, "toolBrand", agreement.getToolBrand()).append(',');
+        out.append("\"rentalDays\":").append(agreement.getRentalDays()).append(',');
+        appendMember(out, "checkoutDate", agreement.getCheckoutDate().toString()).append(',');
+        appendMember(out, "dueDate", agreement.getDueDate().toString()).append(',');
+        out.append("\"dailyRentalCharge\":").append(agreement.getDailyRentalCharge().toPlainString()).append(',');
+        out.append("\"chargeDays\":").append(agreement.getChargeDays()).append(',');
+        out.append("\"preDiscountCharge\":").append(agreement.getPreDiscountCharge().toPlainString()).append(',');
+        out.append("\"discountPercent\":").append(agreement.getDiscountPercent()).append(',');
+        out.append("\"discountAmount\":").append(agreement.getDiscountAmount().toPlainString()).append(',');
+        out.append("\"finalCharge\":").append(agreement.getFinalCharge().toPlainString());
+        out.append('}');
+    }
+
+    static void appendError(StringBuilder out, String message) {
+        out.append('{');
+        appendMember(out, "error", message);
+        out.append('}');
+    }
+
+    private static StringBuilder appendMember(StringBuilder out, String name, String value) {
+        appendString(out, name);
+        out.append(':');
+        if (value == null) {
+            return out.append("null");
+        }
+        return appendString(out, value);
+    }
+
+    private static StringBuilder appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    private static final class Parser {
+
+        private final CharSequence text;
+        private int position;
+
+        Parser(CharSequence text) {
+            this.text = text;
+        }
+
+        Map<String, String> object() {
+            Map<String, String> members = new HashMap<>();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                position++;
+                return members;
+            }
+            while (true) {
+                skipWhitespace();
+                String name = string();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                members.put(name, value());
+                skipWhitespace();
+                char c = next();
+                if (c == '}') {
+                    return members;
+                }
+                if (c != ',') {
+                    throw error("Expected ',' or '}'");
+                }
+            }
+        }
+
+        private String value() {
+            char c = peek();
+            if (c == '"') {
+                return string();
+            }
+            if (c == '{' || c == '[') {
+                throw error("Nested values are not supported");
+            }
+            int start = position;
+            while (position < text.length() && ",}] \t\r\n".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            String literal = text.subSequence(start, position).toString();
+            if (literal.isEmpty()) {
+                throw error("Expected a value");
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escape = next();
+                switch (escape) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        value.append(escape);
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw error("Truncated unicode escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.subSequence(position, position + 4).toString(), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid unicode escape");
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        throw error("Invalid escape '\\" + escape + "'");
+                }
+            }
+        }
+
+        void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        private char peek() {
+            if (position >= text.length()) {
+                throw error("Unexpected end of input");
+            }
+            return text.charAt(position);
+        }
+
+        private char next() {
+            char c = peek();
+            position++;
+            return c;
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Malformed JSON at offset " + position + ": " + message);
+        }
+    }
+}
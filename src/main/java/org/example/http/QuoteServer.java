@@ -0,0 +1,406 @@
+package org.example.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.model.CheckoutRequest;
+import org.example.model.CheckoutResult;
+import org.example.model.RejectionReason;
+import org.example.model.RentalAgreement;
+import org.example.service.QuoteCache;
+import org.example.service.ToolRentalService;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An embedded HTTP front end for a {@link ToolRentalService}.
+ * <p>
+ * Connections are accepted by the JDK's selector-based HTTP server and each exchange is
+ * handled on its own virtual thread when the runtime supports them (JDK 21 and later),
+ * or on a cached pool of platform threads otherwise. The endpoints are:
+ * </p>
+ * <ul>
+ *     <li>{@code GET /quote?toolCode=JAKR&rentalDays=5&discountPercent=20&checkoutDate=2020-07-03}
+ *     prices a rental, answering repeated quotes from a {@link QuoteCache}.</li>
+ *     <li>{@code POST /checkout} with a JSON object holding the same four members checks out
+ *     a tool.</li>
+ *     <li>{@code POST /batch} with one such JSON object per line checks out every line and
+ *     answers one JSON line per request, in order, holding either the agreement or an
+ *     {@code error} member.</li>
+ *     <li>{@code GET /metrics} answers the service's {@link org.example.metrics.RentalMetrics}
+ *     in the Prometheus text format.</li>
+ * </ul>
+ * <p>
+ * Invalid requests are answered with status 400 and a JSON body holding an {@code error}
+ * member. So that one request cannot hold a CPU for long, rentals longer than
+ * {@link RejectionReason#MAX_SERVED_RENTAL_DAYS} days are rejected as
+ * {@link RejectionReason#RENTAL_TOO_LONG} before they are priced. Request bodies larger
+ * than {@value #MAX_CHECKOUT_BODY_BYTES} bytes for {@code /checkout}, or
+ * {@value #MAX_BATCH_BODY_BYTES} bytes for {@code /batch}, are answered with status 413
+ * without being read. Any other failure is logged and answered with status 500 and the
+ * same kind of JSON body.
+ * </p>
+ * <p>
+ * The JDK server writes headers and body separately, so without {@code TCP_NODELAY} every
+ * small response waits on the client's delayed ACK, about 40 ms. Launch the process with
+ * {@code -Dsun.net.httpserver.nodelay=true}; {@link org.example.App} sets it before the
+ * server is started.
+ * </p>
+ */
+public class QuoteServer implements Closeable {
+
+    /** The largest body accepted by {@code /checkout}, in bytes. */
+    public static final int MAX_CHECKOUT_BODY_BYTES = 16 * 1024;
+
+    /** The largest body accepted by {@code /batch}, in bytes. */
+    public static final int MAX_BATCH_BODY_BYTES = 8 * 1024 * 1024;
+
+    private static final int QUOTE_CACHE_SIZE = 4096;
+
+    private static final Logger LOGGER = Logger.getLogger(QuoteServer.class.getName());
+
+    private final ToolRentalService toolRentalService;
+    private final QuoteCache quoteCache;
+    private final ExecutorService executor;
+    private final HttpServer server;
+
+    private QuoteServer(ToolRentalService toolRentalService, HttpServer server) {
+        this.toolRentalService = toolRentalService;
+        this.quoteCache = new QuoteCache(toolRentalService, QUOTE_CACHE_SIZE);
+        this.executor = newRequestExecutor();
+        this.server = server;
+        server.setExecutor(executor);
+        server.createContext("/quote", this::handleQuote);
+        server.createContext("/checkout", this::handleCheckout);
+        server.createContext("/batch", this::handleBatch);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    /**
+     * Starts a server for the given service.
+     *
+     * @param toolRentalService  the service pricing the requests
+     * @param address            the address to listen on; port 0 picks a free port
+     * @return the running server
+     * @throws IOException if the address cannot be bound
+     */
+    public static QuoteServer start(ToolRentalService toolRentalService, InetSocketAddress address) throws IOException {
+        QuoteServer quoteServer = new QuoteServer(toolRentalService, HttpServer.create(address, 0));
+        quoteServer.server.start();
+        return quoteServer;
+    }
+
+    /**
+     * Returns the address the server is listening on.
+     *
+     * @return the bound address
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stops accepting requests, waits briefly for exchanges in progress, and releases the
+     * request threads.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        quoteCache.close();
+    }
+
+    private void handleQuote(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendStatus(exchange, 405);
+                return;
+            }
+            CheckoutRequest request = toCheckoutRequest(parseQuery(exchange.getRequestURI().getRawQuery()));
+            CheckoutResult rejected = rejectTooLong(request);
+            sendResult(exchange, rejected != null ? rejected : quoteCache.tryCheckout(request));
+        } catch (RuntimeException e) {
+            sendFailure(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleCheckout(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendStatus(exchange, 405);
+                return;
+            }
+            byte[] body = readBody(exchange, MAX_CHECKOUT_BODY_BYTES);
+            if (body == null) {
+                sendTooLarge(exchange);
+                return;
+            }
+            CheckoutRequest request = toCheckoutRequest(Json.parseObject(new String(body, StandardCharsets.UTF_8)));
+            CheckoutResult rejected = rejectTooLong(request);
+            sendResult(exchange, rejected != null ? rejected : toolRentalService.tryCheckout(request));
+        } catch (RuntimeException e) {
+            sendFailure(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendStatus(exchange, 405);
+                return;
+            }
+            byte[] body = readBody(exchange, MAX_BATCH_BODY_BYTES);
+            if (body == null) {
+                sendTooLarge(exchange);
+                return;
+            }
+            List<CheckoutRequest> requests = new ArrayList<>();
+            // Lines rejected before pricing keep their place in the response
+            List<String> lineErrors = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        CheckoutRequest request = toCheckoutRequest(Json.parseObject(line));
+                        CheckoutResult rejected = rejectTooLong(request);
+                        requests.add(rejected == null ? request : null);
+                        lineErrors.add(rejected == null ? null : rejected.getError());
+                    } catch (IllegalArgumentException e) {
+                        requests.add(null);
+                        lineErrors.add(e.getMessage());
+                    }
+                }
+            }
+            List<CheckoutResult> results = toolRentalService.checkoutBatch(requests);
+
+            exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            try (Writer writer = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)) {
+                StringBuilder line = new StringBuilder(512);
+                for (int i = 0; i < results.size(); i++) {
+                    line.setLength(0);
+                    CheckoutResult result = results.get(i);
+                    if (lineErrors.get(i) != null) {
+                        Json.appendError(line, lineErrors.get(i));
+                    } else if (result.isSuccess()) {
+                        Json.appendAgreement(line, result.getRentalAgreement());
+                    } else {
+                        Json.appendError(line, result.getError());
+                    }
+                    writer.append(line).append('\n');
+                }
+            }
+        } catch (RuntimeException e) {
+            sendFailure(exchange, e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendStatus(exchange, 405);
+                return;
+            }
+            StringBuilder body = new StringBuilder(4096);
+            toolRentalService.getMetrics().writePrometheus(body);
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Rejects a rental longer than the server prices.
+     *
+     * @return the rejection, or {@code null} if the request may be priced
+     */
+    private CheckoutResult rejectTooLong(CheckoutRequest request) {
+        if (request.getRentalDays() <= RejectionReason.MAX_SERVED_RENTAL_DAYS) {
+            return null;
+        }
+        toolRentalService.getMetrics().recordRejection(RejectionReason.RENTAL_TOO_LONG);
+        return CheckoutResult.rejected(request, RejectionReason.RENTAL_TOO_LONG);
+    }
+
+    private static CheckoutRequest toCheckoutRequest(Map<String, String> parameters) {
+        String toolCode = required(parameters, "toolCode");
+        String checkoutDate = required(parameters, "checkoutDate");
+        try {
+            return new CheckoutRequest(toolCode, parseInt(parameters, "rentalDays"),
+                    parseInt(parameters, "discountPercent"), LocalDate.parse(checkoutDate));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid checkoutDate: " + checkoutDate, e);
+        }
+    }
+
+    private static int parseInt(Map<String, String> parameters, String name) {
+        String value = required(parameters, name);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value, e);
+        }
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + name);
+        }
+        return value;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator < 0) {
+                continue;
+            }
+            parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    /**
+     * Reads a request body of at most {@code limit} bytes.
+     *
+     * @return the body, or {@code null} if it is larger than the limit
+     */
+    private static byte[] readBody(HttpExchange exchange, int limit) throws IOException {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength != null) {
+            try {
+                if (Long.parseLong(contentLength.trim()) > limit) {
+                    return null;
+                }
+            } catch (NumberFormatException e) {
+                // The server rejects malformed lengths itself; let the read below decide
+            }
+        }
+        byte[] body = exchange.getRequestBody().readNBytes(limit + 1);
+        return body.length > limit ? null : body;
+    }
+
+    private static void sendResult(HttpExchange exchange, CheckoutResult result) throws IOException {
+        if (result.isSuccess()) {
+            sendAgreement(exchange, result.getRentalAgreement());
+        } else {
+            sendError(exchange, result.getError());
+        }
+    }
+
+    private static void sendAgreement(HttpExchange exchange, RentalAgreement agreement) throws IOException {
+        StringBuilder body = new StringBuilder(512);
+        Json.appendAgreement(body, agreement);
+        send(exchange, 200, body);
+    }
+
+    private static void sendError(HttpExchange exchange, String message) throws IOException {
+        sendError(exchange, 400, message);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder body = new StringBuilder(128);
+        Json.appendError(body, message);
+        send(exchange, status, body);
+    }
+
+    /**
+     * Answers an exception thrown while handling an exchange: 400 with its message for an
+     * invalid request, 500 for anything else. Nothing is sent if the response has already
+     * started.
+     */
+    private static void sendFailure(HttpExchange exchange, RuntimeException e) throws IOException {
+        if (!(e instanceof IllegalArgumentException)) {
+            LOGGER.log(Level.WARNING, "Failed to handle " + exchange.getRequestMethod() + " "
+                    + exchange.getRequestURI(), e);
+        }
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        if (e instanceof IllegalArgumentException) {
+            sendError(exchange, e.getMessage());
+        } else {
+            sendError(exchange, 500, "Internal server error");
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, CharSequence body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendTooLarge(HttpExchange exchange) throws IOException {
+        // The rest of the body is not drained; the server closes the connection instead
+        exchange.getResponseHeaders().set("Connection", "close");
+        exchange.sendResponseHeaders(413, -1);
+    }
+
+    private static void sendStatus(HttpExchange exchange, int status) throws IOException {
+        // Drain the body so the connection can be reused
+        try (InputStream in = exchange.getRequestBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    /**
+     * Returns an executor running each task on a new virtual thread, looked up reflectively
+     * so the service also runs on runtimes without virtual threads.
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "quote-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package org.example.inventory;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the rentable units of every tool and the dates each unit is booked.
+ * <p>
+ * A rental occupies a unit from its checkout date up to, but not including, its due date,
+ * so a unit returned on a given day can be checked out again the same day. Each unit
+ * keeps its own bookings and updates them with compare-and-set, so there is no global
+ * lock: checks and bookings of different units never contend, and availability checks
+ * never block at all.
+ * </p>
+ * <p>
+ * Once {@link #forgetBookingsBefore(LocalDate)} has moved the watermark, bookings that end
+ * by it are dropped whenever their unit is next booked, so a long-lived unit does not
+ * copy its whole rental history on every booking. Rentals starting before the watermark
+ * can no longer be reserved.
+ * </p>
+ */
+public class Inventory {
+
+    private static final ToolUnit[] NO_UNITS = new ToolUnit[0];
+
+    private final Map<String, ToolUnit[]> unitsByTool = new ConcurrentHashMap<>();
+    private final AtomicInteger watermarkEpochDay = new AtomicInteger(Integer.MIN_VALUE);
+
+    /**
+     * Adds a rentable unit of a tool.
+     *
+     * @param toolCode  the code of the tool
+     * @param unitId    an identifier of the unit, unique for the tool
+     * @throws IllegalArgumentException if the tool already has a unit with this identifier
+     */
+    public void addUnit(String toolCode, final String unitId) {
+        unitsByTool.compute(toolCode, (code, units) -> {
+            if (units == null) {
+                return new ToolUnit[]{new ToolUnit(unitId)};
+            }
+            for (ToolUnit unit : units) {
+                if (unit.getId().equals(unitId)) {
+                    throw new IllegalArgumentException("Duplicate unit " + unitId + " for tool code " + code);
+                }
+            }
+            ToolUnit[] next = Arrays.copyOf(units, units.length + 1);
+            next[units.length] = new ToolUnit(unitId);
+            return next;
+        });
+    }
+
+    /**
+     * Moves the watermark forward to the given date, typically today. Bookings ending on
+     * or before it are forgotten, and later reservations must start on or after it.
+     * A date before the current watermark leaves it unchanged.
+     *
+     * @param date the new watermark
+     */
+    public void forgetBookingsBefore(LocalDate date) {
+        watermarkEpochDay.accumulateAndGet(startEpochDay(date), Math::max);
+    }
+
+    /**
+     * @param toolCode the code of the tool
+     * @return the number of units of the tool
+     */
+    public int unitCount(String toolCode) {
+        return units(toolCode).length;
+    }
+
+    /**
+     * Counts the units of a tool that are free for a whole rental.
+     *
+     * @param toolCode      the code of the tool
+     * @param checkoutDate  the date when the rental begins
+     * @param rentalDays    the number of days the tool is rented for
+     * @return the number of free units
+     */
+    public int availableUnits(String toolCode, LocalDate checkoutDate, int rentalDays) {
+        int start = startEpochDay(checkoutDate);
+        int end = endEpochDay(start, rentalDays);
+        int available = 0;
+        for (ToolUnit unit : units(toolCode)) {
+            if (unit.isFree(start, end)) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Checks if at least one unit of a tool is free for a whole rental.
+     *
+     * @param toolCode      the code of the tool
+     * @param checkoutDate  the date when the rental begins
+     * @param rentalDays    the number of days the tool is rented for
+     * @return {@code true} if a unit is free, {@code false} otherwise
+     */
+    public boolean isAvailable(String toolCode, LocalDate checkoutDate, int rentalDays) {
+        int start = startEpochDay(checkoutDate);
+        return anyFree(units(toolCode), start, endEpochDay(start, rentalDays));
+    }
+
+    /**
+     * Returns the tool codes with at least one unit free for a whole rental.
+     *
+     * @param checkoutDate  the date when the rental begins
+     * @param rentalDays    the number of days the tool is rented for
+     * @return the available tool codes
+     */
+    public Set<String> availableToolCodes(LocalDate checkoutDate, int rentalDays) {
+        int start = startEpochDay(checkoutDate);
+        int end = endEpochDay(start, rentalDays);
+        Set<String> available = new LinkedHashSet<>();
+        for (Map.Entry<String, ToolUnit[]> entry : unitsByTool.entrySet()) {
+            if (anyFree(entry.getValue(), start, end)) {
+                available.add(entry.getKey());
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Books a free unit of a tool for a rental.
+     * <p>
+     * Units are tried starting from a random one, so concurrent bookings of the same tool
+     * tend to land on different units instead of racing for the first free one.
+     * </p>
+     *
+     * @param toolCode      the code of the tool
+     * @param checkoutDate  the date when the rental begins
+     * @param rentalDays    the number of days the tool is rented for
+     * @return the reservation, or {@code null} if no unit is free for the whole rental
+     * @throws IllegalArgumentException if rental days are less than 1 or the checkout date
+     *                                  is before the watermark
+     */
+    public Reservation reserve(String toolCode, LocalDate checkoutDate, int rentalDays) {
+        int start = startEpochDay(checkoutDate);
+        int end = endEpochDay(start, rentalDays);
+        int watermark = watermarkEpochDay.get();
+        if (start < watermark) {
+            throw new IllegalArgumentException("Checkout date is before " + LocalDate.ofEpochDay(watermark));
+        }
+        ToolUnit[] units = units(toolCode);
+        if (units.length == 0) {
+            return null;
+        }
+        int first = ThreadLocalRandom.current().nextInt(units.length);
+        for (int i = 0; i < units.length; i++) {
+            int index = (first + i) % units.length;
+            if (units[index].book(start, end, watermark)) {
+                return new Reservation(toolCode, units[index].getId(), index, start, end);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Releases a reservation, making its unit free again for those dates.
+     *
+     * @param reservation the reservation to release
+     * @return {@code true} if the reservation was held, {@code false} if it was already released
+     */
+    public boolean release(Reservation reservation) {
+        ToolUnit[] units = units(reservation.getToolCode());
+        int index = reservation.getUnitIndex();
+        return index < units.length && units[index].release(reservation.getStartEpochDay(), reservation.getEndEpochDay());
+    }
+
+    private ToolUnit[] units(String toolCode) {
+        ToolUnit[] units = toolCode == null ? null : unitsByTool.get(toolCode);
+        return units == null ? NO_UNITS : units;
+    }
+
+    private static boolean anyFree(ToolUnit[] units, int start, int end) {
+        for (ToolUnit unit : units) {
+            if (unit.isFree(start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int startEpochDay(LocalDate checkoutDate) {
+        return Math.toIntExact(checkoutDate.toEpochDay());
+    }
+
+    private static int endEpochDay(int startEpochDay, int rentalDays) {
+        if (rentalDays < 1) {
+            throw new IllegalArgumentException("Rental days must be 1 or greater");
+        }
+        return Math.addExact(startEpochDay, rentalDays);
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.inventory;
+
+import java.time.LocalDate;
+
+/**
+ * A booking of one tool unit from its checkout date up to, but not including, its due date.
+ */
+public final class Reservation {
+    private final String toolCode;
+    private final String unitId;
+    private final int unitIndex;
+    private final int startEpochDay;
+    private final int endEpochDay;
+
+    Reservation(String toolCode, String unitId, int unitIndex, int startEpochDay, int endEpochDay) {
+        this.toolCode = toolCode;
+        this.unitId = unitId;
+        this.unitIndex = unitIndex;
+        this.startEpochDay = startEpochDay;
+        this.endEpochDay = endEpochDay;
+    }
+
+    public String getToolCode() {
+        return toolCode;
+    }
+
+    public String getUnitId() {
+        return unitId;
+    }
+
+    int getUnitIndex() {
+        return unitIndex;
+    }
+
+    int getStartEpochDay() {
+        return startEpochDay;
+    }
+
+    int getEndEpochDay() {
+        return endEpochDay;
+    }
+
+    /**
+     * @return the first day the unit is out
+     */
+    public LocalDate getCheckoutDate() {
+        return LocalDate.ofEpochDay(startEpochDay);
+    }
+
+    /**
+     * @return the day the unit is back and can be checked out again
+     */
+    public LocalDate getDueDate() {
+        return LocalDate.ofEpochDay(endEpochDay);
+    }
+
+    @Override
+    public String toString() {
+        return "Reservation[" + toolCode + "/" + unitId + ", " + getCheckoutDate() + ".." + getDueDate() + "]";
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.inventory;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One rentable unit of a tool and the date intervals it is booked for.
+ * <p>
+ * Bookings are half-open epoch-day intervals kept as a flat, sorted array of
+ * {@code start, end} pairs. The array is never modified: a booking or release builds a
+ * new array and publishes it with compare-and-set, so availability checks never block
+ * and concurrent bookings of the same unit cannot both succeed for overlapping dates.
+ * Bookings that ended by the watermark passed to {@link #book} are dropped from the new
+ * array, so the array holds current and future bookings rather than the unit's history.
+ * </p>
+ */
+final class ToolUnit {
+    private static final int[] NO_BOOKINGS = new int[0];
+
+    private final String id;
+    private final AtomicReference<int[]> bookings = new AtomicReference<>(NO_BOOKINGS);
+
+    ToolUnit(String id) {
+        this.id = id;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    boolean isFree(int startEpochDay, int endEpochDay) {
+        return insertionPair(bookings.get(), startEpochDay, endEpochDay) >= 0;
+    }
+
+    /**
+     * Books the unit for the given interval if it is free, dropping the bookings that end
+     * on or before the watermark day.
+     *
+     * @return {@code true} if the unit was booked, {@code false} if the interval overlaps a booking
+     */
+    boolean book(int startEpochDay, int endEpochDay, int watermarkEpochDay) {
+        while (true) {
+            int[] current = bookings.get();
+            int pair = insertionPair(current, startEpochDay, endEpochDay);
+            if (pair < 0) {
+                return false;
+            }
+            // Bookings are sorted by end day, so the ended ones are a prefix
+            int ended = Math.min(firstEndingAfter(current, watermarkEpochDay), pair);
+            int[] next = new int[current.length - ended * 2 + 2];
+            System.arraycopy(current, ended * 2, next, 0, (pair - ended) * 2);
+            next[(pair - ended) * 2] = startEpochDay;
+            next[(pair - ended) * 2 + 1] = endEpochDay;
+            System.arraycopy(current, pair * 2, next, (pair - ended) * 2 + 2, current.length - pair * 2);
+            if (bookings.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes a booking of exactly the given interval.
+     *
+     * @return {@code true} if the booking existed
+     */
+    boolean release(int startEpochDay, int endEpochDay) {
+        while (true) {
+            int[] current = bookings.get();
+            int pair = firstEndingAfter(current, startEpochDay);
+            if (pair * 2 >= current.length || current[pair * 2] != startEpochDay || current[pair * 2 + 1] != endEpochDay) {
+                return false;
+            }
+            int[] next = current.length == 2 ? NO_BOOKINGS : new int[current.length - 2];
+            System.arraycopy(current, 0, next, 0, pair * 2);
+            System.arraycopy(current, pair * 2 + 2, next, pair * 2, current.length - pair * 2 - 2);
+            if (bookings.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    int bookingCount() {
+        return bookings.get().length / 2;
+    }
+
+    /**
+     * Returns the pair index at which the interval would be inserted, or -1 if it overlaps
+     * an existing booking.
+     */
+    private static int insertionPair(int[] bookings, int startEpochDay, int endEpochDay) {
+        int pair = firstEndingAfter(bookings, startEpochDay);
+        if (pair * 2 < bookings.length && bookings[pair * 2] < endEpochDay) {
+            return -1;
+        }
+        return pair;
+    }
+
+    /**
+     * Returns the index of the first booking ending after the given day. Bookings do not
+     * overlap, so their end days are sorted as well as their start days.
+     */
+    private static int firstEndingAfter(int[] bookings, int epochDay) {
+        int low = 0;
+        int high = bookings.length / 2;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (bookings[middle * 2 + 1] <= epochDay) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public String toString() {
+        return "ToolUnit[" + id + ", " + Arrays.toString(bookings.get()) + "]";
+    }
+}
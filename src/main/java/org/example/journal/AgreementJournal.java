@@ -0,0 +1,482 @@
+package org.example.journal;
+
+import org.example.catalog.CatalogSnapshot;
+import org.example.model.RentalAgreement;
+import org.example.model.Tool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * A durable, append-only journal of rental agreements.
+ * <p>
+ * Agreements are written as fixed-width 64-byte records into a memory-mapped file, so an
+ * append is a short copy under a lock. A background thread forces written records to
+ * disk in groups, every few milliseconds, and callers that need durability wait for
+ * their record's group with {@link #awaitDurable(long)}.
+ * </p>
+ * <p>
+ * Each record carries a CRC-32 of its contents. When a journal is opened, records are
+ * checked from the start of the file and everything from the first missing or corrupt
+ * record onwards, such as a record torn by a crash, is cut off.
+ * </p>
+ * <p>
+ * Record layout, big-endian:
+ * </p>
+ * <pre>
+ *  0  int   record marker
+ *  4  int   CRC-32 of bytes 8 to 63
+ *  8  long  sequence number, starting at 1
+ * 16  8B    tool code, US-ASCII, zero padded
+ * 24  int   checkout epoch day
+ * 28  int   rental days
+ * 32  int   charge days
+ * 36  int   discount percent
+ * 40  long  daily rental charge in cents
+ * 48  long  pre-discount charge in cents
+ * 56  long  discount amount in cents
+ * </pre>
+ * <p>
+ * The final charge is not stored; it is the pre-discount charge less the discount. Tool
+ * types and brands are not stored either; they are looked up in a catalog on replay.
+ * </p>
+ */
+public class AgreementJournal implements Closeable {
+
+    /** Size of one record in bytes. */
+    public static final int RECORD_SIZE = 64;
+
+    private static final int FILE_MAGIC = 0x524A4E4C;   // "RJNL"
+    private static final int FILE_VERSION = 1;
+    private static final int HEADER_SIZE = RECORD_SIZE;
+    private static final int RECORD_MARKER = 0x52454331; // "REC1"
+    private static final int MAX_TOOL_CODE_LENGTH = 8;
+    private static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+    private static final long DEFAULT_COMMIT_INTERVAL_MICROS = 2000;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long segmentSize;
+    private final long commitIntervalNanos;
+    private final Object lock = new Object();
+    private final Object flushLock = new Object();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final List<MappedByteBuffer> unforcedSegments = new ArrayList<>();
+    private final Thread flusher;
+
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    private long appendedSequence;
+    private long durableSequence;
+    private boolean closed;
+    private IOException flushFailure;
+
+    private AgreementJournal(Path file, long segmentSize, long commitIntervalNanos) throws IOException {
+        if (segmentSize < RECORD_SIZE || segmentSize % RECORD_SIZE != 0) {
+            throw new IllegalArgumentException("Segment size must be a positive multiple of " + RECORD_SIZE);
+        }
+        this.file = file;
+        this.segmentSize = segmentSize;
+        this.commitIntervalNanos = commitIntervalNanos;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            this.appendedSequence = recover();
+            this.durableSequence = appendedSequence;
+            mapSegmentAt(HEADER_SIZE + appendedSequence * RECORD_SIZE);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.flusher = new Thread(this::runFlusher, "agreement-journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Opens a journal, creating the file if it does not exist and cutting off any torn
+     * or corrupt records at its end.
+     *
+     * @param file the journal file
+     * @return the open journal
+     * @throws IOException if the file cannot be opened or is not a journal
+     */
+    public static AgreementJournal open(Path file) throws IOException {
+        return new AgreementJournal(file, DEFAULT_SEGMENT_SIZE, TimeUnit.MICROSECONDS.toNanos(DEFAULT_COMMIT_INTERVAL_MICROS));
+    }
+
+    /**
+     * Opens a journal with explicit mapping and group-commit settings.
+     *
+     * @param file                  the journal file
+     * @param segmentSize           the size of each mapped region, a multiple of {@link #RECORD_SIZE}
+     * @param commitIntervalMicros  the longest time written records wait before being forced to disk
+     * @return the open journal
+     * @throws IOException if the file cannot be opened or is not a journal
+     */
+    public static AgreementJournal open(Path file, long segmentSize, long commitIntervalMicros) throws IOException {
+        return new AgreementJournal(file, segmentSize, TimeUnit.MICROSECONDS.toNanos(commitIntervalMicros));
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Appends an agreement to the journal.
+     * <p>
+     * The record is visible to {@link #replay} at once but is only guaranteed to survive a
+     * crash once {@link #awaitDurable(long)} returns for its sequence number.
+     * </p>
+     *
+     * @param agreement the agreement to append
+     * @return the sequence number of the record
+     * @throws IOException if the journal is closed or a new region cannot be mapped
+     * @throws IllegalArgumentException if the tool code is longer than 8 ASCII characters
+     *                                  or a charge is not a whole number of cents
+     */
+    public long append(RentalAgreement agreement) throws IOException {
+        String toolCode = agreement.getToolCode();
+        if (toolCode.length() > MAX_TOOL_CODE_LENGTH) {
+            throw new IllegalArgumentException("Tool code is too long to journal: " + toolCode);
+        }
+        long dailyRentalChargeCents = toCents(agreement.getDailyRentalCharge());
+        long preDiscountChargeCents = toCents(agreement.getPreDiscountCharge());
+        long discountAmountCents = toCents(agreement.getDiscountAmount());
+        int checkoutEpochDay = Math.toIntExact(agreement.getCheckoutDate().toEpochDay());
+
+        synchronized (lock) {
+            if (closed) {
+                throw new IOException("Journal is closed");
+            }
+            long sequence = appendedSequence + 1;
+            record.clear();
+            record.putInt(RECORD_MARKER).putInt(0).putLong(sequence);
+            for (int i = 0; i < MAX_TOOL_CODE_LENGTH; i++) {
+                char c = i < toolCode.length() ? toolCode.charAt(i) : 0;
+                if (c > 127) {
+                    throw new IllegalArgumentException("Tool code is not ASCII: " + toolCode);
+                }
+                record.put((byte) c);
+            }
+            record.putInt(checkoutEpochDay)
+                    .putInt(agreement.getRentalDays())
+                    .putInt(agreement.getChargeDays())
+                    .putInt(agreement.getDiscountPercent())
+                    .putLong(dailyRentalChargeCents)
+                    .putLong(preDiscountChargeCents)
+                    .putLong(discountAmountCents);
+            record.putInt(4, checksum(record));
+            record.flip();
+
+            if (!segment.hasRemaining()) {
+                mapSegmentAt(segmentStart + segmentSize);
+            }
+            segment.put(record);
+            appendedSequence = sequence;
+            // Only the first record after a flush has an idle flusher to wake; awaitDurable
+            // callers are woken by the flush that makes their record durable
+            if (sequence - 1 == durableSequence) {
+                lock.notifyAll();
+            }
+            return sequence;
+        }
+    }
+
+    /**
+     * Appends an agreement and waits until it has been forced to disk.
+     *
+     * @param agreement the agreement to append
+     * @return the sequence number of the record
+     * @throws IOException if the record cannot be written or forced to disk
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public long appendDurably(RentalAgreement agreement) throws IOException, InterruptedException {
+        long sequence = append(agreement);
+        awaitDurable(sequence);
+        return sequence;
+    }
+
+    /**
+     * Waits until every record up to the given sequence number has been forced to disk.
+     *
+     * @param sequence the sequence number to wait for
+     * @throws IOException if forcing records to disk failed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitDurable(long sequence) throws IOException, InterruptedException {
+        synchronized (lock) {
+            while (durableSequence < sequence) {
+                if (flushFailure != null) {
+                    throw flushFailure;
+                }
+                if (closed) {
+                    throw new IOException("Journal closed before record " + sequence + " was durable");
+                }
+                lock.wait();
+            }
+        }
+    }
+
+    /**
+     * @return the sequence number of the last appended record, or 0 if the journal is empty
+     */
+    public long getLastSequence() {
+        synchronized (lock) {
+            return appendedSequence;
+        }
+    }
+
+    /**
+     * @return the sequence number of the last record known to be on disk
+     */
+    public long getDurableSequence() {
+        synchronized (lock) {
+            return durableSequence;
+        }
+    }
+
+    /**
+     * Replays every appended record in sequence order.
+     * <p>
+     * Tool types and brands are taken from the given catalog snapshot; they are
+     * {@code null} for tool codes no longer in the catalog.
+     * </p>
+     *
+     * @param catalog   the catalog resolving tool types and brands
+     * @param consumer  receives the agreement of each record
+     * @return the number of records replayed
+     * @throws IOException if the file cannot be read
+     */
+    public long replay(CatalogSnapshot catalog, Consumer<RentalAgreement> consumer) throws IOException {
+        long lastSequence = getLastSequence();
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 1024);
+        long sequence = 0;
+        long position = HEADER_SIZE;
+        while (sequence < lastSequence) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), (lastSequence - sequence) * RECORD_SIZE));
+            readFully(buffer, position);
+            buffer.flip();
+            position += buffer.limit();
+            while (buffer.hasRemaining()) {
+                consumer.accept(decode(buffer, catalog));
+                sequence++;
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Forces every appended record to disk now.
+     *
+     * @throws IOException if forcing fails
+     */
+    public void flush() throws IOException {
+        // Flushes are serialized: otherwise a flush that only took the current segment could
+        // advance the durable sequence past records another flush is still forcing
+        synchronized (flushLock) {
+            List<MappedByteBuffer> segments;
+            long sequence;
+            synchronized (lock) {
+                sequence = appendedSequence;
+                segments = new ArrayList<>(unforcedSegments);
+                unforcedSegments.clear();
+                unforcedSegments.add(segment);
+            }
+            boolean forced = false;
+            try {
+                for (MappedByteBuffer dirty : segments) {
+                    dirty.force();
+                }
+                forced = true;
+            } finally {
+                if (!forced) {
+                    // Leave the segments to the next flush rather than marking their records durable
+                    synchronized (lock) {
+                        unforcedSegments.addAll(segments);
+                    }
+                }
+            }
+            synchronized (lock) {
+                if (sequence > durableSequence) {
+                    durableSequence = sequence;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Forces outstanding records to disk and closes the journal.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+            channel.close();
+        }
+    }
+
+    private void runFlusher() {
+        try {
+            while (true) {
+                synchronized (lock) {
+                    while (!closed && appendedSequence == durableSequence) {
+                        lock.wait();
+                    }
+                    if (closed) {
+                        return;
+                    }
+                }
+                // Let more appends join this group before paying for the fsync
+                TimeUnit.NANOSECONDS.sleep(commitIntervalNanos);
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            synchronized (lock) {
+                flushFailure = e;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Validates the header, writing one to a new file, and finds the last intact record.
+     * Anything after it is truncated away.
+     *
+     * @return the sequence number of the last intact record
+     */
+    private long recover() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (channel.size() < HEADER_SIZE) {
+            header.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(RECORD_SIZE);
+            header.clear();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.force(true);
+            return 0;
+        }
+        readFully(header, 0);
+        if (header.getInt(0) != FILE_MAGIC || header.getInt(4) != FILE_VERSION || header.getInt(8) != RECORD_SIZE) {
+            throw new IOException(file + " is not an agreement journal");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 1024);
+        long sequence = 0;
+        long position = HEADER_SIZE;
+        long size = channel.size();
+        scan:
+        while (position + RECORD_SIZE <= size) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), (size - position) / RECORD_SIZE * RECORD_SIZE));
+            readFully(buffer, position);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                ByteBuffer candidate = buffer.slice();
+                candidate.limit(RECORD_SIZE);
+                if (candidate.getInt(0) != RECORD_MARKER || candidate.getInt(4) != checksum(candidate)
+                        || candidate.getLong(8) != sequence + 1) {
+                    break scan;
+                }
+                buffer.position(buffer.position() + RECORD_SIZE);
+                position += RECORD_SIZE;
+                sequence++;
+            }
+        }
+        if (position < size) {
+            channel.truncate(position);
+            channel.force(true);
+        }
+        return sequence;
+    }
+
+    private void mapSegmentAt(long position) throws IOException {
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, position, segmentSize);
+        segmentStart = position;
+        unforcedSegments.add(segment);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of journal " + file);
+            }
+            position += read;
+        }
+    }
+
+    private int checksum(ByteBuffer recordBuffer) {
+        crc.reset();
+        for (int i = 8; i < RECORD_SIZE; i++) {
+            crc.update(recordBuffer.get(i));
+        }
+        return (int) crc.getValue();
+    }
+
+    private static RentalAgreement decode(ByteBuffer buffer, CatalogSnapshot catalog) {
+        int start = buffer.position();
+        StringBuilder toolCode = new StringBuilder(MAX_TOOL_CODE_LENGTH);
+        for (int i = 0; i < MAX_TOOL_CODE_LENGTH; i++) {
+            byte b = buffer.get(start + 16 + i);
+            if (b == 0) {
+                break;
+            }
+            toolCode.append((char) b);
+        }
+        int checkoutEpochDay = buffer.getInt(start + 24);
+        int rentalDays = buffer.getInt(start + 28);
+        int chargeDays = buffer.getInt(start + 32);
+        int discountPercent = buffer.getInt(start + 36);
+        long dailyRentalChargeCents = buffer.getLong(start + 40);
+        long preDiscountChargeCents = buffer.getLong(start + 48);
+        long discountAmountCents = buffer.getLong(start + 56);
+        buffer.position(start + RECORD_SIZE);
+
+        Tool tool = catalog.get(toolCode.toString());
+        LocalDate checkoutDate = LocalDate.ofEpochDay(checkoutEpochDay);
+        return RentalAgreement.ofCents(toolCode.toString(), tool == null ? null : tool.getType(),
+                tool == null ? null : tool.getBrand(), rentalDays, checkoutDate, checkoutDate.plusDays(rentalDays),
+                BigDecimal.valueOf(dailyRentalChargeCents, 2), preDiscountChargeCents, discountPercent,
+                discountAmountCents, preDiscountChargeCents - discountAmountCents, chargeDays);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        try {
+            return amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Charge is not a whole number of cents: " + amount, e);
+        }
+    }
+}
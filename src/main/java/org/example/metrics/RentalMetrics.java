@@ -0,0 +1,209 @@
+package org.example.metrics;
+
+import org.example.model.RejectionReason;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the hot paths of the rental service.
+ * <p>
+ * Successful checkouts are timed per tool code, the pricing steps per
+ * {@link Operation}, and rejected checkouts are counted per {@link RejectionReason}.
+ * All recording is lock-free. The {@link #NOOP} instance records nothing: its timer is
+ * never read and every record call returns after a single field check.
+ * </p>
+ * <p>
+ * Snapshots are written in the Prometheus text exposition format, with latencies as
+ * summaries in seconds.
+ * </p>
+ */
+public final class RentalMetrics {
+
+    /** Metrics that record nothing. */
+    public static final RentalMetrics NOOP = new RentalMetrics(false);
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * The pricing steps timed separately from the checkout as a whole.
+     */
+    public enum Operation {
+        CHARGE_DAYS,
+        HOLIDAYS_IN_RANGE,
+        WEEKEND_IN_RANGE,
+        DISCOUNT
+    }
+
+    private final boolean enabled;
+    private final Map<String, LatencyHistogram> checkoutHistograms = new ConcurrentHashMap<>();
+    private final LatencyHistogram[] operationHistograms = new LatencyHistogram[Operation.values().length];
+    private final LongAdder[] rejections = new LongAdder[RejectionReason.values().length];
+
+    /**
+     * Creates metrics that record.
+     */
+    public RentalMetrics() {
+        this(true);
+    }
+
+    private RentalMetrics(boolean enabled) {
+        this.enabled = enabled;
+        for (int i = 0; i < operationHistograms.length; i++) {
+            operationHistograms[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < rejections.length; i++) {
+            rejections[i] = new LongAdder();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts timing a call.
+     *
+     * @return the start time to pass to a record method, or 0 when disabled
+     */
+    public long startTimer() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a successful checkout.
+     *
+     * @param toolCode   the code of the rented tool
+     * @param startNanos the value returned by {@link #startTimer()}
+     */
+    public void recordCheckout(String toolCode, long startNanos) {
+        if (enabled) {
+            long elapsed = System.nanoTime() - startNanos;
+            LatencyHistogram histogram = checkoutHistograms.get(toolCode);
+            if (histogram == null) {
+                histogram = checkoutHistograms.computeIfAbsent(toolCode, code -> new LatencyHistogram());
+            }
+            histogram.record(elapsed);
+        }
+    }
+
+    /**
+     * Records one pricing step.
+     *
+     * @param operation  the step
+     * @param startNanos the value returned by {@link #startTimer()}
+     */
+    public void record(Operation operation, long startNanos) {
+        if (enabled) {
+            operationHistograms[operation.ordinal()].record(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Records a rejected checkout.
+     *
+     * @param reason the validation rule the request failed
+     */
+    public void recordRejection(RejectionReason reason) {
+        if (enabled) {
+            rejections[reason.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Returns the checkout latencies of a tool.
+     *
+     * @param toolCode the tool code
+     * @return the histogram, or {@code null} if no checkout of the tool was recorded
+     */
+    public LatencyHistogram getCheckoutHistogram(String toolCode) {
+        return checkoutHistograms.get(toolCode);
+    }
+
+    public LatencyHistogram getOperationHistogram(Operation operation) {
+        return operationHistograms[operation.ordinal()];
+    }
+
+    public long getRejectionCount(RejectionReason reason) {
+        return rejections[reason.ordinal()].sum();
+    }
+
+    /**
+     * Writes a snapshot of all metrics in the Prometheus text format.
+     *
+     * @param out the destination
+     * @throws IOException if writing fails
+     */
+    public void writePrometheus(Appendable out) throws IOException {
+        out.append("# HELP rental_checkout_seconds Latency of successful checkouts by tool code.\n");
+        out.append("# TYPE rental_checkout_seconds summary\n");
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(checkoutHistograms).entrySet()) {
+            writeSummary(out, "rental_checkout_seconds", "tool", entry.getKey(), entry.getValue());
+        }
+
+        out.append("# HELP rental_operation_seconds Latency of pricing steps.\n");
+        out.append("# TYPE rental_operation_seconds summary\n");
+        for (Operation operation : Operation.values()) {
+            writeSummary(out, "rental_operation_seconds", "operation", label(operation.name()),
+                    operationHistograms[operation.ordinal()]);
+        }
+
+        out.append("# HELP rental_checkout_rejections_total Checkouts rejected by validation, by reason.\n");
+        out.append("# TYPE rental_checkout_rejections_total counter\n");
+        for (RejectionReason reason : RejectionReason.values()) {
+            out.append("rental_checkout_rejections_total{reason=\"").append(label(reason.name())).append("\"} ")
+                    .append(Long.toString(getRejectionCount(reason))).append('\n');
+        }
+    }
+
+    /**
+     * Writes a snapshot of all metrics in the Prometheus text format to a file, for
+     * example one read by the node exporter's textfile collector. The file is replaced
+     * atomically so readers never see a partial snapshot.
+     *
+     * @param file the file to write
+     * @throws IOException if writing fails
+     */
+    public void exportPrometheus(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writePrometheus(writer);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void writeSummary(Appendable out, String name, String labelName, String labelValue,
+                                      LatencyHistogram histogram) throws IOException {
+        String labels = labelName + "=\"" + escape(labelValue) + "\"";
+        for (double quantile : QUANTILES) {
+            out.append(name).append('{').append(labels).append(",quantile=\"").append(Double.toString(quantile))
+                    .append("\"} ").append(Double.toString(histogram.valueAtQuantile(quantile) / 1e9)).append('\n');
+        }
+        out.append(name).append("_sum{").append(labels).append("} ")
+                .append(Double.toString(histogram.getTotalNanos() / 1e9)).append('\n');
+        out.append(name).append("_count{").append(labels).append("} ")
+                .append(Long.toString(histogram.getCount())).append('\n');
+    }
+
+    private static String label(String constant) {
+        return constant.toLowerCase(Locale.ROOT);
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
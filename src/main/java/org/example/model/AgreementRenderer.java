@@ -0,0 +1,162 @@
+package org.example.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.time.format.DateTimeFormatter;
+import java.util.Currency;
+
+/**
+ * Renders rental agreements as the text printed on a receipt.
+ * <p>
+ * A renderer holds its formatters for its whole lifetime and is safe to use from many
+ * threads: the date formatter is immutable and each thread gets its own copy of the
+ * currency format. Output can go to any {@link Appendable}, to a {@link ByteBuffer}, or
+ * in bulk to a buffered {@link Writer}.
+ * </p>
+ */
+public final class AgreementRenderer {
+
+    private static final AgreementRenderer STANDARD = new AgreementRenderer(DateTimeFormatter.ofPattern("MM/dd/yy"),
+            Currency.getInstance("USD"));
+
+    private final DateTimeFormatter dateFormatter;
+    private final ThreadLocal<NumberFormat> currencyFormatter;
+    private final ThreadLocal<StringBuilder> scratch = ThreadLocal.withInitial(() -> new StringBuilder(512));
+    private final ThreadLocal<CharsetEncoder> encoder = ThreadLocal.withInitial(() -> StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE));
+    private final String lineSeparator = System.lineSeparator();
+
+    /**
+     * Creates a renderer using the given date format and currency, with the currency
+     * format of the default locale.
+     *
+     * @param dateFormatter  the format of the checkout and due dates
+     * @param currency       the currency of the charges
+     */
+    public AgreementRenderer(DateTimeFormatter dateFormatter, final Currency currency) {
+        this.dateFormatter = dateFormatter;
+        this.currencyFormatter = ThreadLocal.withInitial(() -> {
+            NumberFormat format = DecimalFormat.getCurrencyInstance();
+            format.setCurrency(currency);
+            return format;
+        });
+    }
+
+    /**
+     * Returns the renderer used by {@link RentalAgreement#printRentalAgreement()}:
+     * dates as MM/dd/yy and charges in US dollars.
+     *
+     * @return the standard renderer
+     */
+    public static AgreementRenderer standard() {
+        return STANDARD;
+    }
+
+    /**
+     * Renders a rental agreement, one value per line.
+     *
+     * @param agreement  the agreement to render
+     * @param out        where the text is appended
+     * @throws IOException if appending fails
+     */
+    public void render(RentalAgreement agreement, Appendable out) throws IOException {
+        NumberFormat currency = currencyFormatter.get();
+        out.append("Tool code: ").append(agreement.getToolCode()).append(lineSeparator);
+        out.append("Tool type: ").append(agreement.getToolType()).append(lineSeparator);
+        out.append("Tool brand: ").append(agreement.getToolBrand()).append(lineSeparator);
+        out.append("Rental days: ").append(Integer.toString(agreement.getRentalDays())).append(lineSeparator);
+        out.append("Checkout date: ");
+        dateFormatter.formatTo(agreement.getCheckoutDate(), out);
+        out.append(lineSeparator);
+        out.append("Charge Days: ").append(Integer.toString(agreement.getChargeDays())).append(lineSeparator);
+        out.append("Due date: ");
+        dateFormatter.formatTo(agreement.getDueDate(), out);
+        out.append(lineSeparator);
+        appendCharge(out, "Daily rental charge: ", currency, agreement.getDailyRentalCharge());
+        appendCharge(out, "Pre-discount charge: ", currency, agreement.getPreDiscountCharge());
+        out.append("Discount percent: ").append(Integer.toString(agreement.getDiscountPercent())).append('%')
+                .append(lineSeparator);
+        appendCharge(out, "Discount amount: ", currency, agreement.getDiscountAmount());
+        appendCharge(out, "Final charge: ", currency, agreement.getFinalCharge());
+    }
+
+    /**
+     * Renders a rental agreement into a string.
+     *
+     * @param agreement the agreement to render
+     * @return the rendered text
+     */
+    public String render(RentalAgreement agreement) {
+        StringBuilder text = new StringBuilder(512);
+        appendTo(agreement, text);
+        return text.toString();
+    }
+
+    /**
+     * Renders a rental agreement as UTF-8 into a byte buffer, starting at its position.
+     *
+     * @param agreement  the agreement to render
+     * @param buffer     the buffer receiving the bytes
+     * @throws BufferOverflowException if the buffer has too little room left;
+     *                                          its position is then unspecified
+     */
+    public void render(RentalAgreement agreement, ByteBuffer buffer) {
+        StringBuilder text = scratch.get();
+        text.setLength(0);
+        appendTo(agreement, text);
+        CharsetEncoder utf8 = encoder.get().reset();
+        CharBuffer chars = CharBuffer.wrap(text);
+        if (utf8.encode(chars, buffer, true).isOverflow() || utf8.flush(buffer).isOverflow()) {
+            throw new BufferOverflowException();
+        }
+    }
+
+    /**
+     * Renders many agreements into one buffered stream, separated by blank lines.
+     * <p>
+     * The writer is wrapped in a {@link BufferedWriter} unless it already is one, and is
+     * flushed, but not closed, once every agreement has been written.
+     * </p>
+     *
+     * @param agreements  the agreements to render
+     * @param writer      where the text is written
+     * @throws IOException if writing fails
+     */
+    public void renderAll(Iterable<? extends RentalAgreement> agreements, Writer writer) throws IOException {
+        Writer out = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, 64 * 1024);
+        boolean first = true;
+        for (RentalAgreement agreement : agreements) {
+            if (!first) {
+                out.write(lineSeparator);
+            }
+            render(agreement, out);
+            first = false;
+        }
+        out.flush();
+    }
+
+    private void appendTo(RentalAgreement agreement, StringBuilder text) {
+        try {
+            render(agreement, text);
+        } catch (IOException e) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void appendCharge(Appendable out, String label, NumberFormat currency, BigDecimal charge) throws IOException {
+        out.append(label).append(currency.format(charge)).append(lineSeparator);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.model;
+
+import java.time.LocalDate;
+
+/**
+ * One line of a checkout or quote request: the parameters of a single
+ * {@link org.example.service.ToolRentalService#checkout} call.
+ */
+public class CheckoutRequest {
+    private final String toolCode;
+    private final int rentalDays;
+    private final int discountPercent;
+    private final LocalDate checkoutDate;
+
+    public CheckoutRequest(String toolCode, int rentalDays, int discountPercent, LocalDate checkoutDate) {
+        this.toolCode = toolCode;
+        this.rentalDays = rentalDays;
+        this.discountPercent = discountPercent;
+        this.checkoutDate = checkoutDate;
+    }
+
+    public String getToolCode() {
+        return toolCode;
+    }
+
+    public int getRentalDays() {
+        return rentalDays;
+    }
+
+    public int getDiscountPercent() {
+        return discountPercent;
+    }
+
+    public LocalDate getCheckoutDate() {
+        return checkoutDate;
+    }
+
+    @Override
+    public String toString() {
+        return "CheckoutRequest[" + toolCode + ", " + rentalDays + " days, " + discountPercent + "%, " + checkoutDate + "]";
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.model;
+
+/**
+ * The outcome of pricing one {@link CheckoutRequest}: either a rental agreement
+ * or the reason the request was rejected.
+ * <p>
+ * Results rejected by validation carry a {@link RejectionReason}; their error message is
+ * only built when {@link #getError()} is first called.
+ * </p>
+ */
+public class CheckoutResult {
+
+    private static final CheckoutResult MISSING_REQUEST = new CheckoutResult(null, null, RejectionReason.MISSING_REQUEST, null);
+
+    private final CheckoutRequest request;
+    private final RentalAgreement rentalAgreement;
+    private final RejectionReason rejection;
+    private String error;
+
+    private CheckoutResult(CheckoutRequest request, RentalAgreement rentalAgreement, RejectionReason rejection,
+                           String error) {
+        this.request = request;
+        this.rentalAgreement = rentalAgreement;
+        this.rejection = rejection;
+        this.error = error;
+    }
+
+    /**
+     * Creates the result of a request that was priced successfully.
+     *
+     * @param request          the priced request
+     * @param rentalAgreement  the resulting rental agreement
+     * @return a successful result
+     */
+    public static CheckoutResult success(CheckoutRequest request, RentalAgreement rentalAgreement) {
+        return new CheckoutResult(request, rentalAgreement, null, null);
+    }
+
+    /**
+     * Creates the result of a request that was rejected.
+     *
+     * @param request  the rejected request
+     * @param error    a description of why the request was rejected
+     * @return a failed result
+     */
+    public static CheckoutResult failure(CheckoutRequest request, String error) {
+        return new CheckoutResult(request, null, null, error);
+    }
+
+    /**
+     * Creates the result of a request that failed validation.
+     * <p>
+     * Neither an exception nor a message is created; a missing request shares a single
+     * preallocated result.
+     * </p>
+     *
+     * @param request    the rejected request, or {@code null} if it was missing
+     * @param rejection  the validation rule the request failed
+     * @return a rejected result
+     */
+    public static CheckoutResult rejected(CheckoutRequest request, RejectionReason rejection) {
+        if (request == null && rejection == RejectionReason.MISSING_REQUEST) {
+            return MISSING_REQUEST;
+        }
+        return new CheckoutResult(request, null, rejection, null);
+    }
+
+    public boolean isSuccess() {
+        return error == null && rejection == null;
+    }
+
+    public CheckoutRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * @return the rental agreement, or {@code null} if the request was rejected
+     */
+    public RentalAgreement getRentalAgreement() {
+        return rentalAgreement;
+    }
+
+    /**
+     * @return the validation rule the request failed, or {@code null} if it succeeded or
+     *         failed for another reason
+     */
+    public RejectionReason getRejection() {
+        return rejection;
+    }
+
+    /**
+     * @return the reason the request was rejected, or {@code null} if it succeeded
+     */
+    public String getError() {
+        if (error == null && rejection != null) {
+            error = rejection.getMessage(request == null ? null : request.getToolCode());
+        }
+        return error;
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.model;
+
+import org.example.catalog.CatalogSnapshot;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * An immutable rental agreement stored in as few bytes as possible.
+ * <p>
+ * Dates are kept as epoch days, charges as whole cents and the tool as its index in the
+ * catalog snapshot it was priced from; the snapshot itself is shared by every agreement
+ * priced from it. The {@code String}, {@code LocalDate} and {@code BigDecimal} views are
+ * built on each call to their getters and are not retained, which keeps an agreement at
+ * a few dozen bytes of heap so large volumes can be held in memory for reporting.
+ * </p>
+ * <p>
+ * Charges read through the {@code BigDecimal} getters always have a scale of 2.
+ * </p>
+ */
+public final class CompactRentalAgreement {
+    private final CatalogSnapshot catalog;
+    private final int toolIndex;
+    private final int checkoutEpochDay;
+    private final int rentalDays;
+    private final int chargeDays;
+    private final long preDiscountChargeCents;
+    private final long discountAmountCents;
+    private final byte discountPercent;
+
+    public CompactRentalAgreement(CatalogSnapshot catalog, int toolIndex, int checkoutEpochDay, int rentalDays,
+                                  int chargeDays, long preDiscountChargeCents, int discountPercent,
+                                  long discountAmountCents) {
+        if (discountPercent < 0 || discountPercent > 100) {
+            throw new IllegalArgumentException("Discount percent must be between 0 and 100");
+        }
+        this.catalog = catalog;
+        this.toolIndex = toolIndex;
+        this.checkoutEpochDay = checkoutEpochDay;
+        this.rentalDays = rentalDays;
+        this.chargeDays = chargeDays;
+        this.preDiscountChargeCents = preDiscountChargeCents;
+        this.discountPercent = (byte) discountPercent;
+        this.discountAmountCents = discountAmountCents;
+    }
+
+    /**
+     * @return the catalog snapshot the agreement was priced from
+     */
+    public CatalogSnapshot getCatalog() {
+        return catalog;
+    }
+
+    public int getToolIndex() {
+        return toolIndex;
+    }
+
+    public Tool getTool() {
+        return catalog.toolAt(toolIndex);
+    }
+
+    public String getToolCode() {
+        return catalog.codeAt(toolIndex);
+    }
+
+    public String getToolType() {
+        return getTool().getType();
+    }
+
+    public String getToolBrand() {
+        return getTool().getBrand();
+    }
+
+    public int getRentalDays() {
+        return rentalDays;
+    }
+
+    public int getCheckoutEpochDay() {
+        return checkoutEpochDay;
+    }
+
+    public LocalDate getCheckoutDate() {
+        return LocalDate.ofEpochDay(checkoutEpochDay);
+    }
+
+    public LocalDate getDueDate() {
+        return LocalDate.ofEpochDay((long) checkoutEpochDay + rentalDays);
+    }
+
+    public int getChargeDays() {
+        return chargeDays;
+    }
+
+    public long getDailyRentalChargeCents() {
+        return getTool().getDailyChargeCents();
+    }
+
+    public BigDecimal getDailyRentalCharge() {
+        return BigDecimal.valueOf(getDailyRentalChargeCents(), 2);
+    }
+
+    public long getPreDiscountChargeCents() {
+        return preDiscountChargeCents;
+    }
+
+    public BigDecimal getPreDiscountCharge() {
+        return BigDecimal.valueOf(preDiscountChargeCents, 2);
+    }
+
+    public int getDiscountPercent() {
+        return discountPercent;
+    }
+
+    public long getDiscountAmountCents() {
+        return discountAmountCents;
+    }
+
+    public BigDecimal getDiscountAmount() {
+        return BigDecimal.valueOf(discountAmountCents, 2);
+    }
+
+    public long getFinalChargeCents() {
+        return preDiscountChargeCents - discountAmountCents;
+    }
+
+    public BigDecimal getFinalCharge() {
+        return BigDecimal.valueOf(getFinalChargeCents(), 2);
+    }
+
+    /**
+     * Expands this agreement into a regular {@link RentalAgreement}.
+     *
+     * @return a rental agreement with the same values
+     */
+    public RentalAgreement toRentalAgreement() {
+        return RentalAgreement.ofCents(getToolCode(), getToolType(), getToolBrand(), rentalDays, getCheckoutDate(),
+                getDueDate(), getDailyRentalCharge(), preDiscountChargeCents, discountPercent, discountAmountCents,
+                getFinalChargeCents(), chargeDays);
+    }
+
+    @Override
+    public String toString() {
+        return "CompactRentalAgreement[" + getToolCode() + ", " + getCheckoutDate() + ", " + rentalDays + " days, "
+                + getFinalCharge() + "]";
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A rental agreement that cannot be modified and is safe to share between callers,
+ * for example through a quote cache.
+ * <p>
+ * Every setter throws {@link UnsupportedOperationException}. All charges are resolved
+ * when the copy is made, so reading them never writes to the object.
+ * </p>
+ */
+public final class ImmutableRentalAgreement extends RentalAgreement {
+
+    private ImmutableRentalAgreement(RentalAgreement agreement) {
+        super(agreement.getToolCode(), agreement.getToolType(), agreement.getToolBrand(), agreement.getRentalDays(),
+                agreement.getCheckoutDate(), agreement.getDueDate(), agreement.getDailyRentalCharge(),
+                agreement.getPreDiscountCharge(), agreement.getDiscountPercent(), agreement.getDiscountAmount(),
+                agreement.getFinalCharge(), agreement.getChargeDays());
+    }
+
+    /**
+     * Returns an immutable copy of the given agreement, or the agreement itself if it is
+     * already immutable.
+     *
+     * @param agreement the agreement to copy
+     * @return an immutable agreement with the same values
+     */
+    public static ImmutableRentalAgreement copyOf(RentalAgreement agreement) {
+        if (agreement instanceof ImmutableRentalAgreement) {
+            return (ImmutableRentalAgreement) agreement;
+        }
+        return new ImmutableRentalAgreement(agreement);
+    }
+
+    @Override
+    public void setToolCode(String toolCode) {
+        throw immutable();
+    }
+
+    @Override
+    public void setToolType(String toolType) {
+        throw immutable();
+    }
+
+    @Override
+    public void setToolBrand(String toolBrand) {
+        throw immutable();
+    }
+
+    @Override
+    public void setRentalDays(int rentalDays) {
+        throw immutable();
+    }
+
+    @Override
+    public void setCheckoutDate(LocalDate checkoutDate) {
+        throw immutable();
+    }
+
+    @Override
+    public void setDueDate(LocalDate dueDate) {
+        throw immutable();
+    }
+
+    @Override
+    public void setDailyRentalCharge(BigDecimal dailyRentalCharge) {
+        throw immutable();
+    }
+
+    @Override
+    public void setPreDiscountCharge(BigDecimal preDiscountCharge) {
+        throw immutable();
+    }
+
+    @Override
+    public void setDiscountPercent(int discountPercent) {
+        throw immutable();
+    }
+
+    @Override
+    public void setDiscountAmount(BigDecimal discountAmount) {
+        throw immutable();
+    }
+
+    @Override
+    public void setFinalCharge(BigDecimal finalCharge) {
+        throw immutable();
+    }
+
+    @Override
+    public void setChargeDays(int chargeDays) {
+        throw immutable();
+    }
+
+    private static UnsupportedOperationException immutable() {
+        return new UnsupportedOperationException("Rental agreement is immutable");
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * The charges for renting one tool for a fixed length, for every checkout date in a window.
+ * <p>
+ * Entry {@code i} describes a checkout on {@code firstCheckoutDate + i} days. Charges are
+ * held in whole cents in primitive arrays.
+ * </p>
+ */
+public class QuoteSweep {
+    private final String toolCode;
+    private final int rentalDays;
+    private final int discountPercent;
+    private final long firstCheckoutEpochDay;
+    private final int[] chargeDays;
+    private final long[] finalChargeCents;
+
+    public QuoteSweep(String toolCode, int rentalDays, int discountPercent, long firstCheckoutEpochDay,
+                      int[] chargeDays, long[] finalChargeCents) {
+        if (chargeDays.length != finalChargeCents.length) {
+            throw new IllegalArgumentException("Charge days and final charges must have the same length");
+        }
+        this.toolCode = toolCode;
+        this.rentalDays = rentalDays;
+        this.discountPercent = discountPercent;
+        this.firstCheckoutEpochDay = firstCheckoutEpochDay;
+        this.chargeDays = chargeDays;
+        this.finalChargeCents = finalChargeCents;
+    }
+
+    public String getToolCode() {
+        return toolCode;
+    }
+
+    public int getRentalDays() {
+        return rentalDays;
+    }
+
+    public int getDiscountPercent() {
+        return discountPercent;
+    }
+
+    /**
+     * @return the number of checkout dates in the sweep
+     */
+    public int size() {
+        return chargeDays.length;
+    }
+
+    public LocalDate getCheckoutDate(int index) {
+        return LocalDate.ofEpochDay(firstCheckoutEpochDay + index);
+    }
+
+    public int getChargeDays(int index) {
+        return chargeDays[index];
+    }
+
+    public long getFinalChargeCents(int index) {
+        return finalChargeCents[index];
+    }
+
+    public BigDecimal getFinalCharge(int index) {
+        return BigDecimal.valueOf(finalChargeCents[index], 2);
+    }
+
+    /**
+     * @return a copy of the charge days, one per checkout date
+     */
+    public int[] toChargeDaysArray() {
+        return Arrays.copyOf(chargeDays, chargeDays.length);
+    }
+
+    /**
+     * @return a copy of the final charges in cents, one per checkout date
+     */
+    public long[] toFinalChargeCentsArray() {
+        return Arrays.copyOf(finalChargeCents, finalChargeCents.length);
+    }
+
+    public IntStream chargeDays() {
+        return Arrays.stream(chargeDays);
+    }
+
+    public LongStream finalChargeCents() {
+        return Arrays.stream(finalChargeCents);
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.model;
+
+import java.time.LocalDate;
+
+/**
+ * The validation rule a rejected checkout request failed.
+ */
+public enum RejectionReason {
+
+    /** The tool code is not in the catalog. */
+    INVALID_TOOL_CODE,
+
+    /** The rental is shorter than one day. */
+    INVALID_RENTAL_DAYS,
+
+    /** The discount percentage is outside 0 to 100. */
+    INVALID_DISCOUNT,
+
+    /** The due date falls after the last date a {@link LocalDate} can hold. */
+    INVALID_DUE_DATE,
+
+    /** A batch line or request carried no checkout request at all. */
+    MISSING_REQUEST,
+
+    /** The request has no checkout date. */
+    MISSING_CHECKOUT_DATE,
+
+    /** The rental is longer than {@link #MAX_SERVED_RENTAL_DAYS}, the longest a front end prices. */
+    RENTAL_TOO_LONG;
+
+    /**
+     * The longest rental, in days, that front ends taking requests from outside the
+     * process, such as the HTTP server, accept. Pricing itself has no limit.
+     */
+    public static final int MAX_SERVED_RENTAL_DAYS = 3650;
+
+    /**
+     * Returns the message a checkout is rejected with for this reason.
+     *
+     * @param toolCode the requested tool code
+     * @return the rejection message
+     */
+    public String getMessage(String toolCode) {
+        switch (this) {
+            case INVALID_TOOL_CODE:
+                return "Invalid tool code: " + toolCode;
+            case INVALID_RENTAL_DAYS:
+                return "Rental days must be 1 or greater";
+            case MISSING_REQUEST:
+                return "Checkout request is missing";
+            case MISSING_CHECKOUT_DATE:
+                return "Checkout date is required";
+            case RENTAL_TOO_LONG:
+                return "Rental days must be " + MAX_SERVED_RENTAL_DAYS + " or fewer";
+            case INVALID_DUE_DATE:
+                return "Due date cannot be after " + LocalDate.MAX;
+            default:
+                return "Discount percent must be between 0 and 100";
+        }
+    }
+
+    /**
+     * Returns the first validation rule the parameters of a checkout fail, for a tool
+     * already resolved to its index in a catalog snapshot.
+     *
+     * @param toolIndex        the index of the requested tool, or -1 if the code is unknown
+     * @param rentalDays       the number of days the tool is rented for
+     * @param discountPercent  the discount percentage to be applied
+     * @return the reason the checkout must be rejected, or {@code null} if it is valid
+     */
+    public static RejectionReason of(int toolIndex, int rentalDays, int discountPercent) {
+        if (toolIndex < 0) {
+            return INVALID_TOOL_CODE;
+        }
+
+        if (rentalDays < 1) {
+            return INVALID_RENTAL_DAYS;
+        }
+
+        if (discountPercent < 0 || discountPercent > 100) {
+            return INVALID_DISCOUNT;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first validation rule a checkout fails, including the checks on its
+     * checkout date: there must be one, and the due date must be representable.
+     *
+     * @param toolIndex        the index of the requested tool, or -1 if the code is unknown
+     * @param rentalDays       the number of days the tool is rented for
+     * @param discountPercent  the discount percentage to be applied
+     * @param checkoutDate     the date when the tool is checked out for rental
+     * @return the reason the checkout must be rejected, or {@code null} if it is valid
+     */
+    public static RejectionReason of(int toolIndex, int rentalDays, int discountPercent, LocalDate checkoutDate) {
+        RejectionReason rejection = of(toolIndex, rentalDays, discountPercent);
+        if (rejection != null) {
+            return rejection;
+        }
+        if (checkoutDate == null) {
+            return MISSING_CHECKOUT_DATE;
+        }
+        if (rentalDays > LocalDate.MAX.toEpochDay() - checkoutDate.toEpochDay()) {
+            return INVALID_DUE_DATE;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The change to a rental agreement when it is extended or returned.
+ * <p>
+ * An adjustment holds the agreement it started from, the agreement as it now stands,
+ * and the difference between the two: the days added, the extra charges they bring,
+ * and any late fee. The updated agreement can itself be extended or returned again.
+ * </p>
+ */
+public final class RentalAdjustment {
+
+    /**
+     * What caused an adjustment.
+     */
+    public enum Kind {
+        /**
+         * The rental was extended before its due date.
+         */
+        EXTENSION,
+        /**
+         * The tool was returned; days past the due date were added and charged a late fee.
+         */
+        RETURN
+    }
+
+    private final Kind kind;
+    private final RentalAgreement original;
+    private final RentalAgreement updated;
+    private final LocalDate returnDate;
+    private final BigDecimal lateFee;
+
+    public RentalAdjustment(Kind kind, RentalAgreement original, RentalAgreement updated, LocalDate returnDate,
+                            BigDecimal lateFee) {
+        this.kind = kind;
+        this.original = original;
+        this.updated = updated;
+        this.returnDate = returnDate;
+        this.lateFee = lateFee;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public RentalAgreement getOriginal() {
+        return original;
+    }
+
+    public RentalAgreement getUpdated() {
+        return updated;
+    }
+
+    /**
+     * @return the date the tool came back, or {@code null} for an extension
+     */
+    public LocalDate getReturnDate() {
+        return returnDate;
+    }
+
+    /**
+     * @return the number of rental days added to the original agreement
+     */
+    public int getAddedDays() {
+        return updated.getRentalDays() - original.getRentalDays();
+    }
+
+    /**
+     * @return the number of chargeable days among the added days
+     */
+    public int getAddedChargeDays() {
+        return updated.getChargeDays() - original.getChargeDays();
+    }
+
+    public BigDecimal getAdditionalPreDiscountCharge() {
+        return updated.getPreDiscountCharge().subtract(original.getPreDiscountCharge());
+    }
+
+    public BigDecimal getAdditionalDiscountAmount() {
+        return updated.getDiscountAmount().subtract(original.getDiscountAmount());
+    }
+
+    /**
+     * @return the final charge of the added days, after the original discount
+     */
+    public BigDecimal getAdditionalCharge() {
+        return updated.getFinalCharge().subtract(original.getFinalCharge());
+    }
+
+    public BigDecimal getLateFee() {
+        return lateFee;
+    }
+
+    /**
+     * @return the additional charge plus the late fee
+     */
+    public BigDecimal getAmountDue() {
+        return getAdditionalCharge().add(lateFee);
+    }
+
+    @Override
+    public String toString() {
+        return "RentalAdjustment[" + kind + " " + original.getToolCode() + " +" + getAddedDays() + " days, due "
+                + updated.getDueDate() + ", amount due " + getAmountDue() + "]";
+    }
+}
@@ -1,11 +1,7 @@
 package org.example.model;
 
 import java.math.BigDecimal;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.Currency;
 
 public class RentalAgreement {
     private String toolCode;
@@ -68,11 +64,15 @@ public class RentalAgreement {
     }
 
     public BigDecimal getPreDiscountCharge() {
+        if (preDiscountCharge == null && preDiscountChargeCents != NO_CENTS) {
+            preDiscountCharge = BigDecimal.valueOf(preDiscountChargeCents, 2);
+        }
         return preDiscountCharge;
     }
 
     public void setPreDiscountCharge(BigDecimal preDiscountCharge) {
         this.preDiscountCharge = preDiscountCharge;
+        this.preDiscountChargeCents = NO_CENTS;
     }
 
     public int getDiscountPercent() {
@@ -84,15 +84,20 @@ public class RentalAgreement {
     }
 
     public BigDecimal getDiscountAmount() {
+        if (discountAmount == null && discountAmountCents != NO_CENTS) {
+            discountAmount = BigDecimal.valueOf(discountAmountCents, 2);
+        }
         return discountAmount;
     }
 
     public void setDiscountAmount(BigDecimal discountAmount) {
         this.discountAmount = discountAmount;
+        this.discountAmountCents = NO_CENTS;
     }
 
     public void setFinalCharge(BigDecimal finalCharge) {
         this.finalCharge = finalCharge;
+        this.finalChargeCents = NO_CENTS;
     }
 
     private String toolBrand;
@@ -115,7 +120,17 @@ public class RentalAgreement {
     private int discountPercent;
     private BigDecimal discountAmount;
     private BigDecimal finalCharge;
+
+    // Charges priced in fixed-point cents; the BigDecimal views above are created on first read
+    private static final long NO_CENTS = Long.MIN_VALUE;
+    private long preDiscountChargeCents = NO_CENTS;
+    private long discountAmountCents = NO_CENTS;
+    private long finalChargeCents = NO_CENTS;
+
     public BigDecimal getFinalCharge() {
+        if (finalCharge == null && finalChargeCents != NO_CENTS) {
+            finalCharge = BigDecimal.valueOf(finalChargeCents, 2);
+        }
         return finalCharge;
     }
     public RentalAgreement(String toolCode, String toolType, String toolBrand, int rentalDays, LocalDate checkoutDate,
@@ -136,28 +151,33 @@ public class RentalAgreement {
 
     }
 
+    /**
+     * Creates a rental agreement whose charges were computed in whole cents.
+     * <p>
+     * The pre-discount charge, discount amount and final charge are kept as {@code long}
+     * cents and only turned into {@code BigDecimal} values, with a scale of 2, when their
+     * getters are first called.
+     * </p>
+     *
+     * @return a rental agreement backed by the given cent amounts
+     */
+    public static RentalAgreement ofCents(String toolCode, String toolType, String toolBrand, int rentalDays,
+                                          LocalDate checkoutDate, LocalDate dueDate, BigDecimal dailyRentalCharge,
+                                          long preDiscountChargeCents, int discountPercent, long discountAmountCents,
+                                          long finalChargeCents, int chargeDays) {
+        RentalAgreement rentalAgreement = new RentalAgreement(toolCode, toolType, toolBrand, rentalDays, checkoutDate,
+                dueDate, dailyRentalCharge, null, discountPercent, null, null, chargeDays);
+        rentalAgreement.preDiscountChargeCents = preDiscountChargeCents;
+        rentalAgreement.discountAmountCents = discountAmountCents;
+        rentalAgreement.finalChargeCents = finalChargeCents;
+        return rentalAgreement;
+    }
+
     /**
      * Print rental agreement values
      */
 
     public void printRentalAgreement() {
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yy");
-        NumberFormat currencyFormatter = DecimalFormat.getCurrencyInstance();
-        currencyFormatter.setCurrency(Currency.getInstance("USD"));
-
-        System.out.println("Tool code: " + toolCode);
-        System.out.println("Tool type: " + toolType);
-        System.out.println("Tool brand: " + toolBrand);
-        System.out.println("Rental days: " + rentalDays);
-        System.out.println("Checkout date: " + checkoutDate.format(formatter));
-        System.out.println("Charge Days: " + chargeDays);
-        System.out.println("Due date: " + dueDate.format(formatter));
-        System.out.println("Daily rental charge: " + currencyFormatter.format(dailyRentalCharge));
-        System.out.println("Pre-discount charge: " + currencyFormatter.format(preDiscountCharge));
-        System.out.println("Discount percent: " + discountPercent + "%");
-        System.out.println("Discount amount: " + currencyFormatter.format(discountAmount));
-        System.out.println("Final charge: " + currencyFormatter.format(finalCharge));
-
+        System.out.print(AgreementRenderer.standard().render(this));
     }
 }
@@ -8,6 +8,7 @@ public class Tool {
     private String type;
     private String brand;
     private BigDecimal dailyCharge;
+    private long dailyChargeCents;
     private boolean weekdayCharge;
     private  boolean holidayCharge;
 
@@ -41,6 +42,7 @@ public class Tool {
         this.type = type;
         this.brand = brand;
         this.dailyCharge = dailyCharge;
+        this.dailyChargeCents = toCents(dailyCharge);
         this.weekdayCharge = weekdayCharge;
         this.weekendCharge = weekendCharge;
         this.holidayCharge = holidayCharge;
@@ -58,4 +60,21 @@ public class Tool {
         return dailyCharge;
     }
 
+    /**
+     * Returns the daily charge as a whole number of cents.
+     *
+     * @return the daily charge in cents, or -1 if it is not a whole number of cents
+     */
+    public long getDailyChargeCents() {
+        return dailyChargeCents;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        try {
+            return amount.setScale(2).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+
 }
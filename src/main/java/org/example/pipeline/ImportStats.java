@@ -0,0 +1,70 @@
+package org.example.pipeline;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a {@link RentalImport} run.
+ */
+public final class ImportStats {
+
+    private final long rowsRead;
+    private final long rowsPriced;
+    private final long rowsRejected;
+    private final long elapsedNanos;
+    private final List<String> errors;
+
+    ImportStats(long rowsRead, long rowsPriced, long rowsRejected, long elapsedNanos, List<String> errors) {
+        this.rowsRead = rowsRead;
+        this.rowsPriced = rowsPriced;
+        this.rowsRejected = rowsRejected;
+        this.elapsedNanos = elapsedNanos;
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Returns the number of data rows read, excluding blank lines, comments and the header.
+     *
+     * @return the number of rows read
+     */
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsPriced() {
+        return rowsPriced;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the throughput of the run.
+     *
+     * @return rows read per second of elapsed time
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsRead * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns the first rejections of the run, each prefixed with its line number. Only
+     * the first {@value RentalImport#MAX_REPORTED_ERRORS} are kept.
+     *
+     * @return descriptions of rejected rows
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows read, %d priced, %d rejected in %.3f s (%.0f rows/s)",
+                rowsRead, rowsPriced, rowsRejected, elapsedNanos / 1e9, getRowsPerSecond());
+    }
+}
@@ -0,0 +1,467 @@
+package org.example.pipeline;
+
+import org.example.calendar.EpochDays;
+import org.example.catalog.CatalogSnapshot;
+import org.example.codec.AgreementCodec;
+import org.example.service.ToolRentalService;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Reprices rental records in bulk, streaming them from a CSV file to an output file.
+ * <p>
+ * Each input row holds {@code toolCode,rentalDays,discountPercent,checkoutDate} with an
+ * ISO checkout date such as {@code 2020-07-03}. Blank lines, lines starting with
+ * {@code #} and a leading header row starting with {@code toolCode} are skipped. Rows
+ * are priced as {@link ToolRentalService#checkout} prices them, with every charge kept in
+ * whole cents: the amounts are equal to checkout's, though checkout may keep a charge such
+ * as a daily charge of {@code 2} at another scale. Rows checkout would reject are counted
+ * and skipped instead of aborting the run.
+ * </p>
+ * <p>
+ * Both output formats hold charges in cents, so rows for a tool whose daily charge is not
+ * a whole number of cents, or is above {@link CatalogSnapshot#MAX_CENTS_PRICED_DAILY_CHARGE}
+ * cents and could overflow, are rejected the same way. Checkout prices such tools with
+ * {@code BigDecimal} arithmetic instead.
+ * </p>
+ * <p>
+ * The input is read through a fixed buffer and parsed in place: tool codes are
+ * resolved and numbers and dates decoded straight from the bytes, without a
+ * {@code String} per field. Parsed rows are collected into primitive arrays, each batch
+ * is priced in parallel and written out before the next batch is parsed, so memory use
+ * does not depend on the size of the file.
+ * </p>
+ * <p>
+ * The output is either CSV with the columns of {@link #CSV_HEADER}, or a sequence of
+ * {@link AgreementCodec} messages using the service's catalog as dictionary.
+ * </p>
+ */
+public final class RentalImport {
+
+    /** The header row of CSV output. */
+    public static final String CSV_HEADER =
+            "toolCode,checkoutDate,rentalDays,dueDate,chargeDays,discountPercent,preDiscountCharge,discountAmount,finalCharge";
+
+    /** The most rejections kept in {@link ImportStats#getErrors()}. */
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final int DEFAULT_BATCH_SIZE = 8192;
+    private static final int PARALLEL_BATCH_THRESHOLD = 64;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final long MALFORMED = Long.MIN_VALUE;
+
+    /**
+     * The format of the priced output.
+     */
+    public enum OutputFormat {
+        CSV,
+        BINARY
+    }
+
+    private final ToolRentalService toolRentalService;
+    private final int batchSize;
+
+    /**
+     * Creates an import pricing rows with the given service.
+     *
+     * @param toolRentalService the service whose catalog, calendar and pricing are used
+     */
+    public RentalImport(ToolRentalService toolRentalService) {
+        this(toolRentalService, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates an import pricing rows with the given service in batches of the given size.
+     *
+     * @param toolRentalService  the service whose catalog, calendar and pricing are used
+     * @param batchSize          the number of rows priced together
+     */
+    public RentalImport(ToolRentalService toolRentalService, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be 1 or greater");
+        }
+        this.toolRentalService = toolRentalService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Prices every row of a CSV file and writes the results to another file, replacing it.
+     * <p>
+     * The whole run uses the catalog snapshot current when it starts.
+     * </p>
+     *
+     * @param input   the CSV file of rentals
+     * @param output  the file receiving the priced rentals
+     * @param format  the format of the output
+     * @return the number of rows read, priced and rejected, and the throughput
+     * @throws IOException if reading or writing fails
+     * @throws IllegalArgumentException if a line is longer than the read buffer
+     */
+    public ImportStats run(Path input, Path output, OutputFormat format) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            Run run = new Run(in, out, format);
+            run.execute();
+            return new ImportStats(run.rowsRead, run.rowsPriced, run.rowsRejected, System.nanoTime() - start, run.errors);
+        }
+    }
+
+    /**
+     * The state of one import: buffers, the current batch and counters.
+     */
+    private final class Run {
+
+        private final FileChannel in;
+        private final FileChannel out;
+        private final OutputFormat format;
+        private final CatalogSnapshot snapshot;
+        private final ToolCodeTable toolCodes;
+        private final AgreementCodec codec;
+        private final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+        private final ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE);
+        private final byte[] digits = new byte[20];
+        private final int[] commas = new int[3];
+
+        private final int[] toolIndexes = new int[batchSize];
+        private final int[] rentalDays = new int[batchSize];
+        private final int[] discountPercents = new int[batchSize];
+        private final long[] checkoutEpochDays = new long[batchSize];
+        private final int[] chargeDays = new int[batchSize];
+        private final long[] preDiscountChargeCents = new long[batchSize];
+        private final long[] discountAmountCents = new long[batchSize];
+        private int batchLength;
+
+        private long lineNumber;
+        private boolean headerChecked;
+        private long rowsRead;
+        private long rowsPriced;
+        private long rowsRejected;
+        private final List<String> errors = new ArrayList<>();
+
+        Run(FileChannel in, FileChannel out, OutputFormat format) {
+            this.in = in;
+            this.out = out;
+            this.format = format;
+            this.snapshot = toolRentalService.getToolCatalog().snapshot();
+            this.toolCodes = new ToolCodeTable(snapshot);
+            this.codec = new AgreementCodec(snapshot);
+        }
+
+        void execute() throws IOException {
+            if (format == OutputFormat.CSV) {
+                output.put(CSV_HEADER.getBytes(StandardCharsets.US_ASCII)).put((byte) '\n');
+            }
+            byte[] bytes = input.array();
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                endOfInput = in.read(input) < 0;
+                input.flip();
+                int lineStart = input.position();
+                for (int i = lineStart; i < input.limit(); i++) {
+                    if (bytes[i] == '\n') {
+                        parseLine(bytes, lineStart, i);
+                        lineStart = i + 1;
+                    }
+                }
+                if (endOfInput && lineStart < input.limit()) {
+                    parseLine(bytes, lineStart, input.limit());
+                    lineStart = input.limit();
+                }
+                input.position(lineStart);
+                input.compact();
+                if (!input.hasRemaining()) {
+                    throw new IllegalArgumentException("Line " + (lineNumber + 1) + " is longer than " + BUFFER_SIZE + " bytes");
+                }
+            }
+            priceBatch();
+            drain();
+        }
+
+        private void parseLine(byte[] bytes, int start, int end) throws IOException {
+            lineNumber++;
+            while (start < end && isSpace(bytes[start])) {
+                start++;
+            }
+            while (end > start && isSpace(bytes[end - 1])) {
+                end--;
+            }
+            if (start == end || bytes[start] == '#') {
+                return;
+            }
+            if (!headerChecked) {
+                headerChecked = true;
+                if (startsWith(bytes, start, end, "toolCode")) {
+                    return;
+                }
+            }
+            rowsRead++;
+
+            int fields = 1;
+            for (int i = start; i < end; i++) {
+                if (bytes[i] == ',') {
+                    if (fields == 4) {
+                        reject("Expected 4 fields");
+                        return;
+                    }
+                    commas[fields++ - 1] = i;
+                }
+            }
+            if (fields != 4) {
+                reject("Expected 4 fields");
+                return;
+            }
+
+            int codeStart = trimStart(bytes, start, commas[0]);
+            int codeEnd = trimEnd(bytes, codeStart, commas[0]);
+            int toolIndex = toolCodes.indexOf(bytes, codeStart, codeEnd - codeStart);
+            long days = parseInt(bytes, commas[0] + 1, commas[1]);
+            long discountPercent = parseInt(bytes, commas[1] + 1, commas[2]);
+            long checkoutEpochDay = parseDate(bytes, commas[2] + 1, end);
+
+            // Rejected in the same order as ToolRentalService.checkout
+            if (toolIndex < 0) {
+                reject("Invalid tool code: " + text(bytes, codeStart, codeEnd));
+            } else if (days == MALFORMED) {
+                reject("Malformed rental days: " + text(bytes, commas[0] + 1, commas[1]));
+            } else if (days < 1) {
+                reject("Rental days must be 1 or greater");
+            } else if (discountPercent == MALFORMED) {
+                reject("Malformed discount percent: " + text(bytes, commas[1] + 1, commas[2]));
+            } else if (discountPercent < 0 || discountPercent > 100) {
+                reject("Discount percent must be between 0 and 100");
+            } else if (checkoutEpochDay == MALFORMED) {
+                reject("Malformed checkout date: " + text(bytes, commas[2] + 1, end));
+            } else if (snapshot.getDailyChargeCents(toolIndex) < 0) {
+                reject("Daily charge of " + snapshot.codeAt(toolIndex) + " is not a whole number of cents");
+            } else if (snapshot.getDailyChargeCents(toolIndex) > CatalogSnapshot.MAX_CENTS_PRICED_DAILY_CHARGE) {
+                reject("Daily charge of " + snapshot.codeAt(toolIndex) + " is too large to price in cents");
+            } else {
+                toolIndexes[batchLength] = toolIndex;
+                rentalDays[batchLength] = (int) days;
+                discountPercents[batchLength] = (int) discountPercent;
+                checkoutEpochDays[batchLength] = checkoutEpochDay;
+                if (++batchLength == batchSize) {
+                    priceBatch();
+                }
+            }
+        }
+
+        private void priceBatch() throws IOException {
+            IntStream indexes = IntStream.range(0, batchLength);
+            if (batchLength >= PARALLEL_BATCH_THRESHOLD) {
+                indexes = indexes.parallel();
+            }
+            indexes.forEach(i -> {
+                int toolIndex = toolIndexes[i];
+                chargeDays[i] = toolRentalService.chargeDays(snapshot, toolIndex, rentalDays[i], checkoutEpochDays[i]);
+                preDiscountChargeCents[i] = toolRentalService.calculatePreDiscountChargeCents(
+                        snapshot.getDailyChargeCents(toolIndex), chargeDays[i]);
+                discountAmountCents[i] = toolRentalService.calculateDiscountAmountCents(
+                        preDiscountChargeCents[i], discountPercents[i]);
+            });
+            for (int i = 0; i < batchLength; i++) {
+                if (format == OutputFormat.CSV) {
+                    writeCsvRow(i);
+                } else {
+                    // A message is at most about 70 bytes
+                    ensureRoom(128);
+                    codec.encode(toolIndexes[i], checkoutEpochDays[i], rentalDays[i], chargeDays[i],
+                            discountPercents[i], preDiscountChargeCents[i], discountAmountCents[i], output);
+                }
+            }
+            rowsPriced += batchLength;
+            batchLength = 0;
+        }
+
+        private void writeCsvRow(int i) throws IOException {
+            byte[] code = toolCodes.codeBytes(toolIndexes[i]);
+            ensureRoom(code.length + 160);
+            output.put(code).put((byte) ',');
+            putDate(checkoutEpochDays[i]);
+            output.put((byte) ',');
+            putLong(rentalDays[i]);
+            output.put((byte) ',');
+            putDate(checkoutEpochDays[i] + rentalDays[i]);
+            output.put((byte) ',');
+            putLong(chargeDays[i]);
+            output.put((byte) ',');
+            putLong(discountPercents[i]);
+            output.put((byte) ',');
+            putCents(preDiscountChargeCents[i]);
+            output.put((byte) ',');
+            putCents(discountAmountCents[i]);
+            output.put((byte) ',');
+            putCents(preDiscountChargeCents[i] - discountAmountCents[i]);
+            output.put((byte) '\n');
+        }
+
+        private void putDate(long epochDay) {
+            int yearMonthDay = EpochDays.toYearMonthDay(epochDay);
+            int year = yearMonthDay / 10000;
+            if (year < 1000) {
+                putPadded(year, 4);
+            } else {
+                putLong(year);
+            }
+            output.put((byte) '-');
+            putPadded(yearMonthDay / 100 % 100, 2);
+            output.put((byte) '-');
+            putPadded(yearMonthDay % 100, 2);
+        }
+
+        private void putCents(long cents) {
+            if (cents < 0) {
+                output.put((byte) '-');
+                cents = -cents;
+            }
+            putLong(cents / 100);
+            output.put((byte) '.');
+            putPadded((int) (cents % 100), 2);
+        }
+
+        private void putPadded(int value, int width) {
+            for (int divisor = (int) Math.pow(10, width - 1); divisor > 0; divisor /= 10) {
+                output.put((byte) ('0' + value / divisor % 10));
+            }
+        }
+
+        private void putLong(long value) {
+            if (value < 0) {
+                output.put((byte) '-');
+                value = -value;
+            }
+            int length = 0;
+            do {
+                digits[length++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            while (length > 0) {
+                output.put(digits[--length]);
+            }
+        }
+
+        private void ensureRoom(int bytes) throws IOException {
+            if (output.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            output.flip();
+            while (output.hasRemaining()) {
+                out.write(output);
+            }
+            output.clear();
+        }
+
+        private void reject(String error) {
+            rowsRejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Line " + lineNumber + ": " + error);
+            }
+        }
+    }
+
+    /**
+     * Parses a decimal {@code int}, ignoring surrounding spaces.
+     *
+     * @return the value, or {@link #MALFORMED} if the field is not an {@code int}
+     */
+    private static long parseInt(byte[] bytes, int start, int end) {
+        start = trimStart(bytes, start, end);
+        end = trimEnd(bytes, start, end);
+        boolean negative = start < end && bytes[start] == '-';
+        if (negative) {
+            start++;
+        }
+        if (start == end || end - start > 10) {
+            return MALFORMED;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return MALFORMED;
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? MALFORMED : value;
+    }
+
+    /**
+     * Parses an ISO date such as {@code 2020-07-03}, ignoring surrounding spaces.
+     *
+     * @return the epoch day, or {@link #MALFORMED} if the field is not a valid date
+     */
+    private static long parseDate(byte[] bytes, int start, int end) {
+        start = trimStart(bytes, start, end);
+        end = trimEnd(bytes, start, end);
+        if (end - start != 10 || bytes[start + 4] != '-' || bytes[start + 7] != '-') {
+            return MALFORMED;
+        }
+        int year = digits(bytes, start, 4);
+        int month = digits(bytes, start + 5, 2);
+        int day = digits(bytes, start + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > EpochDays.lengthOfMonth(year, month)) {
+            return MALFORMED;
+        }
+        return EpochDays.of(year, month, day);
+    }
+
+    private static int digits(byte[] bytes, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int trimStart(byte[] bytes, int start, int end) {
+        while (start < end && isSpace(bytes[start])) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(byte[] bytes, int start, int end) {
+        while (end > start && isSpace(bytes[end - 1])) {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static boolean startsWith(byte[] bytes, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (bytes[start + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String text(byte[] bytes, int start, int end) {
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8).trim();
+    }
+}
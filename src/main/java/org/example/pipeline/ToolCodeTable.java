@@ -0,0 +1,44 @@
+package org.example.pipeline;
+
+import org.example.catalog.CatalogSnapshot;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds tools of a catalog snapshot by the bytes of their code, so a parser can resolve
+ * codes without creating a {@code String} per field.
+ * <p>
+ * Lookups go through the snapshot's own packed-code index; only codes that cannot be
+ * packed, which no catalog shipped so far uses, are decoded to a {@code String} first.
+ * </p>
+ */
+final class ToolCodeTable {
+
+    private final CatalogSnapshot snapshot;
+    private final byte[][] codes;
+
+    ToolCodeTable(CatalogSnapshot snapshot) {
+        this.snapshot = snapshot;
+        codes = new byte[snapshot.size()][];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = snapshot.codeAt(i).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Returns the index of the tool whose code is the given bytes.
+     *
+     * @return the tool index, or -1 if no tool has that code
+     */
+    int indexOf(byte[] bytes, int offset, int length) {
+        int packedCode = CatalogSnapshot.packCode(bytes, offset, length);
+        if (packedCode != CatalogSnapshot.NOT_PACKED) {
+            return snapshot.indexOfPacked(packedCode);
+        }
+        return snapshot.indexOf(new String(bytes, offset, length, StandardCharsets.UTF_8));
+    }
+
+    byte[] codeBytes(int index) {
+        return codes[index];
+    }
+}
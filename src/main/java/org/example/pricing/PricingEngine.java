@@ -0,0 +1,191 @@
+package org.example.pricing;
+
+import org.example.catalog.CatalogSnapshot;
+import org.example.model.RejectionReason;
+import org.example.model.RentalAgreement;
+import org.example.model.Tool;
+import org.example.service.ToolRentalService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Prices rentals with declared {@link PricingRules} on top of a {@link ToolRentalService}.
+ * <p>
+ * Charge days still come from the service, so its holiday calendar and each tool's
+ * weekday, weekend and holiday flags apply as before. The rules are compiled once per
+ * catalog snapshot into a flat plan indexed by tool; a checkout resolves its tool code
+ * and then only does arithmetic on that plan. When the catalog is replaced, the plan is
+ * recompiled on the next checkout.
+ * </p>
+ * <p>
+ * Customers are numbered when the engine is created. Callers that price many rentals
+ * for the same customer can resolve it once with {@link #customer(String)} and pass the
+ * handle, so the customer's discount is read from an array instead of looked up by id.
+ * </p>
+ * <p>
+ * Rentals are priced in cents. A tool the catalog snapshot does not price in cents, or
+ * whose charges would overflow a {@code long} number of cents, is priced with
+ * {@code BigDecimal} arithmetic instead, as {@link ToolRentalService#checkout} does, so
+ * with {@link PricingRules#defaults()} every agreement has the same amounts as checkout
+ * produces for any catalog.
+ * </p>
+ */
+public final class PricingEngine {
+
+    /** The customer handle of a rental without a customer discount. */
+    public static final int NO_CUSTOMER = 0;
+
+    private final ToolRentalService toolRentalService;
+    private final PricingRules rules;
+    private final AtomicReference<PricingPlan> plan = new AtomicReference<>();
+    private final Map<String, Integer> customers = new HashMap<>();
+    private final int[] customerDiscountPercents;
+
+    /**
+     * Creates an engine applying the given rules to the service's catalog.
+     *
+     * @param toolRentalService  the service providing the catalog, calendar and charge days
+     * @param rules              the pricing rules
+     */
+    public PricingEngine(ToolRentalService toolRentalService, PricingRules rules) {
+        this.toolRentalService = toolRentalService;
+        this.rules = rules;
+        Map<String, Integer> customerDiscounts = rules.customerDiscounts();
+        customerDiscountPercents = new int[customerDiscounts.size() + 1];
+        for (Map.Entry<String, Integer> customer : customerDiscounts.entrySet()) {
+            int handle = customers.size() + 1;
+            customers.put(customer.getKey(), handle);
+            customerDiscountPercents[handle] = customer.getValue();
+        }
+    }
+
+    public PricingRules getRules() {
+        return rules;
+    }
+
+    /**
+     * Resolves a customer to the handle taken by
+     * {@link #checkout(String, int, int, LocalDate, int)}.
+     *
+     * @param customerId the customer, or {@code null} for none
+     * @return the customer's handle, or {@link #NO_CUSTOMER} if the rules give the
+     *         customer no discount
+     */
+    public int customer(String customerId) {
+        Integer handle = customerId == null ? null : customers.get(customerId);
+        return handle == null ? NO_CUSTOMER : handle;
+    }
+
+    /**
+     * Checks out a tool for rental without a customer discount.
+     *
+     * @param toolCode         the code of the tool being rented
+     * @param rentalDays       the number of days the tool is rented for
+     * @param discountPercent  the discount percentage to be applied
+     * @param checkoutDate     the date when the tool is checked out for rental
+     * @return a rental agreement priced with the rules
+     * @throws IllegalArgumentException if the tool code is invalid,
+     *                                  rental days are less than 1,
+     *                                  discount percentage is out of range (0-100), or
+     *                                  the due date is past {@link LocalDate#MAX}
+     */
+    public RentalAgreement checkout(String toolCode, int rentalDays, int discountPercent, LocalDate checkoutDate) {
+        return checkout(toolCode, rentalDays, discountPercent, checkoutDate, NO_CUSTOMER);
+    }
+
+    /**
+     * Checks out a tool for rental to a customer.
+     * <p>
+     * The customer's discount is added to the requested discount, up to 100%, and the
+     * agreement shows the combined percentage.
+     * </p>
+     *
+     * @param toolCode         the code of the tool being rented
+     * @param rentalDays       the number of days the tool is rented for
+     * @param discountPercent  the discount percentage to be applied
+     * @param checkoutDate     the date when the tool is checked out for rental
+     * @param customerId       the customer renting the tool, or {@code null} for none
+     * @return a rental agreement priced with the rules
+     * @throws IllegalArgumentException if the tool code is invalid,
+     *                                  rental days are less than 1,
+     *                                  discount percentage is out of range (0-100), or
+     *                                  the due date is past {@link LocalDate#MAX}
+     */
+    public RentalAgreement checkout(String toolCode, int rentalDays, int discountPercent, LocalDate checkoutDate,
+                                    String customerId) {
+        return checkout(toolCode, rentalDays, discountPercent, checkoutDate, customer(customerId));
+    }
+
+    /**
+     * Checks out a tool for rental to a customer already resolved with {@link #customer(String)}.
+     *
+     * @param toolCode         the code of the tool being rented
+     * @param rentalDays       the number of days the tool is rented for
+     * @param discountPercent  the discount percentage to be applied
+     * @param checkoutDate     the date when the tool is checked out for rental
+     * @param customer         the customer's handle, or {@link #NO_CUSTOMER}
+     * @return a rental agreement priced with the rules
+     * @throws IllegalArgumentException if the tool code is invalid,
+     *                                  rental days are less than 1,
+     *                                  discount percentage is out of range (0-100),
+     *                                  the due date is past {@link LocalDate#MAX}, or
+     *                                  the customer handle was not issued by this engine
+     */
+    public RentalAgreement checkout(String toolCode, int rentalDays, int discountPercent, LocalDate checkoutDate,
+                                    int customer) {
+        if (customer < 0 || customer >= customerDiscountPercents.length) {
+            throw new IllegalArgumentException("Unknown customer handle " + customer);
+        }
+        PricingPlan plan = plan();
+        int toolIndex = plan.snapshot.indexOf(toolCode);
+        RejectionReason rejection = RejectionReason.of(toolIndex, rentalDays, discountPercent, checkoutDate);
+        if (rejection != null) {
+            throw new IllegalArgumentException(rejection.getMessage(toolCode));
+        }
+
+        long checkoutEpochDay = checkoutDate.toEpochDay();
+        int chargeDays = toolRentalService.chargeDays(plan.snapshot, toolIndex, rentalDays, checkoutEpochDay);
+        int effectiveDiscountPercent = Math.min(100, discountPercent + customerDiscountPercents[customer]);
+        Tool tool = plan.snapshot.toolAt(toolIndex);
+        LocalDate dueDate = checkoutDate.plusDays(rentalDays);
+        if (plan.isPricedInCents(toolIndex)) {
+            try {
+                long preDiscountChargeCents = plan.preDiscountChargeCents(toolIndex, chargeDays, checkoutEpochDay);
+                long discountAmountCents = toolRentalService.calculateDiscountAmountCents(preDiscountChargeCents,
+                        effectiveDiscountPercent);
+                return RentalAgreement.ofCents(toolCode, tool.getType(), tool.getBrand(), rentalDays, checkoutDate,
+                        dueDate, tool.getDailyCharge(), preDiscountChargeCents, effectiveDiscountPercent,
+                        discountAmountCents, preDiscountChargeCents - discountAmountCents, chargeDays);
+            } catch (ArithmeticException e) {
+                // A large seasonal or minimum charge overflowed; price it as below
+            }
+        }
+
+        BigDecimal preDiscountCharge = plan.preDiscountCharge(toolIndex, chargeDays, checkoutEpochDay);
+        BigDecimal discountAmount = toolRentalService.calculateDiscountAmount(preDiscountCharge,
+                effectiveDiscountPercent);
+        BigDecimal finalCharge = preDiscountCharge.subtract(discountAmount).setScale(2, RoundingMode.HALF_UP);
+        return new RentalAgreement(toolCode, tool.getType(), tool.getBrand(), rentalDays, checkoutDate, dueDate,
+                tool.getDailyCharge(), preDiscountCharge, effectiveDiscountPercent, discountAmount, finalCharge,
+                chargeDays);
+    }
+
+    /**
+     * Returns the plan for the current catalog snapshot, compiling it if the catalog
+     * changed since the last checkout.
+     */
+    private PricingPlan plan() {
+        CatalogSnapshot snapshot = toolRentalService.getToolCatalog().snapshot();
+        PricingPlan current = plan.get();
+        if (current == null || current.snapshot != snapshot) {
+            current = new PricingPlan(snapshot, rules);
+            plan.set(current);
+        }
+        return current;
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.pricing;
+
+import org.example.calendar.EpochDays;
+import org.example.catalog.CatalogSnapshot;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * Pricing rules compiled against one catalog snapshot.
+ * <p>
+ * Every rule is resolved per tool index up front: daily charges in cents, tier
+ * boundaries, minimum charges, and a table of seasonal percentages by day of year.
+ * Evaluating a rental is then plain arithmetic on these arrays.
+ * </p>
+ * <p>
+ * Tools the catalog snapshot does not {@link CatalogSnapshot#isPricedInCents price in
+ * cents} are priced by {@link #preDiscountCharge} with {@code BigDecimal} arithmetic
+ * instead, as the service prices them.
+ * </p>
+ */
+final class PricingPlan {
+
+    final CatalogSnapshot snapshot;
+    private final long[] dailyChargeCents;
+    private final int[][] tiers;
+    private final long[] minimumChargeCents;
+    private final int[] seasonPercents = new int[12 * 31];
+    private final boolean seasonal;
+
+    PricingPlan(CatalogSnapshot snapshot, PricingRules rules) {
+        this.snapshot = snapshot;
+        int size = snapshot.size();
+        dailyChargeCents = new long[size];
+        tiers = new int[size][];
+        minimumChargeCents = new long[size];
+        for (int i = 0; i < size; i++) {
+            dailyChargeCents[i] = snapshot.toolAt(i).getDailyChargeCents();
+            tiers[i] = rules.tiersOf(snapshot.codeAt(i));
+            minimumChargeCents[i] = rules.minimumChargeCentsOf(snapshot.codeAt(i));
+        }
+        Arrays.fill(seasonPercents, 100);
+        for (int[] season : rules.seasons()) {
+            for (int day = season[0]; ; day = (day + 1) % seasonPercents.length) {
+                seasonPercents[day] = season[2];
+                if (day == season[1]) {
+                    break;
+                }
+            }
+        }
+        seasonal = !rules.seasons().isEmpty();
+    }
+
+    /**
+     * Checks if a tool can be priced with {@link #preDiscountChargeCents}: as for the
+     * service, its daily charge has two decimal places and is small enough that charge
+     * days times tier percentages cannot overflow.
+     */
+    boolean isPricedInCents(int toolIndex) {
+        return snapshot.isPricedInCents(toolIndex);
+    }
+
+    /**
+     * Calculates the pre-discount charge of a rental in cents.
+     * <p>
+     * Without tiers or seasons this is the daily charge times the charge days, as the
+     * service calculates it. Otherwise the charge is summed per tier in hundredths of a
+     * cent, scaled by the season of the checkout day, and rounded half up once.
+     * </p>
+     *
+     * @throws ArithmeticException if the seasonal charge overflows a {@code long}
+     */
+    long preDiscountChargeCents(int toolIndex, int chargeDays, long checkoutEpochDay) {
+        long daily = dailyChargeCents[toolIndex];
+        int[] toolTiers = tiers[toolIndex];
+        long charge;
+        if (toolTiers.length == 0 && !seasonal) {
+            charge = daily * chargeDays;
+        } else {
+            // Charge days from firstDay on are charged at percent of the daily charge
+            long hundredths = 0;
+            int firstDay = 1;
+            int percent = 100;
+            for (int i = 0; i < toolTiers.length && chargeDays >= toolTiers[i]; i += 2) {
+                hundredths += (long) (toolTiers[i] - firstDay) * daily * percent;
+                firstDay = toolTiers[i];
+                percent = 100 - toolTiers[i + 1];
+            }
+            hundredths += (long) (chargeDays - firstDay + 1) * daily * percent;
+            charge = roundHalfUp(Math.multiplyExact(hundredths, seasonPercent(checkoutEpochDay)), 10000);
+        }
+        return Math.max(charge, minimumChargeCents[toolIndex]);
+    }
+
+    /**
+     * Calculates the pre-discount charge of a rental with {@code BigDecimal} arithmetic,
+     * for tools {@link #preDiscountChargeCents} cannot price.
+     * <p>
+     * Without tiers or seasons this is the daily charge times the charge days, unrounded,
+     * exactly as the service calculates it. Otherwise the same sum as in cents is rounded
+     * half up to whole cents once.
+     * </p>
+     */
+    BigDecimal preDiscountCharge(int toolIndex, int chargeDays, long checkoutEpochDay) {
+        BigDecimal daily = snapshot.toolAt(toolIndex).getDailyCharge();
+        int[] toolTiers = tiers[toolIndex];
+        BigDecimal charge;
+        if (toolTiers.length == 0 && !seasonal) {
+            charge = daily.multiply(BigDecimal.valueOf(chargeDays));
+        } else {
+            // Charge days times their percentage of the daily charge; at most 100 per day, so it fits
+            long percentDays = 0;
+            int firstDay = 1;
+            int percent = 100;
+            for (int i = 0; i < toolTiers.length && chargeDays >= toolTiers[i]; i += 2) {
+                percentDays += (long) (toolTiers[i] - firstDay) * percent;
+                firstDay = toolTiers[i];
+                percent = 100 - toolTiers[i + 1];
+            }
+            percentDays += (long) (chargeDays - firstDay + 1) * percent;
+            charge = daily.multiply(BigDecimal.valueOf(percentDays))
+                    .multiply(BigDecimal.valueOf(seasonPercent(checkoutEpochDay)))
+                    .movePointLeft(4).setScale(2, RoundingMode.HALF_UP);
+        }
+        long minimum = minimumChargeCents[toolIndex];
+        return minimum != Long.MIN_VALUE && charge.compareTo(BigDecimal.valueOf(minimum, 2)) < 0
+                ? BigDecimal.valueOf(minimum, 2) : charge;
+    }
+
+    private int seasonPercent(long epochDay) {
+        if (!seasonal) {
+            return 100;
+        }
+        int yearMonthDay = EpochDays.toYearMonthDay(epochDay);
+        return seasonPercents[PricingRules.dayOfYearIndex(yearMonthDay / 100 % 100, yearMonthDay % 100)];
+    }
+
+    /**
+     * Divides, rounding to the nearest whole number with ties away from zero.
+     */
+    private static long roundHalfUp(long value, long divisor) {
+        long rounded = (Math.abs(value) + divisor / 2) / divisor;
+        return value < 0 ? -rounded : rounded;
+    }
+}
@@ -0,0 +1,247 @@
+package org.example.pricing;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * A declared set of pricing rules, read from a properties file.
+ * <p>
+ * With no rules a rental is priced exactly as {@link org.example.service.ToolRentalService#checkout}
+ * prices it. The supported keys are:
+ * </p>
+ * <pre>
+ * # Charge days from the 8th on at 10% off the daily charge, from the 15th on at 20% off
+ * tiers = 8:10, 15:20
+ * # Tiers of one tool, replacing the default tiers
+ * JAKR.tiers = 5:15
+ *
+ * # The least a rental is charged before discounts, by default and for one tool
+ * minimumCharge = 1.00
+ * LADW.minimumCharge = 5.00
+ *
+ * # Percentage of the charge applied by checkout day of year, from and to inclusive
+ * season.summer = 06-01..08-31:125
+ * season.winter = 12-20..01-05:150
+ *
+ * # Discount percentage added to the requested discount for a customer, capped at 100
+ * customer.ACME = 10
+ * </pre>
+ * <p>
+ * Rules are checked when they are read; a {@link PricingEngine} compiles them into a
+ * flat plan per tool.
+ * </p>
+ */
+public final class PricingRules {
+
+    private static final PricingRules DEFAULTS = new PricingRules(new Properties());
+
+    private final int[] tiers;
+    private final Map<String, int[]> toolTiers = new HashMap<>();
+    private final long minimumChargeCents;
+    private final Map<String, Long> toolMinimumChargeCents = new HashMap<>();
+    private final List<int[]> seasons = new ArrayList<>();
+    private final Map<String, Integer> customerDiscounts = new HashMap<>();
+
+    private PricingRules(Properties properties) {
+        int[] defaultTiers = new int[0];
+        long defaultMinimum = Long.MIN_VALUE;
+        // Sorted so that errors and season overlaps are reported in a stable order
+        for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+            String value = properties.getProperty(key).trim();
+            try {
+                if (key.equals("tiers")) {
+                    defaultTiers = parseTiers(value);
+                } else if (key.endsWith(".tiers")) {
+                    toolTiers.put(key.substring(0, key.length() - ".tiers".length()), parseTiers(value));
+                } else if (key.equals("minimumCharge")) {
+                    defaultMinimum = parseCents(value);
+                } else if (key.endsWith(".minimumCharge")) {
+                    toolMinimumChargeCents.put(key.substring(0, key.length() - ".minimumCharge".length()), parseCents(value));
+                } else if (key.startsWith("season.")) {
+                    seasons.add(parseSeason(value));
+                } else if (key.startsWith("customer.")) {
+                    customerDiscounts.put(key.substring("customer.".length()), parseBounded(value, 0, 100));
+                } else {
+                    throw new IllegalArgumentException("Unknown rule");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid pricing rule " + key + " = " + value + ": " + e.getMessage(), e);
+            }
+        }
+        this.tiers = defaultTiers;
+        this.minimumChargeCents = defaultMinimum;
+        checkSeasonsDoNotOverlap();
+    }
+
+    /**
+     * Returns the rules that price rentals exactly as the service does today.
+     *
+     * @return rules with no tiers, seasons, minimum charges or customer discounts
+     */
+    public static PricingRules defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Reads rules from properties.
+     *
+     * @param properties the rules, keyed as described in the class documentation
+     * @return the rules
+     * @throws IllegalArgumentException if a rule is unknown or malformed, or seasons overlap
+     */
+    public static PricingRules fromProperties(Properties properties) {
+        return new PricingRules(properties);
+    }
+
+    /**
+     * Reads rules in the properties file format.
+     *
+     * @param reader the source of the rules
+     * @return the rules
+     * @throws IOException if reading fails
+     * @throws IllegalArgumentException if a rule is unknown or malformed, or seasons overlap
+     */
+    public static PricingRules read(Reader reader) throws IOException {
+        Properties properties = new Properties();
+        properties.load(reader);
+        return new PricingRules(properties);
+    }
+
+    /**
+     * Reads rules from a UTF-8 properties file.
+     *
+     * @param file the file holding the rules
+     * @return the rules
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a rule is unknown or malformed, or seasons overlap
+     */
+    public static PricingRules load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Returns the tiers of a tool as pairs of first charge day and percentage off,
+     * ordered by first charge day.
+     */
+    int[] tiersOf(String toolCode) {
+        int[] overridden = toolTiers.get(toolCode);
+        return overridden != null ? overridden : tiers;
+    }
+
+    /**
+     * Returns the minimum charge of a tool in cents, or {@link Long#MIN_VALUE} if it has none.
+     */
+    long minimumChargeCentsOf(String toolCode) {
+        Long overridden = toolMinimumChargeCents.get(toolCode);
+        return overridden != null ? overridden : minimumChargeCents;
+    }
+
+    /**
+     * Returns the seasons as triples of first day, last day and percentage, where days
+     * are numbered {@code (month - 1) * 31 + (day - 1)}.
+     */
+    List<int[]> seasons() {
+        return Collections.unmodifiableList(seasons);
+    }
+
+    Map<String, Integer> customerDiscounts() {
+        return Collections.unmodifiableMap(customerDiscounts);
+    }
+
+    private static int[] parseTiers(String value) {
+        String[] entries = value.isEmpty() ? new String[0] : value.split(",");
+        int[] pairs = new int[entries.length * 2];
+        for (int i = 0; i < entries.length; i++) {
+            String[] parts = entries[i].trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected firstChargeDay:percentOff");
+            }
+            pairs[2 * i] = parseBounded(parts[0], 2, Integer.MAX_VALUE);
+            pairs[2 * i + 1] = parseBounded(parts[1], 0, 100);
+            if (i > 0 && pairs[2 * i] <= pairs[2 * i - 2]) {
+                throw new IllegalArgumentException("Tiers must start on increasing charge days");
+            }
+        }
+        return pairs;
+    }
+
+    private static int[] parseSeason(String value) {
+        int range = value.indexOf("..");
+        int colon = value.lastIndexOf(':');
+        if (range < 0 || colon < range) {
+            throw new IllegalArgumentException("Expected MM-dd..MM-dd:percent");
+        }
+        return new int[]{parseMonthDay(value.substring(0, range)), parseMonthDay(value.substring(range + 2, colon)),
+                parseBounded(value.substring(colon + 1), 0, 10000)};
+    }
+
+    private static int parseMonthDay(String value) {
+        String[] parts = value.trim().split("-");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Expected MM-dd but found " + value.trim());
+        }
+        int month = parseBounded(parts[0], 1, 12);
+        int day = parseBounded(parts[1], 1, month == 2 ? 29 : month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31);
+        return dayOfYearIndex(month, day);
+    }
+
+    private static long parseCents(String value) {
+        try {
+            return new BigDecimal(value).setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Expected a whole number of cents");
+        }
+    }
+
+    /**
+     * Parses an integer within bounds.
+     */
+    private static int parseBounded(String value, int minimum, int maximum) {
+        int parsed;
+        try {
+            parsed = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number but found " + value.trim());
+        }
+        if (parsed < minimum || parsed > maximum) {
+            throw new IllegalArgumentException(parsed + " is not between " + minimum + " and " + maximum);
+        }
+        return parsed;
+    }
+
+    private void checkSeasonsDoNotOverlap() {
+        boolean[] covered = new boolean[12 * 31];
+        for (int[] season : seasons) {
+            for (int day = season[0]; ; day = (day + 1) % covered.length) {
+                if (covered[day]) {
+                    throw new IllegalArgumentException("Pricing seasons overlap");
+                }
+                covered[day] = true;
+                if (day == season[1]) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Numbers the days of a year without regard to leap years, 31 slots per month.
+     */
+    static int dayOfYearIndex(int month, int day) {
+        return (month - 1) * 31 + (day - 1);
+    }
+}
@@ -0,0 +1,366 @@
+package org.example.service;
+
+import org.example.model.CheckoutRequest;
+import org.example.model.CheckoutResult;
+import org.example.model.RentalAgreement;
+
+import java.io.Closeable;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An asynchronous front end for a {@link ToolRentalService}.
+ * <p>
+ * Checkouts are priced on a fixed pool of threads fed by a bounded queue. When the queue
+ * is full a checkout is shed: its future fails at once with a
+ * {@link RejectedExecutionException} instead of waiting, so a burst degrades into fast
+ * rejections rather than an ever-growing backlog.
+ * </p>
+ * <p>
+ * After pricing, each checkout passes through the {@link CheckoutStage}s given at
+ * construction, in order, so reservation, persistence or other I/O compose into the
+ * same future. Stages can watch that future to undo their step when the checkout fails
+ * after them; once it has been cancelled or failed, the remaining stages are skipped.
+ * Streams of requests go through a {@link #checkoutProcessor(int)}, which pulls requests
+ * only as fast as its subscriber consumes results.
+ * </p>
+ */
+public class AsyncRentalService implements Closeable {
+
+    private final ToolRentalService toolRentalService;
+    private final List<CheckoutStage> stages;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder shed = new LongAdder();
+
+    /**
+     * Creates an asynchronous service without post-pricing stages.
+     *
+     * @param toolRentalService  the service pricing checkouts
+     * @param threads            the number of pricing threads
+     * @param queueCapacity      the most checkouts waiting for a thread before new ones are shed
+     */
+    public AsyncRentalService(ToolRentalService toolRentalService, int threads, int queueCapacity) {
+        this(toolRentalService, threads, queueCapacity, new ArrayList<CheckoutStage>());
+    }
+
+    /**
+     * Creates an asynchronous service running the given stages after pricing.
+     *
+     * @param toolRentalService  the service pricing checkouts
+     * @param threads            the number of pricing threads
+     * @param queueCapacity      the most checkouts waiting for a thread before new ones are shed
+     * @param stages             the steps run, in order, after a checkout is priced
+     */
+    public AsyncRentalService(ToolRentalService toolRentalService, int threads, int queueCapacity,
+                              List<CheckoutStage> stages) {
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Threads and queue capacity must be 1 or greater");
+        }
+        this.toolRentalService = toolRentalService;
+        this.stages = new ArrayList<>(stages);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "async-checkout-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Checks out a tool asynchronously.
+     *
+     * @param toolCode         the code of the tool being rented
+     * @param rentalDays       the number of days the tool is rented for
+     * @param discountPercent  the discount percentage to be applied
+     * @param checkoutDate     the date when the tool is checked out for rental
+     * @return a future completing with the agreement, or exceptionally with the
+     *         {@link IllegalArgumentException} a rejected checkout throws, a
+     *         {@link RejectedExecutionException} if the checkout was shed, or a stage's failure
+     */
+    public CompletableFuture<RentalAgreement> checkout(String toolCode, int rentalDays, int discountPercent,
+                                                       LocalDate checkoutDate) {
+        return checkout(new CheckoutRequest(toolCode, rentalDays, discountPercent, checkoutDate));
+    }
+
+    /**
+     * Checks out a tool asynchronously.
+     *
+     * @param request the checkout request
+     * @return a future completing as described for {@link #checkout(String, int, int, LocalDate)}
+     */
+    public CompletableFuture<RentalAgreement> checkout(CheckoutRequest request) {
+        CompletableFuture<RentalAgreement> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> toolRentalService.checkout(request.getToolCode(),
+                    request.getRentalDays(), request.getDiscountPercent(), request.getCheckoutDate()), executor);
+        } catch (RejectedExecutionException e) {
+            shed.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Checkout queue is full", e));
+        }
+        // The caller's future, which stages watch to compensate when a later step fails
+        CompletableFuture<RentalAgreement> checkout = new CompletableFuture<>();
+        for (CheckoutStage stage : stages) {
+            // Once the caller's future is done, earlier stages may already have undone their steps
+            future = future.thenCompose(agreement -> checkout.isDone()
+                    ? CompletableFuture.failedFuture(new CancellationException("Checkout already completed"))
+                    : stage.apply(request, agreement, checkout));
+        }
+        future.whenComplete((agreement, failure) -> {
+            if (failure == null) {
+                checkout.complete(agreement);
+            } else {
+                checkout.completeExceptionally(failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure);
+            }
+        });
+        return checkout;
+    }
+
+    /**
+     * Creates a processor checking out a stream of requests.
+     * <p>
+     * The processor requests checkouts from its publisher only while its subscriber has
+     * outstanding demand, and keeps at most {@code maxInFlight} requests between the two.
+     * Every request yields one {@link CheckoutResult}; rejected, shed or failed checkouts
+     * yield failed results. Results are published as they complete, which may differ from
+     * the order of the requests. A processor serves a single subscriber.
+     * </p>
+     *
+     * @param maxInFlight the most requests priced or awaiting delivery at once
+     * @return a new processor
+     */
+    public Flow.Processor<CheckoutRequest, CheckoutResult> checkoutProcessor(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("In-flight limit must be 1 or greater");
+        }
+        return new CheckoutProcessor(maxInFlight);
+    }
+
+    /**
+     * Returns the number of checkouts shed because the queue was full.
+     *
+     * @return the shed count
+     */
+    public long getShedCount() {
+        return shed.sum();
+    }
+
+    /**
+     * Returns the number of checkouts waiting for a pricing thread.
+     *
+     * @return the queue length
+     */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stops accepting checkouts. Queued checkouts are still priced.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private static CheckoutResult toResult(CheckoutRequest request, RentalAgreement agreement, Throwable failure) {
+        if (failure == null) {
+            return CheckoutResult.success(request, agreement);
+        }
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        return CheckoutResult.failure(request, cause.getMessage());
+    }
+
+    /**
+     * Bridges a publisher of requests to a subscriber of results. All state is guarded by
+     * the processor's monitor; signals to the subscriber are delivered by one thread at a
+     * time through {@link #drain()}.
+     */
+    private final class CheckoutProcessor implements Flow.Processor<CheckoutRequest, CheckoutResult> {
+
+        private final int maxInFlight;
+        private final ArrayDeque<CheckoutResult> ready = new ArrayDeque<>();
+        private Flow.Subscription upstream;
+        private Flow.Subscriber<? super CheckoutResult> downstream;
+        private long demand;
+        private long requested;
+        private int inFlight;
+        private boolean upstreamDone;
+        private Throwable upstreamError;
+        private boolean cancelled;
+        private boolean terminated;
+        private boolean draining;
+
+        CheckoutProcessor(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super CheckoutResult> subscriber) {
+            synchronized (this) {
+                if (downstream != null) {
+                    subscriber.onSubscribe(new Flow.Subscription() {
+                        @Override
+                        public void request(long n) {
+                        }
+
+                        @Override
+                        public void cancel() {
+                        }
+                    });
+                    subscriber.onError(new IllegalStateException("A checkout processor serves a single subscriber"));
+                    return;
+                }
+                downstream = subscriber;
+            }
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    synchronized (CheckoutProcessor.this) {
+                        if (n <= 0) {
+                            upstreamError = new IllegalArgumentException("Requested " + n + " results");
+                            upstreamDone = true;
+                        } else {
+                            demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                        }
+                    }
+                    drain();
+                }
+
+                @Override
+                public void cancel() {
+                    Flow.Subscription subscription;
+                    synchronized (CheckoutProcessor.this) {
+                        cancelled = true;
+                        ready.clear();
+                        subscription = upstream;
+                    }
+                    if (subscription != null) {
+                        subscription.cancel();
+                    }
+                }
+            });
+            drain();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            synchronized (this) {
+                if (upstream != null) {
+                    subscription.cancel();
+                    return;
+                }
+                upstream = subscription;
+            }
+            drain();
+        }
+
+        @Override
+        public void onNext(CheckoutRequest request) {
+            if (request == null) {
+                onError(new NullPointerException("Checkout request is missing"));
+                return;
+            }
+            synchronized (this) {
+                requested--;
+                inFlight++;
+            }
+            checkout(request).whenComplete((agreement, failure) -> {
+                synchronized (this) {
+                    inFlight--;
+                    if (!cancelled) {
+                        ready.add(toResult(request, agreement, failure));
+                    }
+                }
+                drain();
+            });
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            synchronized (this) {
+                upstreamError = throwable;
+                upstreamDone = true;
+            }
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            synchronized (this) {
+                upstreamDone = true;
+            }
+            drain();
+        }
+
+        /**
+         * Delivers ready results against demand, requests more work from upstream, and
+         * signals completion once everything requested has been delivered.
+         */
+        private void drain() {
+            synchronized (this) {
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            while (true) {
+                CheckoutResult next = null;
+                long credit = 0;
+                Flow.Subscription subscription;
+                Throwable error = null;
+                boolean complete = false;
+                synchronized (this) {
+                    subscription = upstream;
+                    if (downstream == null || cancelled || terminated) {
+                        draining = false;
+                        return;
+                    }
+                    if (demand > 0 && !ready.isEmpty()) {
+                        next = ready.poll();
+                        demand--;
+                    } else if (upstreamError != null) {
+                        error = upstreamError;
+                        terminated = true;
+                    } else if (upstreamDone && inFlight == 0 && ready.isEmpty()) {
+                        complete = true;
+                        terminated = true;
+                    } else if (!upstreamDone && subscription != null) {
+                        credit = Math.min(demand, maxInFlight) - requested - inFlight - ready.size();
+                        if (credit > 0) {
+                            requested += credit;
+                        }
+                    }
+                    if (next == null && error == null && !complete && credit <= 0) {
+                        draining = false;
+                        return;
+                    }
+                }
+                if (next != null) {
+                    downstream.onNext(next);
+                } else if (error != null) {
+                    if (subscription != null) {
+                        subscription.cancel();
+                    }
+                    downstream.onError(error);
+                } else if (complete) {
+                    downstream.onComplete();
+                } else {
+                    subscription.request(credit);
+                }
+            }
+        }
+    }
+}
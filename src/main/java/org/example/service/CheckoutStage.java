@@ -0,0 +1,52 @@
+package org.example.service;
+
+import org.example.model.CheckoutRequest;
+import org.example.model.RentalAgreement;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A step run after a checkout has been priced, such as reserving a unit or persisting
+ * the agreement.
+ * <p>
+ * A stage may finish synchronously by returning a completed stage, or start its own
+ * asynchronous I/O. Completing exceptionally fails the checkout.
+ * </p>
+ * <p>
+ * A stage that takes hold of something, such as a reserved unit, must give it back if
+ * the checkout fails after the stage has run. Such a stage implements
+ * {@link #apply(CheckoutRequest, RentalAgreement, CompletionStage)} and undoes its step
+ * when the checkout it is given completes exceptionally.
+ * </p>
+ */
+@FunctionalInterface
+public interface CheckoutStage {
+
+    /**
+     * Runs the step for a priced checkout.
+     *
+     * @param request    the checkout request
+     * @param agreement  the agreement produced by pricing or by the previous stage
+     * @return the agreement to pass on, once the step is done
+     */
+    CompletionStage<RentalAgreement> apply(CheckoutRequest request, RentalAgreement agreement);
+
+    /**
+     * Runs the step for a priced checkout, with access to the outcome of the whole checkout.
+     * <p>
+     * {@code checkout} is the future handed to the caller. It completes after every stage
+     * has run, or exceptionally when a later stage fails or the caller cancels or fails
+     * it, so a stage can register compensation on it. A stage is not run at all once
+     * {@code checkout} is done. By default the outcome is ignored.
+     * </p>
+     *
+     * @param request    the checkout request
+     * @param agreement  the agreement produced by pricing or by the previous stage
+     * @param checkout   the outcome of the whole checkout
+     * @return the agreement to pass on, once the step is done
+     */
+    default CompletionStage<RentalAgreement> apply(CheckoutRequest request, RentalAgreement agreement,
+                                                   CompletionStage<RentalAgreement> checkout) {
+        return apply(request, agreement);
+    }
+}
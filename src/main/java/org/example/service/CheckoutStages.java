@@ -0,0 +1,79 @@
+package org.example.service;
+
+import org.example.inventory.Inventory;
+import org.example.inventory.Reservation;
+import org.example.journal.AgreementJournal;
+import org.example.model.CheckoutRequest;
+import org.example.model.RentalAgreement;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Factories for the common {@link CheckoutStage}s.
+ */
+public final class CheckoutStages {
+
+    private CheckoutStages() {
+    }
+
+    /**
+     * Creates a stage reserving a unit of the rented tool for the rental period.
+     * The checkout fails with an {@link IllegalStateException} when no unit is free.
+     * <p>
+     * The reservation is released again if the checkout fails after this stage, whether
+     * a later stage fails or the caller cancels or fails the checkout. The stage therefore
+     * only runs through {@link CheckoutStage#apply(CheckoutRequest, RentalAgreement, CompletionStage)};
+     * the two-argument overload, which has no checkout to watch, throws
+     * {@link UnsupportedOperationException}.
+     * </p>
+     *
+     * @param inventory the units to reserve from
+     * @return the reservation stage
+     */
+    public static CheckoutStage reserve(final Inventory inventory) {
+        return new CheckoutStage() {
+            @Override
+            public CompletionStage<RentalAgreement> apply(CheckoutRequest request, RentalAgreement agreement) {
+                throw new UnsupportedOperationException("Reserving needs the checkout to release the unit on failure");
+            }
+
+            @Override
+            public CompletionStage<RentalAgreement> apply(CheckoutRequest request, RentalAgreement agreement,
+                                                          CompletionStage<RentalAgreement> checkout) {
+                Reservation reservation = inventory.reserve(agreement.getToolCode(), agreement.getCheckoutDate(),
+                        agreement.getRentalDays());
+                if (reservation == null) {
+                    return CompletableFuture.failedFuture(new IllegalStateException(
+                            "No unit of " + agreement.getToolCode() + " is available from " + agreement.getCheckoutDate()));
+                }
+                checkout.whenComplete((result, failure) -> {
+                    if (failure != null) {
+                        inventory.release(reservation);
+                    }
+                });
+                return CompletableFuture.completedFuture(agreement);
+            }
+        };
+    }
+
+    /**
+     * Creates a stage appending the agreement to a journal. The append is a copy into
+     * the journal's mapped file; it becomes durable with the journal's next group commit.
+     *
+     * @param journal the journal receiving agreements
+     * @return the journaling stage
+     */
+    public static CheckoutStage journal(final AgreementJournal journal) {
+        return (request, agreement) -> {
+            try {
+                journal.append(agreement);
+                return CompletableFuture.completedFuture(agreement);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(new UncheckedIOException(e));
+            }
+        };
+    }
+}
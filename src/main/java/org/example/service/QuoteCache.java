@@ -0,0 +1,263 @@
+package org.example.service;
+
+import org.example.catalog.CatalogListener;
+import org.example.catalog.CatalogSnapshot;
+import org.example.catalog.ToolCatalog;
+import org.example.model.CheckoutRequest;
+import org.example.model.CheckoutResult;
+import org.example.model.ImmutableRentalAgreement;
+import org.example.model.RentalAgreement;
+
+import java.io.Closeable;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of rental agreements in front of {@link ToolRentalService#checkout}.
+ * <p>
+ * Quotes are keyed on tool code, rental days, discount percent and checkout date, and
+ * the cached agreements are {@link ImmutableRentalAgreement}s shared by every caller that
+ * asks for the same quote. The cache is split into segments, each evicting its least
+ * recently used entry once full, so concurrent callers rarely contend for the same lock.
+ * </p>
+ * <p>
+ * When the service's tool catalog publishes a snapshot in which a tool changed, every
+ * cached quote for that tool is dropped. Rejected requests are never cached.
+ * </p>
+ */
+public class QuoteCache implements Closeable {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private final ToolRentalService toolRentalService;
+    private final Segment[] segments;
+    private final CatalogListener invalidator = new CatalogListener() {
+        @Override
+        public void catalogChanged(CatalogSnapshot previous, CatalogSnapshot current) {
+            invalidate(new HashSet<>(previous.changedCodes(current)));
+        }
+    };
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a quote cache in front of the given service.
+     *
+     * @param toolRentalService  the service pricing quotes that are not cached
+     * @param maximumSize        the maximum number of quotes kept
+     */
+    public QuoteCache(ToolRentalService toolRentalService, int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum cache size must be 1 or greater");
+        }
+        this.toolRentalService = toolRentalService;
+        int segmentCount = Math.min(SEGMENT_COUNT, maximumSize);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // Spread the remainder so the segment capacities add up to the maximum size
+            segments[i] = new Segment(maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0));
+        }
+        toolRentalService.getToolCatalog().addListener(invalidator);
+    }
+
+    /**
+     * Returns the rental agreement for a quote, pricing it only if it is not cached.
+     *
+     * @param toolCode         the code of the tool being rented
+     * @param rentalDays       the number of days the tool is rented for
+     * @param discountPercent  the discount percentage to be applied
+     * @param checkoutDate     the date when the tool is checked out for rental
+     * @return an immutable rental agreement for the quote
+     * @throws IllegalArgumentException for the same reasons as {@link ToolRentalService#checkout}
+     */
+    public ImmutableRentalAgreement checkout(String toolCode, int rentalDays, int discountPercent, LocalDate checkoutDate) {
+        QuoteKey key = new QuoteKey(toolCode, rentalDays, discountPercent, checkoutDate);
+        Segment segment = segments[Math.floorMod(key.hashCode(), segments.length)];
+        ImmutableRentalAgreement agreement = segment.get(key);
+        if (agreement != null) {
+            hits.increment();
+            return agreement;
+        }
+        misses.increment();
+
+        ToolCatalog catalog = toolRentalService.getToolCatalog();
+        CatalogSnapshot snapshot = catalog.snapshot();
+        agreement = ImmutableRentalAgreement.copyOf(toolRentalService.checkout(toolCode, rentalDays, discountPercent, checkoutDate));
+        synchronized (segment) {
+            // A quote priced while the catalog changed may already be stale
+            if (catalog.snapshot() == snapshot) {
+                segment.put(key, agreement);
+            }
+        }
+        return agreement;
+    }
+
+    /**
+     * Returns the result of a quote without throwing on invalid input, pricing it with
+     * {@link ToolRentalService#tryCheckout} only if it is not cached.
+     *
+     * @param request the checkout request, which may be {@code null}
+     * @return the immutable rental agreement for the quote, or the reason it was rejected
+     */
+    public CheckoutResult tryCheckout(CheckoutRequest request) {
+        if (request == null || request.getCheckoutDate() == null) {
+            return toolRentalService.tryCheckout(request);
+        }
+        QuoteKey key = new QuoteKey(request.getToolCode(), request.getRentalDays(), request.getDiscountPercent(),
+                request.getCheckoutDate());
+        Segment segment = segments[Math.floorMod(key.hashCode(), segments.length)];
+        ImmutableRentalAgreement agreement = segment.get(key);
+        if (agreement != null) {
+            hits.increment();
+            return CheckoutResult.success(request, agreement);
+        }
+        misses.increment();
+
+        ToolCatalog catalog = toolRentalService.getToolCatalog();
+        CatalogSnapshot snapshot = catalog.snapshot();
+        CheckoutResult result = toolRentalService.tryCheckout(request);
+        if (!result.isSuccess()) {
+            return result;
+        }
+        agreement = ImmutableRentalAgreement.copyOf(result.getRentalAgreement());
+        synchronized (segment) {
+            // A quote priced while the catalog changed may already be stale
+            if (catalog.snapshot() == snapshot) {
+                segment.put(key, agreement);
+            }
+        }
+        return CheckoutResult.success(request, agreement);
+    }
+
+    /**
+     * Drops every cached quote for the given tool codes.
+     *
+     * @param toolCodes the tool codes whose quotes are dropped
+     */
+    public void invalidate(Set<String> toolCodes) {
+        if (toolCodes.isEmpty()) {
+            return;
+        }
+        for (Segment segment : segments) {
+            segment.removeToolCodes(toolCodes);
+        }
+    }
+
+    /**
+     * Drops every cached quote.
+     */
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of quotes currently cached
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Stops following catalog changes. The cache must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        toolRentalService.getToolCatalog().removeListener(invalidator);
+        invalidateAll();
+    }
+
+    /**
+     * One lock's worth of quotes, kept in access order so the least recently used is evicted first.
+     */
+    private static final class Segment {
+        private final int capacity;
+        private final LinkedHashMap<QuoteKey, ImmutableRentalAgreement> quotes = new LinkedHashMap<>(16, 0.75f, true);
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized ImmutableRentalAgreement get(QuoteKey key) {
+            return quotes.get(key);
+        }
+
+        synchronized void put(QuoteKey key, ImmutableRentalAgreement agreement) {
+            quotes.put(key, agreement);
+            if (quotes.size() > capacity) {
+                Iterator<QuoteKey> eldest = quotes.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        synchronized void removeToolCodes(Set<String> toolCodes) {
+            quotes.keySet().removeIf(key -> toolCodes.contains(key.toolCode));
+        }
+
+        synchronized void clear() {
+            quotes.clear();
+        }
+
+        synchronized int size() {
+            return quotes.size();
+        }
+    }
+
+    private static final class QuoteKey {
+        private final String toolCode;
+        private final int rentalDays;
+        private final int discountPercent;
+        private final LocalDate checkoutDate;
+
+        QuoteKey(String toolCode, int rentalDays, int discountPercent, LocalDate checkoutDate) {
+            this.toolCode = toolCode;
+            this.rentalDays = rentalDays;
+            this.discountPercent = discountPercent;
+            this.checkoutDate = checkoutDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof QuoteKey)) {
+                return false;
+            }
+            QuoteKey other = (QuoteKey) o;
+            return rentalDays == other.rentalDays
+                    && discountPercent == other.discountPercent
+                    && Objects.equals(toolCode, other.toolCode)
+                    && Objects.equals(checkoutDate, other.checkoutDate);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = toolCode == null ? 0 : toolCode.hashCode();
+            result = 31 * result + rentalDays;
+            result = 31 * result + discountPercent;
+            result = 31 * result + (checkoutDate == null ? 0 : checkoutDate.hashCode());
+            // Mix the high bits in, since the segment is chosen from the low ones
+            return result ^ (result >>> 16);
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package org.example.service;
+
+import org.example.calendar.HolidayCalendar;
+import org.example.calendar.HolidayRule;
+import org.example.calendar.HolidayRules;
+import org.example.calendar.RegionCalendars;
+import org.example.catalog.CatalogSnapshot;
+import org.example.catalog.ToolCatalog;
+import org.example.model.Tool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A binary snapshot of the state a {@link ToolRentalService} prepares before its first
+ * checkout, for starting new instances warm.
+ * <p>
+ * The snapshot holds the parsed tool catalog, the rules of the regional calendars, the
+ * store-to-region mapping, and the precomputed holidays of every indexed year of the
+ * standard and regional calendars. On start it is memory-mapped and loaded straight into
+ * the catalog and the calendars' indexes, so neither the catalog CSV nor the rule files
+ * are parsed, and no holiday rule is evaluated.
+ * </p>
+ * <p>
+ * The header records a format version and a fingerprint of the source data: the contents
+ * of the catalog file and the names and contents of every rule and store file, and the
+ * rules of the standard calendar. Without a catalog file the contents of the default
+ * catalog are fingerprinted instead. It also records a CRC-32 of the body. A snapshot
+ * whose version, fingerprint or checksum does not match, or that cannot be read, is stale;
+ * the service is then built from the sources and the snapshot rewritten.
+ * </p>
+ * <p>
+ * The holidays are loaded into calendars of their own, including a private copy of the
+ * standard calendar, so a snapshot that turns out to be bad never touches
+ * {@link HolidayCalendar#standard()}.
+ * </p>
+ */
+public final class ServiceSnapshot {
+
+    /**
+     * The version of the snapshot format; snapshots of other versions are rebuilt.
+     */
+    public static final int VERSION = 2;
+
+    private static final int MAGIC = 0x54525353;
+    private static final int HEADER_SIZE = 20;
+
+    private ServiceSnapshot() {
+    }
+
+    /**
+     * Starts a rental service from a snapshot, rebuilding the snapshot first if it is
+     * missing or stale.
+     *
+     * @param catalogFile        the tool catalog CSV, or {@code null} for the standard tools
+     * @param calendarDirectory  the directory of regional calendars, or {@code null} for none
+     * @param snapshotFile       the snapshot to start from
+     * @return a service whose catalog and calendars are ready for checkouts
+     * @throws IOException if the sources cannot be read or the snapshot cannot be written
+     * @throws IllegalArgumentException if a source file is malformed
+     */
+    public static ToolRentalService start(Path catalogFile, Path calendarDirectory, Path snapshotFile)
+            throws IOException {
+        long fingerprint = fingerprint(catalogFile, calendarDirectory);
+        ToolRentalService toolRentalService = read(snapshotFile, fingerprint, catalogFile);
+        if (toolRentalService != null) {
+            return toolRentalService;
+        }
+
+        ToolCatalog toolCatalog = catalogFile == null ? ToolCatalog.defaults() : ToolCatalog.fromFile(catalogFile);
+        RegionCalendars regionCalendars = calendarDirectory == null
+                ? RegionCalendars.empty() : RegionCalendars.fromDirectory(calendarDirectory);
+        toolRentalService = new ToolRentalService(toolCatalog, HolidayCalendar.standard(), regionCalendars);
+        write(toolRentalService, fingerprint, snapshotFile);
+        return toolRentalService;
+    }
+
+    /**
+     * Checks if a snapshot exists and matches the current source data.
+     *
+     * @param snapshotFile       the snapshot
+     * @param catalogFile        the tool catalog CSV, or {@code null} for the standard tools
+     * @param calendarDirectory  the directory of regional calendars, or {@code null} for none
+     * @return {@code true} if {@link #start} would load the snapshot without rebuilding it
+     * @throws IOException if the source files cannot be inspected
+     */
+    public static boolean isCurrent(Path snapshotFile, Path catalogFile, Path calendarDirectory) throws IOException {
+        if (!Files.isRegularFile(snapshotFile)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            return body(channel, fingerprint(catalogFile, calendarDirectory)) != null;
+        }
+    }
+
+    /**
+     * Maps a snapshot and checks its header and checksum.
+     *
+     * @return the body of the snapshot, or {@code null} if it is stale or corrupt
+     */
+    private static ByteBuffer body(FileChannel channel, long fingerprint) throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            return null;
+        }
+        MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (in.getInt() != MAGIC || in.getInt() != VERSION || in.getLong() != fingerprint) {
+            return null;
+        }
+        int checksum = in.getInt();
+        CRC32 crc = new CRC32();
+        crc.update(in.duplicate());
+        return (int) crc.getValue() == checksum ? in : null;
+    }
+
+    private static ToolRentalService read(Path snapshotFile, long fingerprint, Path catalogFile) throws IOException {
+        if (!Files.isRegularFile(snapshotFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            ByteBuffer in = body(channel, fingerprint);
+            if (in == null) {
+                return null;
+            }
+
+            // Everything is read into new objects, which are only used once the whole snapshot has been read
+            Map<String, Tool> tools = new LinkedHashMap<>();
+            for (int i = in.getInt(); i > 0; i--) {
+                String code = readString(in);
+                String type = readString(in);
+                String brand = readString(in);
+                BigDecimal dailyCharge = new BigDecimal(readString(in));
+                byte flags = in.get();
+                tools.put(code, new Tool(type, brand, dailyCharge, (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0));
+            }
+            Map<String, String> stores = new HashMap<>();
+            for (int i = in.getInt(); i > 0; i--) {
+                stores.put(readString(in), readString(in));
+            }
+            // The fingerprint covers the standard rules, so this is a private copy of the standard calendar
+            HolidayCalendar standard = readCalendar(in);
+            Map<String, HolidayCalendar> calendars = new HashMap<>();
+            for (int i = in.getInt(); i > 0; i--) {
+                String region = readString(in);
+                calendars.put(region, readCalendar(in));
+            }
+
+            ToolCatalog toolCatalog = catalogFile == null ? new ToolCatalog(tools) : ToolCatalog.fromTools(catalogFile, tools);
+            return new ToolRentalService(toolCatalog, standard, new RegionCalendars(calendars, stores));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // A truncated or corrupt snapshot is as good as a stale one
+            return null;
+        }
+    }
+
+    /**
+     * Reads a calendar section into a new calendar built from the stored rules, with the
+     * stored holidays preloaded into its index.
+     */
+    private static HolidayCalendar readCalendar(ByteBuffer in) {
+        String name = readString(in);
+        List<HolidayRule> rules = new ArrayList<>();
+        for (int i = in.getInt(); i > 0; i--) {
+            rules.add(HolidayRules.parse(readString(in)));
+        }
+        HolidayCalendar calendar = new HolidayCalendar(name, rules);
+        int firstYear = in.getInt();
+        int yearCount = in.getInt();
+        for (int year = firstYear; year < firstYear + yearCount; year++) {
+            int[] days = new int[in.getShort() & 0xFFFF];
+            in.asIntBuffer().get(days);
+            in.position(in.position() + days.length * Integer.BYTES);
+            calendar.preload(year, days);
+        }
+        return calendar;
+    }
+
+    private static void write(ToolRentalService toolRentalService, long fingerprint, Path snapshotFile)
+            throws IOException {
+        Map<String, HolidayCalendar> calendars = toolRentalService.getRegionCalendars().getCalendars();
+        if (!isWritable(toolRentalService.getHolidayCalendar())
+                || !calendars.values().stream().allMatch(ServiceSnapshot::isWritable)) {
+            // Rules that cannot be written as text cannot be restored, so start cold every time
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        CatalogSnapshot catalog = toolRentalService.getToolCatalog().snapshot();
+        out.writeInt(catalog.size());
+        for (int i = 0; i < catalog.size(); i++) {
+            Tool tool = catalog.toolAt(i);
+            writeString(out, catalog.codeAt(i));
+            writeString(out, tool.getType());
+            writeString(out, tool.getBrand());
+            writeString(out, tool.getDailyCharge().toString());
+            out.writeByte(flags(tool));
+        }
+        Map<String, String> stores = toolRentalService.getRegionCalendars().getStores();
+        out.writeInt(stores.size());
+        for (Map.Entry<String, String> store : stores.entrySet()) {
+            writeString(out, store.getKey());
+            writeString(out, store.getValue());
+        }
+        writeCalendar(out, toolRentalService.getHolidayCalendar());
+        out.writeInt(calendars.size());
+        for (Map.Entry<String, HolidayCalendar> calendar : calendars.entrySet()) {
+            writeString(out, calendar.getKey());
+            writeCalendar(out, calendar.getValue());
+        }
+        out.flush();
+        byte[] body = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(fingerprint).putInt((int) crc.getValue());
+
+        Path directory = snapshotFile.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                header.flip();
+                ByteBuffer[] buffers = {header, ByteBuffer.wrap(body)};
+                while (buffers[1].hasRemaining()) {
+                    channel.write(buffers);
+                }
+            }
+            Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void writeCalendar(DataOutputStream out, HolidayCalendar calendar) throws IOException {
+        writeString(out, calendar.getName());
+        out.writeInt(calendar.getRules().size());
+        for (HolidayRule rule : calendar.getRules()) {
+            writeString(out, rule.toString());
+        }
+        out.writeInt(HolidayCalendar.FIRST_INDEXED_YEAR);
+        out.writeInt(HolidayCalendar.LAST_INDEXED_YEAR - HolidayCalendar.FIRST_INDEXED_YEAR + 1);
+        for (int year = HolidayCalendar.FIRST_INDEXED_YEAR; year <= HolidayCalendar.LAST_INDEXED_YEAR; year++) {
+            int[] days = calendar.holidayEpochDays(year);
+            out.writeShort(days.length);
+            for (int day : days) {
+                out.writeInt(day);
+            }
+        }
+    }
+
+    /**
+     * Checks that every rule of a calendar reads back from its text unchanged.
+     */
+    private static boolean isWritable(HolidayCalendar calendar) {
+        for (HolidayRule rule : calendar.getRules()) {
+            try {
+                if (!HolidayRules.parse(rule.toString()).toString().equals(rule.toString())) {
+                    return false;
+                }
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fingerprints the source data: the contents of the source files, so an edit that keeps a
+     * file's size and modification time is still caught, plus the rules of the standard
+     * calendar, which live in code. Calendar files are keyed by name too, since the name is
+     * the region.
+     */
+    private static long fingerprint(Path catalogFile, Path calendarDirectory) throws IOException {
+        List<Path> calendarFiles = new ArrayList<>();
+        if (calendarDirectory != null) {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(calendarDirectory)) {
+                for (Path entry : entries) {
+                    String fileName = entry.getFileName().toString();
+                    if (fileName.endsWith(RegionCalendars.RULE_FILE_SUFFIX) || fileName.equals(RegionCalendars.STORE_FILE)) {
+                        calendarFiles.add(entry);
+                    }
+                }
+            }
+            Collections.sort(calendarFiles);
+        }
+
+        long hash = fnv(0xCBF29CE484222325L, VERSION);
+        for (HolidayRule rule : HolidayCalendar.standard().getRules()) {
+            hash = fnv(hash, rule.toString());
+        }
+        if (catalogFile != null) {
+            hash = fnv(hash, Files.readAllBytes(catalogFile));
+        } else {
+            // The in-code catalog has no file, so its tools are the fingerprint
+            CatalogSnapshot catalog = ToolCatalog.defaults().snapshot();
+            for (int i = 0; i < catalog.size(); i++) {
+                Tool tool = catalog.toolAt(i);
+                hash = fnv(hash, catalog.codeAt(i));
+                hash = fnv(hash, tool.getType());
+                hash = fnv(hash, tool.getBrand());
+                hash = fnv(hash, tool.getDailyCharge().toString());
+                hash = fnv(hash, flags(tool));
+            }
+        }
+        hash = fnv(hash, calendarFiles.size());
+        for (Path file : calendarFiles) {
+            hash = fnv(hash, file.getFileName().toString());
+            hash = fnv(hash, Files.readAllBytes(file));
+        }
+        return hash;
+    }
+
+    private static int flags(Tool tool) {
+        return (tool.isWeekdayCharge() ? 1 : 0) | (tool.isWeekendCharge() ? 2 : 0) | (tool.isHolidayCharge() ? 4 : 0);
+    }
+
+    private static long fnv(long hash, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001B3L;
+        }
+        return fnv(hash, text.length());
+    }
+
+    private static long fnv(long hash, byte[] bytes) {
+        for (byte b : bytes) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        return fnv(hash, bytes.length);
+    }
+
+    private static long fnv(long hash, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = (hash ^ (value & 0xFF)) * 0x100000001B3L;
+            value >>>= 8;
+        }
+        return hash;
+    }
+
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,26 +1,121 @@
 package org.example.service;
 
+import org.example.calendar.EpochDays;
+import org.example.catalog.CatalogSnapshot;
+import org.example.catalog.ToolCatalog;
+import org.example.calendar.HolidayCalendar;
+import org.example.calendar.RegionCalendars;
+import org.example.metrics.RentalMetrics;
+import org.example.model.CheckoutRequest;
+import org.example.model.CheckoutResult;
+import org.example.model.CompactRentalAgreement;
+import org.example.model.QuoteSweep;
+import org.example.model.RejectionReason;
+import org.example.model.RentalAdjustment;
 import org.example.model.RentalAgreement;
 import org.example.model.Tool;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.Month;
-import java.time.temporal.TemporalAdjusters;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
 
 public class ToolRentalService {
 
-    private static final Map<String, Tool> TOOL_INFO = new HashMap<>();
+    /**
+     * Batches at least this large are priced on the common fork-join pool.
+     */
+    private static final int PARALLEL_BATCH_THRESHOLD = 64;
+
+    /**
+     * The late fee per day past the due date, as a percentage of the daily charge.
+     */
+    public static final int DEFAULT_LATE_FEE_PERCENT = 50;
+
+    private final ToolCatalog toolCatalog;
+    private final HolidayCalendar holidayCalendar;
+    private final RegionCalendars regionCalendars;
+    private volatile RentalMetrics metrics = RentalMetrics.NOOP;
+    private volatile int lateFeePercent = DEFAULT_LATE_FEE_PERCENT;
+
+    /**
+     * Creates a rental service offering the {@link ToolCatalog#defaults() standard} tools and
+     * pricing holidays with the {@link HolidayCalendar#standard() standard} calendar.
+     */
+    public ToolRentalService() {
+        this(ToolCatalog.defaults());
+    }
+
+    /**
+     * Creates a rental service that prices holidays with the given calendar.
+     *
+     * @param holidayCalendar the calendar deciding which days are holidays
+     */
+    public ToolRentalService(HolidayCalendar holidayCalendar) {
+        this(ToolCatalog.defaults(), holidayCalendar);
+    }
+
+    /**
+     * Creates a rental service offering the tools of the given catalog.
+     *
+     * @param toolCatalog the catalog of rentable tools
+     */
+    public ToolRentalService(ToolCatalog toolCatalog) {
+        this(toolCatalog, HolidayCalendar.standard());
+    }
+
+    /**
+     * Creates a rental service offering the tools of the given catalog and pricing
+     * holidays with the given calendar.
+     *
+     * @param toolCatalog      the catalog of rentable tools
+     * @param holidayCalendar  the calendar deciding which days are holidays
+     */
+    public ToolRentalService(ToolCatalog toolCatalog, HolidayCalendar holidayCalendar) {
+        this(toolCatalog, holidayCalendar, RegionCalendars.empty());
+    }
+
+    /**
+     * Creates a rental service offering the tools of the given catalog, pricing holidays
+     * with the given calendar unless a checkout names a store or region.
+     *
+     * @param toolCatalog      the catalog of rentable tools
+     * @param holidayCalendar  the calendar used when no store or region is given
+     * @param regionCalendars  the calendars of the stores and regions checkouts may name
+     */
+    public ToolRentalService(ToolCatalog toolCatalog, HolidayCalendar holidayCalendar,
+                             RegionCalendars regionCalendars) {
+        this.toolCatalog = toolCatalog;
+        this.holidayCalendar = holidayCalendar;
+        this.regionCalendars = regionCalendars;
+    }
+
+    public ToolCatalog getToolCatalog() {
+        return toolCatalog;
+    }
+
+    public HolidayCalendar getHolidayCalendar() {
+        return holidayCalendar;
+    }
 
-    static {
-        TOOL_INFO.put("CHNS", new Tool("Chainsaw", "Stihl", new BigDecimal("1.49"), true, false, true));
-        TOOL_INFO.put("LADW", new Tool("Ladder", "Werner", new BigDecimal("1.99"), true, true, false));
-        TOOL_INFO.put("JAKD", new Tool("Jackhammer", "DeWalt", new BigDecimal("2.99"), true, false, false));
-        TOOL_INFO.put("JAKR", new Tool("Jackhammer", "Ridgid", new BigDecimal("2.99"), true, false, false));
+    public RegionCalendars getRegionCalendars() {
+        return regionCalendars;
+    }
+
+    public RentalMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the metrics recording checkout latencies and rejections. Services start with
+     * {@link RentalMetrics#NOOP}, which records nothing.
+     *
+     * @param metrics the metrics to record into
+     */
+    public void setMetrics(RentalMetrics metrics) {
+        this.metrics = metrics;
     }
 
      /**
@@ -37,34 +132,434 @@ public class ToolRentalService {
      * @param checkoutDate     the date when the tool is checked out for rental
      * @return a rental agreement containing details of the rental transaction
      * @throws IllegalArgumentException if the tool code is invalid,
-     *                                  rental days are less than 1, or
-     *                                  discount percentage is out of range (0-100)
+     *                                  rental days are less than 1,
+     *                                  discount percentage is out of range (0-100), or
+     *                                  the due date is past {@link LocalDate#MAX}
      */
 
     public RentalAgreement checkout(String toolCode, int rentalDays, int discountPercent, LocalDate checkoutDate) {
-        Tool tool = TOOL_INFO.get(toolCode);
-        if (tool == null) {
-            throw new IllegalArgumentException("Invalid tool code: " + toolCode);
-        }
+        return checkout(toolCode, rentalDays, discountPercent, checkoutDate, holidayCalendar);
+    }
+
+    /**
+     * Checks out a tool for rental at a store and generates a rental agreement.
+     * <p>
+     * This prices the rental like {@link #checkout(String, int, int, LocalDate)}, but with
+     * the holiday calendar of the given store or region instead of the service's own.
+     * </p>
+     *
+     * @param toolCode         the code of the tool being rented
+     * @param rentalDays       the number of days the tool is rented for
+     * @param discountPercent  the discount percentage to be applied
+     * @param checkoutDate     the date when the tool is checked out for rental
+     * @param storeOrRegion    the store identifier or region name whose holidays apply
+     * @return a rental agreement containing details of the rental transaction
+     * @throws IllegalArgumentException if the store or region is unknown,
+     *                                  the tool code is invalid,
+     *                                  rental days are less than 1,
+     *                                  discount percentage is out of range (0-100), or
+     *                                  the due date is past {@link LocalDate#MAX}
+     */
+    public RentalAgreement checkout(String toolCode, int rentalDays, int discountPercent, LocalDate checkoutDate,
+                                    String storeOrRegion) {
+        return checkout(toolCode, rentalDays, discountPercent, checkoutDate, regionCalendars.calendarFor(storeOrRegion));
+    }
 
-        if (rentalDays < 1) {
-            throw new IllegalArgumentException("Rental days must be 1 or greater");
+    private RentalAgreement checkout(String toolCode, int rentalDays, int discountPercent, LocalDate checkoutDate,
+                                     HolidayCalendar calendar) {
+        RentalMetrics metrics = this.metrics;
+        long start = metrics.startTimer();
+        CatalogSnapshot snapshot = toolCatalog.snapshot();
+        int toolIndex = snapshot.indexOf(toolCode);
+        RejectionReason rejection = RejectionReason.of(toolIndex, rentalDays, discountPercent, checkoutDate);
+        if (rejection != null) {
+            metrics.recordRejection(rejection);
+            throw new IllegalArgumentException(rejection.getMessage(toolCode));
         }
 
-        if (discountPercent < 0 || discountPercent > 100) {
-            throw new IllegalArgumentException("Discount percent must be between 0 and 100");
+        RentalAgreement agreement = price(snapshot, toolIndex, toolCode, rentalDays, discountPercent, checkoutDate,
+                calendar);
+        metrics.recordCheckout(toolCode, start);
+        return agreement;
+    }
+
+    /**
+     * Checks out a tool for rental without throwing on invalid input.
+     * <p>
+     * The request is validated and priced exactly as {@link #checkout} would, but a
+     * request failing validation is answered with a rejected {@link CheckoutResult}
+     * naming the {@link RejectionReason}. No exception is created, so malformed traffic
+     * costs no stack traces, and the error message is only built if it is read.
+     * </p>
+     *
+     * @param request the checkout request, which may be {@code null}
+     * @return the rental agreement, or the reason the request was rejected
+     */
+    public CheckoutResult tryCheckout(CheckoutRequest request) {
+        RentalMetrics metrics = this.metrics;
+        long start = metrics.startTimer();
+        RejectionReason rejection;
+        CatalogSnapshot snapshot = toolCatalog.snapshot();
+        int toolIndex = -1;
+        if (request == null) {
+            rejection = RejectionReason.MISSING_REQUEST;
+        } else if (request.getCheckoutDate() == null) {
+            rejection = RejectionReason.MISSING_CHECKOUT_DATE;
+        } else {
+            toolIndex = snapshot.indexOf(request.getToolCode());
+            rejection = RejectionReason.of(toolIndex, request.getRentalDays(), request.getDiscountPercent(),
+                    request.getCheckoutDate());
+        }
+        if (rejection != null) {
+            metrics.recordRejection(rejection);
+            return CheckoutResult.rejected(request, rejection);
         }
 
+        RentalAgreement agreement = price(snapshot, toolIndex, request.getToolCode(), request.getRentalDays(),
+                request.getDiscountPercent(), request.getCheckoutDate(), holidayCalendar);
+        metrics.recordCheckout(request.getToolCode(), start);
+        return CheckoutResult.success(request, agreement);
+    }
+
+    private RentalAgreement price(CatalogSnapshot snapshot, int toolIndex, String toolCode, int rentalDays,
+                                  int discountPercent, LocalDate checkoutDate, HolidayCalendar calendar) {
+        int chargeDays = chargeDays(snapshot.isWeekendCharge(toolIndex), snapshot.isHolidayCharge(toolIndex),
+                rentalDays, checkoutDate.toEpochDay(), calendar);
+        // Only the agreement itself needs the tool's descriptive fields
+        Tool tool = snapshot.toolAt(toolIndex);
+        return price(toolCode, tool.getType(), tool.getBrand(), tool.getDailyCharge(),
+                snapshot.isPricedInCents(toolIndex) ? snapshot.getDailyChargeCents(toolIndex) : -1, rentalDays,
+                discountPercent, checkoutDate, chargeDays);
+    }
+
+    /**
+     * Prices an agreement whose charge days are known, in cents when {@code dailyChargeCents}
+     * is not negative and with {@code BigDecimal} arithmetic otherwise.
+     */
+    private RentalAgreement price(String toolCode, String toolType, String toolBrand, BigDecimal dailyCharge,
+                                  long dailyChargeCents, int rentalDays, int discountPercent, LocalDate checkoutDate,
+                                  int chargeDays) {
         LocalDate dueDate = checkoutDate.plusDays(rentalDays);
-        int chargeDays = chargeDays(tool, rentalDays, checkoutDate);
-        BigDecimal preDiscountCharge = calculatePreDiscountCharge(tool, chargeDays);
+
+        if (dailyChargeCents >= 0) {
+            long preDiscountChargeCents = calculatePreDiscountChargeCents(dailyChargeCents, chargeDays);
+            long discountAmountCents = calculateDiscountAmountCents(preDiscountChargeCents, discountPercent);
+            return RentalAgreement.ofCents(toolCode, toolType, toolBrand, rentalDays, checkoutDate,
+                    dueDate, dailyCharge, preDiscountChargeCents, discountPercent, discountAmountCents,
+                    preDiscountChargeCents - discountAmountCents, chargeDays);
+        }
+
+        BigDecimal preDiscountCharge = dailyCharge.multiply(BigDecimal.valueOf(chargeDays));
         BigDecimal discountAmount = calculateDiscountAmount(preDiscountCharge, discountPercent);
         BigDecimal finalCharge = preDiscountCharge.subtract(discountAmount).setScale(2, RoundingMode.HALF_UP);
 
-        return new RentalAgreement(toolCode, tool.getType(), tool.getBrand(), rentalDays, checkoutDate, dueDate,
-                tool.getDailyCharge(), preDiscountCharge, discountPercent, discountAmount, finalCharge, chargeDays);
+        return new RentalAgreement(toolCode, toolType, toolBrand, rentalDays, checkoutDate, dueDate,
+                dailyCharge, preDiscountCharge, discountPercent, discountAmount, finalCharge, chargeDays);
+    }
+
+    public int getLateFeePercent() {
+        return lateFeePercent;
+    }
+
+    /**
+     * Sets the late fee charged for each day a tool comes back after its due date, as a
+     * percentage of the tool's daily charge. Services start with
+     * {@value #DEFAULT_LATE_FEE_PERCENT} percent.
+     *
+     * @param lateFeePercent the late fee per day, as a percentage of the daily charge
+     * @throws IllegalArgumentException if the percentage is negative
+     */
+    public void setLateFeePercent(int lateFeePercent) {
+        if (lateFeePercent < 0) {
+            throw new IllegalArgumentException("Late fee percent cannot be negative");
+        }
+        this.lateFeePercent = lateFeePercent;
+    }
+
+    /**
+     * Extends a rental by a number of days.
+     * <p>
+     * Only the added days are walked: the rental window grows from the day after the
+     * current due date, so the updated charge days are the agreement's charge days plus
+     * the chargeable days among the added ones. The result prices exactly as checking out
+     * the longer rental would, at the daily charge and discount of the original agreement,
+     * no matter how many times a rental has already been extended.
+     * </p>
+     *
+     * @param agreement  the agreement to extend
+     * @param extraDays  the number of days to add
+     * @return the extension, holding the updated agreement and the additional charges
+     * @throws IllegalArgumentException if the tool is no longer in the catalog or
+     *                                  extra days are less than 1
+     */
+    public RentalAdjustment extend(RentalAgreement agreement, int extraDays) {
+        return extend(agreement, extraDays, holidayCalendar);
+    }
+
+    /**
+     * Extends a rental checked out at a store by a number of days.
+     * <p>
+     * This prices the added days like {@link #extend(RentalAgreement, int)}, but with the
+     * holiday calendar of the given store or region.
+     * </p>
+     *
+     * @param agreement      the agreement to extend
+     * @param extraDays      the number of days to add
+     * @param storeOrRegion  the store identifier or region name whose holidays apply
+     * @return the extension, holding the updated agreement and the additional charges
+     * @throws IllegalArgumentException if the store or region is unknown,
+     *                                  the tool is no longer in the catalog, or
+     *                                  extra days are less than 1
+     */
+    public RentalAdjustment extend(RentalAgreement agreement, int extraDays, String storeOrRegion) {
+        return extend(agreement, extraDays, regionCalendars.calendarFor(storeOrRegion));
+    }
+
+    private RentalAdjustment extend(RentalAgreement agreement, int extraDays, HolidayCalendar calendar) {
+        if (extraDays < 1) {
+            throw new IllegalArgumentException("Extra days must be at least 1");
+        }
+        RentalAgreement updated = addDays(agreement, extraDays, calendar);
+        return new RentalAdjustment(RentalAdjustment.Kind.EXTENSION, agreement, updated, null,
+                BigDecimal.ZERO.setScale(2));
+    }
+
+    /**
+     * Records the return of a rented tool.
+     * <p>
+     * A tool returned on or before its due date owes nothing more. A late return extends
+     * the rental to the return date, pricing only the days past the due date as
+     * {@link #extend(RentalAgreement, int)} does, and adds a {@link #setLateFeePercent late
+     * fee} for each of those days, which is not discounted.
+     * </p>
+     *
+     * @param agreement   the agreement of the returned tool
+     * @param returnDate  the date the tool came back
+     * @return the return, holding the updated agreement, additional charges and late fee
+     * @throws IllegalArgumentException if the tool is no longer in the catalog or
+     *                                  the return date is before the checkout date
+     */
+    public RentalAdjustment returnOn(RentalAgreement agreement, LocalDate returnDate) {
+        return returnOn(agreement, returnDate, holidayCalendar);
+    }
+
+    /**
+     * Records the return of a tool rented at a store.
+     * <p>
+     * This prices late days like {@link #returnOn(RentalAgreement, LocalDate)}, but with
+     * the holiday calendar of the given store or region.
+     * </p>
+     *
+     * @param agreement      the agreement of the returned tool
+     * @param returnDate     the date the tool came back
+     * @param storeOrRegion  the store identifier or region name whose holidays apply
+     * @return the return, holding the updated agreement, additional charges and late fee
+     * @throws IllegalArgumentException if the store or region is unknown,
+     *                                  the tool is no longer in the catalog, or
+     *                                  the return date is before the checkout date
+     */
+    public RentalAdjustment returnOn(RentalAgreement agreement, LocalDate returnDate, String storeOrRegion) {
+        return returnOn(agreement, returnDate, regionCalendars.calendarFor(storeOrRegion));
+    }
+
+    private RentalAdjustment returnOn(RentalAgreement agreement, LocalDate returnDate, HolidayCalendar calendar) {
+        if (returnDate.isBefore(agreement.getCheckoutDate())) {
+            throw new IllegalArgumentException("Return date cannot be before the checkout date");
+        }
+        long lateDays = returnDate.toEpochDay() - agreement.getDueDate().toEpochDay();
+        if (lateDays <= 0) {
+            return new RentalAdjustment(RentalAdjustment.Kind.RETURN, agreement, agreement, returnDate,
+                    BigDecimal.ZERO.setScale(2));
+        }
+        RentalAgreement updated = addDays(agreement, Math.toIntExact(lateDays), calendar);
+        BigDecimal lateFee = agreement.getDailyRentalCharge().multiply(BigDecimal.valueOf(lateDays))
+                .multiply(BigDecimal.valueOf(lateFeePercent)).movePointLeft(2).setScale(2, RoundingMode.HALF_UP);
+        return new RentalAdjustment(RentalAdjustment.Kind.RETURN, agreement, updated, returnDate, lateFee);
+    }
+
+    /**
+     * Returns the agreement lengthened by {@code extraDays}, counting the non-chargeable
+     * days of the added interval only.
+     */
+    private RentalAgreement addDays(RentalAgreement agreement, int extraDays, HolidayCalendar calendar) {
+        CatalogSnapshot snapshot = toolCatalog.snapshot();
+        int toolIndex = snapshot.indexOf(agreement.getToolCode());
+        if (toolIndex < 0) {
+            throw new IllegalArgumentException(RejectionReason.INVALID_TOOL_CODE.getMessage(agreement.getToolCode()));
+        }
+        // The window already ends on the due date, so the added days start the day after it
+        long firstAddedEpochDay = agreement.getDueDate().toEpochDay() + 1;
+        long lastAddedEpochDay = firstAddedEpochDay + extraDays - 1;
+        int nonChargeDays = 0;
+        if (!snapshot.isWeekendCharge(toolIndex)) {
+            nonChargeDays += (int) EpochDays.countWeekendDays(firstAddedEpochDay, lastAddedEpochDay);
+        }
+        if (!snapshot.isHolidayCharge(toolIndex)) {
+            nonChargeDays += calendar.countHolidays(firstAddedEpochDay, lastAddedEpochDay);
+        }
+
+        BigDecimal dailyCharge = agreement.getDailyRentalCharge();
+        long dailyChargeCents = dailyCharge.unscaledValue().bitLength() < 63
+                ? dailyCharge.unscaledValue().longValue() : -1;
+        if (!CatalogSnapshot.isPricedInCents(dailyCharge, dailyChargeCents)) {
+            dailyChargeCents = -1;
+        }
+        return price(agreement.getToolCode(), agreement.getToolType(), agreement.getToolBrand(), dailyCharge,
+                dailyChargeCents, Math.addExact(agreement.getRentalDays(), extraDays), agreement.getDiscountPercent(),
+                agreement.getCheckoutDate(), agreement.getChargeDays() + extraDays - nonChargeDays);
+    }
+
+    /**
+     * Checks out a tool for rental and generates a compact rental agreement.
+     * <p>
+     * This method prices the rental exactly like {@link #checkout} but returns a
+     * {@link CompactRentalAgreement}, which refers to the tool by its index in the
+     * current catalog snapshot and keeps every charge in whole cents.
+     * </p>
+     *
+     * @param toolCode         the code of the tool being rented
+     * @param rentalDays       the number of days the tool is rented for
+     * @param discountPercent  the discount percentage to be applied
+     * @param checkoutDate     the date when the tool is checked out for rental
+     * @return a compact rental agreement containing details of the rental transaction
+     * @throws IllegalArgumentException if the tool code is invalid,
+     *                                  rental days are less than 1,
+     *                                  discount percentage is out of range (0-100), or
+     *                                  the tool's daily charge is not a whole number of cents
+     * @throws ArithmeticException if a charge does not fit in a {@code long} number of cents
+     */
+    public CompactRentalAgreement checkoutCompact(String toolCode, int rentalDays, int discountPercent,
+                                                  LocalDate checkoutDate) {
+        CatalogSnapshot snapshot = toolCatalog.snapshot();
+        int toolIndex = snapshot.indexOf(toolCode);
+        validate(toolIndex, toolCode, rentalDays, discountPercent, checkoutDate);
+        long dailyChargeCents = snapshot.getDailyChargeCents(toolIndex);
+        if (dailyChargeCents < 0) {
+            throw new IllegalArgumentException("Daily charge of " + toolCode + " is not a whole number of cents");
+        }
+
+        long checkoutEpochDay = checkoutDate.toEpochDay();
+        int chargeDays = chargeDays(snapshot, toolIndex, rentalDays, checkoutEpochDay);
+        long preDiscountChargeCents = calculatePreDiscountChargeCents(dailyChargeCents, chargeDays);
+        long discountAmountCents = calculateDiscountAmountCents(preDiscountChargeCents, discountPercent);
+        return new CompactRentalAgreement(snapshot, toolIndex, Math.toIntExact(checkoutEpochDay), rentalDays,
+                chargeDays, preDiscountChargeCents, discountPercent, discountAmountCents);
+    }
+
+    /**
+     * Prices a rental of one tool for every checkout date in a window.
+     * <p>
+     * The result matches calling {@link #checkout} once per date, but the charge days are
+     * computed with a sliding window: the window for the first date is counted in full,
+     * and each following date only adds the day entering the window and drops the day
+     * leaving it.
+     * </p>
+     *
+     * @param toolCode         the code of the tool being rented
+     * @param rentalDays       the number of days the tool is rented for
+     * @param discountPercent  the discount percentage to be applied
+     * @param fromDate         the first checkout date of the window
+     * @param toDate           the last checkout date of the window, inclusive
+     * @return the charges for every checkout date of the window
+     * @throws IllegalArgumentException if the tool code is invalid,
+     *                                  rental days are less than 1,
+     *                                  discount percentage is out of range (0-100),
+     *                                  the window ends before it starts, or
+     *                                  the tool's daily charge is not a whole number of cents
+     * @throws ArithmeticException if a charge does not fit in a {@code long} number of cents
+     */
+    public QuoteSweep quoteSweep(String toolCode, int rentalDays, int discountPercent, LocalDate fromDate,
+                                 LocalDate toDate) {
+        CatalogSnapshot snapshot = toolCatalog.snapshot();
+        int toolIndex = snapshot.indexOf(toolCode);
+        // The last checkout date of the window has the latest due date
+        validate(toolIndex, toolCode, rentalDays, discountPercent, toDate);
+        if (toDate.isBefore(fromDate)) {
+            throw new IllegalArgumentException("Sweep end date cannot be before its start date");
+        }
+        long dailyChargeCents = snapshot.getDailyChargeCents(toolIndex);
+        if (dailyChargeCents < 0) {
+            throw new IllegalArgumentException("Daily charge of " + toolCode + " is not a whole number of cents");
+        }
+
+        long firstEpochDay = fromDate.toEpochDay();
+        int size = Math.toIntExact(toDate.toEpochDay() - firstEpochDay + 1);
+        int[] chargeDays = new int[size];
+        long[] finalChargeCents = new long[size];
+
+        // The window of a checkout covers the checkout day through the due day
+        boolean weekendCharge = snapshot.isWeekendCharge(toolIndex);
+        boolean holidayCharge = snapshot.isHolidayCharge(toolIndex);
+        int nonChargeDays = rentalDays - chargeDays(weekendCharge, holidayCharge, rentalDays, firstEpochDay,
+                holidayCalendar);
+        for (int i = 0; i < size; i++) {
+            long checkoutEpochDay = firstEpochDay + i;
+            chargeDays[i] = rentalDays - nonChargeDays;
+            long preDiscountChargeCents = calculatePreDiscountChargeCents(dailyChargeCents, chargeDays[i]);
+            finalChargeCents[i] = preDiscountChargeCents - calculateDiscountAmountCents(preDiscountChargeCents, discountPercent);
+
+            nonChargeDays += nonChargeWeight(weekendCharge, holidayCharge, checkoutEpochDay + rentalDays + 1)
+                    - nonChargeWeight(weekendCharge, holidayCharge, checkoutEpochDay);
+        }
+        return new QuoteSweep(toolCode, rentalDays, discountPercent, firstEpochDay, chargeDays, finalChargeCents);
+    }
+
+    /**
+     * Returns how many times a single day counts as not chargeable, matching the
+     * separate weekend and holiday counts of {@link #chargeDays(Tool, int, long)}.
+     */
+    private int nonChargeWeight(boolean weekendCharge, boolean holidayCharge, long epochDay) {
+        int weight = 0;
+        if (!weekendCharge && EpochDays.dayOfWeekIndex(epochDay) >= 5) {
+            weight++;
+        }
+        if (!holidayCharge && holidayCalendar.isHoliday(epochDay)) {
+            weight++;
+        }
+        return weight;
+    }
+
+    /**
+     * Validates the parameters of a checkout.
+     *
+     * @throws IllegalArgumentException if the tool code is invalid,
+     *                                  rental days are less than 1,
+     *                                  discount percentage is out of range (0-100),
+     *                                  the checkout date is missing, or
+     *                                  the due date is past {@link LocalDate#MAX}
+     */
+    private static void validate(int toolIndex, String toolCode, int rentalDays, int discountPercent,
+                                 LocalDate checkoutDate) {
+        RejectionReason rejection = RejectionReason.of(toolIndex, rentalDays, discountPercent, checkoutDate);
+        if (rejection != null) {
+            throw new IllegalArgumentException(rejection.getMessage(toolCode));
+        }
     }
 
+    /**
+     * Checks out a batch of tools and generates a result for every line.
+     * <p>
+     * Each request is validated and priced exactly as {@link #checkout} would, but a
+     * rejected line does not abort the batch: its error is recorded in the matching
+     * result instead of being thrown. Large batches are priced in parallel on the
+     * common fork-join pool. Results are returned in the order of the requests.
+     * </p>
+     *
+     * @param requests the checkout requests to price
+     * @return one result per request, in request order
+     */
+    public List<CheckoutResult> checkoutBatch(List<CheckoutRequest> requests) {
+        final CheckoutRequest[] lines = requests.toArray(new CheckoutRequest[0]);
+        final CheckoutResult[] results = new CheckoutResult[lines.length];
+        IntStream indexes = IntStream.range(0, lines.length);
+        if (lines.length >= PARALLEL_BATCH_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> results[i] = tryCheckout(lines[i]));
+        return Arrays.asList(results);
+    }
+
+
     /**
      * Calculates the pre-discount charge for renting a tool.
      * <p>
@@ -82,6 +577,21 @@ public class ToolRentalService {
         return tool.getDailyCharge().multiply(BigDecimal.valueOf(chargeDays));
     }
 
+    /**
+     * Calculates the pre-discount charge in cents for renting a tool.
+     * <p>
+     * This is the fixed-point equivalent of {@link #calculatePreDiscountCharge(Tool, int)}.
+     * </p>
+     *
+     * @param dailyChargeCents  the daily charge of the tool in cents
+     * @param chargeDays        the number of chargeable days for renting the tool
+     * @return the pre-discount charge in cents
+     * @throws ArithmeticException if the charge does not fit in a {@code long}
+     */
+    public long calculatePreDiscountChargeCents(long dailyChargeCents, int chargeDays) {
+        return Math.multiplyExact(dailyChargeCents, chargeDays);
+    }
+
     /**
      * Calculates the number of chargeable days for renting a tool.
      * <p>
@@ -97,15 +607,61 @@ public class ToolRentalService {
      */
 
     public int chargeDays(Tool tool, int rentalDays, LocalDate currentDate) {
+        return chargeDays(tool, rentalDays, currentDate.toEpochDay());
+    }
+
+    /**
+     * Calculates the number of chargeable days for a rental starting on the given epoch day.
+     * <p>
+     * This is {@link #chargeDays(Tool, int, LocalDate)} without the {@code LocalDate}: the
+     * rental covers the checkout day through the due day, inclusive.
+     * </p>
+     *
+     * @param tool              the tool being rented
+     * @param rentalDays        the number of days the tool is rented for
+     * @param checkoutEpochDay  the epoch day when the rental begins
+     * @return the number of chargeable days for renting the tool
+     */
+    public int chargeDays(Tool tool, int rentalDays, long checkoutEpochDay) {
+        return chargeDays(tool.isWeekendCharge(), tool.isHolidayCharge(), rentalDays, checkoutEpochDay, holidayCalendar);
+    }
+
+    /**
+     * Calculates the number of chargeable days for renting the tool at an index of a
+     * catalog snapshot.
+     * <p>
+     * This is {@link #chargeDays(Tool, int, long)} reading the charge flags from the
+     * snapshot's primitive columns instead of from the {@link Tool}.
+     * </p>
+     *
+     * @param snapshot          the catalog snapshot the index belongs to
+     * @param toolIndex         the index of the tool being rented
+     * @param rentalDays        the number of days the tool is rented for
+     * @param checkoutEpochDay  the epoch day when the rental begins
+     * @return the number of chargeable days for renting the tool
+     */
+    public int chargeDays(CatalogSnapshot snapshot, int toolIndex, int rentalDays, long checkoutEpochDay) {
+        return chargeDays(snapshot.isWeekendCharge(toolIndex), snapshot.isHolidayCharge(toolIndex), rentalDays,
+                checkoutEpochDay, holidayCalendar);
+    }
+
+    private int chargeDays(boolean weekendCharge, boolean holidayCharge, int rentalDays, long checkoutEpochDay,
+                           HolidayCalendar calendar) {
+        RentalMetrics metrics = this.metrics;
+        long start = metrics.startTimer();
         int  nonChargeDays = 0;
-        LocalDate endDate = currentDate.plusDays(rentalDays);
+        long endEpochDay = checkoutEpochDay + rentalDays;
 
-        if(!tool.isWeekendCharge()) {
-            nonChargeDays += weekendInRange(currentDate, endDate);
+        if(!weekendCharge) {
+            nonChargeDays += (int) EpochDays.countWeekendDays(checkoutEpochDay, endEpochDay);
         }
-        if(!tool.isHolidayCharge()) {
-            nonChargeDays += holidaysInRange(currentDate, endDate);
+        if(!holidayCharge) {
+            if (endEpochDay < checkoutEpochDay) {
+                throw new IllegalArgumentException("Start date cannot be after end date");
+            }
+            nonChargeDays += calendar.countHolidays(checkoutEpochDay, endEpochDay);
         }
+        metrics.record(RentalMetrics.Operation.CHARGE_DAYS, start);
         return rentalDays - nonChargeDays;
     }
 
@@ -121,37 +677,50 @@ public class ToolRentalService {
      * @return the amount of discount to be deducted from the pre-discount charge
      */
     public BigDecimal calculateDiscountAmount(BigDecimal preDiscountCharge, int discountPercent) {
+        RentalMetrics metrics = this.metrics;
+        long start = metrics.startTimer();
         BigDecimal discountMultiplier = BigDecimal.valueOf(discountPercent).divide(BigDecimal.valueOf(100));
-        return preDiscountCharge.multiply(discountMultiplier).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal discountAmount = preDiscountCharge.multiply(discountMultiplier).setScale(2, RoundingMode.HALF_UP);
+        metrics.record(RentalMetrics.Operation.DISCOUNT, start);
+        return discountAmount;
     }
 
     /**
-     * Checks if a given date is a holiday in the United States.
+     * Calculates the discount amount in cents based on the pre-discount charge and discount percentage.
      * <p>
-     * This method checks if the specified date is a holiday in the United States,
-     * specifically Independence Day (observed on July 4th) and Labor Day
-     * (observed on the first Monday in September). It adjusts the observance of
-     * Independence Day for weekends.
+     * This is the fixed-point equivalent of {@link #calculateDiscountAmount(BigDecimal, int)}:
+     * the discount is rounded half up to a whole cent, away from zero, without creating
+     * any {@code BigDecimal} intermediates.
+     * </p>
+     *
+     * @param preDiscountChargeCents  the pre-discount charge in cents
+     * @param discountPercent         the discount percentage to be applied
+     * @return the amount of discount in cents
+     * @throws ArithmeticException if the discount in hundredths of a cent does not fit in a {@code long}
+     */
+    public long calculateDiscountAmountCents(long preDiscountChargeCents, int discountPercent) {
+        RentalMetrics metrics = this.metrics;
+        long start = metrics.startTimer();
+        // Hundredths of a cent, rounded to the nearest cent with ties away from zero
+        long discountHundredths = Math.multiplyExact(preDiscountChargeCents, discountPercent);
+        long discountCents = (Math.abs(discountHundredths) + 50) / 100;
+        metrics.record(RentalMetrics.Operation.DISCOUNT, start);
+        return discountHundredths < 0 ? -discountCents : discountCents;
+    }
+
+    /**
+     * Checks if a given date is a holiday.
+     * <p>
+     * This method looks the date up in the service's holiday calendar. With the standard
+     * calendar the holidays are Independence Day (observed on the nearest weekday when
+     * July 4th falls on a weekend) and Labor Day in September.
      * </p>
      *
      * @param date the date to check
      * @return {@code true} if the date is a holiday, {@code false} otherwise
      */
     public boolean isHoliday(LocalDate date) {
-        LocalDate independenceDay = LocalDate.of(date.getYear(), 7, 4);
-
-        // Adjust Independence Day for weekend observance
-        if (independenceDay.getDayOfWeek() == DayOfWeek.SATURDAY) {
-            independenceDay = independenceDay.with(TemporalAdjusters.previous(DayOfWeek.FRIDAY));
-        } else if (independenceDay.getDayOfWeek() == DayOfWeek.SUNDAY) {
-            independenceDay = independenceDay.with(TemporalAdjusters.next(DayOfWeek.MONDAY));
-        }
-
-        // Check for Independence Day and Labor Day
-        return date.isEqual(independenceDay) ||
-                date.getMonth() == Month.SEPTEMBER &&
-                        date.getDayOfWeek() == DayOfWeek.MONDAY &&
-                        date.with(TemporalAdjusters.firstDayOfMonth()).isBefore(date);
+        return holidayCalendar.isHoliday(date);
     }
 
     /**
@@ -166,14 +735,11 @@ public class ToolRentalService {
      * @return the number of weekend days in the date range
      */
     public  int weekendInRange(LocalDate startDate, LocalDate endDate) {
-        int weekendCount = 0;
-        // Check if the day is weekend
-        while(startDate.isBefore(endDate.plusDays(1))) {
-            if(startDate.getDayOfWeek() == DayOfWeek.SATURDAY || startDate.getDayOfWeek() == DayOfWeek.SUNDAY)
-                weekendCount++;
-            startDate = startDate.plusDays(1);
-        }
-        return weekendCount;
+        RentalMetrics metrics = this.metrics;
+        long start = metrics.startTimer();
+        int weekendDays = (int) EpochDays.countWeekendDays(startDate.toEpochDay(), endDate.toEpochDay());
+        metrics.record(RentalMetrics.Operation.WEEKEND_IN_RANGE, start);
+        return weekendDays;
     }
 
     /**
@@ -193,15 +759,11 @@ public class ToolRentalService {
         if (startDate.isAfter(endDate)) {
             throw new IllegalArgumentException("Start date cannot be after end date");
         }
-        int holidayCount = 0;
-        LocalDate currentDate = startDate;
-        while (currentDate.isBefore(endDate.plusDays(1))) {
-            if (isHoliday(currentDate)) {
-                holidayCount++;
-            }
-            currentDate = currentDate.plusDays(1);
-        }
-        return holidayCount;
+        RentalMetrics metrics = this.metrics;
+        long start = metrics.startTimer();
+        int holidays = holidayCalendar.countHolidays(startDate.toEpochDay(), endDate.toEpochDay());
+        metrics.record(RentalMetrics.Operation.HOLIDAYS_IN_RANGE, start);
+        return holidays;
     }
 
 }
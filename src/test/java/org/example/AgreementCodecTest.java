@@ -0,0 +1,174 @@
+package org.example;
+
+import org.example.catalog.CatalogSnapshot;
+import org.example.codec.AgreementCodec;
+import org.example.model.RentalAgreement;
+import org.example.model.Tool;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AgreementCodecTest {
+
+    private static final String[] TOOL_CODES = {"CHNS", "LADW", "JAKD", "JAKR"};
+
+    // Agreements round-trip through one reused buffer
+    @Test
+    public void test_agreement_round_trip() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        AgreementCodec codec = new AgreementCodec(toolRentalService.getToolCatalog().snapshot());
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        Random random = new Random(13);
+        for (int i = 0; i < 2000; i++) {
+            RentalAgreement agreement = toolRentalService.checkout(TOOL_CODES[random.nextInt(4)],
+                    1 + random.nextInt(400), random.nextInt(101),
+                    LocalDate.of(1990, 1, 1).plusDays(random.nextInt(20000)));
+            buffer.clear();
+            codec.encode(agreement, buffer);
+            buffer.flip();
+            assertAgreementEquals(agreement, codec.decode(buffer));
+            assertFalse(buffer.hasRemaining());
+        }
+    }
+
+    // Tools missing from the dictionary are written literally
+    @Test
+    public void test_agreement_outside_dictionary() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        AgreementCodec codec = new AgreementCodec(toolRentalService.getToolCatalog().snapshot());
+        RentalAgreement agreement = toolRentalService.checkout("JAKR", 9, 0, LocalDate.of(2015, 7, 2));
+        agreement.setToolCode("DRLÉ");
+        agreement.setToolBrand("Bosch 🔧");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+        codec.encode(agreement, buffer);
+        buffer.flip();
+        assertAgreementEquals(agreement, codec.decode(buffer));
+    }
+
+    // A tool outside the dictionary without a type or brand round-trips them as null
+    @Test
+    public void test_agreement_without_type_or_brand() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        AgreementCodec codec = new AgreementCodec(toolRentalService.getToolCatalog().snapshot());
+        RentalAgreement agreement = toolRentalService.checkout("JAKR", 9, 0, LocalDate.of(2015, 7, 2));
+        agreement.setToolCode("DRLL");
+        agreement.setToolType(null);
+        agreement.setToolBrand(null);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        codec.encode(agreement, buffer);
+        buffer.flip();
+        RentalAgreement decoded = codec.decode(buffer);
+        assertAgreementEquals(agreement, decoded);
+        assertNull(decoded.getToolType());
+        assertNull(decoded.getToolBrand());
+
+        agreement.setToolCode(null);
+        buffer.clear();
+        assertThrows(IllegalArgumentException.class, () -> codec.encode(agreement, buffer));
+    }
+
+    // Tools keep their exact daily charge and flags
+    @Test
+    public void test_tool_round_trip() {
+        AgreementCodec codec = new AgreementCodec(new ToolRentalService().getToolCatalog().snapshot());
+        Tool tool = new Tool("Saw", "Makita", new BigDecimal("-12.500"), true, false, true);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        codec.encodeTool(tool, buffer);
+        buffer.flip();
+        Tool decoded = codec.decodeTool(buffer);
+        assertEquals("Saw", decoded.getType());
+        assertEquals("Makita", decoded.getBrand());
+        assertEquals(new BigDecimal("-12.500"), decoded.getDailyCharge());
+        assertTrue(decoded.isWeekdayCharge());
+        assertFalse(decoded.isWeekendCharge());
+        assertTrue(decoded.isHolidayCharge());
+    }
+
+    // A message from an unknown format version is rejected
+    @Test
+    public void test_unknown_version() {
+        AgreementCodec codec = new AgreementCodec(new ToolRentalService().getToolCatalog().snapshot());
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{(byte) (AgreementCodec.VERSION + 1), 0, 1});
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(buffer));
+    }
+
+    // An agreement encoded against another dictionary is rejected
+    @Test
+    public void test_other_dictionary_is_rejected() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        AgreementCodec codec = new AgreementCodec(toolRentalService.getToolCatalog().snapshot());
+        Map<String, Tool> reordered = new LinkedHashMap<>();
+        reordered.put("LADW", toolRentalService.getToolCatalog().get("LADW"));
+        reordered.put("CHNS", toolRentalService.getToolCatalog().get("CHNS"));
+        AgreementCodec other = new AgreementCodec(new CatalogSnapshot(1, reordered));
+        assertNotEquals(codec.getDictionaryId(), other.getDictionaryId());
+
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        other.encode(toolRentalService.checkout("LADW", 3, 10, LocalDate.of(2020, 7, 2)), buffer);
+        buffer.flip();
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(buffer));
+    }
+
+    // A string length running past the message is a truncation, not an out-of-bounds read
+    @Test
+    public void test_string_length_past_end() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        AgreementCodec codec = new AgreementCodec(toolRentalService.getToolCatalog().snapshot());
+        RentalAgreement agreement = toolRentalService.checkout("JAKR", 9, 0, LocalDate.of(2015, 7, 2));
+        agreement.setToolCode("DRILL");
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        codec.encode(agreement, buffer);
+        buffer.flip();
+        // Version, dictionary id, flags and the empty tool index come before the code's length
+        buffer.put(5, (byte) 0x7F);
+        assertThrows(BufferUnderflowException.class, () -> codec.decode(buffer));
+    }
+
+    // An agreement is a small fraction of its Java serialization
+    @Test
+    public void test_smaller_than_java_serialization() throws IOException {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        AgreementCodec codec = new AgreementCodec(toolRentalService.getToolCatalog().snapshot());
+        RentalAgreement agreement = toolRentalService.checkout("LADW", 3, 10, LocalDate.of(2020, 7, 2));
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        codec.encode(agreement, buffer);
+
+        // RentalAgreement is not Serializable, so serialize its field values instead
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new Object[]{agreement.getToolCode(), agreement.getToolType(), agreement.getToolBrand(),
+                    agreement.getRentalDays(), agreement.getCheckoutDate(), agreement.getDueDate(),
+                    agreement.getDailyRentalCharge(), agreement.getChargeDays(), agreement.getPreDiscountCharge(),
+                    agreement.getDiscountPercent(), agreement.getDiscountAmount(), agreement.getFinalCharge()});
+        }
+        assertTrue(buffer.position() <= 24);
+        assertTrue(buffer.position() * 10 < bytes.size());
+    }
+
+    private static void assertAgreementEquals(RentalAgreement expected, RentalAgreement actual) {
+        assertEquals(expected.getToolCode(), actual.getToolCode());
+        assertEquals(expected.getToolType(), actual.getToolType());
+        assertEquals(expected.getToolBrand(), actual.getToolBrand());
+        assertEquals(expected.getRentalDays(), actual.getRentalDays());
+        assertEquals(expected.getCheckoutDate(), actual.getCheckoutDate());
+        assertEquals(expected.getDueDate(), actual.getDueDate());
+        assertEquals(expected.getDailyRentalCharge(), actual.getDailyRentalCharge());
+        assertEquals(expected.getChargeDays(), actual.getChargeDays());
+        assertEquals(expected.getPreDiscountCharge(), actual.getPreDiscountCharge());
+        assertEquals(expected.getDiscountPercent(), actual.getDiscountPercent());
+        assertEquals(expected.getDiscountAmount(), actual.getDiscountAmount());
+        assertEquals(expected.getFinalCharge(), actual.getFinalCharge());
+    }
+}
@@ -0,0 +1,129 @@
+package org.example;
+
+import org.example.catalog.CatalogSnapshot;
+import org.example.journal.AgreementJournal;
+import org.example.model.RentalAgreement;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class AgreementJournalTest {
+
+    private static final String[] TOOL_CODES = {"CHNS", "LADW", "JAKD", "JAKR"};
+
+    // Agreements survive closing and reopening the journal
+    @Test
+    public void test_replay_after_reopen() throws IOException {
+        Path file = Files.createTempDirectory("journal").resolve("agreements.journal");
+        ToolRentalService toolRentalService = new ToolRentalService();
+        List<RentalAgreement> written = new ArrayList<>();
+        // A small segment size makes the journal map several regions
+        try (AgreementJournal journal = AgreementJournal.open(file, AgreementJournal.RECORD_SIZE * 16, 1000)) {
+            for (int i = 0; i < 100; i++) {
+                RentalAgreement agreement = toolRentalService.checkout(TOOL_CODES[i % 4], 1 + i % 20, i % 101,
+                        LocalDate.of(2020, 1, 1).plusDays(i));
+                assertEquals(i + 1, journal.append(agreement));
+                written.add(agreement);
+            }
+        }
+
+        List<RentalAgreement> replayed = new ArrayList<>();
+        try (AgreementJournal journal = AgreementJournal.open(file)) {
+            assertEquals(100, journal.getLastSequence());
+            assertEquals(100, journal.replay(toolRentalService.getToolCatalog().snapshot(), replayed::add));
+        }
+        for (int i = 0; i < written.size(); i++) {
+            RentalAgreement expected = written.get(i);
+            RentalAgreement actual = replayed.get(i);
+            assertEquals(expected.getToolCode(), actual.getToolCode());
+            assertEquals(expected.getToolBrand(), actual.getToolBrand());
+            assertEquals(expected.getCheckoutDate(), actual.getCheckoutDate());
+            assertEquals(expected.getDueDate(), actual.getDueDate());
+            assertEquals(expected.getChargeDays(), actual.getChargeDays());
+            assertEquals(expected.getDailyRentalCharge(), actual.getDailyRentalCharge());
+            assertEquals(expected.getPreDiscountCharge(), actual.getPreDiscountCharge());
+            assertEquals(expected.getDiscountAmount(), actual.getDiscountAmount());
+            assertEquals(expected.getFinalCharge(), actual.getFinalCharge());
+        }
+    }
+
+    // A torn last record is cut off and the journal continues after the last good one
+    @Test
+    public void test_torn_tail_is_recovered() throws IOException {
+        Path file = Files.createTempDirectory("journal").resolve("agreements.journal");
+        ToolRentalService toolRentalService = new ToolRentalService();
+        RentalAgreement agreement = toolRentalService.checkout("JAKR", 9, 50, LocalDate.of(2020, 7, 2));
+        try (AgreementJournal journal = AgreementJournal.open(file)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(agreement);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            // Corrupt the middle of the tenth record, as a crash mid-write would
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}), AgreementJournal.RECORD_SIZE * 10 + 40);
+        }
+
+        CatalogSnapshot catalog = toolRentalService.getToolCatalog().snapshot();
+        try (AgreementJournal journal = AgreementJournal.open(file)) {
+            assertEquals(9, journal.getLastSequence());
+            assertEquals(10, journal.append(agreement));
+            assertEquals(10, journal.replay(catalog, replayed -> { }));
+        }
+    }
+
+    // Concurrent durable appends are all forced to disk
+    @Test
+    public void test_group_commit() throws IOException {
+        Path file = Files.createTempDirectory("journal").resolve("agreements.journal");
+        RentalAgreement agreement = new ToolRentalService().checkout("LADW", 3, 10, LocalDate.of(2020, 7, 2));
+        try (AgreementJournal journal = AgreementJournal.open(file)) {
+            IntStream.range(0, 200).parallel().forEach(i -> {
+                try {
+                    journal.appendDurably(agreement);
+                } catch (IOException | InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            assertEquals(200, journal.getDurableSequence());
+        }
+    }
+
+    // Explicit flushes racing the flusher across segment rollovers never get ahead of the appends
+    @Test
+    public void test_flush_across_rollovers() throws IOException, InterruptedException {
+        Path file = Files.createTempDirectory("journal").resolve("agreements.journal");
+        RentalAgreement agreement = new ToolRentalService().checkout("LADW", 3, 10, LocalDate.of(2020, 7, 2));
+        try (AgreementJournal journal = AgreementJournal.open(file, 2 * AgreementJournal.RECORD_SIZE, 0)) {
+            for (int i = 0; i < 100; i++) {
+                journal.append(agreement);
+                journal.flush();
+                assertTrue(journal.getDurableSequence() <= journal.getLastSequence());
+                assertEquals(i + 1, journal.getDurableSequence());
+            }
+            journal.awaitDurable(100);
+        }
+        try (AgreementJournal journal = AgreementJournal.open(file)) {
+            assertEquals(100, journal.getLastSequence());
+        }
+    }
+
+    // A file that is not a journal is refused
+    @Test(expected = IOException.class)
+    public void test_foreign_file_is_refused() throws IOException {
+        Path file = Files.createTempFile("journal", ".txt");
+        Files.write(file, new byte[AgreementJournal.RECORD_SIZE * 2]);
+        AgreementJournal.open(file).close();
+    }
+}
@@ -0,0 +1,81 @@
+package org.example;
+
+import org.example.model.AgreementRenderer;
+import org.example.model.RentalAgreement;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class AgreementRendererTest {
+
+    private static final String NL = System.lineSeparator();
+
+    // Rendering produces the same lines printRentalAgreement has always printed
+    @Test
+    public void test_render_matches_printed_lines() {
+        RentalAgreement agreement = new ToolRentalService().checkout("JAKR", 9, 50, LocalDate.of(2020, 7, 2));
+        assertEquals(expectedText(agreement), AgreementRenderer.standard().render(agreement));
+    }
+
+    // Rendering into a byte buffer writes the UTF-8 text
+    @Test
+    public void test_render_into_byte_buffer() {
+        RentalAgreement agreement = new ToolRentalService().checkout("LADW", 3, 10, LocalDate.of(2020, 7, 2));
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        AgreementRenderer.standard().render(agreement, buffer);
+        buffer.flip();
+        assertEquals(expectedText(agreement), StandardCharsets.UTF_8.decode(buffer).toString());
+    }
+
+    // Many agreements render into one stream separated by blank lines
+    @Test
+    public void test_render_all() throws IOException {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        RentalAgreement first = toolRentalService.checkout("LADW", 3, 10, LocalDate.of(2020, 7, 2));
+        RentalAgreement second = toolRentalService.checkout("CHNS", 5, 25, LocalDate.of(2020, 7, 2));
+        StringWriter writer = new StringWriter();
+        AgreementRenderer.standard().renderAll(Arrays.asList(first, second), writer);
+        assertEquals(expectedText(first) + NL + expectedText(second), writer.toString());
+    }
+
+    // The shared renderer gives the same output on many threads at once
+    @Test
+    public void test_render_concurrently() {
+        RentalAgreement agreement = new ToolRentalService().checkout("JAKD", 6, 0, LocalDate.of(2015, 9, 3));
+        String expected = expectedText(agreement);
+        assertTrue(IntStream.range(0, 10000).parallel()
+                .mapToObj(i -> AgreementRenderer.standard().render(agreement))
+                .allMatch(expected::equals));
+    }
+
+    private static String expectedText(RentalAgreement agreement) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yy");
+        NumberFormat currencyFormatter = DecimalFormat.getCurrencyInstance();
+        currencyFormatter.setCurrency(Currency.getInstance("USD"));
+        return "Tool code: " + agreement.getToolCode() + NL
+                + "Tool type: " + agreement.getToolType() + NL
+                + "Tool brand: " + agreement.getToolBrand() + NL
+                + "Rental days: " + agreement.getRentalDays() + NL
+                + "Checkout date: " + agreement.getCheckoutDate().format(formatter) + NL
+                + "Charge Days: " + agreement.getChargeDays() + NL
+                + "Due date: " + agreement.getDueDate().format(formatter) + NL
+                + "Daily rental charge: " + currencyFormatter.format(agreement.getDailyRentalCharge()) + NL
+                + "Pre-discount charge: " + currencyFormatter.format(agreement.getPreDiscountCharge()) + NL
+                + "Discount percent: " + agreement.getDiscountPercent() + "%" + NL
+                + "Discount amount: " + currencyFormatter.format(agreement.getDiscountAmount()) + NL
+                + "Final charge: " + currencyFormatter.format(agreement.getFinalCharge()) + NL;
+    }
+}
@@ -0,0 +1,203 @@
+package org.example;
+
+import org.example.analytics.AgreementFilter;
+import org.example.analytics.AgreementStore;
+import org.example.analytics.GroupBy;
+import org.example.analytics.RevenueReport;
+import org.example.analytics.RevenueRow;
+import org.example.catalog.CatalogSnapshot;
+import org.example.catalog.ToolCatalog;
+import org.example.model.RentalAgreement;
+import org.example.model.Tool;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class AgreementStoreTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2015, 1, 1);
+
+    // A stored agreement is reported with the same totals checkout produced
+    @Test
+    public void test_append_agreement_reports_its_totals() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        AgreementStore store = new AgreementStore(ToolCatalog.defaults().snapshot());
+        RentalAgreement agreement = toolRentalService.checkout("JAKR", 9, 50, LocalDate.of(2015, 7, 2));
+        store.append(agreement);
+        store.append(toolRentalService.checkoutCompact("LADW", 3, 10, LocalDate.of(2020, 7, 2)));
+
+        RevenueRow row = store.revenue(AgreementFilter.all(), GroupBy.TOOL).getRow("JAKR");
+        assertEquals(2, store.size());
+        assertEquals(1, row.getAgreementCount());
+        assertEquals(agreement.getChargeDays(), row.getChargeDays());
+        assertEquals(agreement.getFinalCharge(), row.getFinalCharge());
+        assertEquals(1, store.revenue(AgreementFilter.all(), GroupBy.TOOL_TYPE).getRow("Jackhammer").getAgreementCount());
+    }
+
+    // Tools outside the store's catalog are rejected
+    @Test
+    public void test_append_unknown_tool_throws_exception() {
+        Map<String, Tool> tools = new TreeMap<>();
+        tools.put("LADW", ToolCatalog.defaults().get("LADW"));
+        AgreementStore store = new AgreementStore(new CatalogSnapshot(1, tools));
+        RentalAgreement agreement = new ToolRentalService().checkout("JAKR", 9, 50, LocalDate.of(2015, 7, 2));
+        assertThrows(IllegalArgumentException.class, () -> store.append(agreement));
+        assertEquals(0, store.size());
+    }
+
+    // Every grouping and filter matches a row-by-row aggregation across many chunks
+    @Test
+    public void test_revenue_matches_naive_aggregation() {
+        CatalogSnapshot catalog = ToolCatalog.defaults().snapshot();
+        AgreementStore store = new AgreementStore(catalog);
+        int rows = 1_000_000;
+        int[] tools = new int[rows];
+        int[] days = new int[rows];
+        int[] chargeDays = new int[rows];
+        int[] discounts = new int[rows];
+        long[] pre = new long[rows];
+        long[] discount = new long[rows];
+        Random random = new Random(20);
+        for (int i = 0; i < rows; i++) {
+            tools[i] = random.nextInt(catalog.size());
+            // Mostly ascending days, as agreements arrive over time
+            days[i] = (int) FIRST_DAY.toEpochDay() + i / 500 + random.nextInt(3);
+            int rentalDays = 1 + random.nextInt(30);
+            chargeDays[i] = random.nextInt(rentalDays + 1);
+            discounts[i] = random.nextInt(101);
+            pre[i] = chargeDays[i] * 299L;
+            discount[i] = (pre[i] * discounts[i] + 50) / 100;
+            store.append(tools[i], days[i], rentalDays, chargeDays[i], discounts[i], pre[i], discount[i]);
+        }
+
+        AgreementFilter[] filters = {
+                AgreementFilter.all(),
+                AgreementFilter.all().withCheckoutBetween(LocalDate.of(2016, 3, 1), LocalDate.of(2016, 9, 30)),
+                AgreementFilter.all().withToolTypes(Collections.singleton("Jackhammer")).withDiscountBetween(10, 49),
+                AgreementFilter.all().withBrands(new HashSet<>(Arrays.asList("Werner", "Stihl"))),
+                AgreementFilter.all().withToolCodes(Collections.singleton("CHNS"))
+                        .withCheckoutBetween(LocalDate.of(2017, 1, 1), LocalDate.of(2017, 1, 31)),
+        };
+        RowPredicate[] predicates = {
+                (code, tool, day, pct) -> true,
+                (code, tool, day, pct) -> between(day, LocalDate.of(2016, 3, 1), LocalDate.of(2016, 9, 30)),
+                (code, tool, day, pct) -> tool.getType().equals("Jackhammer") && pct >= 10 && pct <= 49,
+                (code, tool, day, pct) -> tool.getBrand().equals("Werner") || tool.getBrand().equals("Stihl"),
+                (code, tool, day, pct) -> code.equals("CHNS")
+                        && between(day, LocalDate.of(2017, 1, 1), LocalDate.of(2017, 1, 31)),
+        };
+        for (int f = 0; f < filters.length; f++) {
+            for (GroupBy groupBy : GroupBy.values()) {
+                RevenueReport report = store.revenue(filters[f], groupBy);
+                assertEquals(groupBy + " " + f, naive(catalog, predicates[f], groupBy, tools, days, chargeDays,
+                        discounts, pre, discount), totals(report));
+            }
+        }
+    }
+
+    // Days billions of days apart, within one chunk and across chunks, are grouped without a span-sized array
+    @Test
+    public void test_revenue_by_checkout_day_over_huge_span() {
+        AgreementStore store = new AgreementStore(ToolCatalog.defaults().snapshot());
+        int[] days = {2_000_000_000, -2_000_000_000, (int) FIRST_DAY.toEpochDay(), 2_000_000_000};
+        for (int day : days) {
+            store.append(0, day, 3, 2, 0, 298, 0);
+        }
+        for (int i = 0; i < 70_000; i++) {
+            store.append(1, FIRST_DAY.toEpochDay() + i % 2, 3, 2, 10, 398, 40);
+        }
+        store.append(1, -2_000_000_000, 3, 2, 10, 398, 40);
+
+        RevenueReport report = store.revenue(AgreementFilter.all(), GroupBy.CHECKOUT_DAY);
+        assertEquals(4, report.getRows().size());
+        RevenueRow earliest = report.getRows().get(0);
+        assertEquals(LocalDate.ofEpochDay(-2_000_000_000).toString(), earliest.getGroup());
+        assertEquals(2, earliest.getAgreementCount());
+        assertEquals(298 + 398, earliest.getPreDiscountChargeCents());
+        assertEquals(FIRST_DAY.toString(), report.getRows().get(1).getGroup());
+        assertEquals(35_001, report.getRows().get(1).getAgreementCount());
+        assertEquals(35_000, report.getRows().get(2).getAgreementCount());
+        assertEquals(2, report.getRows().get(3).getAgreementCount());
+        assertEquals(LocalDate.ofEpochDay(2_000_000_000).toString(), report.getRows().get(3).getGroup());
+    }
+
+    // A filter matching nothing yields an empty report
+    @Test
+    public void test_revenue_with_no_matches_is_empty() {
+        AgreementStore store = new AgreementStore(ToolCatalog.defaults().snapshot());
+        store.append(new ToolRentalService().checkout("JAKR", 9, 50, LocalDate.of(2015, 7, 2)));
+        AgreementFilter filter = AgreementFilter.all().withCheckoutBetween(LocalDate.of(2016, 1, 1), LocalDate.of(2016, 12, 31));
+        for (GroupBy groupBy : GroupBy.values()) {
+            RevenueReport report = store.revenue(filter, groupBy);
+            assertTrue(report.getRows().isEmpty());
+            assertEquals(0, report.getTotalFinalChargeCents());
+        }
+    }
+
+    private static Map<String, String> totals(RevenueReport report) {
+        Map<String, String> totals = new TreeMap<>();
+        for (RevenueRow row : report.getRows()) {
+            totals.put(row.getGroup(), row.getAgreementCount() + "/" + row.getChargeDays() + "/"
+                    + row.getPreDiscountChargeCents() + "/" + row.getDiscountAmountCents());
+        }
+        return totals;
+    }
+
+    private interface RowPredicate {
+        boolean test(String code, Tool tool, int day, int discountPercent);
+    }
+
+    private static boolean between(int day, LocalDate from, LocalDate to) {
+        return day >= from.toEpochDay() && day <= to.toEpochDay();
+    }
+
+    private static Map<String, String> naive(CatalogSnapshot catalog, RowPredicate predicate, GroupBy groupBy,
+                                             int[] tools, int[] days, int[] chargeDays, int[] discounts,
+                                             long[] pre, long[] discount) {
+        Map<String, long[]> sums = new TreeMap<>();
+        for (int i = 0; i < tools.length; i++) {
+            Tool tool = catalog.toolAt(tools[i]);
+            if (!predicate.test(catalog.codeAt(tools[i]), tool, days[i], discounts[i])) {
+                continue;
+            }
+            String group;
+            switch (groupBy) {
+                case TOOL:
+                    group = catalog.codeAt(tools[i]);
+                    break;
+                case TOOL_TYPE:
+                    group = tool.getType();
+                    break;
+                case BRAND:
+                    group = tool.getBrand();
+                    break;
+                case CHECKOUT_DAY:
+                    group = LocalDate.ofEpochDay(days[i]).toString();
+                    break;
+                default:
+                    group = discounts[i] == 100 ? "100" : (discounts[i] / 10 * 10) + "-" + (discounts[i] / 10 * 10 + 9);
+                    break;
+            }
+            long[] sum = sums.computeIfAbsent(group, key -> new long[4]);
+            sum[0]++;
+            sum[1] += chargeDays[i];
+            sum[2] += pre[i];
+            sum[3] += discount[i];
+        }
+        Map<String, String> totals = new TreeMap<>();
+        for (Map.Entry<String, long[]> entry : sums.entrySet()) {
+            long[] sum = entry.getValue();
+            totals.put(entry.getKey(), sum[0] + "/" + sum[1] + "/" + sum[2] + "/" + sum[3]);
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,263 @@
+package org.example;
+
+import org.example.inventory.Inventory;
+import org.example.journal.AgreementJournal;
+import org.example.model.CheckoutRequest;
+import org.example.model.CheckoutResult;
+import org.example.model.RentalAgreement;
+import org.example.service.AsyncRentalService;
+import org.example.service.CheckoutStage;
+import org.example.service.CheckoutStages;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class AsyncRentalServiceTest {
+
+    private static final String[] TOOL_CODES = {"CHNS", "LADW", "JAKD", "JAKR"};
+
+    // Futures complete with the agreement checkout produces, or its rejection
+    @Test
+    public void test_checkout_future() throws Exception {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        try (AsyncRentalService async = new AsyncRentalService(toolRentalService, 2, 16)) {
+            RentalAgreement agreement = async.checkout("JAKR", 5, 20, LocalDate.of(2020, 7, 3)).get(5, TimeUnit.SECONDS);
+            assertEquals("4.78", agreement.getFinalCharge().toPlainString());
+
+            CompletableFuture<RentalAgreement> rejected = async.checkout("XXXX", 5, 20, LocalDate.of(2020, 7, 3));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    // Checkouts beyond the queue capacity are shed at once
+    @Test
+    public void test_load_shedding() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ToolRentalService blocking = new ToolRentalService() {
+            @Override
+            public RentalAgreement checkout(String toolCode, int rentalDays, int discountPercent, LocalDate checkoutDate) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.checkout(toolCode, rentalDays, discountPercent, checkoutDate);
+            }
+        };
+        try (AsyncRentalService async = new AsyncRentalService(blocking, 1, 1)) {
+            // One checkout runs, one waits in the queue, and the third is shed
+            CompletableFuture<RentalAgreement> running = async.checkout("JAKR", 5, 20, LocalDate.of(2020, 7, 3));
+            CompletableFuture<RentalAgreement> queued = async.checkout("LADW", 3, 10, LocalDate.of(2020, 7, 2));
+            CompletableFuture<RentalAgreement> shed = async.checkout("CHNS", 5, 25, LocalDate.of(2015, 7, 2));
+            assertTrue(shed.isCompletedExceptionally());
+            ExecutionException e = assertThrows(ExecutionException.class, shed::get);
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+            assertEquals(1, async.getShedCount());
+
+            release.countDown();
+            assertEquals("4.78", running.get(5, TimeUnit.SECONDS).getFinalCharge().toPlainString());
+            assertEquals("3.58", queued.get(5, TimeUnit.SECONDS).getFinalCharge().toPlainString());
+        }
+    }
+
+    // Reservation and journaling compose into the checkout future
+    @Test
+    public void test_stages() throws Exception {
+        Inventory inventory = new Inventory();
+        inventory.addUnit("JAKR", "JAKR-1");
+        Path file = Files.createTempDirectory("async").resolve("agreements.journal");
+        try (AgreementJournal journal = AgreementJournal.open(file);
+             AsyncRentalService async = new AsyncRentalService(new ToolRentalService(), 2, 16,
+                     Arrays.asList(CheckoutStages.reserve(inventory), CheckoutStages.journal(journal)))) {
+            async.checkout("JAKR", 5, 20, LocalDate.of(2020, 7, 3)).get(5, TimeUnit.SECONDS);
+            assertEquals(1, journal.getLastSequence());
+
+            // The only unit is already out for these days
+            CompletableFuture<RentalAgreement> overlapping = async.checkout("JAKR", 2, 0, LocalDate.of(2020, 7, 5));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> overlapping.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals(1, journal.getLastSequence());
+        }
+    }
+
+    // A reservation is released when a later stage fails or the caller cancels the checkout
+    @Test
+    public void test_reservation_released_on_failure() throws Exception {
+        Inventory inventory = new Inventory();
+        inventory.addUnit("JAKR", "JAKR-1");
+        CheckoutStage failing = (request, agreement) ->
+                CompletableFuture.failedFuture(new IllegalStateException("Payment declined"));
+        try (AsyncRentalService async = new AsyncRentalService(new ToolRentalService(), 2, 16,
+                Arrays.asList(CheckoutStages.reserve(inventory), failing))) {
+            CompletableFuture<RentalAgreement> declined = async.checkout("JAKR", 5, 20, LocalDate.of(2020, 7, 3));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> declined.get(5, TimeUnit.SECONDS));
+            assertEquals("Payment declined", e.getCause().getMessage());
+            assertEquals(1, inventory.availableUnits("JAKR", LocalDate.of(2020, 7, 3), 5));
+        }
+
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        CountDownLatch reached = new CountDownLatch(1);
+        CheckoutStage waiting = (request, agreement) -> {
+            reached.countDown();
+            return pending.thenApply(ignored -> agreement);
+        };
+        List<RentalAgreement> journaled = new CopyOnWriteArrayList<>();
+        CheckoutStage journaling = (request, agreement) -> {
+            journaled.add(agreement);
+            return CompletableFuture.completedFuture(agreement);
+        };
+        try (AsyncRentalService async = new AsyncRentalService(new ToolRentalService(), 2, 16,
+                Arrays.asList(CheckoutStages.reserve(inventory), waiting, journaling))) {
+            CompletableFuture<RentalAgreement> abandoned = async.checkout("JAKR", 5, 20, LocalDate.of(2020, 7, 3));
+            assertTrue(reached.await(5, TimeUnit.SECONDS));
+            assertEquals(0, inventory.availableUnits("JAKR", LocalDate.of(2020, 7, 3), 5));
+            abandoned.cancel(false);
+            assertEquals(1, inventory.availableUnits("JAKR", LocalDate.of(2020, 7, 3), 5));
+
+            // The stages after the cancelled one are skipped, so nothing is journaled without a unit
+            pending.complete(null);
+            assertEquals(1, inventory.availableUnits("JAKR", LocalDate.of(2020, 7, 3), 5));
+            assertTrue(journaled.isEmpty());
+        }
+
+        // Without the checkout to watch, reserving could never be undone
+        assertThrows(UnsupportedOperationException.class, () -> CheckoutStages.reserve(inventory)
+                .apply(new CheckoutRequest("JAKR", 5, 20, LocalDate.of(2020, 7, 3)),
+                        new ToolRentalService().checkout("JAKR", 5, 20, LocalDate.of(2020, 7, 3))));
+    }
+
+    // A stream of requests yields one result per request
+    @Test
+    public void test_processor_prices_stream() throws Exception {
+        try (AsyncRentalService async = new AsyncRentalService(new ToolRentalService(), 4, 64)) {
+            RequestPublisher publisher = new RequestPublisher(1000);
+            Flow.Processor<CheckoutRequest, CheckoutResult> processor = async.checkoutProcessor(32);
+            ResultSubscriber subscriber = new ResultSubscriber(1);
+            processor.subscribe(subscriber);
+            publisher.subscribe(processor);
+
+            assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+            assertEquals(1000, subscriber.results.size());
+            long failures = subscriber.results.stream().filter(result -> !result.isSuccess()).count();
+            // Every tenth request has zero rental days
+            assertEquals(100, failures);
+            assertEquals(0, async.getShedCount());
+        }
+    }
+
+    // The processor pulls requests only as fast as results are consumed
+    @Test
+    public void test_processor_backpressure() throws Exception {
+        try (AsyncRentalService async = new AsyncRentalService(new ToolRentalService(), 4, 64)) {
+            RequestPublisher publisher = new RequestPublisher(1000);
+            Flow.Processor<CheckoutRequest, CheckoutResult> processor = async.checkoutProcessor(8);
+            ResultSubscriber subscriber = new ResultSubscriber(0);
+            processor.subscribe(subscriber);
+            publisher.subscribe(processor);
+
+            subscriber.subscription.request(5);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (subscriber.results.size() < 5 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(50);
+            assertEquals(5, subscriber.results.size());
+            assertEquals(5, publisher.requested.get());
+            subscriber.subscription.cancel();
+        }
+    }
+
+    /**
+     * Publishes generated requests on the requesting thread, counting demand.
+     */
+    private static final class RequestPublisher implements Flow.Publisher<CheckoutRequest> {
+
+        private final int count;
+        private final AtomicLong requested = new AtomicLong();
+
+        RequestPublisher(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super CheckoutRequest> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                private int next;
+
+                @Override
+                public synchronized void request(long n) {
+                    requested.addAndGet(n);
+                    for (long i = 0; i < n && next < count; i++, next++) {
+                        subscriber.onNext(new CheckoutRequest(TOOL_CODES[next % 4], next % 10 == 0 ? 0 : next % 30,
+                                next % 101, LocalDate.of(2020, 1, 1).plusDays(next)));
+                    }
+                    if (next == count) {
+                        next++;
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        }
+    }
+
+    /**
+     * Collects results, requesting a fixed number more after each one.
+     */
+    private static final class ResultSubscriber implements Flow.Subscriber<CheckoutResult> {
+
+        private final int batch;
+        private final List<CheckoutResult> results = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+
+        ResultSubscriber(int batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (batch > 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onNext(CheckoutResult item) {
+            results.add(item);
+            if (batch > 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}
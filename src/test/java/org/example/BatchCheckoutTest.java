@@ -0,0 +1,67 @@
+package org.example;
+
+import org.example.model.CheckoutRequest;
+import org.example.model.CheckoutResult;
+import org.example.model.RentalAgreement;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchCheckoutTest {
+
+    private static final String[] TOOL_CODES = {"CHNS", "LADW", "JAKD", "JAKR"};
+
+    // A bad line is reported in its result without aborting the rest of the batch
+    @Test
+    public void test_batch_collects_errors_per_line() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        List<CheckoutResult> results = toolRentalService.checkoutBatch(Arrays.asList(
+                new CheckoutRequest("LADW", 3, 10, LocalDate.of(2020, 7, 2)),
+                new CheckoutRequest("INVALID", 3, 10, LocalDate.of(2020, 7, 2)),
+                new CheckoutRequest("JAKR", 0, 10, LocalDate.of(2020, 7, 2)),
+                new CheckoutRequest("JAKR", 5, 101, LocalDate.of(2020, 7, 2)),
+                new CheckoutRequest("JAKR", 5, 10, null),
+                null));
+
+        assertEquals(6, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(2, results.get(0).getRentalAgreement().getChargeDays());
+        assertEquals("Invalid tool code: INVALID", results.get(1).getError());
+        assertEquals("Rental days must be 1 or greater", results.get(2).getError());
+        assertEquals("Discount percent must be between 0 and 100", results.get(3).getError());
+        assertEquals("Checkout date is required", results.get(4).getError());
+        assertFalse(results.get(5).isSuccess());
+        assertNull(results.get(1).getRentalAgreement());
+    }
+
+    // A large batch priced in parallel matches single checkouts, in input order
+    @Test
+    public void test_large_batch_matches_single_checkouts_in_order() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        List<CheckoutRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            requests.add(new CheckoutRequest(TOOL_CODES[i % TOOL_CODES.length], 1 + i % 40, i % 101,
+                    LocalDate.of(2020, 1, 1).plusDays(i)));
+        }
+
+        List<CheckoutResult> results = toolRentalService.checkoutBatch(requests);
+
+        assertEquals(requests.size(), results.size());
+        for (int i = 0; i < requests.size(); i++) {
+            CheckoutRequest request = requests.get(i);
+            RentalAgreement expected = toolRentalService.checkout(request.getToolCode(), request.getRentalDays(),
+                    request.getDiscountPercent(), request.getCheckoutDate());
+            RentalAgreement actual = results.get(i).getRentalAgreement();
+            assertSame(request, results.get(i).getRequest());
+            assertEquals(expected.getCheckoutDate(), actual.getCheckoutDate());
+            assertEquals(expected.getChargeDays(), actual.getChargeDays());
+            assertEquals(expected.getFinalCharge(), actual.getFinalCharge());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.example;
+
+import org.example.model.Tool;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ChargeDaysEquivalenceTest {
+
+    private static final LocalDate FIRST_DATE = LocalDate.of(1960, 1, 1);
+    private static final int DATE_SPAN_DAYS = 365 * 80;
+
+    private static final Tool[] TOOLS = {
+            new Tool("Chainsaw", "Stihl", new BigDecimal("1.49"), true, false, true),
+            new Tool("Ladder", "Werner", new BigDecimal("1.99"), true, true, false),
+            new Tool("Jackhammer", "DeWalt", new BigDecimal("2.99"), true, false, false),
+            new Tool("Generator", "Honda", new BigDecimal("9.99"), true, true, true),
+    };
+
+    // Weekend and holiday counts match the day-by-day loops for random ranges across decades
+    @Test
+    public void test_range_counts_match_day_by_day_loops() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        Random random = new Random(20200703L);
+        for (int i = 0; i < 20000; i++) {
+            LocalDate startDate = FIRST_DATE.plusDays(random.nextInt(DATE_SPAN_DAYS));
+            LocalDate endDate = startDate.plusDays(randomLength(random));
+            String range = startDate + ".." + endDate;
+            assertEquals(range, referenceWeekendInRange(startDate, endDate), toolRentalService.weekendInRange(startDate, endDate));
+            assertEquals(range, referenceHolidaysInRange(startDate, endDate), toolRentalService.holidaysInRange(startDate, endDate));
+        }
+    }
+
+    // Charge days match the day-by-day loops for every charging policy
+    @Test
+    public void test_charge_days_match_day_by_day_loops() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        Random random = new Random(20150903L);
+        for (int i = 0; i < 20000; i++) {
+            Tool tool = TOOLS[random.nextInt(TOOLS.length)];
+            LocalDate checkoutDate = FIRST_DATE.plusDays(random.nextInt(DATE_SPAN_DAYS));
+            int rentalDays = 1 + randomLength(random);
+            assertEquals(checkoutDate + " +" + rentalDays, referenceChargeDays(tool, rentalDays, checkoutDate),
+                    toolRentalService.chargeDays(tool, rentalDays, checkoutDate));
+        }
+    }
+
+    // Every single day of several years is classified like the original loops
+    @Test
+    public void test_single_day_ranges_match_day_by_day_loops() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        for (LocalDate date = LocalDate.of(2014, 1, 1); date.getYear() < 2030; date = date.plusDays(1)) {
+            assertEquals(date.toString(), referenceWeekendInRange(date, date), toolRentalService.weekendInRange(date, date));
+            assertEquals(date.toString(), referenceHolidaysInRange(date, date), toolRentalService.holidaysInRange(date, date));
+        }
+    }
+
+    // An empty range has no weekend days
+    @Test
+    public void test_weekend_in_empty_range() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        assertEquals(0, toolRentalService.weekendInRange(LocalDate.of(2022, 1, 9), LocalDate.of(2022, 1, 1)));
+    }
+
+    private static int randomLength(Random random) {
+        // Mostly short rentals, with a tail of multi-year ones
+        return random.nextInt(10) == 0 ? random.nextInt(3650) : random.nextInt(30);
+    }
+
+    private static int referenceChargeDays(Tool tool, int rentalDays, LocalDate currentDate) {
+        int nonChargeDays = 0;
+        LocalDate endDate = currentDate.plusDays(rentalDays);
+        if (!tool.isWeekendCharge()) {
+            nonChargeDays += referenceWeekendInRange(currentDate, endDate);
+        }
+        if (!tool.isHolidayCharge()) {
+            nonChargeDays += referenceHolidaysInRange(currentDate, endDate);
+        }
+        return rentalDays - nonChargeDays;
+    }
+
+    private static int referenceWeekendInRange(LocalDate startDate, LocalDate endDate) {
+        int weekendCount = 0;
+        while (startDate.isBefore(endDate.plusDays(1))) {
+            if (startDate.getDayOfWeek() == DayOfWeek.SATURDAY || startDate.getDayOfWeek() == DayOfWeek.SUNDAY)
+                weekendCount++;
+            startDate = startDate.plusDays(1);
+        }
+        return weekendCount;
+    }
+
+    private static int referenceHolidaysInRange(LocalDate startDate, LocalDate endDate) {
+        int holidayCount = 0;
+        LocalDate currentDate = startDate;
+        while (currentDate.isBefore(endDate.plusDays(1))) {
+            if (referenceIsHoliday(currentDate)) {
+                holidayCount++;
+            }
+            currentDate = currentDate.plusDays(1);
+        }
+        return holidayCount;
+    }
+
+    private static boolean referenceIsHoliday(LocalDate date) {
+        LocalDate independenceDay = LocalDate.of(date.getYear(), 7, 4);
+        if (independenceDay.getDayOfWeek() == DayOfWeek.SATURDAY) {
+            independenceDay = independenceDay.with(TemporalAdjusters.previous(DayOfWeek.FRIDAY));
+        } else if (independenceDay.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            independenceDay = independenceDay.with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        }
+        return date.isEqual(independenceDay) ||
+                date.getMonth() == Month.SEPTEMBER &&
+                        date.getDayOfWeek() == DayOfWeek.MONDAY &&
+                        date.with(TemporalAdjusters.firstDayOfMonth()).isBefore(date);
+    }
+}
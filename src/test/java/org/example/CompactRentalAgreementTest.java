@@ -0,0 +1,79 @@
+package org.example;
+
+import org.example.catalog.ToolCatalog;
+import org.example.model.CompactRentalAgreement;
+import org.example.model.RentalAgreement;
+import org.example.model.Tool;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompactRentalAgreementTest {
+
+    // Compact agreements carry the same values as regular checkouts
+    @Test
+    public void test_compact_checkout_matches_checkout() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        String[] toolCodes = {"CHNS", "LADW", "JAKD", "JAKR"};
+        Random random = new Random(3);
+        for (int i = 0; i < 5000; i++) {
+            String toolCode = toolCodes[random.nextInt(toolCodes.length)];
+            int rentalDays = 1 + random.nextInt(400);
+            int discountPercent = random.nextInt(101);
+            LocalDate checkoutDate = LocalDate.of(2010, 1, 1).plusDays(random.nextInt(365 * 20));
+
+            RentalAgreement expected = toolRentalService.checkout(toolCode, rentalDays, discountPercent, checkoutDate);
+            CompactRentalAgreement actual = toolRentalService.checkoutCompact(toolCode, rentalDays, discountPercent, checkoutDate);
+
+            assertEquals(expected.getToolCode(), actual.getToolCode());
+            assertEquals(expected.getToolBrand(), actual.getToolBrand());
+            assertEquals(expected.getCheckoutDate(), actual.getCheckoutDate());
+            assertEquals(expected.getDueDate(), actual.getDueDate());
+            assertEquals(expected.getChargeDays(), actual.getChargeDays());
+            assertEquals(expected.getDailyRentalCharge(), actual.getDailyRentalCharge());
+            assertEquals(expected.getPreDiscountCharge(), actual.getPreDiscountCharge());
+            assertEquals(expected.getDiscountPercent(), actual.getDiscountPercent());
+            assertEquals(expected.getDiscountAmount(), actual.getDiscountAmount());
+            assertEquals(expected.getFinalCharge(), actual.getFinalCharge());
+        }
+    }
+
+    // A compact agreement expands into an equivalent rental agreement
+    @Test
+    public void test_to_rental_agreement() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        CompactRentalAgreement compact = toolRentalService.checkoutCompact("JAKR", 9, 50, LocalDate.of(2020, 7, 2));
+        RentalAgreement agreement = compact.toRentalAgreement();
+        assertEquals("Ridgid", agreement.getToolBrand());
+        assertEquals(LocalDate.of(2020, 7, 11), agreement.getDueDate());
+        assertEquals(new BigDecimal("7.48"), agreement.getDiscountAmount());
+        assertEquals(new BigDecimal("7.47"), agreement.getFinalCharge());
+        assertEquals(3, compact.getToolIndex());
+    }
+
+    // Compact agreements keep the tool they were priced with after the catalog changes
+    @Test
+    public void test_agreement_keeps_its_catalog_snapshot() {
+        ToolCatalog catalog = ToolCatalog.defaults();
+        ToolRentalService toolRentalService = new ToolRentalService(catalog);
+        CompactRentalAgreement compact = toolRentalService.checkoutCompact("JAKR", 9, 0, LocalDate.of(2020, 7, 2));
+        catalog.replace(Collections.singletonMap("JAKR",
+                new Tool("Jackhammer", "Ridgid", new BigDecimal("3.49"), true, false, false)));
+        assertEquals(new BigDecimal("2.99"), compact.getDailyRentalCharge());
+        assertEquals(new BigDecimal("14.95"), compact.getFinalCharge());
+    }
+
+    // Tools priced in fractions of a cent cannot be checked out compactly
+    @Test(expected = IllegalArgumentException.class)
+    public void test_fractional_cent_price_is_rejected() {
+        ToolCatalog catalog = new ToolCatalog(Collections.singletonMap("JAKR",
+                new Tool("Jackhammer", "Ridgid", new BigDecimal("2.995"), true, false, false)));
+        new ToolRentalService(catalog).checkoutCompact("JAKR", 9, 0, LocalDate.of(2020, 7, 2));
+    }
+}
@@ -0,0 +1,96 @@
+package org.example;
+
+import org.example.catalog.ToolCatalog;
+import org.example.model.RentalAgreement;
+import org.example.model.Tool;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FixedPointPricingTest {
+
+    // Discount amounts in cents round exactly like the BigDecimal calculation, including negative charges
+    @Test
+    public void test_discount_cents_match_big_decimal() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        Random random = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            long preDiscountChargeCents = random.nextInt(2000001) - 1000000;
+            int discountPercent = random.nextInt(101);
+            BigDecimal expected = toolRentalService.calculateDiscountAmount(
+                    BigDecimal.valueOf(preDiscountChargeCents, 2), discountPercent);
+            assertEquals(preDiscountChargeCents + " at " + discountPercent + "%", expected,
+                    BigDecimal.valueOf(toolRentalService.calculateDiscountAmountCents(preDiscountChargeCents, discountPercent), 2));
+        }
+    }
+
+    // Every checkout priced in cents matches the BigDecimal calculation, scale included
+    @Test
+    public void test_checkout_matches_big_decimal_calculation() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        String[] toolCodes = {"CHNS", "LADW", "JAKD", "JAKR"};
+        Random random = new Random(11);
+        for (int i = 0; i < 20000; i++) {
+            String toolCode = toolCodes[random.nextInt(toolCodes.length)];
+            int discountPercent = random.nextInt(101);
+            RentalAgreement agreement = toolRentalService.checkout(toolCode, 1 + random.nextInt(60), discountPercent,
+                    LocalDate.of(2000, 1, 1).plusDays(random.nextInt(365 * 30)));
+
+            Tool tool = new Tool(agreement.getToolType(), agreement.getToolBrand(), agreement.getDailyRentalCharge(),
+                    true, true, true);
+            BigDecimal preDiscountCharge = toolRentalService.calculatePreDiscountCharge(tool, agreement.getChargeDays());
+            BigDecimal discountAmount = toolRentalService.calculateDiscountAmount(preDiscountCharge, discountPercent);
+            BigDecimal finalCharge = preDiscountCharge.subtract(discountAmount).setScale(2, RoundingMode.HALF_UP);
+
+            assertEquals(preDiscountCharge, agreement.getPreDiscountCharge());
+            assertEquals(discountAmount, agreement.getDiscountAmount());
+            assertEquals(finalCharge, agreement.getFinalCharge());
+        }
+    }
+
+    // A daily charge too large to price in cents without overflow is priced with BigDecimal
+    @Test
+    public void test_large_daily_charge_matches_big_decimal() {
+        Map<String, Tool> tools = new LinkedHashMap<>();
+        tools.put("BIGC", new Tool("Crane", "Liebherr", new BigDecimal("100000000000.00"), true, true, true));
+        tools.put("BIGM", new Tool("Crane", "Liebherr", new BigDecimal("100000000000.000"), true, true, true));
+        ToolCatalog catalog = new ToolCatalog(tools);
+        assertFalse(catalog.snapshot().isPricedInCents(0));
+        ToolRentalService toolRentalService = new ToolRentalService(catalog);
+
+        RentalAgreement agreement = toolRentalService.checkout("BIGC", 200000, 50, LocalDate.of(2020, 1, 1));
+        assertEquals(new BigDecimal("10000000000000000.00"), agreement.getFinalCharge());
+        assertEquals(0, agreement.getFinalCharge().compareTo(
+                toolRentalService.checkout("BIGM", 200000, 50, LocalDate.of(2020, 1, 1)).getFinalCharge()));
+        assertEquals(agreement.getFinalCharge(),
+                toolRentalService.extend(toolRentalService.checkout("BIGC", 1, 50, LocalDate.of(2020, 1, 1)), 199999)
+                        .getUpdated().getFinalCharge());
+        assertThrows(ArithmeticException.class, () -> toolRentalService.calculateDiscountAmountCents(
+                toolRentalService.calculatePreDiscountChargeCents(10000000000000L, 200000), 50));
+    }
+
+    // Daily charges that are not whole cents are reported as such
+    @Test
+    public void test_daily_charge_cents() {
+        assertEquals(149, new Tool("Chainsaw", "Stihl", new BigDecimal("1.49"), true, false, true).getDailyChargeCents());
+        assertEquals(200, new Tool("Chainsaw", "Stihl", new BigDecimal("2"), true, false, true).getDailyChargeCents());
+        assertEquals(-1, new Tool("Chainsaw", "Stihl", new BigDecimal("1.495"), true, false, true).getDailyChargeCents());
+    }
+
+    // Setting a charge replaces the fixed-point value
+    @Test
+    public void test_setter_overrides_cents() {
+        RentalAgreement agreement = new ToolRentalService().checkout("JAKR", 9, 50, LocalDate.of(2020, 7, 2));
+        agreement.setFinalCharge(new BigDecimal("1.00"));
+        assertEquals(new BigDecimal("1.00"), agreement.getFinalCharge());
+        assertEquals(new BigDecimal("7.48"), agreement.getDiscountAmount());
+    }
+}
@@ -0,0 +1,115 @@
+package org.example;
+
+import org.example.calendar.HolidayCalendar;
+import org.example.calendar.HolidayRules;
+import org.example.model.Tool;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class HolidayCalendarTest {
+
+    // Independence Day on a Saturday is observed on the Friday before
+    @Test
+    public void test_standard_calendar_observes_independence_day_on_friday() {
+        HolidayCalendar calendar = HolidayCalendar.standard();
+        assertTrue(calendar.isHoliday(LocalDate.of(2020, 7, 3)));
+        assertFalse(calendar.isHoliday(LocalDate.of(2020, 7, 4)));
+        assertTrue(calendar.isHoliday(LocalDate.of(2020, 7, 3).toEpochDay()));
+    }
+
+    // New Year's Day on a Saturday is observed on December 31st of the previous year
+    @Test
+    public void test_us_federal_calendar_observes_across_year_boundary() {
+        HolidayCalendar calendar = HolidayCalendar.usFederal();
+        assertTrue(calendar.isHoliday(LocalDate.of(2021, 12, 31)));
+        assertFalse(calendar.isHoliday(LocalDate.of(2022, 1, 1)));
+        assertEquals(12, calendar.holidaysIn(2021).size());
+        assertEquals(10, calendar.holidaysIn(2022).size());
+    }
+
+    // Nth and last day-of-week rules resolve to the right dates
+    @Test
+    public void test_us_federal_calendar_weekday_rules() {
+        HolidayCalendar calendar = HolidayCalendar.usFederal();
+        assertTrue(calendar.isHoliday(LocalDate.of(2023, 11, 23)));
+        assertTrue(calendar.isHoliday(LocalDate.of(2023, 5, 29)));
+        assertTrue(calendar.isHoliday(LocalDate.of(2023, 9, 4)));
+        assertFalse(calendar.isHoliday(LocalDate.of(2023, 9, 11)));
+    }
+
+    // Range counts span several years
+    @Test
+    public void test_count_holidays_over_multiple_years() {
+        HolidayCalendar calendar = HolidayCalendar.usFederal();
+        long start = LocalDate.of(2021, 1, 1).toEpochDay();
+        long end = LocalDate.of(2023, 12, 31).toEpochDay();
+        int expected = calendar.holidaysIn(2021).size() + calendar.holidaysIn(2022).size()
+                + calendar.holidaysIn(2023).size();
+        assertEquals(expected, calendar.countHolidays(start, end));
+        assertEquals(0, calendar.countHolidays(end, start));
+    }
+
+    // Ranges over centuries, inside and outside the indexed years, match a year-by-year count
+    @Test
+    public void test_count_holidays_over_centuries() {
+        HolidayCalendar calendar = HolidayCalendar.usFederal();
+        LocalDate[] dates = {LocalDate.of(-801, 2, 14), LocalDate.of(1, 1, 1), LocalDate.of(1599, 12, 31),
+                LocalDate.of(1600, 1, 1), LocalDate.of(2021, 7, 5), LocalDate.of(2599, 12, 31),
+                LocalDate.of(3417, 11, 24)};
+        for (LocalDate start : dates) {
+            for (LocalDate end : dates) {
+                int expected = 0;
+                for (int year = start.getYear(); year <= end.getYear(); year++) {
+                    for (LocalDate holiday : calendar.holidaysIn(year)) {
+                        expected += holiday.isBefore(start) || holiday.isAfter(end) ? 0 : 1;
+                    }
+                }
+                assertEquals(start + ".." + end, expected,
+                        calendar.countHolidays(start.toEpochDay(), end.toEpochDay()));
+            }
+        }
+    }
+
+    // A range of the longest rental is counted without walking its years
+    @Test(timeout = 5000)
+    public void test_count_holidays_over_longest_rental() {
+        HolidayCalendar calendar = HolidayCalendar.standard();
+        long start = LocalDate.of(2020, 7, 2).toEpochDay();
+        // Holidays repeat every 400 years, which is 146097 days
+        int cycles = Integer.MAX_VALUE / 146097;
+        int perCycle = calendar.countHolidays(start, start + 146097 - 1);
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals((long) cycles * perCycle, calendar.countHolidays(start, start + 146097L * cycles - 1));
+        }
+    }
+
+    // A rental service can be given its own holiday rules
+    @Test
+    public void test_service_with_custom_calendar() {
+        HolidayCalendar calendar = new HolidayCalendar("christmas-only", Collections.singletonList(
+                HolidayRules.fixedDate("Christmas Day", Month.DECEMBER, 25, true)));
+        ToolRentalService toolRentalService = new ToolRentalService(calendar);
+        Tool tool = new Tool("Jackhammer", "DeWalt", new BigDecimal("2.99"), true, false, false);
+        // Thursday 2023-12-21 through Thursday 2023-12-28: one weekend, Christmas on Monday
+        assertEquals(4, toolRentalService.chargeDays(tool, 7, LocalDate.of(2023, 12, 21)));
+        assertFalse(toolRentalService.isHoliday(LocalDate.of(2023, 7, 4)));
+    }
+
+    // Holidays produced by overlapping rules are counted once
+    @Test
+    public void test_overlapping_rules_are_counted_once() {
+        HolidayCalendar calendar = new HolidayCalendar("overlap", Arrays.asList(
+                HolidayRules.nthDayOfWeek("Labor Day", 1, DayOfWeek.MONDAY, Month.SEPTEMBER),
+                HolidayRules.fixedDate("Labor Day 2025", Month.SEPTEMBER, 1, false)));
+        assertEquals(1, calendar.countHolidays(LocalDate.of(2025, 9, 1).toEpochDay(), LocalDate.of(2025, 9, 1).toEpochDay()));
+    }
+}
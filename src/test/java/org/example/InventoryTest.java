@@ -0,0 +1,104 @@
+package org.example;
+
+import org.example.inventory.Inventory;
+import org.example.inventory.Reservation;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class InventoryTest {
+
+    private static final LocalDate CHECKOUT_DATE = LocalDate.of(2020, 7, 2);
+
+    // Units are booked until none is free for the requested dates
+    @Test
+    public void test_reserve_until_exhausted() {
+        Inventory inventory = new Inventory();
+        inventory.addUnit("JAKR", "JAKR-1");
+        inventory.addUnit("JAKR", "JAKR-2");
+
+        Reservation first = inventory.reserve("JAKR", CHECKOUT_DATE, 5);
+        Reservation second = inventory.reserve("JAKR", CHECKOUT_DATE.plusDays(2), 5);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNotEquals(first.getUnitId(), second.getUnitId());
+        assertEquals(LocalDate.of(2020, 7, 7), first.getDueDate());
+        assertNull(inventory.reserve("JAKR", CHECKOUT_DATE.plusDays(4), 1));
+        assertFalse(inventory.isAvailable("JAKR", CHECKOUT_DATE.plusDays(4), 1));
+    }
+
+    // A unit returned on a day can be checked out again that day
+    @Test
+    public void test_unit_is_free_on_its_due_date() {
+        Inventory inventory = new Inventory();
+        inventory.addUnit("LADW", "LADW-1");
+        Reservation reservation = inventory.reserve("LADW", CHECKOUT_DATE, 3);
+        assertNotNull(inventory.reserve("LADW", reservation.getDueDate(), 3));
+        assertNotNull(inventory.reserve("LADW", CHECKOUT_DATE.minusDays(3), 3));
+        assertEquals(0, inventory.availableUnits("LADW", CHECKOUT_DATE.minusDays(1), 2));
+    }
+
+    // Releasing a reservation frees its unit once
+    @Test
+    public void test_release() {
+        Inventory inventory = new Inventory();
+        inventory.addUnit("CHNS", "CHNS-1");
+        Reservation reservation = inventory.reserve("CHNS", CHECKOUT_DATE, 5);
+        assertTrue(inventory.release(reservation));
+        assertFalse(inventory.release(reservation));
+        assertTrue(inventory.isAvailable("CHNS", CHECKOUT_DATE, 5));
+    }
+
+    // Only tool codes with a free unit are listed
+    @Test
+    public void test_available_tool_codes() {
+        Inventory inventory = new Inventory();
+        inventory.addUnit("CHNS", "CHNS-1");
+        inventory.addUnit("LADW", "LADW-1");
+        inventory.reserve("CHNS", CHECKOUT_DATE, 5);
+        assertEquals(Collections.singleton("LADW"), inventory.availableToolCodes(CHECKOUT_DATE.plusDays(1), 1));
+        assertEquals(2, inventory.availableToolCodes(CHECKOUT_DATE.plusDays(5), 1).size());
+        assertNull(inventory.reserve("INVALID", CHECKOUT_DATE, 1));
+    }
+
+    // Bookings ending by the watermark are dropped on the next booking, and earlier rentals are refused
+    @Test
+    public void test_forget_bookings_before_watermark() {
+        Inventory inventory = new Inventory();
+        inventory.addUnit("JAKR", "JAKR-1");
+        Reservation ended = inventory.reserve("JAKR", CHECKOUT_DATE, 3);
+        Reservation current = inventory.reserve("JAKR", CHECKOUT_DATE.plusDays(3), 5);
+        inventory.forgetBookingsBefore(CHECKOUT_DATE.plusDays(4));
+        inventory.forgetBookingsBefore(CHECKOUT_DATE);
+
+        assertNotNull(inventory.reserve("JAKR", CHECKOUT_DATE.plusDays(10), 2));
+        assertFalse(inventory.release(ended));
+        assertFalse(inventory.isAvailable("JAKR", CHECKOUT_DATE.plusDays(4), 1));
+        assertTrue(inventory.release(current));
+        assertThrows(IllegalArgumentException.class, () -> inventory.reserve("JAKR", CHECKOUT_DATE.plusDays(3), 1));
+    }
+
+    // Concurrent bookings never rent the same unit twice
+    @Test
+    public void test_concurrent_reservations_do_not_double_book() {
+        Inventory inventory = new Inventory();
+        for (int i = 0; i < 50; i++) {
+            inventory.addUnit("JAKD", "JAKD-" + i);
+        }
+        Set<String> bookedUnits = ConcurrentHashMap.newKeySet();
+        long reserved = IntStream.range(0, 5000).parallel()
+                .mapToObj(i -> inventory.reserve("JAKD", CHECKOUT_DATE.plusDays(i % 3), 3))
+                .filter(reservation -> reservation != null)
+                .peek(reservation -> bookedUnits.add(reservation.getUnitId()))
+                .count();
+        assertEquals(50, reserved);
+        assertEquals(50, bookedUnits.size());
+        assertEquals(0, inventory.availableUnits("JAKD", CHECKOUT_DATE.plusDays(2), 1));
+    }
+}
@@ -0,0 +1,493 @@
+package org.example;
+
+import org.example.calendar.HolidayCalendar;
+import org.example.calendar.HolidayRules;
+import org.example.model.CheckoutRequest;
+import org.example.model.CheckoutResult;
+import org.example.model.QuoteSweep;
+import org.example.model.RentalAgreement;
+import org.example.pricing.PricingEngine;
+import org.example.pricing.PricingRules;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Differential tests of the production pricing against {@link ReferenceToolRentalService}.
+ * <p>
+ * Random checkouts are generated in parallel, weighted towards the dates and lengths
+ * the optimized code treats specially, and priced by both implementations. The same
+ * cases also drive the other pricing paths: compact agreements, {@code tryCheckout},
+ * quote sweeps, extended and late-returned rentals, and the pricing engine with default
+ * rules. Any difference is shrunk to the shortest rental and smallest discount that still
+ * disagrees before it is reported. Run more cases with
+ * {@code -Dpricing.differential.cases=5000000} and another seed with
+ * {@code -Dpricing.differential.seed=...}.
+ * </p>
+ */
+public class PricingDifferentialTest {
+
+    private static final int CASES = Integer.getInteger("pricing.differential.cases", 50_000);
+    private static final long SEED = Long.getLong("pricing.differential.seed", 20200703L);
+    private static final int MAX_REPORTED_MISMATCHES = 10;
+
+    private static final String[] TOOL_CODES = {"CHNS", "LADW", "JAKD", "JAKR"};
+    private static final int FIRST_YEAR = 1900;
+    private static final int LAST_YEAR = 2199;
+    private static final int MAX_RENTAL_DAYS = 3650;
+
+    private static final ReferenceToolRentalService REFERENCE = new ReferenceToolRentalService();
+    private static final Function<CheckoutCase, String> REFERENCE_PRICING = checkoutCase -> outcome(checkoutCase,
+            () -> REFERENCE.checkout(checkoutCase.toolCode, checkoutCase.rentalDays, checkoutCase.discountPercent,
+                    checkoutCase.checkoutDate),
+            agreement -> REFERENCE.weekendInRange(agreement.getCheckoutDate(), agreement.getDueDate()),
+            agreement -> REFERENCE.holidaysInRange(agreement.getCheckoutDate(), agreement.getDueDate()));
+    private static final Function<CheckoutCase, String> REFERENCE_SWEEP_PRICING = checkoutCase -> sweepOutcome(
+            () -> REFERENCE.checkout(checkoutCase.toolCode, checkoutCase.rentalDays, checkoutCase.discountPercent,
+                    checkoutCase.checkoutDate));
+
+    // Random checkouts across three centuries price exactly as the original implementation on every path:
+    // checkout, compact agreements, tryCheckout, extended or late-returned rentals and the default pricing engine
+    @Test
+    public void test_random_checkouts_match_reference() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        Map<String, Function<CheckoutCase, String>> paths = new LinkedHashMap<>();
+        paths.put("checkout", pricing(toolRentalService));
+        paths.put("compact", compactPricing(toolRentalService));
+        paths.put("tryCheckout", tryPricing(toolRentalService));
+        paths.put("extended", extendedPricing(toolRentalService));
+        paths.put("engine", enginePricing(toolRentalService));
+        List<Mismatch> mismatches = compare(REFERENCE_PRICING, paths,
+                IntStream.range(0, CASES).mapToObj(index -> generate(SEED, index)));
+        assertTrue(report(mismatches), mismatches.isEmpty());
+    }
+
+    // A sliding quote sweep ending on each random checkout day matches the original implementation
+    @Test
+    public void test_quote_sweeps_match_reference() {
+        List<Mismatch> mismatches = compare(REFERENCE_SWEEP_PRICING, sweepPricing(new ToolRentalService()),
+                CASES, SEED);
+        assertTrue(report(mismatches), mismatches.isEmpty());
+    }
+
+    // Every short rental around weekend Independence Days, Labor Day and the new year matches
+    @Test
+    public void test_edge_case_checkouts_match_reference() {
+        List<CheckoutCase> cases = new ArrayList<>();
+        for (int year = 1990; year <= 2040; year++) {
+            List<LocalDate> anchors = new ArrayList<>();
+            LocalDate independenceDay = LocalDate.of(year, Month.JULY, 4);
+            if (independenceDay.getDayOfWeek().getValue() >= DayOfWeek.SATURDAY.getValue()) {
+                anchors.add(independenceDay);
+            }
+            if (LocalDate.of(year, Month.SEPTEMBER, 1).getDayOfWeek() == DayOfWeek.MONDAY) {
+                anchors.add(LocalDate.of(year, Month.SEPTEMBER, 1));
+            }
+            anchors.add(LocalDate.of(year, Month.DECEMBER, 31));
+            for (LocalDate anchor : anchors) {
+                for (LocalDate checkoutDate = anchor.minusDays(7); !checkoutDate.isAfter(anchor.plusDays(3));
+                     checkoutDate = checkoutDate.plusDays(1)) {
+                    for (String toolCode : TOOL_CODES) {
+                        for (int rentalDays : new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 31, 366, MAX_RENTAL_DAYS}) {
+                            for (int discountPercent : new int[]{0, 1, 33, 50, 99, 100}) {
+                                cases.add(new CheckoutCase(cases.size(), toolCode, rentalDays, discountPercent, checkoutDate));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        List<Mismatch> mismatches = compare(REFERENCE_PRICING, pricing(new ToolRentalService()), cases);
+        assertTrue(report(mismatches), mismatches.isEmpty());
+    }
+
+    // A calendar that forgets weekend observance is caught and shrunk to a one-day rental
+    @Test
+    public void test_mismatch_is_reported_minimized() {
+        HolidayCalendar unobserved = new HolidayCalendar("unobserved", Arrays.asList(
+                HolidayRules.fixedDate("Independence Day", Month.JULY, 4, false),
+                HolidayRules.everyDayOfWeekAfter("Labor Day", DayOfWeek.MONDAY, Month.SEPTEMBER, 1)));
+        List<Mismatch> mismatches = compare(REFERENCE_PRICING, pricing(new ToolRentalService(unobserved)), 20_000, SEED);
+
+        assertFalse(mismatches.isEmpty());
+        assertTrue(mismatches.size() <= MAX_REPORTED_MISMATCHES);
+        for (Mismatch mismatch : mismatches) {
+            assertEquals(1, mismatch.minimized.rentalDays);
+            assertEquals(0, mismatch.minimized.discountPercent);
+            assertEquals(Month.JULY, mismatch.minimized.checkoutDate.getMonth());
+            assertNotEquals(mismatch.expected, mismatch.actual);
+        }
+        assertTrue(report(mismatches).contains("minimized: "));
+    }
+
+    /**
+     * Prices checkouts with a production service, as the comparable outcome string.
+     */
+    private static Function<CheckoutCase, String> pricing(ToolRentalService toolRentalService) {
+        return checkoutCase -> outcome(checkoutCase,
+                () -> toolRentalService.checkout(checkoutCase.toolCode, checkoutCase.rentalDays,
+                        checkoutCase.discountPercent, checkoutCase.checkoutDate),
+                agreement -> toolRentalService.weekendInRange(agreement.getCheckoutDate(), agreement.getDueDate()),
+                agreement -> toolRentalService.holidaysInRange(agreement.getCheckoutDate(), agreement.getDueDate()));
+    }
+
+    /**
+     * Prices checkouts as compact agreements, expanded back to full agreements.
+     */
+    private static Function<CheckoutCase, String> compactPricing(ToolRentalService toolRentalService) {
+        return checkoutCase -> outcome(checkoutCase,
+                () -> toolRentalService.checkoutCompact(checkoutCase.toolCode, checkoutCase.rentalDays,
+                        checkoutCase.discountPercent, checkoutCase.checkoutDate).toRentalAgreement(),
+                agreement -> toolRentalService.weekendInRange(agreement.getCheckoutDate(), agreement.getDueDate()),
+                agreement -> toolRentalService.holidaysInRange(agreement.getCheckoutDate(), agreement.getDueDate()));
+    }
+
+    /**
+     * Prices checkouts with tryCheckout, turning a rejection back into its message.
+     */
+    private static Function<CheckoutCase, String> tryPricing(ToolRentalService toolRentalService) {
+        return checkoutCase -> outcome(checkoutCase,
+                () -> {
+                    CheckoutResult result = toolRentalService.tryCheckout(new CheckoutRequest(checkoutCase.toolCode,
+                            checkoutCase.rentalDays, checkoutCase.discountPercent, checkoutCase.checkoutDate));
+                    if (!result.isSuccess()) {
+                        throw new IllegalArgumentException(result.getError());
+                    }
+                    return result.getRentalAgreement();
+                },
+                agreement -> toolRentalService.weekendInRange(agreement.getCheckoutDate(), agreement.getDueDate()),
+                agreement -> toolRentalService.holidaysInRange(agreement.getCheckoutDate(), agreement.getDueDate()));
+    }
+
+    /**
+     * Prices checkouts with the pricing engine under the default rules.
+     */
+    private static Function<CheckoutCase, String> enginePricing(ToolRentalService toolRentalService) {
+        PricingEngine engine = new PricingEngine(toolRentalService, PricingRules.defaults());
+        return checkoutCase -> outcome(checkoutCase,
+                () -> engine.checkout(checkoutCase.toolCode, checkoutCase.rentalDays, checkoutCase.discountPercent,
+                        checkoutCase.checkoutDate),
+                agreement -> toolRentalService.weekendInRange(agreement.getCheckoutDate(), agreement.getDueDate()),
+                agreement -> toolRentalService.holidaysInRange(agreement.getCheckoutDate(), agreement.getDueDate()));
+    }
+
+    /**
+     * Prices each checkout as the last day of a quote sweep starting up to a week earlier,
+     * so the sliding window has moved before it reaches the checkout day.
+     */
+    private static Function<CheckoutCase, String> sweepPricing(ToolRentalService toolRentalService) {
+        return checkoutCase -> {
+            QuoteSweep sweep;
+            try {
+                sweep = toolRentalService.quoteSweep(checkoutCase.toolCode, checkoutCase.rentalDays,
+                        checkoutCase.discountPercent, checkoutCase.checkoutDate.minusDays(checkoutCase.index % 8),
+                        checkoutCase.checkoutDate);
+            } catch (IllegalArgumentException e) {
+                return "rejected: " + e.getMessage();
+            }
+            int last = sweep.size() - 1;
+            return "charge days " + sweep.getChargeDays(last) + ", final " + sweep.getFinalCharge(last);
+        };
+    }
+
+    /**
+     * Prices each checkout as a shorter checkout brought to the full length, alternately by
+     * extending it and by returning it late.
+     */
+    private static Function<CheckoutCase, String> extendedPricing(ToolRentalService toolRentalService) {
+        return checkoutCase -> outcome(checkoutCase,
+                () -> {
+                    if (checkoutCase.rentalDays < 2) {
+                        return toolRentalService.checkout(checkoutCase.toolCode, checkoutCase.rentalDays,
+                                checkoutCase.discountPercent, checkoutCase.checkoutDate);
+                    }
+                    int firstDays = 1 + (int) (checkoutCase.index % (checkoutCase.rentalDays - 1));
+                    RentalAgreement first = toolRentalService.checkout(checkoutCase.toolCode, firstDays,
+                            checkoutCase.discountPercent, checkoutCase.checkoutDate);
+                    int addedDays = checkoutCase.rentalDays - firstDays;
+                    return checkoutCase.index % 2 == 0
+                            ? toolRentalService.extend(first, addedDays).getUpdated()
+                            : toolRentalService.returnOn(first, first.getDueDate().plusDays(addedDays)).getUpdated();
+                },
+                agreement -> toolRentalService.weekendInRange(agreement.getCheckoutDate(), agreement.getDueDate()),
+                agreement -> toolRentalService.holidaysInRange(agreement.getCheckoutDate(), agreement.getDueDate()));
+    }
+
+    private static String sweepOutcome(Supplier<RentalAgreement> checkout) {
+        RentalAgreement agreement;
+        try {
+            agreement = checkout.get();
+        } catch (IllegalArgumentException e) {
+            return "rejected: " + e.getMessage();
+        }
+        return "charge days " + agreement.getChargeDays() + ", final " + agreement.getFinalCharge();
+    }
+
+    private static String outcome(CheckoutCase checkoutCase, Supplier<RentalAgreement> checkout,
+                                  Function<RentalAgreement, Integer> weekendDays,
+                                  Function<RentalAgreement, Integer> holidays) {
+        RentalAgreement agreement;
+        try {
+            agreement = checkout.get();
+        } catch (IllegalArgumentException e) {
+            return "rejected: " + e.getMessage();
+        }
+        // BigDecimal.toString keeps the scale, so a change of scale is a mismatch too
+        return "due " + agreement.getDueDate() + ", charge days " + agreement.getChargeDays()
+                + ", weekend days " + weekendDays.apply(agreement) + ", holidays " + holidays.apply(agreement)
+                + ", pre-discount " + agreement.getPreDiscountCharge() + ", discount " + agreement.getDiscountAmount()
+                + ", final " + agreement.getFinalCharge();
+    }
+
+    private static List<Mismatch> compare(Function<CheckoutCase, String> expected, Function<CheckoutCase, String> actual,
+                                          int cases, long seed) {
+        return compare(expected, actual, IntStream.range(0, cases).mapToObj(index -> generate(seed, index)));
+    }
+
+    private static List<Mismatch> compare(Function<CheckoutCase, String> expected, Function<CheckoutCase, String> actual,
+                                          List<CheckoutCase> cases) {
+        return compare(expected, actual, cases.stream());
+    }
+
+    private static List<Mismatch> compare(Function<CheckoutCase, String> expected, Function<CheckoutCase, String> actual,
+                                          Stream<CheckoutCase> cases) {
+        return compare(expected, Collections.singletonMap("checkout", actual), cases);
+    }
+
+    /**
+     * Compares every path against the expected pricing in one pass, so each case is priced
+     * by the reference only once and nothing is kept for the cases that agree.
+     */
+    private static List<Mismatch> compare(Function<CheckoutCase, String> expected,
+                                          Map<String, Function<CheckoutCase, String>> paths,
+                                          Stream<CheckoutCase> cases) {
+        Map<String, ConcurrentLinkedQueue<CheckoutCase>> failures = new LinkedHashMap<>();
+        Map<String, AtomicInteger> failureCounts = new LinkedHashMap<>();
+        for (String path : paths.keySet()) {
+            failures.put(path, new ConcurrentLinkedQueue<>());
+            failureCounts.put(path, new AtomicInteger());
+        }
+        cases.parallel().forEach(checkoutCase -> {
+            String reference = expected.apply(checkoutCase);
+            paths.forEach((path, actual) -> {
+                if (!Objects.equals(reference, actual.apply(checkoutCase))
+                        && failureCounts.get(path).incrementAndGet() <= MAX_REPORTED_MISMATCHES * 10) {
+                    failures.get(path).add(checkoutCase);
+                }
+            });
+        });
+
+        // Shrink the earliest failures of each path, dropping those that shrink to an already reported case
+        List<Mismatch> mismatches = new ArrayList<>();
+        paths.forEach((path, actual) -> {
+            List<CheckoutCase> sorted = failures.get(path).stream().sorted(Comparator.comparingLong(c -> c.index))
+                    .collect(Collectors.toList());
+            for (CheckoutCase failure : sorted) {
+                CheckoutCase minimized = minimize(failure, expected, actual);
+                boolean duplicate = mismatches.stream().anyMatch(m -> m.path.equals(path)
+                        && m.minimized.describe().equals(minimized.describe()));
+                if (!duplicate && mismatches.size() < MAX_REPORTED_MISMATCHES) {
+                    mismatches.add(new Mismatch(path, failure, minimized, expected.apply(minimized),
+                            actual.apply(minimized), failureCounts.get(path).get()));
+                }
+            }
+        });
+        return mismatches;
+    }
+
+    /**
+     * Repeatedly replaces a failing case with a shorter rental or a smaller discount that
+     * still fails, until none of the candidates does.
+     */
+    private static CheckoutCase minimize(CheckoutCase failure, Function<CheckoutCase, String> expected,
+                                         Function<CheckoutCase, String> actual) {
+        CheckoutCase current = failure;
+        boolean shrunk = true;
+        while (shrunk) {
+            shrunk = false;
+            for (CheckoutCase candidate : current.shrinks()) {
+                if (!Objects.equals(expected.apply(candidate), actual.apply(candidate))) {
+                    current = candidate;
+                    shrunk = true;
+                    break;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static String report(List<Mismatch> mismatches) {
+        if (mismatches.isEmpty()) {
+            return "No mismatches";
+        }
+        StringBuilder report = new StringBuilder();
+        report.append("Checkouts differ from the reference (seed ").append(SEED).append("):\n");
+        for (Mismatch mismatch : mismatches) {
+            report.append("  ").append(mismatch.path).append(" (").append(mismatch.totalFailures)
+                    .append(" differ) case ").append(mismatch.original.index).append(": ").append(mismatch.original.describe())
+                    .append("\n    minimized: ").append(mismatch.minimized.describe())
+                    .append("\n    expected:  ").append(mismatch.expected)
+                    .append("\n    actual:    ").append(mismatch.actual).append('\n');
+        }
+        return report.toString();
+    }
+
+    /**
+     * Generates the checkout with the given index; each index has its own random stream,
+     * so a reported case can be regenerated on its own.
+     */
+    private static CheckoutCase generate(long seed, int index) {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+        int year = random.nextInt(FIRST_YEAR, LAST_YEAR + 1);
+        LocalDate checkoutDate;
+        switch (random.nextInt(8)) {
+            case 0:
+                checkoutDate = LocalDate.of(year, Month.DECEMBER, 31).plusDays(random.nextInt(-14, 8));
+                break;
+            case 1:
+                // Independence Day on a weekend, observed on the Friday before or the Monday after
+                while (LocalDate.of(year, Month.JULY, 4).getDayOfWeek().getValue() < DayOfWeek.SATURDAY.getValue()) {
+                    year = random.nextInt(FIRST_YEAR, LAST_YEAR + 1);
+                }
+                checkoutDate = LocalDate.of(year, Month.JULY, 4).plusDays(random.nextInt(-10, 4));
+                break;
+            case 2:
+                checkoutDate = LocalDate.of(year, Month.SEPTEMBER, 1).plusDays(random.nextInt(-10, 10));
+                break;
+            default:
+                checkoutDate = LocalDate.of(year, 1, 1).plusDays(random.nextInt(365));
+                break;
+        }
+
+        int rentalDays;
+        switch (random.nextInt(10)) {
+            case 0:
+                rentalDays = 1;
+                break;
+            case 1:
+                rentalDays = MAX_RENTAL_DAYS;
+                break;
+            case 2:
+                rentalDays = random.nextInt(1, MAX_RENTAL_DAYS + 1);
+                break;
+            default:
+                rentalDays = random.nextInt(1, 31);
+                break;
+        }
+
+        int discountPercent;
+        switch (random.nextInt(10)) {
+            case 0:
+                discountPercent = 0;
+                break;
+            case 1:
+                discountPercent = 100;
+                break;
+            default:
+                discountPercent = random.nextInt(101);
+                break;
+        }
+
+        String toolCode = TOOL_CODES[random.nextInt(TOOL_CODES.length)];
+        // A few requests the service must reject
+        switch (random.nextInt(400)) {
+            case 0:
+                toolCode = "XXXX";
+                break;
+            case 1:
+                rentalDays = -random.nextInt(2);
+                break;
+            case 2:
+                discountPercent = random.nextBoolean() ? -1 : 101;
+                break;
+            default:
+                break;
+        }
+        return new CheckoutCase(index, toolCode, rentalDays, discountPercent, checkoutDate);
+    }
+
+    private static final class CheckoutCase {
+        final long index;
+        final String toolCode;
+        final int rentalDays;
+        final int discountPercent;
+        final LocalDate checkoutDate;
+
+        CheckoutCase(long index, String toolCode, int rentalDays, int discountPercent, LocalDate checkoutDate) {
+            this.index = index;
+            this.toolCode = toolCode;
+            this.rentalDays = rentalDays;
+            this.discountPercent = discountPercent;
+            this.checkoutDate = checkoutDate;
+        }
+
+        /**
+         * Returns smaller variants of this case, most aggressive first: shorter rentals
+         * starting on the same day or ending on the same due date, then smaller discounts.
+         */
+        List<CheckoutCase> shrinks() {
+            List<CheckoutCase> candidates = new ArrayList<>();
+            if (rentalDays > 1) {
+                for (int shorter : new int[]{1, rentalDays / 2, rentalDays - 1}) {
+                    if (shorter >= 1 && shorter < rentalDays) {
+                        candidates.add(new CheckoutCase(index, toolCode, shorter, discountPercent, checkoutDate));
+                        candidates.add(new CheckoutCase(index, toolCode, shorter, discountPercent,
+                                checkoutDate.plusDays(rentalDays - shorter)));
+                    }
+                }
+            }
+            if (discountPercent > 0 && discountPercent <= 100) {
+                for (int smaller : new int[]{0, discountPercent / 2, discountPercent - 1}) {
+                    if (smaller < discountPercent) {
+                        candidates.add(new CheckoutCase(index, toolCode, rentalDays, smaller, checkoutDate));
+                    }
+                }
+            }
+            return candidates;
+        }
+
+        String describe() {
+            return toolCode + " for " + rentalDays + " days at " + discountPercent + "% from " + checkoutDate;
+        }
+    }
+
+    private static final class Mismatch {
+        final String path;
+        final CheckoutCase original;
+        final CheckoutCase minimized;
+        final String expected;
+        final String actual;
+        final int totalFailures;
+
+        Mismatch(String path, CheckoutCase original, CheckoutCase minimized, String expected, String actual,
+                 int totalFailures) {
+            this.path = path;
+            this.original = original;
+            this.minimized = minimized;
+            this.expected = expected;
+            this.actual = actual;
+            this.totalFailures = totalFailures;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.example;
+
+import org.example.catalog.ToolCatalog;
+import org.example.model.RentalAgreement;
+import org.example.model.Tool;
+import org.example.pricing.PricingEngine;
+import org.example.pricing.PricingRules;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PricingEngineTest {
+
+    private static final String[] TOOL_CODES = {"CHNS", "LADW", "JAKD", "JAKR"};
+
+    // The default rules price every rental exactly as checkout does
+    @Test
+    public void test_default_rules_match_checkout() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        PricingEngine engine = new PricingEngine(toolRentalService, PricingRules.defaults());
+        Random random = new Random(17);
+        for (int i = 0; i < 20000; i++) {
+            String toolCode = TOOL_CODES[random.nextInt(4)];
+            int rentalDays = 1 + random.nextInt(400);
+            int discountPercent = random.nextInt(101);
+            LocalDate checkoutDate = LocalDate.of(1990, 1, 1).plusDays(random.nextInt(20000));
+            RentalAgreement expected = toolRentalService.checkout(toolCode, rentalDays, discountPercent, checkoutDate);
+            RentalAgreement actual = engine.checkout(toolCode, rentalDays, discountPercent, checkoutDate);
+            assertEquals(expected.getDueDate(), actual.getDueDate());
+            assertEquals(expected.getChargeDays(), actual.getChargeDays());
+            assertEquals(expected.getPreDiscountCharge(), actual.getPreDiscountCharge());
+            assertEquals(expected.getDiscountAmount(), actual.getDiscountAmount());
+            assertEquals(expected.getFinalCharge(), actual.getFinalCharge());
+        }
+    }
+
+    // The default rules also match checkout for tools it prices with BigDecimal
+    @Test
+    public void test_default_rules_match_checkout_beyond_cents() {
+        Map<String, Tool> tools = new LinkedHashMap<>();
+        tools.put("FINE", new Tool("Saw", "Bosch", new BigDecimal("1.995"), true, false, true));
+        tools.put("WHOL", new Tool("Drill", "Makita", new BigDecimal("2"), true, false, false));
+        tools.put("HUGE", new Tool("Crane", "Liebherr", new BigDecimal("100000000000.00"), true, true, true));
+        ToolRentalService toolRentalService = new ToolRentalService(new ToolCatalog(tools));
+        PricingEngine engine = new PricingEngine(toolRentalService, PricingRules.defaults());
+        for (String toolCode : tools.keySet()) {
+            for (int rentalDays : new int[]{1, 7, 200000}) {
+                RentalAgreement expected = toolRentalService.checkout(toolCode, rentalDays, 50,
+                        LocalDate.of(2020, 7, 2));
+                RentalAgreement actual = engine.checkout(toolCode, rentalDays, 50, LocalDate.of(2020, 7, 2));
+                assertEquals(expected.getPreDiscountCharge(), actual.getPreDiscountCharge());
+                assertEquals(expected.getDiscountAmount(), actual.getDiscountAmount());
+                assertEquals(expected.getFinalCharge(), actual.getFinalCharge());
+            }
+        }
+    }
+
+    // Seasonal charges too large for a long number of cents are priced exactly instead of wrapping
+    @Test
+    public void test_large_seasonal_charge() throws IOException {
+        Map<String, Tool> tools = new LinkedHashMap<>();
+        tools.put("CRAN", new Tool("Crane", "Liebherr", new BigDecimal("400000.00"), true, true, true));
+        tools.put("FINE", new Tool("Saw", "Bosch", new BigDecimal("1.995"), true, true, true));
+        PricingEngine engine = new PricingEngine(new ToolRentalService(new ToolCatalog(tools)), PricingRules.read(
+                new StringReader("season.all = 01-01..12-31:10000\ntiers = 3:50\n")));
+        RentalAgreement agreement = engine.checkout("CRAN", 2000000, 10, LocalDate.of(2020, 7, 2));
+        // 2 days in full and the rest at half the daily charge, all one hundred times over
+        BigDecimal expected = new BigDecimal("400000.00").multiply(BigDecimal.valueOf(2 * 100 + 1999998 * 50));
+        assertEquals(expected, agreement.getPreDiscountCharge());
+        assertEquals(expected.multiply(new BigDecimal("0.9")).setScale(2), agreement.getFinalCharge());
+        // 1.995 * (2 + 3 * 0.5) * 100 = 698.25
+        assertEquals(new BigDecimal("698.25"), engine.checkout("FINE", 5, 0, LocalDate.of(2020, 7, 2))
+                .getPreDiscountCharge());
+    }
+
+    // Charge days past a tier boundary are charged at the tier's rate
+    @Test
+    public void test_tiers() throws IOException {
+        PricingEngine engine = new PricingEngine(new ToolRentalService(),
+                PricingRules.read(new StringReader("tiers = 8:10\nJAKR.tiers = 2:50, 3:100\n")));
+        // 14 charge days at $1.99: 7 full and 7 at 90%, 26.467 rounded
+        RentalAgreement ladder = engine.checkout("LADW", 14, 0, LocalDate.of(2020, 3, 2));
+        assertEquals(14, ladder.getChargeDays());
+        assertEquals(new BigDecimal("26.47"), ladder.getPreDiscountCharge());
+        // Jackhammer: first day $2.99, second $1.495, the rest free
+        RentalAgreement jackhammer = engine.checkout("JAKR", 9, 0, LocalDate.of(2020, 3, 2));
+        assertEquals(new BigDecimal("4.49"), jackhammer.getPreDiscountCharge());
+    }
+
+    // Seasons scale the charge by checkout date, including seasons spanning new year
+    @Test
+    public void test_seasons() throws IOException {
+        PricingEngine engine = new PricingEngine(new ToolRentalService(), PricingRules.read(new StringReader(
+                "season.summer = 06-01..08-31:125\nseason.winter = 12-20..01-05:150\n")));
+        // 2 charge days at $1.99, 3.98 * 1.25 = 4.975
+        assertEquals(new BigDecimal("4.98"), engine.checkout("LADW", 3, 0, LocalDate.of(2020, 7, 2)).getPreDiscountCharge());
+        assertEquals(new BigDecimal("5.97"), engine.checkout("LADW", 2, 0, LocalDate.of(2021, 1, 2)).getPreDiscountCharge());
+        assertEquals(new BigDecimal("5.97"), engine.checkout("LADW", 2, 0, LocalDate.of(2020, 12, 20)).getPreDiscountCharge());
+        assertEquals(new BigDecimal("3.98"), engine.checkout("LADW", 2, 0, LocalDate.of(2020, 3, 2)).getPreDiscountCharge());
+    }
+
+    // Minimum charges apply before discounts and customer discounts add to the requested one
+    @Test
+    public void test_minimum_charge_and_customer_discount() throws IOException {
+        PricingEngine engine = new PricingEngine(new ToolRentalService(), PricingRules.read(new StringReader(
+                "minimumCharge = 1.00\nLADW.minimumCharge = 5.00\ncustomer.ACME = 10\n")));
+        RentalAgreement agreement = engine.checkout("LADW", 3, 10, LocalDate.of(2020, 7, 2));
+        assertEquals(new BigDecimal("5.00"), agreement.getPreDiscountCharge());
+        assertEquals(new BigDecimal("0.50"), agreement.getDiscountAmount());
+        assertEquals(new BigDecimal("4.50"), agreement.getFinalCharge());
+
+        RentalAgreement customer = engine.checkout("LADW", 3, 95, LocalDate.of(2020, 7, 2), "ACME");
+        assertEquals(100, customer.getDiscountPercent());
+        assertEquals(new BigDecimal("0.00"), customer.getFinalCharge());
+        assertEquals(new BigDecimal("1.00"), engine.checkout("JAKR", 1, 0, LocalDate.of(2020, 7, 4)).getPreDiscountCharge());
+    }
+
+    // A resolved customer handle prices exactly as the customer id does
+    @Test
+    public void test_customer_handle() throws IOException {
+        PricingEngine engine = new PricingEngine(new ToolRentalService(), PricingRules.read(new StringReader(
+                "customer.ACME = 10\ncustomer.BOLT = 25\n")));
+        int acme = engine.customer("ACME");
+        assertNotEquals(PricingEngine.NO_CUSTOMER, acme);
+        assertNotEquals(acme, engine.customer("BOLT"));
+        assertEquals(PricingEngine.NO_CUSTOMER, engine.customer("NOBODY"));
+        assertEquals(PricingEngine.NO_CUSTOMER, engine.customer(null));
+        assertEquals(engine.checkout("CHNS", 5, 5, LocalDate.of(2020, 7, 2), "ACME").getFinalCharge(),
+                engine.checkout("CHNS", 5, 5, LocalDate.of(2020, 7, 2), acme).getFinalCharge());
+        assertEquals(30, engine.checkout("CHNS", 5, 5, LocalDate.of(2020, 7, 2), engine.customer("BOLT"))
+                .getDiscountPercent());
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.checkout("CHNS", 5, 5, LocalDate.of(2020, 7, 2), 3));
+    }
+
+    // Malformed, unknown and overlapping rules are rejected when read
+    @Test
+    public void test_invalid_rules() {
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.read(new StringReader("tiers = 8\n")));
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.read(new StringReader("tiers = 8:10, 5:20\n")));
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.read(new StringReader("minimumCharge = 1.001\n")));
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.read(new StringReader("season.a = 02-30..03-01:110\n")));
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.read(new StringReader(
+                "season.a = 06-01..06-30:110\nseason.b = 06-30..07-10:120\n")));
+        assertThrows(IllegalArgumentException.class, () -> PricingRules.read(new StringReader("surcharge = 5\n")));
+    }
+
+    // The plan is recompiled when the catalog is replaced
+    @Test
+    public void test_catalog_replacement() {
+        ToolCatalog toolCatalog = ToolCatalog.defaults();
+        PricingEngine engine = new PricingEngine(new ToolRentalService(toolCatalog), PricingRules.defaults());
+        assertEquals(new BigDecimal("3.98"), engine.checkout("LADW", 3, 0, LocalDate.of(2020, 7, 2)).getPreDiscountCharge());
+
+        Map<String, Tool> tools = new LinkedHashMap<>();
+        tools.put("LADW", new Tool("Ladder", "Werner", new BigDecimal("2.50"), true, true, false));
+        toolCatalog.replace(tools);
+        assertEquals(new BigDecimal("5.00"), engine.checkout("LADW", 3, 0, LocalDate.of(2020, 7, 2)).getPreDiscountCharge());
+        assertThrows(IllegalArgumentException.class, () -> engine.checkout("JAKR", 3, 0, LocalDate.of(2020, 7, 2)));
+    }
+}
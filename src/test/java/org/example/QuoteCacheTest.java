@@ -0,0 +1,96 @@
+package org.example;
+
+import org.example.catalog.ToolCatalog;
+import org.example.model.CheckoutRequest;
+import org.example.model.CheckoutResult;
+import org.example.model.ImmutableRentalAgreement;
+import org.example.model.RejectionReason;
+import org.example.model.Tool;
+import org.example.service.QuoteCache;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class QuoteCacheTest {
+
+    private static final LocalDate CHECKOUT_DATE = LocalDate.of(2020, 7, 2);
+
+    // Repeated quotes are served from the cache and shared between callers
+    @Test
+    public void test_repeated_quote_is_a_hit() {
+        QuoteCache quoteCache = new QuoteCache(new ToolRentalService(), 100);
+        ImmutableRentalAgreement first = quoteCache.checkout("JAKR", 9, 50, CHECKOUT_DATE);
+        ImmutableRentalAgreement second = quoteCache.checkout("JAKR", 9, 50, CHECKOUT_DATE);
+        assertSame(first, second);
+        assertEquals(new BigDecimal("7.47"), second.getFinalCharge());
+        assertEquals(1, quoteCache.getHitCount());
+        assertEquals(1, quoteCache.getMissCount());
+    }
+
+    // The least recently used quote is evicted once the cache is full
+    @Test
+    public void test_least_recently_used_quote_is_evicted() {
+        QuoteCache quoteCache = new QuoteCache(new ToolRentalService(), 1);
+        ImmutableRentalAgreement first = quoteCache.checkout("JAKR", 9, 50, CHECKOUT_DATE);
+        quoteCache.checkout("LADW", 3, 10, CHECKOUT_DATE);
+        assertEquals(1, quoteCache.size());
+        assertNotSame(first, quoteCache.checkout("JAKR", 9, 50, CHECKOUT_DATE));
+        assertEquals(3, quoteCache.getMissCount());
+    }
+
+    // Changing a tool's price drops its cached quotes but keeps the others
+    @Test
+    public void test_price_change_invalidates_tool_quotes() {
+        ToolCatalog catalog = ToolCatalog.defaults();
+        QuoteCache quoteCache = new QuoteCache(new ToolRentalService(catalog), 100);
+        quoteCache.checkout("JAKR", 9, 0, CHECKOUT_DATE);
+        quoteCache.checkout("LADW", 3, 10, CHECKOUT_DATE);
+
+        Map<String, Tool> tools = new LinkedHashMap<>();
+        for (String code : catalog.snapshot().getCodes()) {
+            tools.put(code, catalog.get(code));
+        }
+        tools.put("JAKR", new Tool("Jackhammer", "Ridgid", new BigDecimal("3.49"), true, false, false));
+        catalog.replace(tools);
+
+        assertEquals(1, quoteCache.size());
+        assertEquals(new BigDecimal("17.45"), quoteCache.checkout("JAKR", 9, 0, CHECKOUT_DATE).getFinalCharge());
+        quoteCache.checkout("LADW", 3, 10, CHECKOUT_DATE);
+        assertEquals(1, quoteCache.getHitCount());
+    }
+
+    // Cached agreements cannot be modified
+    @Test(expected = UnsupportedOperationException.class)
+    public void test_cached_agreement_is_immutable() {
+        QuoteCache quoteCache = new QuoteCache(new ToolRentalService(), 100);
+        quoteCache.checkout("JAKR", 9, 50, CHECKOUT_DATE).setFinalCharge(BigDecimal.ZERO);
+    }
+
+    // Rejected requests are thrown and not cached
+    @Test
+    public void test_rejected_request_is_not_cached() {
+        QuoteCache quoteCache = new QuoteCache(new ToolRentalService(), 100);
+        assertThrows(IllegalArgumentException.class, () -> quoteCache.checkout("INVALID", 9, 50, CHECKOUT_DATE));
+        assertEquals(0, quoteCache.size());
+    }
+
+    // tryCheckout shares the cache with checkout and answers rejections without throwing
+    @Test
+    public void test_try_checkout() {
+        QuoteCache quoteCache = new QuoteCache(new ToolRentalService(), 100);
+        CheckoutResult rejected = quoteCache.tryCheckout(new CheckoutRequest("INVALID", 9, 50, CHECKOUT_DATE));
+        assertEquals(RejectionReason.INVALID_TOOL_CODE, rejected.getRejection());
+        assertEquals(0, quoteCache.size());
+
+        CheckoutResult first = quoteCache.tryCheckout(new CheckoutRequest("JAKR", 9, 50, CHECKOUT_DATE));
+        assertTrue(first.isSuccess());
+        assertSame(first.getRentalAgreement(), quoteCache.checkout("JAKR", 9, 50, CHECKOUT_DATE));
+        assertEquals(1, quoteCache.getHitCount());
+    }
+}
@@ -0,0 +1,213 @@
+package org.example;
+
+import org.example.http.QuoteServer;
+import org.example.model.CheckoutRequest;
+import org.example.model.CheckoutResult;
+import org.example.service.ToolRentalService;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+public class QuoteServerTest {
+
+    private static final String[] TOOL_CODES = {"CHNS", "LADW", "JAKD", "JAKR"};
+
+    private static QuoteServer server;
+    private static HttpClient client;
+    private static String baseUri;
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = QuoteServer.start(new ToolRentalService(), new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUri = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.close();
+    }
+
+    // A quote returns the agreement as JSON
+    @Test
+    public void test_quote() throws Exception {
+        HttpResponse<String> response = get("/quote?toolCode=JAKR&rentalDays=5&discountPercent=20&checkoutDate=2020-07-03");
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"toolCode\":\"JAKR\",\"toolType\":\"Jackhammer\",\"toolBrand\":\"Ridgid\",\"rentalDays\":5,"
+                + "\"checkoutDate\":\"2020-07-03\",\"dueDate\":\"2020-07-08\",\"dailyRentalCharge\":2.99,"
+                + "\"chargeDays\":2,\"preDiscountCharge\":5.98,\"discountPercent\":20,\"discountAmount\":1.20,"
+                + "\"finalCharge\":4.78}", response.body());
+    }
+
+    // A checkout posts the request as a JSON object
+    @Test
+    public void test_checkout() throws Exception {
+        HttpResponse<String> response = post("/checkout",
+                "{\"toolCode\": \"LADW\", \"rentalDays\": 3, \"discountPercent\": 10, \"checkoutDate\": \"2020-07-02\"}");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"finalCharge\":3.58"));
+    }
+
+    // Invalid requests are answered with 400 and the validation message
+    @Test
+    public void test_invalid_requests() throws Exception {
+        HttpResponse<String> response = get("/quote?toolCode=JAKR&rentalDays=5&discountPercent=101&checkoutDate=2015-09-03");
+        assertEquals(400, response.statusCode());
+        assertEquals("{\"error\":\"Discount percent must be between 0 and 100\"}", response.body());
+
+        assertEquals(400, post("/checkout", "{\"toolCode\": \"JAKR\"").statusCode());
+        assertEquals(400, get("/quote?toolCode=JAKR&rentalDays=five&discountPercent=0&checkoutDate=2015-09-03").statusCode());
+        assertEquals(405, get("/checkout").statusCode());
+    }
+
+    // Rentals longer than the server prices are answered with 400 without being priced
+    @Test
+    public void test_rental_too_long() throws Exception {
+        HttpResponse<String> response = get("/quote?toolCode=JAKR&rentalDays=2147483647&discountPercent=0"
+                + "&checkoutDate=2020-01-01");
+        assertEquals(400, response.statusCode());
+        assertEquals("{\"error\":\"Rental days must be 3650 or fewer\"}", response.body());
+
+        assertEquals(400, post("/checkout", "{\"toolCode\": \"JAKR\", \"rentalDays\": 3651, \"discountPercent\": 0, "
+                + "\"checkoutDate\": \"2020-01-01\"}").statusCode());
+        assertEquals(200, get("/quote?toolCode=JAKR&rentalDays=3650&discountPercent=0&checkoutDate=2020-01-01")
+                .statusCode());
+
+        HttpResponse<String> batch = post("/batch",
+                "{\"toolCode\":\"JAKR\",\"rentalDays\":2147483647,\"discountPercent\":0,\"checkoutDate\":\"2020-01-01\"}\n"
+                + "{\"toolCode\":\"JAKR\",\"rentalDays\":5,\"discountPercent\":20,\"checkoutDate\":\"2020-07-03\"}\n");
+        String[] lines = batch.body().split("\n");
+        assertEquals("{\"error\":\"Rental days must be 3650 or fewer\"}", lines[0]);
+        assertTrue(lines[1].contains("\"finalCharge\":4.78"));
+    }
+
+    // Bodies over the limit are answered with 413 instead of being read
+    @Test
+    public void test_body_too_large() throws Exception {
+        char[] padding = new char[QuoteServer.MAX_CHECKOUT_BODY_BYTES];
+        Arrays.fill(padding, ' ');
+        String body = "{\"toolCode\": \"LADW\", \"rentalDays\": 3, \"discountPercent\": 10, "
+                + "\"checkoutDate\": \"2020-07-02\"" + new String(padding) + "}";
+        assertEquals(413, post("/checkout", body).statusCode());
+        assertEquals(200, post("/checkout", body.replace(new String(padding), "")).statusCode());
+    }
+
+    // A batch answers one line per request, in order
+    @Test
+    public void test_batch() throws Exception {
+        String body = "{\"toolCode\":\"CHNS\",\"rentalDays\":5,\"discountPercent\":25,\"checkoutDate\":\"2015-07-02\"}\n"
+                + "not json\n"
+                + "\n"
+                + "{\"toolCode\":\"XXXX\",\"rentalDays\":5,\"discountPercent\":0,\"checkoutDate\":\"2015-07-02\"}\n"
+                + "{\"toolCode\":\"JAKD\",\"rentalDays\":6,\"discountPercent\":0,\"checkoutDate\":\"2015-09-03\"}\n";
+        HttpResponse<String> response = post("/batch", body);
+        assertEquals(200, response.statusCode());
+        String[] lines = response.body().split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].contains("\"finalCharge\":3.35"));
+        assertTrue(lines[1].startsWith("{\"error\":\"Malformed JSON"));
+        assertEquals("{\"error\":\"Invalid tool code: XXXX\"}", lines[2]);
+        assertTrue(lines[3].contains("\"finalCharge\":8.97"));
+    }
+
+    // Metrics are served in the Prometheus text format
+    @Test
+    public void test_metrics() throws Exception {
+        HttpResponse<String> response = get("/metrics");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("# TYPE rental_checkout_rejections_total counter"));
+    }
+
+    // Unexpected failures are answered with 500 and a JSON error instead of a dropped connection
+    @Test
+    public void test_internal_error() throws Exception {
+        ToolRentalService failing = new ToolRentalService() {
+            @Override
+            public CheckoutResult tryCheckout(CheckoutRequest request) {
+                throw new ArithmeticException("long overflow");
+            }
+        };
+        Logger logger = Logger.getLogger(QuoteServer.class.getName());
+        Level level = logger.getLevel();
+        logger.setLevel(Level.OFF);
+        try (QuoteServer failingServer = QuoteServer.start(failing,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            String uri = "http://localhost:" + failingServer.getAddress().getPort();
+            String request = "{\"toolCode\":\"JAKR\",\"rentalDays\":5,\"discountPercent\":20,\"checkoutDate\":\"2020-07-03\"}";
+            List<HttpResponse<String>> responses = Arrays.asList(
+                    client.send(HttpRequest.newBuilder(URI.create(uri + "/quote?toolCode=JAKR&rentalDays=5"
+                            + "&discountPercent=20&checkoutDate=2020-07-03")).GET().build(),
+                            HttpResponse.BodyHandlers.ofString()),
+                    client.send(HttpRequest.newBuilder(URI.create(uri + "/checkout"))
+                            .POST(HttpRequest.BodyPublishers.ofString(request)).build(),
+                            HttpResponse.BodyHandlers.ofString()),
+                    client.send(HttpRequest.newBuilder(URI.create(uri + "/batch"))
+                            .POST(HttpRequest.BodyPublishers.ofString(request + "\n")).build(),
+                            HttpResponse.BodyHandlers.ofString()));
+            for (HttpResponse<String> response : responses) {
+                assertEquals(500, response.statusCode());
+                assertEquals("{\"error\":\"Internal server error\"}", response.body());
+            }
+        } finally {
+            logger.setLevel(level);
+        }
+    }
+
+    // Load generator: concurrent quotes against localhost all succeed
+    @Test
+    public void test_load() throws Exception {
+        int clients = 8;
+        int requestsPerClient = 100;
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        String path = "/quote?toolCode=" + TOOL_CODES[(client + i) % 4] + "&rentalDays=" + (1 + i % 30)
+                                + "&discountPercent=" + (client * 5) + "&checkoutDate=2020-0" + (1 + i % 9) + "-15";
+                        assertEquals(200, get(path).statusCode());
+                    }
+                    return requestsPerClient;
+                }));
+            }
+            int answered = 0;
+            for (Future<Integer> future : futures) {
+                answered += future.get();
+            }
+            assertEquals(clients * requestsPerClient, answered);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUri + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUri + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,49 @@
+package org.example;
+
+import org.example.model.QuoteSweep;
+import org.example.model.RentalAgreement;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+public class QuoteSweepTest {
+
+    // A sweep matches one checkout per date, across holidays and the new year
+    @Test
+    public void test_sweep_matches_checkouts() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        LocalDate fromDate = LocalDate.of(2019, 11, 1);
+        LocalDate toDate = LocalDate.of(2021, 1, 31);
+        for (String toolCode : new String[]{"CHNS", "LADW", "JAKD", "JAKR"}) {
+            for (int rentalDays : new int[]{1, 2, 5, 9, 30, 400}) {
+                QuoteSweep sweep = toolRentalService.quoteSweep(toolCode, rentalDays, 15, fromDate, toDate);
+                assertEquals(458, sweep.size());
+                for (int i = 0; i < sweep.size(); i++) {
+                    RentalAgreement expected = toolRentalService.checkout(toolCode, rentalDays, 15, sweep.getCheckoutDate(i));
+                    String message = toolCode + " " + rentalDays + " " + sweep.getCheckoutDate(i);
+                    assertEquals(message, expected.getChargeDays(), sweep.getChargeDays(i));
+                    assertEquals(message, expected.getFinalCharge(), sweep.getFinalCharge(i));
+                }
+            }
+        }
+    }
+
+    // A single-day window prices one checkout
+    @Test
+    public void test_single_day_sweep() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        QuoteSweep sweep = toolRentalService.quoteSweep("JAKR", 9, 50, LocalDate.of(2020, 7, 2), LocalDate.of(2020, 7, 2));
+        assertEquals(1, sweep.size());
+        assertEquals(747, sweep.getFinalChargeCents(0));
+        assertEquals(747, sweep.finalChargeCents().sum());
+    }
+
+    // A window ending before it starts is rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void test_reversed_window_is_rejected() {
+        new ToolRentalService().quoteSweep("JAKR", 9, 50, LocalDate.of(2020, 7, 2), LocalDate.of(2020, 7, 1));
+    }
+}
@@ -0,0 +1,114 @@
+package org.example;
+
+import org.example.calendar.HolidayCalendar;
+import org.example.calendar.HolidayRule;
+import org.example.calendar.HolidayRules;
+import org.example.calendar.RegionCalendars;
+import org.example.catalog.ToolCatalog;
+import org.example.model.RentalAgreement;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class RegionCalendarsTest {
+
+    // Rules parse from the form they describe themselves in
+    @Test
+    public void test_rules_round_trip_through_text() throws IOException {
+        for (HolidayRule rule : HolidayCalendar.usFederal().getRules()) {
+            HolidayRule parsed = HolidayRules.parse(rule.toString());
+            assertEquals(rule.toString(), parsed.toString());
+            for (int year = 1990; year < 2040; year++) {
+                assertEquals(rule.observedDates(year), parsed.observedDates(year));
+            }
+        }
+        assertEquals(HolidayCalendar.standard().holidaysIn(2021),
+                HolidayCalendar.read("copy", new StringReader("Independence Day: fixed july 4 observed\n"
+                        + "Labor Day: every Monday September after 1\n")).holidaysIn(2021));
+    }
+
+    // Malformed rule files report the offending line
+    @Test
+    public void test_malformed_rule_file() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> HolidayCalendar.read("bad",
+                new StringReader("# holidays\nNew Year's Day: fixed JANUARY 1\nBoxing Day: fixed DECEMBRE 26\n")));
+        assertTrue(e.getMessage().startsWith("Malformed holiday rule on line 3 of bad"));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.parse("Leap Day: fixed FEBRUARY 29"));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.parse("Leap Week: every MONDAY FEBRUARY after 29"));
+        assertThrows(IllegalArgumentException.class, () -> HolidayRules.parse("Labor Day: nth 6 MONDAY SEPTEMBER"));
+    }
+
+    // Checkouts at a store use its region's holidays
+    @Test
+    public void test_checkout_by_store() throws IOException {
+        RegionCalendars regions = RegionCalendars.fromDirectory(writeRegions());
+        ToolRentalService toolRentalService = new ToolRentalService(ToolCatalog.defaults(), HolidayCalendar.standard(), regions);
+
+        // July 1st 2021 is a Thursday; only Canada observes it
+        RentalAgreement canada = toolRentalService.checkout("LADW", 1, 0, LocalDate.of(2021, 6, 30), "store-ottawa");
+        RentalAgreement texas = toolRentalService.checkout("LADW", 1, 0, LocalDate.of(2021, 6, 30), "store-austin");
+        RentalAgreement standard = toolRentalService.checkout("LADW", 1, 0, LocalDate.of(2021, 6, 30));
+        assertEquals(0, canada.getChargeDays());
+        assertEquals(1, texas.getChargeDays());
+        assertEquals(1, standard.getChargeDays());
+
+        // Regions can be named directly
+        assertEquals(0, toolRentalService.checkout("LADW", 1, 0, LocalDate.of(2021, 6, 30), "ca").getChargeDays());
+        assertEquals("us-texas", regions.regionOf("store-austin"));
+        assertThrows(IllegalArgumentException.class,
+                () -> toolRentalService.checkout("LADW", 1, 0, LocalDate.of(2021, 6, 30), "store-paris"));
+    }
+
+    // Stores priced concurrently agree with sequential pricing
+    @Test
+    public void test_concurrent_store_pricing() throws IOException {
+        RegionCalendars regions = RegionCalendars.fromDirectory(writeRegions());
+        ToolRentalService toolRentalService = new ToolRentalService(ToolCatalog.defaults(), HolidayCalendar.standard(), regions);
+        String[] stores = {"store-ottawa", "store-austin", "store-dallas"};
+        List<Integer> sequential = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            sequential.add(toolRentalService.checkout("CHNS", 1 + i % 40, 0, LocalDate.of(2000, 1, 1).plusDays(i * 7L),
+                    stores[i % 3]).getChargeDays());
+        }
+        List<Integer> concurrent = IntStream.range(0, 3000).parallel()
+                .mapToObj(i -> toolRentalService.checkout("CHNS", 1 + i % 40, 0, LocalDate.of(2000, 1, 1).plusDays(i * 7L),
+                        stores[i % 3]).getChargeDays())
+                .collect(Collectors.toList());
+        assertEquals(sequential, concurrent);
+    }
+
+    // Stores must belong to a known region
+    @Test
+    public void test_store_in_unknown_region() throws IOException {
+        Path directory = writeRegions();
+        Files.write(directory.resolve(RegionCalendars.STORE_FILE), "store-lyon = fr\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> RegionCalendars.fromDirectory(directory));
+    }
+
+    private static Path writeRegions() throws IOException {
+        Path directory = Files.createTempDirectory("regions");
+        Files.write(directory.resolve("ca.holidays"), ("# Canada\n"
+                + "Canada Day: fixed JULY 1 observed\n"
+                + "Labour Day: nth 1 MONDAY SEPTEMBER\n"
+                + "Victoria Day: last MONDAY MAY\n").getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("us-texas.holidays"), ("Independence Day: fixed JULY 4 observed\n"
+                + "Labor Day: nth 1 MONDAY SEPTEMBER\n"
+                + "Thanksgiving Day: nth 4 THURSDAY NOVEMBER\n").getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve(RegionCalendars.STORE_FILE), ("store-ottawa = ca\n"
+                + "store-austin = us-texas\n"
+                + "store-dallas = us-texas\n").getBytes(StandardCharsets.UTF_8));
+        return directory;
+    }
+}
@@ -0,0 +1,99 @@
+package org.example;
+
+import org.example.catalog.ToolCatalog;
+import org.example.model.RentalAdjustment;
+import org.example.model.RentalAgreement;
+import org.example.model.Tool;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class RentalAdjustmentTest {
+
+    // Extending a rental again and again prices like checking out the whole length at once
+    @Test
+    public void test_repeated_extensions_match_checkout() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        LocalDate checkoutDate = LocalDate.of(2019, 6, 28);
+        for (String toolCode : new String[]{"CHNS", "LADW", "JAKD", "JAKR"}) {
+            RentalAgreement agreement = toolRentalService.checkout(toolCode, 3, 15, checkoutDate);
+            int rentalDays = 3;
+            for (int extraDays : new int[]{1, 2, 7, 30, 1, 365, 4}) {
+                RentalAdjustment extension = toolRentalService.extend(agreement, extraDays);
+                rentalDays += extraDays;
+                RentalAgreement expected = toolRentalService.checkout(toolCode, rentalDays, 15, checkoutDate);
+                agreement = extension.getUpdated();
+                String message = toolCode + " " + rentalDays;
+                assertEquals(message, RentalAdjustment.Kind.EXTENSION, extension.getKind());
+                assertEquals(message, extraDays, extension.getAddedDays());
+                assertEquals(message, expected.getDueDate(), agreement.getDueDate());
+                assertEquals(message, expected.getChargeDays(), agreement.getChargeDays());
+                assertEquals(message, expected.getPreDiscountCharge(), agreement.getPreDiscountCharge());
+                assertEquals(message, expected.getDiscountAmount(), agreement.getDiscountAmount());
+                assertEquals(message, expected.getFinalCharge(), agreement.getFinalCharge());
+                assertEquals(message, extension.getAdditionalCharge(), extension.getAmountDue());
+            }
+        }
+    }
+
+    // A late return charges the days past the due date plus an undiscounted late fee
+    @Test
+    public void test_late_return_adds_days_and_late_fee() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        RentalAgreement agreement = toolRentalService.checkout("JAKR", 9, 50, LocalDate.of(2020, 7, 2));
+        RentalAdjustment lateReturn = toolRentalService.returnOn(agreement, LocalDate.of(2020, 7, 14));
+        RentalAgreement expected = toolRentalService.checkout("JAKR", 12, 50, LocalDate.of(2020, 7, 2));
+
+        assertEquals(RentalAdjustment.Kind.RETURN, lateReturn.getKind());
+        assertEquals(3, lateReturn.getAddedDays());
+        assertEquals(2, lateReturn.getAddedChargeDays());
+        assertEquals(expected.getFinalCharge(), lateReturn.getUpdated().getFinalCharge());
+        assertEquals(new BigDecimal("2.99"), lateReturn.getAdditionalCharge());
+        assertEquals(new BigDecimal("4.49"), lateReturn.getLateFee());
+        assertEquals(new BigDecimal("7.48"), lateReturn.getAmountDue());
+
+        toolRentalService.setLateFeePercent(0);
+        assertEquals(new BigDecimal("0.00"), toolRentalService.returnOn(agreement, LocalDate.of(2020, 7, 14)).getLateFee());
+    }
+
+    // Returning on or before the due date owes nothing more
+    @Test
+    public void test_on_time_return_owes_nothing() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        RentalAgreement agreement = toolRentalService.checkout("LADW", 3, 10, LocalDate.of(2020, 7, 2));
+        for (LocalDate returnDate : new LocalDate[]{LocalDate.of(2020, 7, 2), LocalDate.of(2020, 7, 5)}) {
+            RentalAdjustment onTime = toolRentalService.returnOn(agreement, returnDate);
+            assertSame(agreement, onTime.getUpdated());
+            assertEquals(0, onTime.getAddedDays());
+            assertEquals(0, onTime.getAmountDue().signum());
+        }
+    }
+
+    // Tools priced at fractions of a cent are extended with BigDecimal arithmetic
+    @Test
+    public void test_extension_of_fractional_cent_tool_matches_checkout() {
+        Tool tool = new Tool("Ladder", "Werner", new BigDecimal("1.995"), true, true, false);
+        ToolRentalService toolRentalService = new ToolRentalService(new ToolCatalog(Collections.singletonMap("LADF", tool)));
+        RentalAgreement agreement = toolRentalService.checkout("LADF", 5, 25, LocalDate.of(2020, 6, 30));
+        RentalAgreement extended = toolRentalService.extend(agreement, 70).getUpdated();
+        RentalAgreement expected = toolRentalService.checkout("LADF", 75, 25, LocalDate.of(2020, 6, 30));
+        assertEquals(expected.getChargeDays(), extended.getChargeDays());
+        assertEquals(expected.getPreDiscountCharge(), extended.getPreDiscountCharge());
+        assertEquals(expected.getFinalCharge(), extended.getFinalCharge());
+    }
+
+    // Invalid adjustments are rejected
+    @Test
+    public void test_invalid_adjustments_throw_exception() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        RentalAgreement agreement = toolRentalService.checkout("JAKR", 9, 50, LocalDate.of(2020, 7, 2));
+        assertThrows(IllegalArgumentException.class, () -> toolRentalService.extend(agreement, 0));
+        assertThrows(IllegalArgumentException.class, () -> toolRentalService.returnOn(agreement, LocalDate.of(2020, 7, 1)));
+        assertThrows(IllegalArgumentException.class, () -> toolRentalService.setLateFeePercent(-1));
+    }
+}
@@ -0,0 +1,153 @@
+package org.example;
+
+import org.example.calendar.EpochDays;
+import org.example.catalog.ToolCatalog;
+import org.example.codec.AgreementCodec;
+import org.example.model.RentalAgreement;
+import org.example.model.Tool;
+import org.example.pipeline.ImportStats;
+import org.example.pipeline.RentalImport;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RentalImportTest {
+
+    private static final String[] TOOL_CODES = {"CHNS", "LADW", "JAKD", "JAKR"};
+
+    // Every row is priced as checkout prices it, across read buffer and batch boundaries
+    @Test
+    public void test_csv_output_matches_checkout() throws IOException {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        Path directory = Files.createTempDirectory("import");
+        Path input = directory.resolve("rentals.csv");
+        List<String> expected = new ArrayList<>();
+        expected.add(RentalImport.CSV_HEADER);
+        Random random = new Random(16);
+        // Enough rows to span several read buffers
+        try (BufferedWriter writer = Files.newBufferedWriter(input, StandardCharsets.UTF_8)) {
+            writer.write("toolCode,rentalDays,discountPercent,checkoutDate\n");
+            for (int i = 0; i < 60_000; i++) {
+                String toolCode = TOOL_CODES[random.nextInt(4)];
+                int rentalDays = 1 + random.nextInt(60);
+                int discountPercent = random.nextInt(101);
+                LocalDate checkoutDate = LocalDate.of(1995, 1, 1).plusDays(random.nextInt(12000));
+                writer.write(toolCode + "," + rentalDays + "," + discountPercent + "," + checkoutDate + "\n");
+                RentalAgreement agreement = toolRentalService.checkout(toolCode, rentalDays, discountPercent, checkoutDate);
+                expected.add(String.join(",", toolCode, checkoutDate.toString(), Integer.toString(rentalDays),
+                        agreement.getDueDate().toString(), Integer.toString(agreement.getChargeDays()),
+                        Integer.toString(discountPercent), agreement.getPreDiscountCharge().toPlainString(),
+                        agreement.getDiscountAmount().toPlainString(), agreement.getFinalCharge().toPlainString()));
+            }
+        }
+
+        Path output = directory.resolve("priced.csv");
+        ImportStats stats = new RentalImport(toolRentalService, 1000).run(input, output, RentalImport.OutputFormat.CSV);
+        assertEquals(60_000, stats.getRowsRead());
+        assertEquals(60_000, stats.getRowsPriced());
+        assertEquals(0, stats.getRowsRejected());
+        assertTrue(stats.getRowsPerSecond() > 0);
+        assertEquals(expected, Files.readAllLines(output, StandardCharsets.UTF_8));
+    }
+
+    // Invalid rows are counted and reported without stopping the import
+    @Test
+    public void test_rejected_rows() throws IOException {
+        Path directory = Files.createTempDirectory("import");
+        Path input = directory.resolve("rentals.csv");
+        Files.write(input, ("# exported rentals\r\n"
+                + "JAKR,5,20,2020-07-03\r\n"
+                + "\r\n"
+                + "XXXX,5,20,2020-07-03\r\n"
+                + "JAKR,0,20,2020-07-03\r\n"
+                + "JAKR,5,101,2020-07-03\r\n"
+                + "JAKR,five,20,2020-07-03\r\n"
+                + "JAKR,5,20,2020-02-30\r\n"
+                + "JAKR,5,20\r\n"
+                + " LADW , 3 , 10 , 2020-07-02 ").getBytes(StandardCharsets.UTF_8));
+
+        Path output = directory.resolve("priced.csv");
+        ImportStats stats = new RentalImport(new ToolRentalService()).run(input, output, RentalImport.OutputFormat.CSV);
+        assertEquals(8, stats.getRowsRead());
+        assertEquals(2, stats.getRowsPriced());
+        assertEquals(6, stats.getRowsRejected());
+        assertEquals("Line 4: Invalid tool code: XXXX", stats.getErrors().get(0));
+        assertEquals("Line 5: Rental days must be 1 or greater", stats.getErrors().get(1));
+        assertEquals("Line 6: Discount percent must be between 0 and 100", stats.getErrors().get(2));
+        assertEquals("Line 7: Malformed rental days: five", stats.getErrors().get(3));
+        assertEquals("Line 8: Malformed checkout date: 2020-02-30", stats.getErrors().get(4));
+        assertEquals("Line 9: Expected 4 fields", stats.getErrors().get(5));
+
+        List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertEquals("JAKR,2020-07-03,5,2020-07-08,2,20,5.98,1.20,4.78", lines.get(1));
+        assertEquals("LADW,2020-07-02,3,2020-07-05,2,10,3.98,0.40,3.58", lines.get(2));
+    }
+
+    // Rows for tools the output cannot price exactly in cents are rejected, not wrapped or rounded
+    @Test
+    public void test_rows_not_priced_in_cents() throws IOException {
+        Map<String, Tool> tools = new LinkedHashMap<>();
+        tools.put("FINE", new Tool("Saw", "Bosch", new BigDecimal("1.995"), true, true, true));
+        tools.put("HUGE", new Tool("Crane", "Liebherr", new BigDecimal("100000000000.00"), true, true, true));
+        tools.put("WHOL", new Tool("Drill", "Makita", new BigDecimal("2"), true, true, true));
+        Path directory = Files.createTempDirectory("import");
+        Path input = directory.resolve("rentals.csv");
+        Files.write(input, ("FINE,5,0,2020-07-03\nHUGE,200000,50,2020-01-01\nWHOL,5,10,2020-07-03\n")
+                .getBytes(StandardCharsets.UTF_8));
+
+        Path output = directory.resolve("priced.csv");
+        ImportStats stats = new RentalImport(new ToolRentalService(new ToolCatalog(tools)))
+                .run(input, output, RentalImport.OutputFormat.CSV);
+        assertEquals(1, stats.getRowsPriced());
+        assertEquals("Line 1: Daily charge of FINE is not a whole number of cents", stats.getErrors().get(0));
+        assertEquals("Line 2: Daily charge of HUGE is too large to price in cents", stats.getErrors().get(1));
+        assertEquals("WHOL,2020-07-03,5,2020-07-08,5,10,10.00,1.00,9.00",
+                Files.readAllLines(output, StandardCharsets.UTF_8).get(1));
+    }
+
+    // Binary output decodes to the agreements checkout produces
+    @Test
+    public void test_binary_output() throws IOException {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        Path directory = Files.createTempDirectory("import");
+        Path input = directory.resolve("rentals.csv");
+        Files.write(input, ("CHNS,5,25,2015-07-02\nJAKD,6,0,2015-09-03\nJAKR,9,0,2015-07-02\n")
+                .getBytes(StandardCharsets.UTF_8));
+        Path output = directory.resolve("priced.bin");
+        new RentalImport(toolRentalService).run(input, output, RentalImport.OutputFormat.BINARY);
+
+        AgreementCodec codec = new AgreementCodec(toolRentalService.getToolCatalog().snapshot());
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(output));
+        assertEquals("3.35", codec.decode(buffer).getFinalCharge().toPlainString());
+        assertEquals("8.97", codec.decode(buffer).getFinalCharge().toPlainString());
+        RentalAgreement agreement = codec.decode(buffer);
+        assertEquals(LocalDate.of(2015, 7, 11), agreement.getDueDate());
+        assertEquals("14.95", agreement.getFinalCharge().toPlainString());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    // Packed dates invert EpochDays.of
+    @Test
+    public void test_epoch_days_to_year_month_day() {
+        for (long epochDay = EpochDays.of(1, 1, 1); epochDay < EpochDays.of(3000, 1, 1); epochDay += 7) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            assertEquals(date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth(),
+                    EpochDays.toYearMonthDay(epochDay));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.example;
+
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.RentalMetrics;
+import org.example.model.RejectionReason;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+public class RentalMetricsTest {
+
+    // Quantiles are reported within the 6.25% bucket precision
+    @Test
+    public void test_histogram_quantiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000, histogram.getMaxNanos());
+        assertEquals(5_000_050_000L, histogram.getTotalNanos());
+        assertEquals(50_000, histogram.valueAtQuantile(0.5), 50_000 * 0.0625);
+        assertEquals(99_000, histogram.valueAtQuantile(0.99), 99_000 * 0.0625);
+        assertTrue(histogram.valueAtQuantile(0.5) >= 50_000);
+        assertEquals(100_000, histogram.valueAtQuantile(1));
+        assertEquals(0, new LatencyHistogram().valueAtQuantile(0.5));
+    }
+
+    // Checkouts are timed per tool and rejections counted per reason
+    @Test
+    public void test_service_records_checkouts_and_rejections() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        RentalMetrics metrics = new RentalMetrics();
+        toolRentalService.setMetrics(metrics);
+        for (int i = 0; i < 10; i++) {
+            toolRentalService.checkout("JAKR", 5, 20, LocalDate.of(2020, 7, 3));
+        }
+        toolRentalService.checkout("LADW", 3, 10, LocalDate.of(2020, 7, 2));
+        assertThrows(IllegalArgumentException.class, () -> toolRentalService.checkout("XXXX", 5, 0, LocalDate.of(2020, 7, 2)));
+        assertThrows(IllegalArgumentException.class, () -> toolRentalService.checkout("JAKR", 0, 0, LocalDate.of(2020, 7, 2)));
+        assertThrows(IllegalArgumentException.class, () -> toolRentalService.checkout("JAKR", 5, 101, LocalDate.of(2020, 7, 2)));
+        assertThrows(IllegalArgumentException.class, () -> toolRentalService.checkout("JAKR", 5, -1, LocalDate.of(2020, 7, 2)));
+
+        assertEquals(10, metrics.getCheckoutHistogram("JAKR").getCount());
+        assertEquals(1, metrics.getCheckoutHistogram("LADW").getCount());
+        assertNull(metrics.getCheckoutHistogram("XXXX"));
+        assertEquals(11, metrics.getOperationHistogram(RentalMetrics.Operation.CHARGE_DAYS).getCount());
+        assertEquals(11, metrics.getOperationHistogram(RentalMetrics.Operation.DISCOUNT).getCount());
+        assertEquals(1, metrics.getRejectionCount(RejectionReason.INVALID_TOOL_CODE));
+        assertEquals(1, metrics.getRejectionCount(RejectionReason.INVALID_RENTAL_DAYS));
+        assertEquals(2, metrics.getRejectionCount(RejectionReason.INVALID_DISCOUNT));
+    }
+
+    // Services record nothing until metrics are set
+    @Test
+    public void test_noop_by_default() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        toolRentalService.checkout("JAKR", 5, 20, LocalDate.of(2020, 7, 3));
+        assertSame(RentalMetrics.NOOP, toolRentalService.getMetrics());
+        assertFalse(RentalMetrics.NOOP.isEnabled());
+        assertNull(RentalMetrics.NOOP.getCheckoutHistogram("JAKR"));
+        assertEquals(0, RentalMetrics.NOOP.getOperationHistogram(RentalMetrics.Operation.CHARGE_DAYS).getCount());
+    }
+
+    // Snapshots export in the Prometheus text format
+    @Test
+    public void test_prometheus_export() throws IOException {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        RentalMetrics metrics = new RentalMetrics();
+        toolRentalService.setMetrics(metrics);
+        toolRentalService.checkout("CHNS", 5, 25, LocalDate.of(2015, 7, 2));
+        toolRentalService.holidaysInRange(LocalDate.of(2015, 7, 1), LocalDate.of(2015, 7, 31));
+        assertThrows(IllegalArgumentException.class, () -> toolRentalService.checkout("XXXX", 5, 0, LocalDate.of(2020, 7, 2)));
+
+        Path file = Files.createTempDirectory("metrics").resolve("rental.prom");
+        metrics.exportPrometheus(file);
+        String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertTrue(text.contains("# TYPE rental_checkout_seconds summary\n"));
+        assertTrue(text.contains("rental_checkout_seconds_count{tool=\"CHNS\"} 1\n"));
+        assertTrue(text.contains("rental_checkout_seconds{tool=\"CHNS\",quantile=\"0.99\"} "));
+        assertTrue(text.contains("rental_operation_seconds_count{operation=\"holidays_in_range\"} 1\n"));
+        assertTrue(text.contains("rental_checkout_rejections_total{reason=\"invalid_tool_code\"} 1\n"));
+        assertTrue(text.contains("rental_checkout_rejections_total{reason=\"invalid_discount\"} 0\n"));
+    }
+}
@@ -0,0 +1,152 @@
+package org.example;
+
+import org.example.calendar.HolidayCalendar;
+import org.example.calendar.RegionCalendars;
+import org.example.catalog.ToolCatalog;
+import org.example.model.RentalAgreement;
+import org.example.service.ServiceSnapshot;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ServiceSnapshotTest {
+
+    private static final String CATALOG_CSV = "code,type,brand,dailyCharge,weekdayCharge,weekendCharge,holidayCharge\n"
+            + "CHNS,Chainsaw,Stihl,1.49,true,false,true\n"
+            + "LADW,Ladder,Werner,1.99,true,true,false\n";
+
+    // A service started from its snapshot prices exactly as one built from the sources
+    @Test
+    public void test_start_from_snapshot_matches_sources() throws IOException {
+        Path directory = Files.createTempDirectory("snapshot");
+        Path catalogFile = writeCatalog(directory, CATALOG_CSV);
+        Path calendarDirectory = writeRegions(directory);
+        Path snapshotFile = directory.resolve("service.snapshot");
+
+        assertFalse(ServiceSnapshot.isCurrent(snapshotFile, catalogFile, calendarDirectory));
+        ServiceSnapshot.start(catalogFile, calendarDirectory, snapshotFile);
+        assertTrue(ServiceSnapshot.isCurrent(snapshotFile, catalogFile, calendarDirectory));
+        byte[] written = Files.readAllBytes(snapshotFile);
+
+        ToolRentalService warm = ServiceSnapshot.start(catalogFile, calendarDirectory, snapshotFile);
+        RentalAgreement first = warm.checkout("LADW", 9, 10, LocalDate.of(2021, 6, 28), "store-ottawa");
+        assertArrayEquals(written, Files.readAllBytes(snapshotFile));
+        assertEquals(catalogFile, warm.getToolCatalog().getSource());
+
+        ToolRentalService cold = new ToolRentalService(ToolCatalog.fromFile(catalogFile), HolidayCalendar.standard(),
+                RegionCalendars.fromDirectory(calendarDirectory));
+        assertEquals(cold.checkout("LADW", 9, 10, LocalDate.of(2021, 6, 28), "store-ottawa").getFinalCharge(),
+                first.getFinalCharge());
+        for (LocalDate date = LocalDate.of(2019, 12, 1); date.getYear() < 2023; date = date.plusDays(3)) {
+            for (String code : new String[]{"CHNS", "LADW"}) {
+                for (String region : new String[]{"canada", "store-ottawa"}) {
+                    assertEquals(code + " " + date, cold.checkout(code, 7, 25, date, region).getFinalCharge(),
+                            warm.checkout(code, 7, 25, date, region).getFinalCharge());
+                }
+                assertEquals(code + " " + date, cold.checkout(code, 40, 0, date).getChargeDays(),
+                        warm.checkout(code, 40, 0, date).getChargeDays());
+            }
+        }
+        assertNull(warm.getToolCatalog().get("JAKR"));
+    }
+
+    // Changing a source file makes the snapshot stale, and the next start rebuilds it
+    @Test
+    public void test_stale_snapshot_is_rebuilt() throws IOException {
+        Path directory = Files.createTempDirectory("snapshot");
+        Path catalogFile = writeCatalog(directory, CATALOG_CSV);
+        Path calendarDirectory = writeRegions(directory);
+        Path snapshotFile = directory.resolve("service.snapshot");
+        ServiceSnapshot.start(catalogFile, calendarDirectory, snapshotFile);
+
+        Files.write(catalogFile, (CATALOG_CSV + "JAKR,Jackhammer,Ridgid,2.99,true,false,false\n")
+                .getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(catalogFile, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        assertFalse(ServiceSnapshot.isCurrent(snapshotFile, catalogFile, calendarDirectory));
+        ToolRentalService rebuilt = ServiceSnapshot.start(catalogFile, calendarDirectory, snapshotFile);
+        assertNotNull(rebuilt.getToolCatalog().get("JAKR"));
+        assertTrue(ServiceSnapshot.isCurrent(snapshotFile, catalogFile, calendarDirectory));
+        assertNotNull(ServiceSnapshot.start(catalogFile, calendarDirectory, snapshotFile).getToolCatalog().get("JAKR"));
+
+        // An edit that keeps the size and modification time is still caught
+        FileTime modified = Files.getLastModifiedTime(catalogFile);
+        Files.write(catalogFile, (CATALOG_CSV + "JAKR,Jackhammer,Ridgid,3.99,true,false,false\n")
+                .getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(catalogFile, modified);
+        assertFalse(ServiceSnapshot.isCurrent(snapshotFile, catalogFile, calendarDirectory));
+        assertEquals(new BigDecimal("3.99"), ServiceSnapshot.start(catalogFile, calendarDirectory, snapshotFile)
+                .getToolCatalog().get("JAKR").getDailyCharge());
+
+        // A new region file changes the fingerprint too
+        Files.write(calendarDirectory.resolve("texas.holidays"),
+                "Texas Independence Day: fixed MARCH 2\n".getBytes(StandardCharsets.UTF_8));
+        assertFalse(ServiceSnapshot.isCurrent(snapshotFile, catalogFile, calendarDirectory));
+        assertNotNull(ServiceSnapshot.start(catalogFile, calendarDirectory, snapshotFile)
+                .getRegionCalendars().getCalendars().get("texas"));
+    }
+
+    // A truncated snapshot is treated as stale rather than failing the start
+    @Test
+    public void test_corrupt_snapshot_is_rebuilt() throws IOException {
+        Path directory = Files.createTempDirectory("snapshot");
+        Path snapshotFile = directory.resolve("service.snapshot");
+        ServiceSnapshot.start(null, null, snapshotFile);
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        Files.write(snapshotFile, Arrays.copyOf(bytes, bytes.length / 2));
+
+        ToolRentalService toolRentalService = ServiceSnapshot.start(null, null, snapshotFile);
+        assertEquals(4, toolRentalService.getToolCatalog().snapshot().size());
+        assertEquals(bytes.length, Files.size(snapshotFile));
+        assertEquals(new ToolRentalService().checkout("JAKR", 9, 50, LocalDate.of(2020, 7, 2)).getFinalCharge(),
+                toolRentalService.checkout("JAKR", 9, 50, LocalDate.of(2020, 7, 2)).getFinalCharge());
+    }
+
+    // A flipped byte in the holidays fails the checksum and never reaches the standard calendar
+    @Test
+    public void test_flipped_byte_is_rebuilt_without_touching_standard_calendar() throws IOException {
+        Path directory = Files.createTempDirectory("snapshot");
+        Path snapshotFile = directory.resolve("service.snapshot");
+        ServiceSnapshot.start(null, null, snapshotFile);
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        byte[] corrupt = bytes.clone();
+        // The last holiday of the last indexed year, just before the empty region count
+        corrupt[corrupt.length - 5] ^= 0x10;
+        Files.write(snapshotFile, corrupt);
+        assertFalse(ServiceSnapshot.isCurrent(snapshotFile, null, null));
+
+        ToolRentalService toolRentalService = ServiceSnapshot.start(null, null, snapshotFile);
+        assertArrayEquals(bytes, Files.readAllBytes(snapshotFile));
+        HolidayCalendar fresh = new HolidayCalendar("fresh", HolidayCalendar.standard().getRules());
+        for (int year = HolidayCalendar.LAST_INDEXED_YEAR - 2; year <= HolidayCalendar.LAST_INDEXED_YEAR; year++) {
+            assertEquals(fresh.holidaysIn(year), HolidayCalendar.standard().holidaysIn(year));
+        }
+        assertEquals(new ToolRentalService().checkout("JAKR", 9, 50, LocalDate.of(2020, 7, 2)).getFinalCharge(),
+                toolRentalService.checkout("JAKR", 9, 50, LocalDate.of(2020, 7, 2)).getFinalCharge());
+    }
+
+    private static Path writeCatalog(Path directory, String csv) throws IOException {
+        Path catalogFile = directory.resolve("tools.csv");
+        Files.write(catalogFile, csv.getBytes(StandardCharsets.UTF_8));
+        return catalogFile;
+    }
+
+    private static Path writeRegions(Path directory) throws IOException {
+        Path calendarDirectory = Files.createDirectory(directory.resolve("regions"));
+        Files.write(calendarDirectory.resolve("canada.holidays"), ("Canada Day: fixed JULY 1 observed\n"
+                + "Labour Day: nth 1 MONDAY SEPTEMBER\n"
+                + "Victoria Day: last MONDAY MAY\n").getBytes(StandardCharsets.UTF_8));
+        Files.write(calendarDirectory.resolve(RegionCalendars.STORE_FILE),
+                "store-ottawa = canada\n".getBytes(StandardCharsets.UTF_8));
+        return calendarDirectory;
+    }
+}
@@ -0,0 +1,249 @@
+package org.example;
+
+import org.example.catalog.CatalogSnapshot;
+import org.example.catalog.ToolCatalog;
+import org.example.catalog.ToolCatalogWatcher;
+import org.example.model.RentalAgreement;
+import org.example.model.Tool;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+public class ToolCatalogTest {
+
+    private static final String CATALOG_CSV = "code,type,brand,dailyCharge,weekdayCharge,weekendCharge,holidayCharge\n"
+            + "# standard tools\n"
+            + "CHNS,Chainsaw,Stihl,1.49,true,false,true\n"
+            + "\n"
+            + "LADW,Ladder,Werner,1.99,true,true,false\n";
+
+    // Catalog CSV is read in file order, skipping the header, comments and blank lines
+    @Test
+    public void test_read_catalog_csv() throws IOException {
+        Map<String, Tool> tools = ToolCatalog.read(new StringReader(CATALOG_CSV));
+        assertEquals(2, tools.size());
+        Tool ladder = tools.get("LADW");
+        assertEquals("Werner", ladder.getBrand());
+        assertEquals(new BigDecimal("1.99"), ladder.getDailyCharge());
+        assertTrue(ladder.isWeekendCharge());
+        assertFalse(ladder.isHolidayCharge());
+    }
+
+    // A malformed line is rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void test_read_malformed_catalog_csv() throws IOException {
+        ToolCatalog.read(new StringReader("CHNS,Chainsaw,Stihl,1.49,true,false,maybe\n"));
+    }
+
+    // Snapshots assign dense indexes in catalog order
+    @Test
+    public void test_snapshot_indexes() {
+        CatalogSnapshot snapshot = ToolCatalog.defaults().snapshot();
+        assertEquals(4, snapshot.size());
+        assertEquals(2, snapshot.indexOf("JAKD"));
+        assertEquals("JAKD", snapshot.codeAt(2));
+        assertEquals(-1, snapshot.indexOf("INVALID"));
+        assertEquals(-1, snapshot.indexOf(null));
+    }
+
+    // Replacing the catalog publishes a new snapshot used by later checkouts
+    @Test
+    public void test_replace_catalog() {
+        ToolCatalog catalog = ToolCatalog.defaults();
+        ToolRentalService toolRentalService = new ToolRentalService(catalog);
+        CatalogSnapshot before = catalog.snapshot();
+
+        CatalogSnapshot after = catalog.replace(Collections.singletonMap("JAKR",
+                new Tool("Jackhammer", "Ridgid", new BigDecimal("3.49"), true, false, false)));
+
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(4, before.size());
+        RentalAgreement agreement = toolRentalService.checkout("JAKR", 9, 0, LocalDate.of(2020, 7, 2));
+        assertEquals(new BigDecimal("17.45"), agreement.getFinalCharge());
+        assertThrows(IllegalArgumentException.class, () -> toolRentalService.checkout("LADW", 3, 10, LocalDate.of(2020, 7, 2)));
+    }
+
+    // The watcher picks up a rewritten catalog file
+    @Test
+    public void test_watch_reloads_changed_file() throws Exception {
+        Path directory = Files.createTempDirectory("catalog");
+        Path file = directory.resolve("tools.csv");
+        Files.write(file, CATALOG_CSV.getBytes(StandardCharsets.UTF_8));
+        ToolCatalog catalog = ToolCatalog.fromFile(file);
+        assertNull(catalog.get("JAKR"));
+
+        ToolCatalogWatcher watcher = catalog.watch();
+        try {
+            Path update = directory.resolve("tools.csv.tmp");
+            Files.write(update, (CATALOG_CSV + "JAKR,Jackhammer,Ridgid,2.99,true,false,false\n").getBytes(StandardCharsets.UTF_8));
+            Files.move(update, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            long deadline = System.currentTimeMillis() + 30000;
+            while (catalog.get("JAKR") == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+        } finally {
+            watcher.close();
+        }
+        assertNotNull(catalog.get("JAKR"));
+        assertEquals(3, catalog.snapshot().size());
+    }
+
+    // A catalog written in place in several steps is only reloaded once it is complete
+    @Test
+    public void test_watch_waits_for_partial_write() throws Exception {
+        Path directory = Files.createTempDirectory("catalog");
+        Path file = directory.resolve("tools.csv");
+        Files.write(file, CATALOG_CSV.getBytes(StandardCharsets.UTF_8));
+        ToolCatalog catalog = ToolCatalog.fromFile(file);
+        List<Integer> publishedSizes = new CopyOnWriteArrayList<>();
+        catalog.addListener((previous, current) -> publishedSizes.add(current.size()));
+
+        // A quiet period far longer than the pause between the writes, so a slow test machine cannot split them
+        ToolCatalogWatcher watcher = catalog.watch(5000);
+        try {
+            Files.write(file, "code,type,brand,dailyCharge,weekdayCharge,weekendCharge,holidayCharge\n"
+                    .getBytes(StandardCharsets.UTF_8));
+            Thread.sleep(100);
+            Files.write(file, (CATALOG_CSV.substring(CATALOG_CSV.indexOf('\n') + 1)
+                    + "JAKR,Jackhammer,Ridgid,2.99,true,false,false\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.APPEND);
+
+            long deadline = System.currentTimeMillis() + 30000;
+            while (publishedSizes.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+        } finally {
+            watcher.close();
+        }
+        assertEquals(Collections.singletonList(3), publishedSizes);
+        assertNotNull(catalog.get("JAKR"));
+    }
+
+    // A listener that throws does not stop the watcher from picking up later changes
+    @Test
+    public void test_watch_survives_failing_listener() throws Exception {
+        Path directory = Files.createTempDirectory("catalog");
+        Path file = directory.resolve("tools.csv");
+        Files.write(file, CATALOG_CSV.getBytes(StandardCharsets.UTF_8));
+        ToolCatalog catalog = ToolCatalog.fromFile(file);
+        List<Integer> publishedSizes = new CopyOnWriteArrayList<>();
+        catalog.addListener((previous, current) -> {
+            publishedSizes.add(current.size());
+            if (publishedSizes.size() == 1) {
+                throw new IllegalStateException("listener failed");
+            }
+        });
+
+        ToolCatalogWatcher watcher = catalog.watch(50);
+        try {
+            String[] updates = {"JAKR,Jackhammer,Ridgid,2.99,true,false,false\n",
+                    "JAKD,Jackhammer,DeWalt,2.99,true,false,false\n"};
+            for (int i = 0; i < updates.length; i++) {
+                Path update = directory.resolve("tools.csv.tmp");
+                Files.write(update, (CATALOG_CSV + updates[i]).getBytes(StandardCharsets.UTF_8));
+                Files.move(update, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                long deadline = System.currentTimeMillis() + 30000;
+                while (publishedSizes.size() <= i && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(50);
+                }
+            }
+        } finally {
+            watcher.close();
+        }
+        assertNotNull(catalog.get("JAKD"));
+        assertNull(catalog.get("JAKR"));
+    }
+
+    // Every code of a large catalog is found at its index, including codes sharing a hashCode
+    @Test
+    public void test_snapshot_index_of_large_catalog() {
+        Tool tool = new Tool("Ladder", "Werner", new BigDecimal("1.99"), true, true, false);
+        Map<String, Tool> tools = new LinkedHashMap<>();
+        tools.put("Aa", tool);
+        tools.put("BB", tool);
+        for (int i = 0; i < 5000; i++) {
+            tools.put("T" + Integer.toString(i, 36).toUpperCase(), tool);
+        }
+        CatalogSnapshot snapshot = new CatalogSnapshot(1, tools);
+        int index = 0;
+        for (String code : tools.keySet()) {
+            assertEquals(code, index++, snapshot.indexOf(new String(code.toCharArray())));
+        }
+        assertEquals(-1, snapshot.indexOf("T"));
+        assertEquals(-1, snapshot.indexOf("TZZZZZ"));
+        assertEquals(-1, snapshot.indexOf("XYZ"));
+        assertEquals(-1, snapshot.indexOf(null));
+        assertEquals(-1, new CatalogSnapshot(2, Collections.<String, Tool>emptyMap()).indexOf("CHNS"));
+    }
+
+    // Hundreds of thousands of four-letter codes resolve through the packed table
+    @Test
+    public void test_snapshot_index_of_packed_codes() {
+        Tool ladder = new Tool("Ladder", "Werner", new BigDecimal("1.99"), true, true, false);
+        Tool chainsaw = new Tool("Chainsaw", "Stihl", new BigDecimal("1.49"), true, false, true);
+        Map<String, Tool> tools = new LinkedHashMap<>();
+        for (int i = 0; i < 300_000; i++) {
+            char[] code = new char[4];
+            for (int c = 3, rest = i; c >= 0; c--, rest /= 26) {
+                code[c] = (char) ('A' + rest % 26);
+            }
+            tools.put(new String(code), i % 2 == 0 ? ladder : chainsaw);
+        }
+        tools.put("long-code", chainsaw);
+        CatalogSnapshot snapshot = new CatalogSnapshot(1, tools);
+
+        int index = 0;
+        for (String code : tools.keySet()) {
+            assertEquals(code, index, snapshot.indexOf(code));
+            if (CatalogSnapshot.packCode(code) != CatalogSnapshot.NOT_PACKED) {
+                byte[] bytes = code.getBytes(StandardCharsets.US_ASCII);
+                assertEquals(code, index, snapshot.indexOfPacked(CatalogSnapshot.packCode(bytes, 0, bytes.length)));
+            }
+            index++;
+        }
+        assertEquals(tools.size() - 1, snapshot.indexOf("long-code"));
+        assertEquals(-1, snapshot.indexOf("ZZZZ"));
+        assertEquals(-1, snapshot.indexOf("AAA"));
+        assertEquals(-1, snapshot.indexOfPacked(CatalogSnapshot.NOT_PACKED));
+        assertEquals(199, snapshot.getDailyChargeCents(snapshot.indexOf("AAAA")));
+        assertTrue(snapshot.isWeekendCharge(snapshot.indexOf("AAAA")));
+        assertFalse(snapshot.isHolidayCharge(snapshot.indexOf("AAAA")));
+        assertTrue(snapshot.isHolidayCharge(snapshot.indexOf("AAAB")));
+        assertTrue(snapshot.isWeekdayCharge(snapshot.indexOf("AAAB")));
+        assertTrue(snapshot.isPricedInCents(snapshot.indexOf("AAAA")));
+
+        // A charge in whole cents but at another scale keeps its BigDecimal pricing
+        CatalogSnapshot unscaled = new CatalogSnapshot(1, Collections.singletonMap("WHOL",
+                new Tool("Chainsaw", "Stihl", new BigDecimal("2"), true, false, true)));
+        assertEquals(200, unscaled.getDailyChargeCents(0));
+        assertFalse(unscaled.isPricedInCents(0));
+    }
+
+    // Only one to four printable ASCII characters pack, and distinct codes pack apart
+    @Test
+    public void test_pack_code() {
+        assertEquals(0x4A414B52, CatalogSnapshot.packCode("JAKR"));
+        assertNotEquals(CatalogSnapshot.packCode("AB"), CatalogSnapshot.packCode("AB!"));
+        assertEquals(CatalogSnapshot.NOT_PACKED, CatalogSnapshot.packCode(""));
+        assertEquals(CatalogSnapshot.NOT_PACKED, CatalogSnapshot.packCode("JAKRS"));
+        assertEquals(CatalogSnapshot.NOT_PACKED, CatalogSnapshot.packCode("JA R"));
+        assertEquals(CatalogSnapshot.NOT_PACKED, CatalogSnapshot.packCode("J\u00c9KR"));
+    }
+}
@@ -0,0 +1,80 @@
+package org.example;
+
+import org.example.metrics.RentalMetrics;
+import org.example.model.CheckoutRequest;
+import org.example.model.CheckoutResult;
+import org.example.model.RejectionReason;
+import org.example.model.RentalAgreement;
+import org.example.service.ToolRentalService;
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+public class TryCheckoutTest {
+
+    private static final LocalDate CHECKOUT_DATE = LocalDate.of(2020, 7, 2);
+
+    // A valid request prices exactly as checkout does
+    @Test
+    public void test_try_checkout_matches_checkout() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        CheckoutResult result = toolRentalService.tryCheckout(new CheckoutRequest("JAKR", 9, 50, CHECKOUT_DATE));
+        RentalAgreement expected = toolRentalService.checkout("JAKR", 9, 50, CHECKOUT_DATE);
+        assertTrue(result.isSuccess());
+        assertNull(result.getRejection());
+        assertNull(result.getError());
+        assertEquals(expected.getChargeDays(), result.getRentalAgreement().getChargeDays());
+        assertEquals(expected.getFinalCharge(), result.getRentalAgreement().getFinalCharge());
+    }
+
+    // Invalid requests are rejected with a typed reason and the message checkout would throw
+    @Test
+    public void test_try_checkout_rejects_invalid_requests() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        CheckoutRequest[] requests = {
+                new CheckoutRequest("XXXX", 9, 50, CHECKOUT_DATE),
+                new CheckoutRequest("JAKR", 0, 50, CHECKOUT_DATE),
+                new CheckoutRequest("JAKR", 9, 101, CHECKOUT_DATE),
+                new CheckoutRequest("JAKR", 5, 0, LocalDate.parse("+999999999-12-30")),
+        };
+        RejectionReason[] reasons = {
+                RejectionReason.INVALID_TOOL_CODE, RejectionReason.INVALID_RENTAL_DAYS, RejectionReason.INVALID_DISCOUNT,
+                RejectionReason.INVALID_DUE_DATE,
+        };
+        for (int i = 0; i < requests.length; i++) {
+            CheckoutRequest request = requests[i];
+            CheckoutResult result = toolRentalService.tryCheckout(request);
+            IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> toolRentalService
+                    .checkout(request.getToolCode(), request.getRentalDays(), request.getDiscountPercent(),
+                            request.getCheckoutDate()));
+            assertFalse(result.isSuccess());
+            assertNull(result.getRentalAgreement());
+            assertEquals(reasons[i], result.getRejection());
+            assertEquals(thrown.getMessage(), result.getError());
+        }
+        // A rental may end on the last representable date
+        assertTrue(toolRentalService.tryCheckout(new CheckoutRequest("JAKR", 1, 0, LocalDate.MAX.minusDays(1)))
+                .isSuccess());
+        assertTrue(toolRentalService.tryCheckout(new CheckoutRequest("JAKR", 1, 0, LocalDate.MIN)).isSuccess());
+    }
+
+    // Missing requests and dates are rejections too, and a missing request shares one result
+    @Test
+    public void test_try_checkout_rejects_missing_fields() {
+        ToolRentalService toolRentalService = new ToolRentalService();
+        RentalMetrics metrics = new RentalMetrics();
+        toolRentalService.setMetrics(metrics);
+        CheckoutResult missingRequest = toolRentalService.tryCheckout(null);
+        assertSame(missingRequest, toolRentalService.tryCheckout(null));
+        assertEquals(RejectionReason.MISSING_REQUEST, missingRequest.getRejection());
+        assertEquals("Checkout request is missing", missingRequest.getError());
+
+        CheckoutResult missingDate = toolRentalService.tryCheckout(new CheckoutRequest("JAKR", 9, 50, null));
+        assertEquals(RejectionReason.MISSING_CHECKOUT_DATE, missingDate.getRejection());
+        assertEquals("Checkout date is required", missingDate.getError());
+        assertEquals(2, metrics.getRejectionCount(RejectionReason.MISSING_REQUEST));
+        assertEquals(1, metrics.getRejectionCount(RejectionReason.MISSING_CHECKOUT_DATE));
+    }
+}